@@ -0,0 +1,134 @@
+/**
+ * NameComparatorBenchmark.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.harvard.mcz.nametools.benchmark;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.filteredpush.qc.sciname.benchmark.BenchmarkCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.harvard.mcz.nametools.AuthorNameComparator;
+import edu.harvard.mcz.nametools.EditDistance;
+import edu.harvard.mcz.nametools.ICNafpAuthorNameComparator;
+import edu.harvard.mcz.nametools.ICZNAuthorNameComparator;
+import edu.harvard.mcz.nametools.ScientificNameComparator;
+
+/**
+ * Benchmarks of the comparison of authorship strings and scientific names, each operation
+ * is one pass over the pairs of a corpus.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class NameComparatorBenchmark {
+
+	private List<String[]> icznAuthorship;
+	private List<String[]> icnafpAuthorship;
+	private List<String[]> scientificNames;
+
+	private ICZNAuthorNameComparator icznComparator;
+	private ICNafpAuthorNameComparator icnafpComparator;
+	private ScientificNameComparator nameComparator;
+
+	@Setup
+	public void setup() throws IOException {
+		icznAuthorship = BenchmarkCorpus.load(BenchmarkCorpus.ICZN_AUTHORSHIP);
+		icnafpAuthorship = BenchmarkCorpus.load(BenchmarkCorpus.ICNAFP_AUTHORSHIP);
+		scientificNames = BenchmarkCorpus.load(BenchmarkCorpus.SCIENTIFIC_NAMES);
+		// thresholds as used by AuthorNameComparator.authorNameComparatorFactory()
+		icznComparator = new ICZNAuthorNameComparator(.75d, .5d);
+		icnafpComparator = new ICNafpAuthorNameComparator(.75d, .5d);
+		nameComparator = new ScientificNameComparator();
+	}
+
+	@Benchmark
+	public void icznAuthorCompare(Blackhole blackhole) {
+		Iterator<String[]> i = icznAuthorship.iterator();
+		while (i.hasNext()) { 
+			String[] pair = i.next();
+			blackhole.consume(icznComparator.compare(pair[0], pair[1]));
+		}
+	}
+
+	@Benchmark
+	public void icnafpAuthorCompare(Blackhole blackhole) {
+		Iterator<String[]> i = icnafpAuthorship.iterator();
+		while (i.hasNext()) { 
+			String[] pair = i.next();
+			blackhole.consume(icnafpComparator.compare(pair[0], pair[1]));
+		}
+	}
+
+	@Benchmark
+	public void compareWithoutAuthor(Blackhole blackhole) {
+		Iterator<String[]> i = scientificNames.iterator();
+		while (i.hasNext()) { 
+			String[] pair = i.next();
+			blackhole.consume(nameComparator.compareWithoutAuthor(pair[0], pair[1]));
+		}
+	}
+
+	@Benchmark
+	public void rankCandidates(Blackhole blackhole) {
+		// score every name in the corpus as a candidate match for each name, as when 
+		// choosing the closest of several matches returned by a service
+		for (int i=0; i<scientificNames.size(); i++) { 
+			String name = scientificNames.get(i)[0];
+			double best = -1d;
+			for (int j=0; j<scientificNames.size(); j++) { 
+				double similarity = EditDistance.similarity(name, scientificNames.get(j)[1], Math.max(best, 0d));
+				if (similarity > best) { 
+					best = similarity;
+				}
+			}
+			blackhole.consume(best);
+		}
+	}
+
+	@Benchmark
+	public void authorNameComparatorFactory(Blackhole blackhole) {
+		Iterator<String[]> i = icznAuthorship.iterator();
+		while (i.hasNext()) { 
+			blackhole.consume(AuthorNameComparator.authorNameComparatorFactory(i.next()[0], null));
+		}
+		i = icnafpAuthorship.iterator();
+		while (i.hasNext()) { 
+			blackhole.consume(AuthorNameComparator.authorNameComparatorFactory(i.next()[0], null));
+		}
+	}
+
+}
@@ -0,0 +1,85 @@
+/**
+ * BenchmarkCorpus.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+/**
+ * Loads the name corpora used as benchmark inputs, csv files with a header row bundled
+ * with the benchmarks in the org/filteredpush/qc/sciname/benchmark resource directory.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public class BenchmarkCorpus {
+
+	/** Authorship strings following the ICZN, paired with variants of them. */
+	public static final String ICZN_AUTHORSHIP = "iczn_authorship.csv";
+	/** Authorship strings following the ICNafp, paired with variants of them. */
+	public static final String ICNAFP_AUTHORSHIP = "icnafp_authorship.csv";
+	/** Scientific names without authorship, paired with variants of them. */
+	public static final String SCIENTIFIC_NAMES = "scientific_names.csv";
+	/** Taxon identifiers, well and badly formed. */
+	public static final String IDENTIFIERS = "identifiers.csv";
+	/** Taxon terms from occurrence records, with taxonID, name parts, and taxonRank. */
+	public static final String TAXA = "taxa.csv";
+
+	/**
+	 * Load a corpus.
+	 *
+	 * @param corpus the file name of the corpus, one of the constants of this class.
+	 * @return the rows of the corpus, each as an array of the values of its columns.
+	 * @throws IOException if the corpus can not be read.
+	 */
+	public static List<String[]> load(String corpus) throws IOException {
+		List<String[]> result = new ArrayList<String[]>();
+		InputStream stream = BenchmarkCorpus.class.getResourceAsStream(corpus);
+		if (stream==null) { 
+			throw new IOException("Benchmark corpus " + corpus + " not found on the classpath.");
+		}
+		Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8);
+		try { 
+			CSVParser records = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(reader);
+			Iterator<CSVRecord> i = records.iterator();
+			while (i.hasNext()) { 
+				CSVRecord record = i.next();
+				String[] row = new String[record.size()];
+				for (int c=0; c<record.size(); c++) { 
+					row[c] = record.get(c);
+				}
+				result.add(row);
+			}
+			records.close();
+		} finally { 
+			reader.close();
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,113 @@
+/**
+ * DwCSciNameDQBenchmark.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.benchmark;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.filteredpush.qc.sciname.DwCSciNameDQ;
+import org.filteredpush.qc.sciname.LSID;
+import org.filteredpush.qc.sciname.RFC8141URN;
+import org.filteredpush.qc.sciname.RankVocabulary;
+import org.filteredpush.qc.sciname.URNFormatException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the identifier parsing and the DQ tests that run without any remote
+ * lookup, each operation is one pass over the rows of a corpus.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class DwCSciNameDQBenchmark {
+
+	private List<String[]> identifiers;
+	private List<String[]> taxa;
+
+	@Setup
+	public void setup() throws IOException {
+		identifiers = BenchmarkCorpus.load(BenchmarkCorpus.IDENTIFIERS);
+		taxa = BenchmarkCorpus.load(BenchmarkCorpus.TAXA);
+		// load the rank vocabulary outside of the measurement
+		RankVocabulary.getInstance();
+	}
+
+	@Benchmark
+	public void isRFC8141URN(Blackhole blackhole) {
+		Iterator<String[]> i = identifiers.iterator();
+		while (i.hasNext()) { 
+			blackhole.consume(RFC8141URN.isRFC8141URN(i.next()[0]));
+		}
+	}
+
+	@Benchmark
+	public void parseLSID(Blackhole blackhole) {
+		Iterator<String[]> i = identifiers.iterator();
+		while (i.hasNext()) { 
+			try { 
+				blackhole.consume(new LSID(i.next()[0]));
+			} catch (URNFormatException e) {
+				blackhole.consume(e);
+			}
+		}
+	}
+
+	@Benchmark
+	public void validationTaxonidComplete(Blackhole blackhole) {
+		Iterator<String[]> i = taxa.iterator();
+		while (i.hasNext()) { 
+			blackhole.consume(DwCSciNameDQ.validationTaxonidComplete(i.next()[0]));
+		}
+	}
+
+	@Benchmark
+	public void validationPolynomialConsistent(Blackhole blackhole) {
+		Iterator<String[]> i = taxa.iterator();
+		while (i.hasNext()) { 
+			String[] taxon = i.next();
+			blackhole.consume(DwCSciNameDQ.validationPolynomialConsistent(taxon[1], taxon[2], taxon[3], taxon[4]));
+		}
+	}
+
+	@Benchmark
+	public void validationTaxonrankStandard(Blackhole blackhole) {
+		Iterator<String[]> i = taxa.iterator();
+		while (i.hasNext()) { 
+			blackhole.consume(DwCSciNameDQ.validationTaxonrankStandard(i.next()[5], null));
+		}
+	}
+
+}
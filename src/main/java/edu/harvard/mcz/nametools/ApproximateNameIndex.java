@@ -0,0 +1,289 @@
+/**
+ * ApproximateNameIndex.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.harvard.mcz.nametools;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Index of names for finding the names within a small edit distance of a name, such as
+ * the probable correct spellings of a misspelled scientific name in a checklist.
+ *
+ * Each name is split into maxDistance+1 segments.  A name within maxDistance edits of
+ * another must contain one of its segments unchanged, displaced by at most maxDistance
+ * characters, so a search need only look up the substrings of the name searched for
+ * that could be such a segment, and compute the edit distance to the few names found.
+ * Names are held lower cased and with whitespace normalized, packed into a single char
+ * array, and the segments are held as hashes in a sorted array of longs, so that an
+ * index of the canonical names of a large checklist takes little more memory than the
+ * names themselves.  The index of segments is built on the first search after names
+ * are added.
+ *
+ * Adding names is not thread safe, searches are safe for concurrent use once all names
+ * have been added.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public class ApproximateNameIndex {
+
+	/** Largest edit distance that can be searched for in an index created with the default constructor. */
+	public static final int DEFAULT_MAX_DISTANCE = 2;
+
+	private final int maxDistance;
+
+	private char[] characters = new char[16384];
+	private int characterCount = 0;
+	/** Start of each name in characters, with one extra entry marking the end of the last name. */
+	private int[] starts = new int[1025];
+	private int size = 0;
+
+	/** Packed hash of length, position, and segment (high) and name number (low), sorted, null until built. */
+	private long[] segmentIndex = null;
+
+	/**
+	 * Create an index for searches for names within DEFAULT_MAX_DISTANCE edits.
+	 */
+	public ApproximateNameIndex() {
+		this(DEFAULT_MAX_DISTANCE);
+	}
+
+	/**
+	 * Create an index for searches for names within a given number of edits, memory use
+	 * is proportional to one more than that number.
+	 *
+	 * @param maxDistance the largest edit distance that will be searched for.
+	 * @throws IllegalArgumentException if maxDistance is negative.
+	 */
+	public ApproximateNameIndex(int maxDistance) {
+		if (maxDistance < 0) { 
+			throw new IllegalArgumentException("Edit distance can't be negative: " + maxDistance);
+		}
+		this.maxDistance = maxDistance;
+	}
+
+	/**
+	 * Add a name to the index.
+	 *
+	 * @param name the name to add, ignored if null or blank.
+	 * @return true if the name was added, false if it was blank.
+	 */
+	public boolean add(String name) {
+		String key = normalize(name);
+		if (key.length()==0) { 
+			return false;
+		}
+		if (size + 1 == starts.length) { 
+			starts = Arrays.copyOf(starts, starts.length * 2);
+		}
+		while (characterCount + key.length() > characters.length) { 
+			characters = Arrays.copyOf(characters, characters.length * 2);
+		}
+		key.getChars(0, key.length(), characters, characterCount);
+		characterCount += key.length();
+		size++;
+		starts[size] = characterCount;
+		segmentIndex = null;
+		return true;
+	}
+
+	/**
+	 * @return the number of names added to the index.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the largest edit distance that can be searched for.
+	 */
+	public int getMaxDistance() {
+		return maxDistance;
+	}
+
+	/**
+	 * Find the names within an edit distance of a name, ignoring case.
+	 *
+	 * @param name the name to look for.
+	 * @param distance the largest edit distance of interest, at most getMaxDistance().
+	 * @param limit the maximum number of matches to return.
+	 * @return a list, possibly empty, of the distinct matching names, closest first, and in
+	 *   alphabetical order for matches at the same distance.
+	 * @throws IllegalArgumentException if distance is negative or more than getMaxDistance().
+	 */
+	public List<Match> find(String name, int distance, int limit) {
+		if (distance < 0 || distance > maxDistance) { 
+			throw new IllegalArgumentException("Edit distance must be between 0 and " + maxDistance + ", not " + distance);
+		}
+		List<Match> result = new ArrayList<Match>();
+		String key = normalize(name);
+		if (size==0 || key.length()==0 || limit < 1) { 
+			return result;
+		}
+		long[] index = getSegmentIndex();
+		int length = key.length();
+		Set<Integer> checked = new HashSet<Integer>();
+		Set<String> found = new HashSet<String>();
+		for (int otherLength = Math.max(1, length - distance); otherLength <= length + distance; otherLength++) { 
+			for (int segment=0; segment<=maxDistance; segment++) { 
+				int segmentStart = segmentStart(otherLength, segment);
+				int segmentLength = segmentStart(otherLength, segment + 1) - segmentStart;
+				int first = Math.max(0, segmentStart - distance);
+				int last = Math.min(length - segmentLength, segmentStart + distance);
+				for (int position=first; position<=last; position++) { 
+					int hash = hash(otherLength, segment, key, position, segmentLength);
+					int match = lowerBound(index, hash);
+					while (match < index.length && (int)(index[match] >> 32) == hash) { 
+						Integer candidate = Integer.valueOf((int)index[match]);
+						if (checked.add(candidate)) { 
+							CharSequence candidateName = name(candidate.intValue());
+							int candidateDistance = EditDistance.distance(key, candidateName, distance);
+							if (candidateDistance >= 0 && found.add(candidateName.toString())) { 
+								result.add(new Match(candidateName.toString(), candidateDistance));
+							}
+						}
+						match++;
+					}
+				}
+			}
+		}
+		Collections.sort(result, new Comparator<Match>() {
+			@Override
+			public int compare(Match o1, Match o2) {
+				if (o1.getDistance() != o2.getDistance()) { 
+					return o1.getDistance() < o2.getDistance() ? -1 : 1;
+				}
+				return o1.getName().compareTo(o2.getName());
+			}
+		});
+		if (result.size() > limit) { 
+			result = new ArrayList<Match>(result.subList(0, limit));
+		}
+		return result;
+	}
+
+	/**
+	 * Lower case a name and collapse runs of whitespace to single spaces, the form in
+	 * which names are indexed and compared.
+	 *
+	 * @param name the name to normalize.
+	 * @return the normalized name, or an empty string if name is null.
+	 */
+	public static String normalize(String name) {
+		if (name==null) { 
+			return "";
+		}
+		return name.trim().replaceAll("\\s+", " ").toLowerCase();
+	}
+
+	private synchronized long[] getSegmentIndex() {
+		if (segmentIndex==null) { 
+			long[] entries = new long[size * (maxDistance + 1)];
+			int count = 0;
+			for (int i=0; i<size; i++) { 
+				int length = starts[i + 1] - starts[i];
+				CharSequence name = name(i);
+				for (int segment=0; segment<=maxDistance; segment++) { 
+					int segmentStart = segmentStart(length, segment);
+					int hash = hash(length, segment, name, segmentStart, segmentStart(length, segment + 1) - segmentStart);
+					entries[count++] = ((long)hash << 32) | (i & 0xFFFFFFFFL);
+				}
+			}
+			Arrays.sort(entries);
+			segmentIndex = entries;
+		}
+		return segmentIndex;
+	}
+
+	/**
+	 * Start of a segment of a name of a given length, segments differ in length by at most
+	 * one, with the longer segments last.
+	 */
+	private int segmentStart(int length, int segment) {
+		int segments = maxDistance + 1;
+		int shortLength = length / segments;
+		int shortSegments = segments - length % segments;
+		if (segment <= shortSegments) { 
+			return segment * shortLength;
+		}
+		return shortSegments * shortLength + (segment - shortSegments) * (shortLength + 1);
+	}
+
+	private static int hash(int length, int segment, CharSequence name, int start, int segmentLength) {
+		int result = length * 31 + segment;
+		for (int i=start; i<start + segmentLength; i++) { 
+			result = result * 31 + name.charAt(i);
+		}
+		return result;
+	}
+
+	private static int lowerBound(long[] index, int hash) {
+		int position = Arrays.binarySearch(index, (long)hash << 32);
+		if (position < 0) { 
+			position = -position - 1;
+		}
+		return position;
+	}
+
+	private CharSequence name(int number) {
+		return CharBuffer.wrap(characters, starts[number], starts[number + 1] - starts[number]);
+	}
+
+	/**
+	 * A name found in the index, with its edit distance from the name searched for.
+	 */
+	public static class Match {
+		private final String name;
+		private final int distance;
+
+		/**
+		 * @param name the name, in the normalized form held in the index.
+		 * @param distance the edit distance from the name searched for.
+		 */
+		public Match(String name, int distance) {
+			this.name = name;
+			this.distance = distance;
+		}
+
+		/**
+		 * @return the name, lower cased.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the edit distance from the name searched for.
+		 */
+		public int getDistance() {
+			return distance;
+		}
+
+		@Override
+		public String toString() {
+			return name + " (" + distance + ")";
+		}
+	}
+
+}
@@ -20,8 +20,6 @@ package edu.harvard.mcz.nametools;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.apache.commons.lang3.StringUtils;
-
 /**
  * Parent of class hierarchy for making comparisons between pairs of authorship strings
  * of scientific names.  Authorship strings can contain authors of names, authorship role
@@ -53,6 +51,21 @@ public abstract class AuthorNameComparator {
 	 */
 	public abstract NameComparison compare(String anAuthor, String toOtherAuthor);
 	
+	/**
+	 * Compare two normalized authorship strings, and assert a comparison between the
+	 * two in the form of a NameComparison.  Normalize an authorship string that is to be 
+	 * compared with several others once with NormalizedAuthorship.valueOf() and pass
+	 * the normalized form to each comparison.
+	 *
+	 * @param anAuthor one normalized authorship string for comparison
+	 * @param toOtherAuthor the other normalized authorship string to compare to.
+	 * @return a NameComparison classifying the match between the two authorship strings.
+	 * @see NormalizedAuthorship
+	 */
+	public NameComparison compareNormalized(NormalizedAuthorship anAuthor, NormalizedAuthorship toOtherAuthor) { 
+		return compare(anAuthor==null ? null : anAuthor.getAuthorship(), toOtherAuthor==null ? null : toOtherAuthor.getAuthorship());
+	}
+	
 	/**
 	 * Given an authorship string and a kingdom, guess at the correct author name comparator to use.
 	 *
@@ -284,10 +297,7 @@ public abstract class AuthorNameComparator {
 	 */
 	public static boolean calculateHasYear(String authorship) { 
 		boolean result = false;
-		if (authorship!=null && 
-				authorship.matches("(^|.*[^0-9]+)[12][0-9]{3}([^0-9]+.*|$)") 
-			) 
-		{
+		if (authorship!=null && NormalizedAuthorship.valueOf(authorship).hasYear()) { 
 			result = true;
 		}		
 		return result;
@@ -301,7 +311,7 @@ public abstract class AuthorNameComparator {
 	 */
 	public static boolean calculateHasParen(String authorship) { 
 		boolean result = false;
-		if (authorship!=null && authorship.replaceAll("[^()]", "").equals("()")) { 
+		if (authorship!=null && NormalizedAuthorship.valueOf(authorship).hasParen()) { 
 			result = true;
 		}
 		return result;
@@ -373,8 +383,8 @@ public abstract class AuthorNameComparator {
 	 * @return a double in the range 0 to 1 where 0 is no similarity and 1 is an exact match.
 	 */
 	public static double calulateSimilarityOfAuthor(String anAuthor, String toOtherAuthor) { 
-		String au = toOtherAuthor.toLowerCase().replaceAll("[, ]", "");
-		String au1 = anAuthor.toLowerCase().replaceAll("[, ]", "");
+		String au = NormalizedAuthorship.valueOf(toOtherAuthor).getWithoutSpacesAndCommas();
+		String au1 = NormalizedAuthorship.valueOf(anAuthor).getWithoutSpacesAndCommas();
 		return AuthorNameComparator.stringSimilarity(au, au1);
 	}
 
@@ -390,8 +400,8 @@ public abstract class AuthorNameComparator {
 	 * @return a double in the range 0 to 1 where 0 is no similarity and 1 is an exact match.
 	 */
 	public static double calulateSimilarityOfAuthorAlpha(String anAuthor, String toOtherAuthor) { 
-		String au = toOtherAuthor.toLowerCase().replaceAll("[^A-Za-z]", "");
-		String au1 = anAuthor.toLowerCase().replaceAll("[^A-Za-z]", "");
+		String au = NormalizedAuthorship.valueOf(toOtherAuthor).getLetters();
+		String au1 = NormalizedAuthorship.valueOf(anAuthor).getLetters();
 		return AuthorNameComparator.stringSimilarity(au, au1);
 	}
 
@@ -405,20 +415,7 @@ public abstract class AuthorNameComparator {
 	 * @return a double in the range 0 to 1.
 	 */
 	public static double stringSimilarity(String string1, String string2) {
-		double result;
-		String longer = string1;
-		String shorter = string2;
-		if (string1.length() < string2.length()) {
-			// flip so that longer string is the longest.
-			longer = string2;
-			shorter = string1;
-		}
-		if (longer.length() == 0) { 
-			result =  1.0; 
-		} else { 
-			result =  (longer.length() - StringUtils.getLevenshteinDistance(longer, shorter)) / (double) longer.length();
-		}
-		return result;
+		return EditDistance.similarity(string1, string2);
 	}
 	
 }
@@ -0,0 +1,252 @@
+/**
+ * EditDistance.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.harvard.mcz.nametools;
+
+/**
+ * Levenshtein edit distance and the similarity measure derived from it, with optional bounds
+ * beyond which the exact distance is not needed and the computation stops early.
+ *
+ * Where the shorter string is at most 64 characters, as nearly all names and authorship
+ * strings are, the distance is computed with Myers' bit-parallel algorithm (in the form
+ * given by Hyyrö), which processes a whole column of the edit distance matrix in a few
+ * operations on a long.  Longer strings use the two row dynamic programming algorithm.
+ * Working buffers are held per thread and reused.  Distances are measured in UTF-16 chars,
+ * as by StringUtils.getLevenshteinDistance(), with which results are identical.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public class EditDistance {
+
+	/** Match masks for the chars of the pattern below 256, indexed by char. */
+	private static final ThreadLocal<long[]> masks = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() {
+			return new long[256];
+		}
+	};
+
+	/** Rows of the dynamic programming matrix for strings too long for the bit-parallel algorithm. */
+	private static final ThreadLocal<int[][]> rows = new ThreadLocal<int[][]>() {
+		@Override
+		protected int[][] initialValue() {
+			return new int[][] { new int[128], new int[128] };
+		}
+	};
+
+	/**
+	 * Compute the Levenshtein distance between two strings.
+	 *
+	 * @param string1 one string, not null.
+	 * @param string2 the other string, not null.
+	 * @return the number of single character insertions, deletions, and substitutions
+	 *   needed to turn one string into the other.
+	 */
+	public static int distance(CharSequence string1, CharSequence string2) {
+		return distance(string1, string2, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Compute the Levenshtein distance between two strings, if it does not exceed a bound.
+	 *
+	 * @param string1 one string, not null.
+	 * @param string2 the other string, not null.
+	 * @param maximum the largest distance of interest.
+	 * @return the distance between the strings, or -1 if the distance is greater than maximum.
+	 */
+	public static int distance(CharSequence string1, CharSequence string2, int maximum) {
+		if (maximum<0) { 
+			return -1;
+		}
+		CharSequence shorter = string1;
+		CharSequence longer = string2;
+		if (shorter.length() > longer.length()) { 
+			shorter = string2;
+			longer = string1;
+		}
+		if (longer.length() - shorter.length() > maximum) { 
+			return -1;
+		}
+		if (shorter.length()==0) { 
+			return longer.length();
+		}
+		int result;
+		if (shorter.length() <= 64) { 
+			result = bitParallel(shorter, longer, maximum);
+		} else { 
+			result = twoRow(shorter, longer, maximum);
+		}
+		return result;
+	}
+
+	/**
+	 * Return a measure of the similarity between two strings in the range of 0 (no similarity)
+	 * to 1 (exact same strings), the length of the longer string less the edit distance
+	 * between them, divided by the length of the longer string.
+	 *
+	 * @param string1 one string, not null.
+	 * @param string2 the other string, not null.
+	 * @return a double in the range 0 to 1.
+	 */
+	public static double similarity(String string1, String string2) {
+		int length = Math.max(string1.length(), string2.length());
+		if (length==0) { 
+			return 1.0d;
+		}
+		return (length - distance(string1, string2)) / (double) length;
+	}
+
+	/**
+	 * Return the similarity between two strings, as similarity(String, String), if it is at
+	 * least a minimum, stopping as soon as the minimum can not be reached.  Use where only
+	 * similarities above a threshold matter, such as when comparing against a similarity
+	 * threshold.
+	 *
+	 * @param string1 one string, not null.
+	 * @param string2 the other string, not null.
+	 * @param minimumSimilarity the smallest similarity of interest.
+	 * @return the similarity in the range 0 to 1, or -1 if the similarity is less than
+	 *   minimumSimilarity.
+	 */
+	public static double similarity(String string1, String string2, double minimumSimilarity) {
+		int length = Math.max(string1.length(), string2.length());
+		if (length==0) { 
+			return 1.0d;
+		}
+		// largest distance giving at least the minimum similarity, adjusted for rounding
+		int maximum = (int) Math.floor(length * (1d - minimumSimilarity));
+		if (maximum > length) { 
+			maximum = length;
+		}
+		while (maximum < length && (length - (maximum + 1)) / (double) length >= minimumSimilarity) { 
+			maximum++;
+		}
+		while (maximum >= 0 && (length - maximum) / (double) length < minimumSimilarity) { 
+			maximum--;
+		}
+		int distance = distance(string1, string2, maximum);
+		if (distance<0) { 
+			return -1d;
+		}
+		return (length - distance) / (double) length;
+	}
+
+	/**
+	 * Myers' bit-parallel edit distance, for a pattern of 1 to 64 chars, with the score
+	 * tracked in the last row of the matrix.
+	 */
+	private static int bitParallel(CharSequence pattern, CharSequence text, int maximum) {
+		int m = pattern.length();
+		int n = text.length();
+		long[] peq = masks.get();
+		for (int i=0; i<m; i++) { 
+			char c = pattern.charAt(i);
+			if (c<256) { 
+				peq[c] |= 1L << i;
+			}
+		}
+		long last = 1L << (m - 1);
+		long pv = -1L;
+		long mv = 0L;
+		int score = m;
+		int result = -1;
+		boolean exceeded = false;
+		for (int j=0; j<n && !exceeded; j++) { 
+			char c = text.charAt(j);
+			long eq;
+			if (c<256) { 
+				eq = peq[c];
+			} else { 
+				eq = 0L;
+				for (int i=0; i<m; i++) { 
+					if (pattern.charAt(i)==c) { 
+						eq |= 1L << i;
+					}
+				}
+			}
+			long xv = eq | mv;
+			long xh = (((eq & pv) + pv) ^ pv) | eq;
+			long ph = mv | ~(xh | pv);
+			long mh = pv & xh;
+			if ((ph & last) != 0) { 
+				score++;
+			} else if ((mh & last) != 0) { 
+				score--;
+			}
+			// the first row of the matrix increases by one in each column
+			ph = (ph << 1) | 1L;
+			mh = mh << 1;
+			pv = mh | ~(xv | ph);
+			mv = ph & xv;
+			// the score can decrease by at most one for each remaining column
+			if (score - (n - j - 1) > maximum) { 
+				exceeded = true;
+			}
+		}
+		if (!exceeded) { 
+			result = score;
+		}
+		for (int i=0; i<m; i++) { 
+			char c = pattern.charAt(i);
+			if (c<256) { 
+				peq[c] = 0L;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Two row dynamic programming edit distance, stopping when every entry in a row
+	 * exceeds the maximum.
+	 */
+	private static int twoRow(CharSequence shorter, CharSequence longer, int maximum) {
+		int m = shorter.length();
+		int n = longer.length();
+		int[][] buffers = rows.get();
+		if (buffers[0].length < m + 1) { 
+			buffers[0] = new int[m + 1];
+			buffers[1] = new int[m + 1];
+		}
+		int[] previous = buffers[0];
+		int[] current = buffers[1];
+		for (int i=0; i<=m; i++) { 
+			previous[i] = i;
+		}
+		for (int j=1; j<=n; j++) { 
+			char c = longer.charAt(j - 1);
+			current[0] = j;
+			int rowMinimum = j;
+			for (int i=1; i<=m; i++) { 
+				int cost = shorter.charAt(i - 1)==c ? 0 : 1;
+				int value = Math.min(Math.min(current[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+				current[i] = value;
+				if (value < rowMinimum) { 
+					rowMinimum = value;
+				}
+			}
+			if (rowMinimum > maximum) { 
+				return -1;
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[m] > maximum ? -1 : previous[m];
+	}
+
+}
@@ -18,12 +18,10 @@
 package edu.harvard.mcz.nametools;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -38,6 +36,35 @@ import org.apache.commons.logging.LogFactory;
 public class ICNafpAuthorNameComparator extends AuthorNameComparator {
 	
 	private static final Log logger = LogFactory.getLog(ICNafpAuthorNameComparator.class);
+
+	/** Unusual standard abbreviations of author names, and the names they abbreviate. */
+	private static final Map<String,String> KNOWN_ABBREVIATIONS = new HashMap<String,String>();
+	static { 
+		KNOWN_ABBREVIATIONS.put("DC", "de Candolle");
+		KNOWN_ABBREVIATIONS.put("Mendoza-García", "M Mendoza G");
+		KNOWN_ABBREVIATIONS.put("L f", "C Linnaeus f");
+		KNOWN_ABBREVIATIONS.put("Müll Arg", "J. Müller Arg");
+		KNOWN_ABBREVIATIONS.put("Ruiz","H Ruíz L");
+		KNOWN_ABBREVIATIONS.put("Germ","J N E Germain S-P");
+		KNOWN_ABBREVIATIONS.put("Müll Berol","K Müller Berol");
+		KNOWN_ABBREVIATIONS.put("Chick","J W Chickering, Jr");
+		KNOWN_ABBREVIATIONS.put("Velez-Nauer","C Vélez N");
+		KNOWN_ABBREVIATIONS.put("Ibarra-Manr","G Ibarra M");
+		KNOWN_ABBREVIATIONS.put("Vera-Caletti","P Vera C");
+		KNOWN_ABBREVIATIONS.put("Cházaro","M J Chazaro B");
+		KNOWN_ABBREVIATIONS.put("Sahagun","E Sahagún G");
+		KNOWN_ABBREVIATIONS.put("Marrero Rodr","A Marrero R");
+		KNOWN_ABBREVIATIONS.put("Magalh","C T Magalhães G");
+		KNOWN_ABBREVIATIONS.put("Lucas Rodr","R L Rodriguez C");
+		KNOWN_ABBREVIATIONS.put("M Schultz","Schultz, M");
+		KNOWN_ABBREVIATIONS.put("Hechav","L Hechavarría S");
+		KNOWN_ABBREVIATIONS.put("FrancGut","J A Francisco Gut");
+		KNOWN_ABBREVIATIONS.put("Karnk","A Karnkowska-Ish");
+		KNOWN_ABBREVIATIONS.put("Sm","J E Smith");
+		KNOWN_ABBREVIATIONS.put("Hue","A-M Hue");
+		KNOWN_ABBREVIATIONS.put("Day","M A Day");
+		KNOWN_ABBREVIATIONS.put("Fr","E M Fries");
+	}
 	
 	/**
 	 *  Threshold of similarity (0-1) over which strong similarity is asserted.
@@ -72,20 +99,29 @@ public class ICNafpAuthorNameComparator extends AuthorNameComparator {
 	/** {@inheritDoc} */
 	@Override
 	public NameComparison compare(String anAuthor, String toOtherAuthor) {
+		return compareNormalized(NormalizedAuthorship.valueOf(anAuthor), NormalizedAuthorship.valueOf(toOtherAuthor));
+	}
+	
+	/** {@inheritDoc} */
+	@Override
+	public NameComparison compareNormalized(NormalizedAuthorship anAuthorNormalized, NormalizedAuthorship toOtherAuthorNormalized) {
 		
+		String anAuthor = anAuthorNormalized==null ? null : anAuthorNormalized.getAuthorship();
+		String toOtherAuthor = toOtherAuthorNormalized==null ? null : toOtherAuthorNormalized.getAuthorship();
 		NameComparison result = new NameComparison(anAuthor, toOtherAuthor);
 		
         result.setMatchType(NameComparison.MATCH_ERROR);
 		if (anAuthor==null || toOtherAuthor==null) {
 		    result.setMatchType(NameComparison.MATCH_ERROR);
 		} else { 
-			if (anAuthor.equals(toOtherAuthor) 
-					|| anAuthor.toLowerCase().replaceAll("[ .,]", "").equals(toOtherAuthor.toLowerCase().replaceAll("[ .,]", ""))) 
+			NormalizedAuthorship an = anAuthorNormalized;
+			NormalizedAuthorship other = toOtherAuthorNormalized;
+			if (anAuthor.equals(toOtherAuthor) || an.getCompact().equals(other.getCompact())) 
 			{ 
 				result.setMatchType(NameComparison.MATCH_EXACT);
 				result.setSimilarity(1.0d);
 			} else {
-				double similarity = AuthorNameComparator.calulateSimilarityOfAuthor(anAuthor, toOtherAuthor);
+				double similarity = AuthorNameComparator.stringSimilarity(other.getWithoutSpacesAndCommas(), an.getWithoutSpacesAndCommas());
 				result.setSimilarity(similarity);
 				if (anAuthor.length()==0 && toOtherAuthor.length()> 0 ) { 
 					result.setMatchType(NameComparison.MATCH_ADDSAUTHOR);
@@ -97,16 +133,14 @@ public class ICNafpAuthorNameComparator extends AuthorNameComparator {
 					} else { 
 						result.setMatchType(NameComparison.MATCH_STRONGDISSIMILAR);
 					}
-					double similarityAlpha = AuthorNameComparator.calulateSimilarityOfAuthorAlpha(anAuthor, toOtherAuthor);
-					boolean parenSame = ICNafpAuthorNameComparator.calculateHasParen(anAuthor)==ICNafpAuthorNameComparator.calculateHasParen(toOtherAuthor);
-					
+					// only an exact match of the letters is distinguished
+					double similarityAlpha = EditDistance.similarity(other.getLetters(), an.getLetters(), 1d);
+					boolean parenSame = an.hasParen()==other.hasParen();
 					
-					List<String> anAuthorBits = tokenizeAuthorship(anAuthor);
-					List<String> toOtherAuthorBits = tokenizeAuthorship(toOtherAuthor);
-					if (anAuthorBits.size() != toOtherAuthorBits.size()) { 
+					if (an.getTokens().size() != other.getTokens().size()) { 
 						result.setMatchType(NameComparison.MATCH_PARTSDIFFER);
 					} else { 
-						if (ICNafpAuthorNameComparator.matchedOnWordsInTokens(anAuthor, toOtherAuthor)) { 
+						if (ICNafpAuthorNameComparator.matchedOnWordsInTokens(an, other)) { 
 							result.setMatchType(NameComparison.MATCH_SAMEBUTABBREVIATED);
 						}
 					}
@@ -142,69 +176,63 @@ public class ICNafpAuthorNameComparator extends AuthorNameComparator {
 	 * otherwise return false.
 	 */
 	public static boolean matchedOnWordsInTokens(String anAuthor, String toOtherAuthor) {
-		logger.debug("in matchedOnWordsInTokens(" + anAuthor + "," + toOtherAuthor + ")");
-		// TODO: Break this into several methods, called from this method, each 
-		// method with its own unit tests, this assembly is large enough to be difficult to 
-		// debug when tests fail.
+		// null has no tokens, as does an empty string
+		return matchedOnWordsInTokens(NormalizedAuthorship.valueOf(anAuthor==null ? "" : anAuthor), NormalizedAuthorship.valueOf(toOtherAuthor==null ? "" : toOtherAuthor));
+	}
+	
+	/**
+	 * Compare the two normalized author strings to see if they look like differing abbreviations
+	 * of the same set of authors in the same semantic positions.
+	 *
+	 * @param anAuthor for the comparison
+	 * @param toOtherAuthor to compare with anAuthor
+	 * @return true if each semantic piece of the two author strings is the same, or if
+	 * each semantic piece appears to be an abbreviation of the corresponding semantic piece
+	 * otherwise return false.
+	 * @see #matchedOnWordsInTokens(String, String)
+	 */
+	public static boolean matchedOnWordsInTokens(NormalizedAuthorship anAuthor, NormalizedAuthorship toOtherAuthor) {
 		boolean result = false;
-		List<String> anAuthorBits = tokenizeAuthorship(anAuthor);
-		List<String> toOtherAuthorBits = tokenizeAuthorship(toOtherAuthor);
+		List<String> anAuthorBits = anAuthor.getTokens();
+		List<String> toOtherAuthorBits = toOtherAuthor.getTokens();
 		if (anAuthorBits.size() == toOtherAuthorBits.size()) { 
-			Iterator<String> iA = anAuthorBits.iterator();
-			Iterator<String> iO = toOtherAuthorBits.iterator();
 			boolean foundMissmatch = false;
-			while (iA.hasNext()) { 
-				String anAuthorBit = iA.next();
-				String toOtherAuthorBit = iO.next();
+			for (int j=0; j<anAuthorBits.size(); j++) { 
+				String anAuthorBit = anAuthorBits.get(j);
+				String toOtherAuthorBit = toOtherAuthorBits.get(j);
 	    		if (shorterButNotAbbreviation(anAuthorBit, toOtherAuthorBit)) { 
 	    			// declare a missmatch.
 	    			foundMissmatch = true;
-	    			logger.debug("Missmatch shorter but not abbreviation: " + anAuthorBit + ":" + toOtherAuthorBit);
 	    		}
 				if (!anAuthorBit.equals(toOtherAuthorBit)) {
 					// Check if initials are the same
-					if (initalsAreDifferent(anAuthorBit, toOtherAuthorBit)) { 
+					String initA = anAuthor.getTokenInitials().get(j);
+					String initO = toOtherAuthor.getTokenInitials().get(j);
+					if (!initA.equals(initO) && initA.length()==initO.length() && initA.length()>0) { 
 						foundMissmatch = true;
-	    				 logger.debug("Missmatch: " + anAuthorBit + ":" + toOtherAuthorBit);
+	    				logger.debug("Different Initials: " + initA + ":" + initO);
 					}
 
-					// remove punctuation.
-		 			anAuthorBit = anAuthorBit.replaceAll("[^A-Za-z ::alpha::]", " ");
-					toOtherAuthorBit = toOtherAuthorBit.replaceAll("[^A-Za-z ::alpha::]", " ");
+					// without punctuation.
+		 			anAuthorBit = anAuthor.getTokenLetters().get(j);
+					toOtherAuthorBit = toOtherAuthor.getTokenLetters().get(j);
 					if (anAuthorBit.trim().equals("L") && toOtherAuthorBit.equals("Lamarck")) { 
 						// Special case, botany, fail
 						foundMissmatch = true;
-	    				logger.debug("Missmatch: " + anAuthorBit + ": " + toOtherAuthorBit);
 					}
 					if (anAuthorBit.trim().equals("Lamarck") && toOtherAuthorBit.equals("L")) { 
 						// Special case, botany, fail
 						foundMissmatch = true;
-	    				logger.debug("Missmatch: " + anAuthorBit + ": " + toOtherAuthorBit);
-					}
-					// remove single letters (except if authorbit is only a single letter) 
-					if (!anAuthorBit.trim().matches("^[A-Z]$")) { 
-					   anAuthorBit = anAuthorBit.replaceAll("^[A-Z] ", " ");
-					   anAuthorBit = anAuthorBit.replaceAll(" [A-Z] ", " ");
-					   anAuthorBit = anAuthorBit.replaceAll(" [A-Z]$", " ");
 					}
-					if (!toOtherAuthorBit.trim().matches("^[A-Z]$")) { 
-					   toOtherAuthorBit = toOtherAuthorBit.replaceAll("^[A-Z] ", " ");
-					   toOtherAuthorBit = toOtherAuthorBit.replaceAll(" [A-Z] ", " ");
-					   toOtherAuthorBit = toOtherAuthorBit.replaceAll(" [A-Z]$", " ");
-					}
-					anAuthorBit = anAuthorBit.trim();
-					toOtherAuthorBit = toOtherAuthorBit.trim();
-					// remove double spaces
-					anAuthorBit = anAuthorBit.replaceAll("  ", " ").trim();
-					toOtherAuthorBit = toOtherAuthorBit.replaceAll("  ", " ").trim();
-					logger.debug(anAuthorBit);
-					logger.debug(toOtherAuthorBit);
-					List<String> anAuthorSubBits = Arrays.asList(anAuthorBit.trim().split(" "));
-					List<String> toOtherAuthorSubBits = Arrays.asList(toOtherAuthorBit.trim().split(" "));
+					// without single letters or double spaces
+					anAuthorBit = anAuthor.getTokenWords().get(j);
+					toOtherAuthorBit = toOtherAuthor.getTokenWords().get(j);
+					List<String> anAuthorSubBits = anAuthor.getTokenSubBits().get(j);
+					List<String> toOtherAuthorSubBits = toOtherAuthor.getTokenSubBits().get(j);
 					if (!knownMatch(anAuthorBit, toOtherAuthorBit)) { 
 						if (anAuthorSubBits.size()!=toOtherAuthorSubBits.size()) {
 							foundMissmatch = true;
-							logger.debug("Missmatch: " + anAuthorBit.trim() + " " + anAuthorSubBits.size() + ": " + toOtherAuthorBit.trim() + " " + toOtherAuthorSubBits.size());
+							logger.debug("Missmatch: " + anAuthorBit + " " + anAuthorSubBits.size() + ": " + toOtherAuthorBit + " " + toOtherAuthorSubBits.size());
 						} else { 
 							Iterator<String> iAsb = anAuthorSubBits.iterator();
 							Iterator<String> iOsb = toOtherAuthorSubBits.iterator();
@@ -222,7 +250,6 @@ public class ICNafpAuthorNameComparator extends AuthorNameComparator {
 			}
 			result = !foundMissmatch;
 		}
-		logger.debug("matchedOnWordsInTokens(): " + result);
 		return result;
 	}
 	
@@ -233,14 +260,7 @@ public class ICNafpAuthorNameComparator extends AuthorNameComparator {
 	 * @return portion of name that fits the pattern of initials.
 	 */
 	public static String extractInitials(String name) { 
-		StringBuffer result = new StringBuffer();
-		Pattern p = Pattern.compile("(^| |\\()[A-Z]\\.");
-		Matcher matcher = p.matcher(name.replaceAll("\\.", ". "));
-		while (matcher.find()) { 
-			String match = matcher.group();
-			result.append(match.replaceAll("[^A-Z]", ""));
-		}
-		return result.toString();
+		return NormalizedAuthorship.extractInitials(name);
 	}
 	
 	/**
@@ -286,63 +306,10 @@ public class ICNafpAuthorNameComparator extends AuthorNameComparator {
       * authorship string.
       */
      public static List<String> tokenizeAuthorship(String authorship) { 
-		ArrayList<String> bits = new ArrayList<String>();
-		ArrayList<String> subbits = new ArrayList<String>();
-		ArrayList<String> result = new ArrayList<String>();
-		
-		if (authorship==null || authorship.length()==0) { 
-			return result;
-		}
-		
-		// separate out parenthetical author
-		logger.debug(authorship);
-		if (authorship.matches("^\\(.*\\).+$")) { 
-			String[] parBits = authorship.split("\\)");
-			logger.debug(parBits.length);
-			logger.debug(parBits[0]);
-			bits.add(parBits[0].replaceFirst("^\\(", ""));
-			bits.add(parBits[1]);
-		} else { 
-			bits.add(authorship);
-		}
-
-		// separate out ex author
-		Iterator<String> i = bits.iterator();
-		while (i.hasNext()) { 
-			String bit = i.next();
-			if (bit.contains(" ex ")) { 
-				String[] exBits = bit.split(" ex ");
-				logger.debug(exBits.length);
-				logger.debug(exBits[0]);
-				logger.debug(exBits[1]);
-				subbits.add(exBits[0]);
-				subbits.add(exBits[1]);
-			} else { 
-				logger.debug(bit);
-				subbits.add(bit);
-			}
-
-		}
-
-		// separate out sanctioning author
-		Iterator<String> ir = subbits.iterator();
-		while (ir.hasNext()) { 
-			String bit = ir.next();
-			if (bit.contains(":")) { 
-				String[] exBits = bit.split(":");
-				result.add(exBits[0]);
-				result.add(exBits[1]);
-			} else { 
-				result.add(bit);
-			}
-
-		}		
-		// strip any leading/trailing spaces
-		for (int j=0; j<result.size(); j++) { 
-			result.set(j, result.get(j).trim());
-		}
-		
-		return result;
+    	 if (authorship==null) { 
+    		 return new ArrayList<String>();
+    	 }
+    	 return new ArrayList<String>(NormalizedAuthorship.valueOf(authorship).getTokens());
 	}
      
  	/**
@@ -358,34 +325,8 @@ public class ICNafpAuthorNameComparator extends AuthorNameComparator {
  	public static boolean knownMatch(String anAuthor, String anotherAuthor) {
 		boolean result = false;
 		
-		HashMap<String,String> knowns = new HashMap<String,String>();
-		knowns.put("DC", "de Candolle");
-		knowns.put("Mendoza-García", "M Mendoza G");
-		knowns.put("L f", "C Linnaeus f");
-		knowns.put("Müll Arg", "J. Müller Arg");
-		knowns.put("Ruiz","H Ruíz L");
-		knowns.put("Germ","J N E Germain S-P");
-		knowns.put("Müll Berol","K Müller Berol");
-		knowns.put("Chick","J W Chickering, Jr");
-		knowns.put("Velez-Nauer","C Vélez N");
-		knowns.put("Ibarra-Manr","G Ibarra M");
-		knowns.put("Vera-Caletti","P Vera C");
-		knowns.put("Cházaro","M J Chazaro B");
-		knowns.put("Sahagun","E Sahagún G");
-		knowns.put("Marrero Rodr","A Marrero R");
-		knowns.put("Magalh","C T Magalhães G");
-		knowns.put("Lucas Rodr","R L Rodriguez C");
-		knowns.put("M Schultz","Schultz, M");
-		knowns.put("Hechav","L Hechavarría S");
-		knowns.put("FrancGut","J A Francisco Gut");
-		knowns.put("Karnk","A Karnkowska-Ish");
-		knowns.put("Sm","J E Smith");
-		knowns.put("Hue","A-M Hue");
-		knowns.put("Day","M A Day");
-		knowns.put("Fr","E M Fries");
-		
-		String m1 = knowns.get(anAuthor.replace(".", ""));
-		String m2 = knowns.get(anotherAuthor.replace(".", ""));
+		String m1 = KNOWN_ABBREVIATIONS.get(anAuthor.replace(".", ""));
+		String m2 = KNOWN_ABBREVIATIONS.get(anotherAuthor.replace(".", ""));
 		
 		if ((m1!=null && m1.equals(anotherAuthor)) || (m2!=null && m2.equals(anAuthor))) { 
 			result = true;
@@ -17,6 +17,7 @@
  */
 package edu.harvard.mcz.nametools;
 
+import java.util.regex.Pattern;
 
 /**
  * Make comparisons between pairs of scientificNameAuthor strings, under the assumption
@@ -27,6 +28,12 @@ package edu.harvard.mcz.nametools;
  */
 public class ICZNAuthorNameComparator extends AuthorNameComparator {
 	
+	/** 
+	 * One or two initials followed by a space, what remains of an authorship string with 
+	 * an added initial once the other authorship string has been removed from it.
+	 */
+	private static final Pattern ADDED_INITIALS = Pattern.compile("^[A-Z]\\.([ ]{0,1}[A-Z]\\.){0,1} $");
+	
 	/**
 	 *  Threshold of similarity (0-1) over which strong similarity is asserted.
 	 */
@@ -60,20 +67,28 @@ public class ICZNAuthorNameComparator extends AuthorNameComparator {
 	/** {@inheritDoc} */
 	@Override
 	public NameComparison compare(String anAuthor, String toOtherAuthor) {
+		return compareNormalized(NormalizedAuthorship.valueOf(anAuthor), NormalizedAuthorship.valueOf(toOtherAuthor));
+	}
+	
+	/** {@inheritDoc} */
+	@Override
+	public NameComparison compareNormalized(NormalizedAuthorship anAuthorNormalized, NormalizedAuthorship toOtherAuthorNormalized) {
 		
+		String anAuthor = anAuthorNormalized==null ? null : anAuthorNormalized.getAuthorship();
+		String toOtherAuthor = toOtherAuthorNormalized==null ? null : toOtherAuthorNormalized.getAuthorship();
 		NameComparison result = new NameComparison(anAuthor, toOtherAuthor);
 		
         result.setMatchType(NameComparison.MATCH_ERROR);
 		if (anAuthor==null || toOtherAuthor==null) {
 		    result.setMatchType(NameComparison.MATCH_ERROR);
 		} else { 
-			if (anAuthor.equals(toOtherAuthor) 
-					|| anAuthor.toLowerCase().replaceAll("[ .,]", "").equals(toOtherAuthor.toLowerCase().replaceAll("[ .,]", ""))) 
+			NormalizedAuthorship an = anAuthorNormalized;
+			NormalizedAuthorship other = toOtherAuthorNormalized;
+			if (anAuthor.equals(toOtherAuthor) || an.getCompact().equals(other.getCompact())) 
 			{ 
 				result.setMatchType(NameComparison.MATCH_EXACT);
 				result.setSimilarity(1.0d);
-			} else if (anAuthor.equals(toOtherAuthor) 
-					|| anAuthor.toLowerCase().replaceAll("[ \\[\\].,]", "").equals(toOtherAuthor.toLowerCase().replaceAll("[ \\[\\].,]", ""))) 
+			} else if (an.getCompactWithoutBrackets().equals(other.getCompactWithoutBrackets())) 
 			{ 
 				result.setMatchType(NameComparison.MATCH_EXACT);
 				result.setSimilarity(1.0d);
@@ -81,23 +96,25 @@ public class ICZNAuthorNameComparator extends AuthorNameComparator {
 				if (anAuthor.length()==0 && toOtherAuthor.length()> 0 ) { 
 					result.setMatchType(NameComparison.MATCH_ADDSAUTHOR);
 				} else { 
-					double similarity = ICZNAuthorNameComparator.calulateSimilarityOfAuthor(anAuthor, toOtherAuthor);
+					double similarity = AuthorNameComparator.stringSimilarity(other.getWithoutSpacesAndCommas(), an.getWithoutSpacesAndCommas());
 					result.setSimilarity(similarity);
 					if (similarity > similarityThreshold) { 
 						result.setMatchType(NameComparison.MATCH_AUTHSIMILAR);
 					} else { 
 						result.setMatchType(NameComparison.MATCH_DISSIMILAR);
 					}
-					double similarityAlpha = ICZNAuthorNameComparator.calulateSimilarityOfAuthorAlpha(anAuthor, toOtherAuthor);
-					double similarityAlphaAnd = ICZNAuthorNameComparator.calulateSimilarityOfAuthorAlpha(anAuthor.replace("&", "and"), toOtherAuthor.replace("&", "and"));
-					double similarityYear = ICZNAuthorNameComparator.calulateSimilarityOfAuthorYear(anAuthor, toOtherAuthor);
-					boolean parenSame = ICZNAuthorNameComparator.calculateHasParen(anAuthor)==ICZNAuthorNameComparator.calculateHasParen(toOtherAuthor);
+					// only similarities above the lower threshold are distinguished, and of the alternate
+					// form, only an exact match, so stop computing once these can't be reached.
+					double similarityAlpha = EditDistance.similarity(other.getLetters(), an.getLetters(), Math.min(1d, Math.min(weakThreshold, similarityThreshold)));
+					double similarityAlphaAnd = EditDistance.similarity(other.getLettersWithAnd(), an.getLettersWithAnd(), 1d);
+					double similarityYear = AuthorNameComparator.stringSimilarity(other.getDigits(), an.getDigits());
+					boolean parenSame = an.hasParen()==other.hasParen();
 					
 					if ((similarityAlpha==1d) && parenSame && similarityYear==0d) { 
-						if (ICZNAuthorNameComparator.calculateHasYear(anAuthor) && !ICZNAuthorNameComparator.calculateHasYear(toOtherAuthor)) { 
+						if (an.hasYear() && !other.hasYear()) { 
 							result.setMatchType(NameComparison.MATCH_EXACTMISSINGYEAR);
 						}
-						if (!ICZNAuthorNameComparator.calculateHasYear(anAuthor) && ICZNAuthorNameComparator.calculateHasYear(toOtherAuthor)) { 
+						if (!an.hasYear() && other.hasYear()) { 
 							result.setMatchType(NameComparison.MATCH_EXACTADDSYEAR);
 						}
 					} else { 
@@ -120,14 +137,10 @@ public class ICZNAuthorNameComparator extends AuthorNameComparator {
 						}
 					}
 					if (parenSame && (similarityYear==1d)) { 
-						String testOne = anAuthor.replaceFirst("^\\(", "");
-						String testTwo = toOtherAuthor.replaceFirst("^\\(", "");
+						String testOne = anAuthor.startsWith("(") ? anAuthor.substring(1) : anAuthor;
+						String testTwo = toOtherAuthor.startsWith("(") ? toOtherAuthor.substring(1) : toOtherAuthor;
 						testTwo = testTwo.replace(testOne, "");
-						String pattern = "^[A-Z]\\.([ ]{0,1}[A-Z]\\.){0,1} $";
-						System.out.println(pattern);
-						System.out.println(testOne);
-						System.out.println(testTwo);
-						if (testTwo.matches(pattern)) { 
+						if (ADDED_INITIALS.matcher(testTwo).matches()) { 
 							result.setMatchType(NameComparison.MATCH_ADDSINITIALEXACTYEAR);
 						}
 					}
@@ -140,9 +153,9 @@ public class ICZNAuthorNameComparator extends AuthorNameComparator {
 					if (parenSame && (similarityYear==0d) && similarityAlpha < 1d && anAuthor.contains("L.") && (toOtherAuthor.contains("Lamarck") || toOtherAuthor.contains("Linn"))) { 
 						result.setMatchType(NameComparison.MATCH_L);
 					}
-					if (parenSame && (similarityYear==1d || similarityYear==0d) && similarityAlpha < 1d && ICZNAuthorNameComparator.knownAbbreviation(anAuthor, toOtherAuthor)) {
+					if (parenSame && (similarityYear==1d || similarityYear==0d) && similarityAlpha < 1d && knownAbbreviation(an, other)) { 
 						if (similarityYear==0d) { 
-						    if (!ICZNAuthorNameComparator.calculateHasYear(anAuthor) && ICZNAuthorNameComparator.calculateHasYear(toOtherAuthor)) { 
+						    if (!an.hasYear() && other.hasYear()) { 
 							   result.setMatchType(NameComparison.MATCH_EXACTADDSYEAR);
 						    }
 						} else { 
@@ -175,8 +188,8 @@ public class ICZNAuthorNameComparator extends AuthorNameComparator {
 	 * @return similarity (in the range 0 to 1) between the two strings.
 	 */
 	public static double calulateSimilarityOfAuthorYear(String anAuthor, String toOtherAuthor) { 
-	    String au = toOtherAuthor.toLowerCase().replaceAll("[^0-9]", "");
-	    String au1 = anAuthor.toLowerCase().replaceAll("[^0-9]", "");
+	    String au = NormalizedAuthorship.valueOf(toOtherAuthor).getDigits();
+	    String au1 = NormalizedAuthorship.valueOf(anAuthor).getDigits();
 	    return AuthorNameComparator.stringSimilarity(au, au1);
     }
 	
@@ -187,8 +200,7 @@ public class ICZNAuthorNameComparator extends AuthorNameComparator {
 	 * @return true if author contains 4 numeric digits.
 	 */
 	public static boolean containsYear(String anAuthor) { 
-	    String au = anAuthor.toLowerCase().replaceAll("[^0-9]", "");
-	    return (au.length()==4);
+	    return (NormalizedAuthorship.valueOf(anAuthor).getDigits().length()==4);
     }	
 	
 	/**
@@ -209,9 +221,13 @@ public class ICZNAuthorNameComparator extends AuthorNameComparator {
 	 * @return a boolean.
 	 */
 	public static boolean knownAbbreviation(String anAuthor, String toOtherAuthor) { 
+		return knownAbbreviation(NormalizedAuthorship.valueOf(anAuthor), NormalizedAuthorship.valueOf(toOtherAuthor));
+	}
+	
+	private static boolean knownAbbreviation(NormalizedAuthorship anAuthor, NormalizedAuthorship toOtherAuthor) { 
 		boolean result = false;
-	    String a = anAuthor.replaceAll("[^A-Za-z'é]", "");
-		String oth = toOtherAuthor.replaceAll("[^A-Za-z'é]", "");
+	    String a = anAuthor.getLettersPreservingCase();
+		String oth = toOtherAuthor.getLettersPreservingCase();
 		String longer = oth;
 		String shorter = a;
 		if (longer.length()<shorter.length()) { 
@@ -33,6 +33,7 @@ public class NameAuthorshipParse {
 	private String nameWithoutAuthorship;
 	private String authorship;
 	private String nameWithAuthorship;
+	private String parseSource;
 	
 	/**
 	 * <p>Constructor for NameAuthorshipParse.</p>
@@ -115,6 +116,27 @@ public class NameAuthorshipParse {
 	public void setNameWithAuthorship(String nameWithAuthorship) {
 		this.nameWithAuthorship = nameWithAuthorship;
 	}
-	
+
+	/**
+	 * <p>Getter for the field <code>parseSource</code>.</p>
+	 *
+	 * @return the parser that produced this parse, e.g. the GNI parser service or the 
+	 *   GBIF name parser, empty if not known.
+	 */
+	public String getParseSource() {
+		if (parseSource==null) { 
+			return "";
+		}
+		return parseSource;
+	}
+
+	/**
+	 * <p>Setter for the field <code>parseSource</code>.</p>
+	 *
+	 * @param parseSource the parser that produced this parse
+	 */
+	public void setParseSource(String parseSource) {
+		this.parseSource = parseSource;
+	}
 	
 }
@@ -0,0 +1,203 @@
+/**
+ * NameParse.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.harvard.mcz.nametools;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.gbif.nameparser.api.NamePart;
+import org.gbif.nameparser.api.NameType;
+import org.gbif.nameparser.api.ParsedName;
+import org.gbif.nameparser.api.Rank;
+import org.gbif.nameparser.api.UnparsableNameException;
+
+/**
+ * Immutable result of parsing a scientific name string with the GBIF name parser, holding
+ * the parts of a ParsedName used by this library, or the failure to parse the name, so that
+ * parse results can be cached and shared between threads, see NameParsers.parse().
+ *
+ * Accessors have the names of the corresponding methods of ParsedName.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public final class NameParse {
+
+	private final String scientificName;
+	private final String canonicalName;
+	private final String canonicalNameWithoutAuthorship;
+	private final String authorshipComplete;
+	private final String uninomial;
+	private final String genus;
+	private final String infragenericEpithet;
+	private final String specificEpithet;
+	private final String infraspecificEpithet;
+	private final String terminalEpithet;
+	private final Rank rank;
+	private final NameType type;
+	private final Map<NamePart,String> epithetQualifier;
+	private final boolean doubtful;
+	private final String unparsableMessage;
+
+	/**
+	 * Capture the result of a successful parse.
+	 *
+	 * @param scientificName the string that was parsed.
+	 * @param parse the result of parsing it.
+	 */
+	public NameParse(String scientificName, ParsedName parse) {
+		this.scientificName = scientificName;
+		this.canonicalName = parse.canonicalName();
+		this.canonicalNameWithoutAuthorship = parse.canonicalNameWithoutAuthorship();
+		this.authorshipComplete = parse.authorshipComplete();
+		this.uninomial = parse.getUninomial();
+		this.genus = parse.getGenus();
+		this.infragenericEpithet = parse.getInfragenericEpithet();
+		this.specificEpithet = parse.getSpecificEpithet();
+		this.infraspecificEpithet = parse.getInfraspecificEpithet();
+		this.terminalEpithet = parse.getTerminalEpithet();
+		this.rank = parse.getRank();
+		this.type = parse.getType();
+		if (parse.getEpithetQualifier()==null) { 
+			this.epithetQualifier = null;
+		} else { 
+			this.epithetQualifier = Collections.unmodifiableMap(new HashMap<NamePart,String>(parse.getEpithetQualifier()));
+		}
+		this.doubtful = parse.isDoubtful() || parse.getState()!=ParsedName.State.COMPLETE;
+		this.unparsableMessage = null;
+	}
+
+	/**
+	 * Capture the failure to parse a name.
+	 *
+	 * @param scientificName the string that could not be parsed.
+	 * @param failure the exception thrown by the parser.
+	 */
+	public NameParse(String scientificName, UnparsableNameException failure) {
+		this.scientificName = scientificName;
+		this.canonicalName = null;
+		this.canonicalNameWithoutAuthorship = null;
+		this.authorshipComplete = null;
+		this.uninomial = null;
+		this.genus = null;
+		this.infragenericEpithet = null;
+		this.specificEpithet = null;
+		this.infraspecificEpithet = null;
+		this.terminalEpithet = null;
+		this.rank = null;
+		this.type = failure.getType();
+		this.epithetQualifier = null;
+		this.doubtful = true;
+		this.unparsableMessage = failure.getMessage()==null ? "Unable to parse name" : failure.getMessage();
+	}
+
+	/**
+	 * @return true if the name could not be parsed.
+	 */
+	public boolean isUnparsable() {
+		return unparsableMessage!=null;
+	}
+
+	/**
+	 * @return true if the parser flagged the parse as doubtful, or only parsed part of the 
+	 *   name, or could not parse the name.
+	 */
+	public boolean isDoubtful() {
+		return doubtful;
+	}
+
+	/**
+	 * Throw the parse failure again for a name that could not be parsed.
+	 *
+	 * @throws UnparsableNameException if isUnparsable().
+	 */
+	public void checkParsed() throws UnparsableNameException {
+		if (unparsableMessage!=null) { 
+			throw new UnparsableNameException(type, scientificName, unparsableMessage);
+		}
+	}
+
+	/**
+	 * @return the string that was parsed.
+	 */
+	public String getScientificName() {
+		return scientificName;
+	}
+
+	public String canonicalName() {
+		return canonicalName;
+	}
+
+	public String canonicalNameWithoutAuthorship() {
+		return canonicalNameWithoutAuthorship;
+	}
+
+	public String authorshipComplete() {
+		return authorshipComplete;
+	}
+
+	public String getUninomial() {
+		return uninomial;
+	}
+
+	public String getGenus() {
+		return genus;
+	}
+
+	public String getInfragenericEpithet() {
+		return infragenericEpithet;
+	}
+
+	public String getSpecificEpithet() {
+		return specificEpithet;
+	}
+
+	public String getInfraspecificEpithet() {
+		return infraspecificEpithet;
+	}
+
+	public String getTerminalEpithet() {
+		return terminalEpithet;
+	}
+
+	public Rank getRank() {
+		return rank;
+	}
+
+	public NameType getType() {
+		return type;
+	}
+
+	/**
+	 * @return the qualifiers (cf., aff.) of the epithets, unmodifiable, may be null.
+	 */
+	public Map<NamePart,String> getEpithetQualifier() {
+		return epithetQualifier;
+	}
+
+	@Override
+	public String toString() {
+		if (isUnparsable()) { 
+			return "NameParse{" + scientificName + ", unparsable: " + unparsableMessage + "}";
+		}
+		return "NameParse{" + scientificName + ", canonical=" + canonicalNameWithoutAuthorship + ", authorship=" + authorshipComplete
+				+ ", rank=" + rank + ", type=" + type + ", doubtful=" + doubtful + "}";
+	}
+
+}
@@ -0,0 +1,179 @@
+/**
+ * NameParsers.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.harvard.mcz.nametools;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.gbif.nameparser.NameParserGBIF;
+import org.gbif.nameparser.api.NameParser;
+import org.gbif.nameparser.api.NomCode;
+import org.gbif.nameparser.api.ParsedName;
+import org.gbif.nameparser.api.Rank;
+import org.gbif.nameparser.api.UnparsableNameException;
+
+/**
+ * Process wide GBIF name parser.  NameParserGBIF is thread safe, and runs each parse on a
+ * worker from its own thread pool so that a pathological name can be abandoned after a
+ * timeout.  Constructing and closing a parser for each name creates and tears down that
+ * pool each time, so all name parsing in this library shares the one parser obtained from
+ * getParser(), which callers must not close.
+ *
+ * The parser is configured from system properties when first used: sciname.parser.timeout,
+ * the milliseconds allowed for one parse (default 1000), and sciname.parser.threads, the
+ * maximum number of concurrent parses (default the number of available processors).  Idle
+ * worker threads are released.
+ * 
+ * The same name strings are parsed repeatedly, by several tests on one record and across 
+ * the records of a dataset, so parse() memoizes immutable NameParse results, including 
+ * failures to parse, in a bounded cache keyed by the name string, rank, and code, holding 
+ * up to sciname.parser.cacheSize (default 100000) names.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public class NameParsers {
+
+	private static final Log logger = LogFactory.getLog(NameParsers.class);
+
+	/** Milliseconds allowed for the parse of one name. */
+	public static final String PROPERTY_TIMEOUT = "sciname.parser.timeout";
+	/** Maximum number of names parsed concurrently. */
+	public static final String PROPERTY_THREADS = "sciname.parser.threads";
+	/** Maximum number of parse results held in the cache. */
+	public static final String PROPERTY_CACHE_SIZE = "sciname.parser.cacheSize";
+
+	private static NameParserGBIF parser = null;
+	
+	/** Largest number of parse results held by parse(). */
+	private static final int CACHE_SIZE = (int) setting(PROPERTY_CACHE_SIZE, 100000);
+
+	/** Recent parse results, least recently used first, guarded by itself. */
+	private static final Map<String,NameParse> parseCache = new LinkedHashMap<String,NameParse>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String,NameParse> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+	
+	/**
+	 * Parse a name, with no rank or nomenclatural code, consulting the cache.
+	 *
+	 * @param scientificName the name to parse.
+	 * @return the parse of the name.
+	 * @throws UnparsableNameException if the name can not be parsed.
+	 * @throws InterruptedException if interrupted while waiting for the parser.
+	 */
+	public static NameParse parse(String scientificName) throws UnparsableNameException, InterruptedException {
+		return parse(scientificName, null, null);
+	}
+	
+	/**
+	 * Parse a name, consulting the cache.
+	 *
+	 * @param scientificName the name to parse.
+	 * @param rank the rank of the name if known, may be null.
+	 * @param code the nomenclatural code of the name if known, may be null.
+	 * @return the parse of the name.
+	 * @throws UnparsableNameException if the name can not be parsed.
+	 * @throws InterruptedException if interrupted while waiting for the parser.
+	 */
+	public static NameParse parse(String scientificName, Rank rank, NomCode code) throws UnparsableNameException, InterruptedException {
+		if (rank==null) { 
+			rank = Rank.UNRANKED;
+		}
+		String key = rank.name() + "|" + (code==null ? "" : code.name()) + "|" + scientificName;
+		NameParse result;
+		synchronized (parseCache) { 
+			result = parseCache.get(key);
+		}
+		if (result==null) { 
+			// parse outside the lock, a concurrent duplicate is harmless as results are immutable
+			try { 
+				ParsedName parsedName = getParser().parse(scientificName, rank, code);
+				result = new NameParse(scientificName, parsedName);
+			} catch (UnparsableNameException e) { 
+				result = new NameParse(scientificName, e);
+			}
+			synchronized (parseCache) { 
+				parseCache.put(key, result);
+			}
+		}
+		result.checkParsed();
+		return result;
+	}
+	
+	/**
+	 * Obtain the number of parse results held in the cache.
+	 * 
+	 * @return the number of names whose parse is held by parse().
+	 */
+	public static int getParseCacheSize() { 
+		synchronized (parseCache) { 
+			return parseCache.size();
+		}
+	}
+
+	/**
+	 * Obtain the shared name parser.
+	 *
+	 * @return the shared NameParser, not to be closed by the caller.
+	 */
+	public static synchronized NameParser getParser() {
+		if (parser==null) { 
+			long timeout = setting(PROPERTY_TIMEOUT, 1000);
+			int threads = (int) setting(PROPERTY_THREADS, Runtime.getRuntime().availableProcessors());
+			// no core threads, so idle workers do not outlive their use
+			parser = new NameParserGBIF(timeout, 0, Math.max(1, threads));
+			logger.debug("Created shared name parser, timeout " + timeout + "ms, " + threads + " threads");
+		}
+		return parser;
+	}
+
+	/**
+	 * Close the shared parser, releasing its thread pool.  A new parser is created on the
+	 * next call to getParser().  For use by applications embedding this library when it is
+	 * unloaded.
+	 */
+	public static synchronized void close() {
+		if (parser!=null) { 
+			try { 
+				parser.close();
+			} catch (Exception e) {
+				logger.error(e.getMessage(), e);
+			}
+			parser = null;
+		}
+	}
+
+	private static long setting(String property, long defaultValue) {
+		String value = System.getProperty(property);
+		if (value!=null) { 
+			try { 
+				return Long.parseLong(value.trim());
+			} catch (NumberFormatException e) {
+				logger.error("Ignoring non-integer value [" + value + "] for " + property);
+			}
+		}
+		return defaultValue;
+	}
+
+}
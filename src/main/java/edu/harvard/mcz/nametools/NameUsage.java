@@ -29,9 +29,7 @@ import org.filteredpush.qc.sciname.services.GBIFService;
 import org.gbif.api.model.common.LinneanClassification;
 import org.gbif.api.util.ClassificationUtils;
 import org.gbif.api.vocabulary.Rank;
-import org.gbif.nameparser.NameParserGBIF;
 import org.gbif.nameparser.api.NomCode;
-import org.gbif.nameparser.api.ParsedName;
 import org.gbif.nameparser.api.UnparsableNameException;
 import org.json.simple.JSONObject;
 import org.marinespecies.aphia.v1_0.model.AphiaRecord;
@@ -1013,15 +1011,14 @@ public class NameUsage implements LinneanClassification {
 		
 		// Check to see if acceptedName contains the acceptedNameAuthorship.
 		if (getAcceptedName().length()>0 && getAcceptedAuthorship().length()==0 ) { 
-			NameParserGBIF parser = new NameParserGBIF();
-	        ParsedName parse = null;
+	        NameParse parse = null;
 	        try {
 	        	if (kingdom!=null && kingdom.equals("Animalia")) { 
-	        		parse = parser.parse(getAcceptedName(),null,NomCode.ZOOLOGICAL);
+	        		parse = NameParsers.parse(getAcceptedName(),null,NomCode.ZOOLOGICAL);
 	        	} else if (kingdom!=null && kingdom.equals("Plantae")) { 
-	        		parse = parser.parse(getAcceptedName(),null,NomCode.BOTANICAL);
+	        		parse = NameParsers.parse(getAcceptedName(),null,NomCode.BOTANICAL);
 	        	} else {
-	        		parse = parser.parse(getAcceptedName(),null,null);
+	        		parse = NameParsers.parse(getAcceptedName(),null,null);
 	        	}
 				if (parse!=null) { 
                    String author = parse.authorshipComplete();
@@ -1042,11 +1039,6 @@ public class NameUsage implements LinneanClassification {
 				// threading issue
 				logger.debug(e.getMessage());
 			}	
-    		try {
-				parser.close();
-			} catch (Exception e) {
-				logger.error(e.getMessage(), e);
-			}	
 	                
 		}
 		
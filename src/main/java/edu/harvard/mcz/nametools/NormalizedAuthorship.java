@@ -0,0 +1,424 @@
+/**
+ * NormalizedAuthorship.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.harvard.mcz.nametools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable normalized forms of an authorship string, on which the AuthorNameComparator
+ * subclasses make their comparisons.
+ *
+ * Comparing authorship strings repeatedly strips punctuation, case, digits, and
+ * parentheses from them, and splits botanical authorship into its component authors.
+ * Doing this with String.matches() and String.replaceAll() compiles a regular expression
+ * and allocates intermediate strings for each step of each comparison.  Here each form is
+ * derived once for an authorship string, and valueOf() holds the forms of recently seen
+ * authorship strings, so that comparing one authorship string against each of a list of
+ * candidates normalizes it only once.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public final class NormalizedAuthorship {
+
+	private static final Pattern HAS_YEAR = Pattern.compile("(^|.*[^0-9]+)[12][0-9]{3}([^0-9]+.*|$)");
+	private static final Pattern PARENTHETICAL_AUTHOR = Pattern.compile("^\\(.*\\).+$");
+	private static final Pattern EX_AUTHOR = Pattern.compile(" ex ");
+	private static final Pattern INITIAL = Pattern.compile("(^| |\\()[A-Z]\\.");
+	private static final Pattern SINGLE_LETTER = Pattern.compile("^[A-Z]$");
+	private static final Pattern LEADING_LETTER = Pattern.compile("^[A-Z] ");
+	private static final Pattern INNER_LETTER = Pattern.compile(" [A-Z] ");
+	private static final Pattern TRAILING_LETTER = Pattern.compile(" [A-Z]$");
+
+	/** Largest number of normalized authorship strings held by valueOf(). */
+	private static final int CACHE_SIZE = 10000;
+
+	/** Recently normalized authorship strings, least recently used first, guarded by itself. */
+	private static final Map<String,NormalizedAuthorship> cache = new LinkedHashMap<String,NormalizedAuthorship>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String,NormalizedAuthorship> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	private final String authorship;
+	private final String compact;
+	private final String compactWithoutBrackets;
+	private final String withoutSpacesAndCommas;
+	private final String letters;
+	private final String lettersWithAnd;
+	private final String lettersPreservingCase;
+	private final String digits;
+	private final boolean hasYear;
+	private final boolean hasParen;
+	private final List<String> tokens;
+	private final List<String> tokenInitials;
+	private final List<String> tokenLetters;
+	private final List<String> tokenWords;
+	private final List<List<String>> tokenSubBits;
+	private final RuntimeException tokenizationFailure;
+
+	/**
+	 * Normalize an authorship string.
+	 *
+	 * @param authorship the authorship string, not null.
+	 */
+	public NormalizedAuthorship(String authorship) {
+		this.authorship = authorship;
+		String lower = authorship.toLowerCase();
+		compact = remove(lower, " .,");
+		compactWithoutBrackets = remove(lower, " [].,");
+		withoutSpacesAndCommas = remove(lower, ", ");
+
+		StringBuilder alpha = new StringBuilder(lower.length());
+		StringBuilder alphaAnd = new StringBuilder(lower.length() + 4);
+		StringBuilder numeric = new StringBuilder(4);
+		for (int i=0; i<lower.length(); i++) { 
+			char c = lower.charAt(i);
+			if (isAsciiLetter(c)) { 
+				alpha.append(c);
+				alphaAnd.append(c);
+			} else if (c=='&') { 
+				alphaAnd.append("and");
+			} else if (c>='0' && c<='9') { 
+				numeric.append(c);
+			}
+		}
+		letters = alpha.toString();
+		lettersWithAnd = alphaAnd.toString();
+		digits = numeric.toString();
+
+		StringBuilder lettersCase = new StringBuilder(authorship.length());
+		int parens = 0;
+		for (int i=0; i<authorship.length(); i++) { 
+			char c = authorship.charAt(i);
+			if (isAsciiLetter(c) || c=='\'' || c=='é') { 
+				lettersCase.append(c);
+			}
+			if (c=='(' || c==')') { 
+				// parenthesis characters in sequence, 1 for (, 2 for (), -1 for anything else
+				if (parens==0 && c=='(') { 
+					parens = 1;
+				} else if (parens==1 && c==')') { 
+					parens = 2;
+				} else { 
+					parens = -1;
+				}
+			}
+		}
+		lettersPreservingCase = lettersCase.toString();
+		hasParen = parens==2;
+		hasYear = HAS_YEAR.matcher(authorship).matches();
+
+		List<String> tokenized;
+		RuntimeException failure = null;
+		try { 
+			tokenized = tokenize(authorship);
+		} catch (RuntimeException e) { 
+			// malformed botanical authorship, reported only if the tokens are used
+			tokenized = new ArrayList<String>();
+			failure = e;
+		}
+		tokenizationFailure = failure;
+		tokens = Collections.unmodifiableList(tokenized);
+		List<String> initials = new ArrayList<String>(tokens.size());
+		List<String> tokenAlpha = new ArrayList<String>(tokens.size());
+		List<String> words = new ArrayList<String>(tokens.size());
+		List<List<String>> subBits = new ArrayList<List<String>>(tokens.size());
+		for (int i=0; i<tokens.size(); i++) { 
+			String token = tokens.get(i);
+			initials.add(extractInitials(token));
+			String alphaToken = lettersAndSpaces(token);
+			tokenAlpha.add(alphaToken);
+			String word = alphaToken;
+			// remove single letters (except if the token is only a single letter)
+			if (!SINGLE_LETTER.matcher(word.trim()).matches()) { 
+				word = LEADING_LETTER.matcher(word).replaceAll(" ");
+				word = INNER_LETTER.matcher(word).replaceAll(" ");
+				word = TRAILING_LETTER.matcher(word).replaceAll(" ");
+			}
+			word = word.trim().replace("  ", " ").trim();
+			words.add(word);
+			subBits.add(Collections.unmodifiableList(Arrays.asList(word.split(" "))));
+		}
+		tokenInitials = Collections.unmodifiableList(initials);
+		tokenLetters = Collections.unmodifiableList(tokenAlpha);
+		tokenWords = Collections.unmodifiableList(words);
+		tokenSubBits = Collections.unmodifiableList(subBits);
+	}
+
+	/**
+	 * Obtain the normalized form of an authorship string, from the cache of recently
+	 * normalized strings if present.
+	 *
+	 * @param authorship the authorship string.
+	 * @return the normalized form, or null if authorship is null.
+	 */
+	public static NormalizedAuthorship valueOf(String authorship) {
+		if (authorship==null) { 
+			return null;
+		}
+		NormalizedAuthorship result;
+		synchronized (cache) { 
+			result = cache.get(authorship);
+		}
+		if (result==null) { 
+			// normalize outside the lock, a concurrent duplicate is harmless as instances are immutable
+			result = new NormalizedAuthorship(authorship);
+			synchronized (cache) { 
+				cache.put(authorship, result);
+			}
+		}
+		return result;
+	}
+
+	private static boolean isAsciiLetter(char c) {
+		return (c>='a' && c<='z') || (c>='A' && c<='Z');
+	}
+
+	private static String remove(String value, String characters) {
+		StringBuilder result = new StringBuilder(value.length());
+		for (int i=0; i<value.length(); i++) { 
+			char c = value.charAt(i);
+			if (characters.indexOf(c)<0) { 
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Replace everything except letters, spaces, and colons with a space, one space for
+	 * each code point.
+	 */
+	private static String lettersAndSpaces(String value) {
+		StringBuilder result = new StringBuilder(value.length());
+		int i = 0;
+		while (i<value.length()) { 
+			int codePoint = value.codePointAt(i);
+			if (codePoint<128 && (isAsciiLetter((char)codePoint) || codePoint==' ' || codePoint==':')) { 
+				result.append((char)codePoint);
+			} else { 
+				result.append(' ');
+			}
+			i += Character.charCount(codePoint);
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Given a string, return any initials from that string.
+	 *
+	 * @param name to examine for initials
+	 * @return the capital letters of the portions of name that fit the pattern of initials.
+	 */
+	static String extractInitials(String name) {
+		StringBuilder result = new StringBuilder();
+		Matcher matcher = INITIAL.matcher(name.replace(".", ". "));
+		while (matcher.find()) { 
+			String match = matcher.group();
+			for (int i=0; i<match.length(); i++) { 
+				char c = match.charAt(i);
+				if (c>='A' && c<='Z') { 
+					result.append(c);
+				}
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Split a botanical authorship string into its component authors, on parenthetical
+	 * authors, ex authors, and sanctioning authors.
+	 *
+	 * @param authorship to tokenize
+	 * @return the trimmed components of the authorship string.
+	 */
+	static List<String> tokenize(String authorship) {
+		List<String> result = new ArrayList<String>();
+		if (authorship==null || authorship.length()==0) { 
+			return result;
+		}
+		List<String> bits = new ArrayList<String>(2);
+		if (PARENTHETICAL_AUTHOR.matcher(authorship).matches()) { 
+			String[] parBits = authorship.split("\\)");
+			bits.add(parBits[0].startsWith("(") ? parBits[0].substring(1) : parBits[0]);
+			bits.add(parBits[1]);
+		} else { 
+			bits.add(authorship);
+		}
+		for (int i=0; i<bits.size(); i++) { 
+			String bit = bits.get(i);
+			if (bit.contains(" ex ")) { 
+				String[] exBits = EX_AUTHOR.split(bit);
+				addSanctioned(result, exBits[0]);
+				addSanctioned(result, exBits[1]);
+			} else { 
+				addSanctioned(result, bit);
+			}
+		}
+		for (int j=0; j<result.size(); j++) { 
+			result.set(j, result.get(j).trim());
+		}
+		return result;
+	}
+
+	private static void addSanctioned(List<String> result, String bit) {
+		if (bit.indexOf(':')>=0) { 
+			String[] sanctionBits = bit.split(":");
+			result.add(sanctionBits[0]);
+			result.add(sanctionBits[1]);
+		} else { 
+			result.add(bit);
+		}
+	}
+
+	/**
+	 * @return the authorship string as provided.
+	 */
+	public String getAuthorship() {
+		return authorship;
+	}
+
+	/**
+	 * @return the authorship string in lower case without spaces, periods, or commas.
+	 */
+	public String getCompact() {
+		return compact;
+	}
+
+	/**
+	 * @return the authorship string in lower case without spaces, periods, commas, or square brackets.
+	 */
+	public String getCompactWithoutBrackets() {
+		return compactWithoutBrackets;
+	}
+
+	/**
+	 * @return the authorship string in lower case without spaces or commas.
+	 */
+	public String getWithoutSpacesAndCommas() {
+		return withoutSpacesAndCommas;
+	}
+
+	/**
+	 * @return only the letters a-z of the authorship string, in lower case.
+	 */
+	public String getLetters() {
+		return letters;
+	}
+
+	/**
+	 * @return only the letters a-z of the authorship string, in lower case, with &amp; as "and".
+	 */
+	public String getLettersWithAnd() {
+		return lettersWithAnd;
+	}
+
+	/**
+	 * @return only the letters A-Z, a-z, é, and apostrophes of the authorship string.
+	 */
+	public String getLettersPreservingCase() {
+		return lettersPreservingCase;
+	}
+
+	/**
+	 * @return only the digits of the authorship string, the year if there is one.
+	 */
+	public String getDigits() {
+		return digits;
+	}
+
+	/**
+	 * @return true if the authorship string contains a four digit year starting with 1 or 2.
+	 */
+	public boolean hasYear() {
+		return hasYear;
+	}
+
+	/**
+	 * @return true if the authorship string contains one pair of parentheses.
+	 */
+	public boolean hasParen() {
+		return hasParen;
+	}
+
+	/**
+	 * @return the component authors of the authorship string, treated as a botanical authorship,
+	 *   unmodifiable.
+	 * @throws RuntimeException as thrown when splitting an authorship string with unbalanced 
+	 *   parentheses, ex authors, or sanctioning authors into tokens.
+	 */
+	public List<String> getTokens() {
+		checkTokenized();
+		return tokens;
+	}
+
+	/**
+	 * @return for each token, the initials found in it.
+	 */
+	List<String> getTokenInitials() {
+		checkTokenized();
+		return tokenInitials;
+	}
+
+	/**
+	 * @return for each token, the token with everything except letters, spaces, and colons
+	 *   replaced with spaces.
+	 */
+	List<String> getTokenLetters() {
+		checkTokenized();
+		return tokenLetters;
+	}
+
+	/**
+	 * @return for each token, the words of the token, without punctuation or single letters.
+	 */
+	List<String> getTokenWords() {
+		checkTokenized();
+		return tokenWords;
+	}
+
+	/**
+	 * @return for each token, the words of the token split on spaces.
+	 */
+	List<List<String>> getTokenSubBits() {
+		checkTokenized();
+		return tokenSubBits;
+	}
+
+	private void checkTokenized() { 
+		if (tokenizationFailure!=null) { 
+			throw tokenizationFailure;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return authorship;
+	}
+
+}
@@ -17,18 +17,20 @@
  */
 package edu.harvard.mcz.nametools;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.gbif.nameparser.NameParserGBIF;
-import org.gbif.nameparser.api.NameParser;
 import org.gbif.nameparser.api.NamePart;
-import org.gbif.nameparser.api.ParsedName;
 import org.gbif.nameparser.api.UnparsableNameException;
 
 /**
@@ -62,10 +64,9 @@ public class ScientificNameComparator {
 				result.setMatchType(NameComparison.MATCH_EXACT);
 				result.setSimilarity(1.0d);
 			} else {
-				NameParser nameParser = new NameParserGBIF();
 	    		try {
 	    			log.debug(aName);
-	    			ParsedName parse = nameParser.parse(aName);
+	    			NameParse parse = NameParsers.parse(aName);
 	    			Map<NamePart,String> qualifiers = parse.getEpithetQualifier();
 	    			if (qualifiers==null) { 
 	    				qualifiers = new HashMap<NamePart,String>();
@@ -78,7 +79,7 @@ public class ScientificNameComparator {
 	    			log.debug(parse.getTerminalEpithet());
 	    			log.debug(qualifiers.isEmpty());
 	    			log.debug(parse.getRank());
-	    			ParsedName otherParse = nameParser.parse(toOtherName);
+	    			NameParse otherParse = NameParsers.parse(toOtherName);
 	    			Map<NamePart,String> otherQualifiers = otherParse.getEpithetQualifier();
 	    			if (otherQualifiers==null) { 
 	    				otherQualifiers = new HashMap<NamePart,String>();
@@ -211,16 +212,59 @@ public class ScientificNameComparator {
 	    		} catch (InterruptedException e) {
 	    			log.error(e.getMessage());
 				}
-	    		try {
-					nameParser.close();
-				} catch (Exception e) {
-					log.error(e.getMessage(), e);
-				}	
 			}
 		}
 		return result;
 	}
 
+	/**
+	 * Compare a name with each of a set of candidate names, such as the names found within
+	 * a small edit distance of a possibly misspelled name, and order the comparisons from
+	 * the most to the least likely match: exact matches first, then plausible matches 
+	 * (see NameComparison.isPlausible()), then the rest, each in order of decreasing 
+	 * string similarity.
+	 *
+	 * @param aName the name, without authorship, to find matches for.
+	 * @param candidates the candidate names, without authorship.
+	 * @return a list of the comparison of aName with each candidate, the candidate 
+	 *   as nameTwo, most likely match first.
+	 */
+	public List<NameComparison> rankCandidates(String aName, Collection<String> candidates) {
+		List<NameComparison> result = new ArrayList<NameComparison>();
+		if (candidates==null) { 
+			return result;
+		}
+		Iterator<String> i = candidates.iterator();
+		while (i.hasNext()) { 
+			String candidate = i.next();
+			NameComparison comparison = compareWithoutAuthor(aName, candidate);
+			comparison.setNameOne(aName);
+			comparison.setNameTwo(candidate);
+			result.add(comparison);
+		}
+		Collections.sort(result, new Comparator<NameComparison>() {
+			@Override
+			public int compare(NameComparison o1, NameComparison o2) {
+				int rank1 = rank(o1.getMatchType());
+				int rank2 = rank(o2.getMatchType());
+				if (rank1 != rank2) { 
+					return rank1 < rank2 ? -1 : 1;
+				}
+				return Double.compare(o2.getSimilarity(), o1.getSimilarity());
+			}
+		});
+		return result;
+	}
+	
+	private static int rank(String matchType) { 
+		if (NameComparison.MATCH_EXACT.equals(matchType)) { 
+			return 0;
+		} else if (matchType!=null && NameComparison.isPlausible(matchType)) { 
+			return 1;
+		}
+		return 2;
+	}
+
 	/**
 	 * Return a measure of the similarity between two strings in the range of
 	 * 0 (no similarity) to 1 (exact same strings), using a measure of the
@@ -231,20 +275,7 @@ public class ScientificNameComparator {
 	 * @return a double in the range 0 to 1.
 	 */
 	public static double stringSimilarity(String string1, String string2) {
-		double result = 0d;
-		String longer = string1;
-		String shorter = string2;
-		if (string1.length() < string2.length()) {
-			// flip so that longer string is the longest.
-			longer = string2;
-			shorter = string1;
-		}
-		if (longer.length() == 0) { 
-			result =  1.0; 
-		} else { 
-			result =  (longer.length() - StringUtils.getLevenshteinDistance(longer, shorter)) / (double) longer.length();
-		}
-		return result;
+		return EditDistance.similarity(string1, string2);
 	}	
 	
 }
@@ -0,0 +1,162 @@
+/**
+ * AsyncResultWriter.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Hands rows to another ResultWriter on a thread of its own, so that the threads producing
+ * results don't wait on output.  Rows pass through a bounded queue, which the writer thread
+ * drains in batches of up to DRAIN_SIZE rows at a time, if the output falls behind and the
+ * queue fills, write() waits for space, so memory use stays bounded.  Rows are written in
+ * the order in which write() is called.
+ *
+ * A failure writing is reported by the next call to write(), or by close().  close() waits
+ * for the queued rows to be written, then closes the other writer.  write() and close()
+ * are to be called from a single thread.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public class AsyncResultWriter implements ResultWriter {
+
+	private static final Log logger = LogFactory.getLog(AsyncResultWriter.class);
+
+	/** Largest number of rows taken from the queue at once. */
+	public static final int DRAIN_SIZE = 1024;
+
+	/** Marks the end of the rows. */
+	private static final String[] END = new String[0];
+
+	private final ResultWriter delegate;
+	private final BlockingQueue<String[]> queue;
+	private final Thread thread;
+	private volatile IOException failure = null;
+	private boolean closed = false;
+
+	/**
+	 * Start a writer thread.
+	 *
+	 * @param delegate the writer to which rows are written on the writer thread.
+	 * @param capacity the number of rows that may be queued before write() waits.
+	 */
+	public AsyncResultWriter(ResultWriter delegate, int capacity) {
+		this.delegate = delegate;
+		this.queue = new ArrayBlockingQueue<String[]>(Math.max(1, capacity));
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				drain();
+			}
+		}, "sciname-result-writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void write(String[] row) throws IOException {
+		if (closed) { 
+			throw new IOException("Writer is closed.");
+		}
+		enqueue(row);
+	}
+
+	private void enqueue(String[] row) throws IOException {
+		try { 
+			while (!queue.offer(row, 100L, TimeUnit.MILLISECONDS)) { 
+				checkFailure();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to write results.");
+		}
+		checkFailure();
+	}
+
+	private void checkFailure() throws IOException {
+		if (failure!=null) { 
+			throw failure;
+		}
+	}
+
+	/**
+	 * Write rows from the queue until the end is reached or writing fails.
+	 */
+	private void drain() {
+		List<String[]> rows = new ArrayList<String[]>(DRAIN_SIZE);
+		try { 
+			while (true) { 
+				rows.add(queue.take());
+				queue.drainTo(rows, DRAIN_SIZE - 1);
+				for (int i=0; i<rows.size(); i++) { 
+					String[] row = rows.get(i);
+					if (row==END) { 
+						return;
+					}
+					delegate.write(row);
+				}
+				rows.clear();
+			}
+		} catch (IOException e) {
+			logger.error(e.getMessage(), e);
+			failure = e;
+		} catch (RuntimeException e) {
+			logger.error(e.getMessage(), e);
+			failure = new IOException(e.getMessage(), e);
+		} catch (InterruptedException e) {
+			failure = new InterruptedIOException("Interrupted while writing results.");
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void close() throws IOException {
+		if (closed) { 
+			return;
+		}
+		closed = true;
+		try { 
+			if (failure==null) { 
+				enqueue(END);
+			}
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for results to be written.");
+		} finally { 
+			if (thread.isAlive()) { 
+				// interrupted before the queued rows were written, abandon them
+				thread.interrupt();
+			} else { 
+				delegate.close();
+			}
+		}
+		checkFailure();
+	}
+
+}
@@ -18,24 +18,36 @@
 package org.filteredpush.qc.sciname;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.csv.CSVRecord;
-import org.apache.commons.csv.QuoteMode;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.filteredpush.qc.sciname.services.MetricsRegistries;
 import org.filteredpush.qc.sciname.services.ServiceException;
 import org.filteredpush.qc.sciname.services.Validator;
 
@@ -43,6 +55,25 @@ import edu.harvard.mcz.nametools.NameUsage;
 
 /**
  * <p>BatchRunner class.</p>
+ * 
+ * <p>Reads names from a csv file, validates them against a Validator, and writes the results
+ * to a csv file.  Lookups may be run concurrently on a pool of worker threads sharing the one
+ * validator, in which case results are still written in the order of the input, and the number of lookups in flight
+ * against any one validator class may be capped with setConcurrencyLimit().  Names may be 
+ * passed to the validator in groups with setBatchSize(), for validators that can look up 
+ * several names in one request.</p>
+ * 
+ * <p>The input may instead be a Darwin Core Archive, zipped or unpacked, in which case the
+ * scientificName, scientificNameAuthorship, kingdom, and family of each row of the core are
+ * streamed from the archive with a DwcArchiveReader, and the row number is used as the dbpk.</p>
+ * 
+ * <p>Each lookup is recorded in the shared MetricsRegistry under the simple name of the 
+ * validator class, and while a batch runs a summary of the measurements of every service
+ * and cache is logged every sciname.metrics.summary.seconds seconds (default 60, 0 for 
+ * none), and once more when the batch completes.</p>
+ * 
+ * <p>Results are written on a thread of their own by a ResultWriter obtained from ResultWriters,
+ * as csv, or as an Arrow IPC file if the name of the output file ends in .arrow or .feather.</p>
  *
  * @author mole
  * @version $Id: $Id
@@ -50,10 +81,21 @@ import edu.harvard.mcz.nametools.NameUsage;
 public class BatchRunner {
 
 	private static final Log logger = LogFactory.getLog(BatchRunner.class);
+	
+	/** System property giving the interval in seconds at which to log a summary of the metrics, 0 for none. */
+	public static final String PROPERTY_METRICS_SUMMARY_SECONDS = "sciname.metrics.summary.seconds";
 
 	private File inputFile;
 	private File outputFile;
 	private Validator validator;
+	private int threads = 1;
+	private int batchSize = 1;
+	
+	private static final Map<String,Semaphore> concurrencyLimits = new ConcurrentHashMap<String,Semaphore>();
+	
+	/** Terms read from each row of a Darwin Core Archive, in the order used by ArchiveNameSource. */
+	private static final List<String> ARCHIVE_TERMS = Collections.unmodifiableList(Arrays.asList(
+			"dwc:scientificName", "dwc:scientificNameAuthorship", "dwc:kingdom", "dwc:family"));
 	
 	/**
 	 * Constructor for a BatchRunner to read scientific names from an input file, run them against
@@ -73,7 +115,11 @@ public class BatchRunner {
 		   throw new FileException("Unable to read input file [" + inputFileName + "].");
 	   }
 	   if (outputFileName==null || outputFileName.trim().length()==0) { 
-		   outputFileName = inputFile.getName().substring(0, inputFile.getName().indexOf(".")).concat("_out_").concat(LocalDate.now().toString().replace("-","_")).concat(".csv");
+		   String base = inputFile.getName();
+		   if (base.indexOf(".")>0) { 
+			   base = base.substring(0, base.indexOf("."));
+		   }
+		   outputFileName = base.concat("_out_").concat(LocalDate.now().toString().replace("-","_")).concat(".csv");
 	   }
 	   File targetOutputFile = new File(outputFileName);
 	   if (targetOutputFile.exists()) { 
@@ -83,6 +129,77 @@ public class BatchRunner {
 	   this.validator = validator;
 	}
 
+	/**
+	 * Constructor for a BatchRunner to read scientific names from an input file, run them against
+	 * a validator on a pool of worker threads, and write the output to an output file in the same 
+	 * order as the input.
+	 *
+	 * @param inputFileName containing a list of taxon names to evaluate
+	 * @param outputFileName into which to write results.
+	 * @param validator to apply to the names, shared by all of the worker threads.
+	 * @param threads the number of worker threads to use, values less than 2 run all
+	 *  lookups on the calling thread.
+	 * @throws org.filteredpush.qc.sciname.FileException if there is a problem reading the input file
+	 *  or writing the output file.
+	 */
+	public BatchRunner(String inputFileName, String outputFileName, Validator validator, int threads) throws FileException {
+		this(inputFileName, outputFileName, validator);
+		this.threads = threads;
+	}
+
+	/**
+	 * Limit the number of lookups that may be in flight at once against a validator class, 
+	 * across all BatchRunner instances in this JVM, use to stay within the rate limits of a 
+	 * remote service regardless of the number of worker threads.
+	 *
+	 * @param validatorClass the validator implementation to limit.
+	 * @param maxConcurrent the maximum number of concurrent lookups, values less than 1 remove the limit.
+	 */
+	public static void setConcurrencyLimit(Class<? extends Validator> validatorClass, int maxConcurrent) {
+		if (maxConcurrent < 1) { 
+			concurrencyLimits.remove(validatorClass.getName());
+		} else { 
+			concurrencyLimits.put(validatorClass.getName(), new Semaphore(maxConcurrent, true));
+		}
+	}
+	
+	/**
+	 * Obtain the number of worker threads used by this runner.
+	 * 
+	 * @return the number of worker threads.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Set the number of worker threads used by this runner, all of which share the validator.
+	 * 
+	 * @param threads the number of worker threads to use.
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Obtain the number of names passed to the validator at once.
+	 * 
+	 * @return the number of names validated together.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Set the number of names passed to the validator at once, with values greater than 1, 
+	 * groups of names are validated with Validator.validateBatch().
+	 * 
+	 * @param batchSize the number of names to validate together, values less than 1 are treated as 1.
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = Math.max(1, batchSize);
+	}
+
 	/**
 	 * Execute the batch operation.
 	 *
@@ -92,10 +209,16 @@ public class BatchRunner {
 		boolean result = false;
 		
 		logger.debug("Reading from " + inputFile.getName());
+		ExecutorService executor = null;
+		ScheduledExecutorService summaries = startMetricsSummaries();
+		NameSource names = null;
+		ResultWriter output = null;
 		try {
-			
-			BufferedReader reader = new BufferedReader(new FileReader(inputFile));
-			CSVParser records = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(reader);
+			if (DwcArchiveReader.isArchive(inputFile)) { 
+				names = new ArchiveNameSource(inputFile);
+			} else { 
+				names = new CsvNameSource(inputFile);
+			}
 
 			List<String> headerNames = new ArrayList<String>();
 			headerNames.add("dbpk");
@@ -114,95 +237,407 @@ public class BatchRunner {
 			headerNames.add("acceptedAsName");
 			headerNames.add("acceptedAsNameAuthorship");
 
-			BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile));
-			CSVPrinter printer = new CSVPrinter(writer, 
-					CSVFormat.DEFAULT.withQuoteMode(QuoteMode.ALL).withHeader(headerNames.toArray(new String[headerNames.size()])));
-
-			Iterator<CSVRecord> recordIterator = records.iterator();
-			while (recordIterator.hasNext()) {
-				CSVRecord line = recordIterator.next();
-				logger.debug(line.get("dbpk"));
-				NameUsage usage = new NameUsage();
-				usage.setInputDbPK(Integer.parseInt(line.get("dbpk")));
-				usage.setScientificName(line.get("scientificName"));
-				usage.setAuthorship(line.get("authorship"));
-				if (line.toMap().containsKey("kingdom")) { 
-					usage.setKingdom(line.get("kingdom"));
-				} 
-				if (line.toMap().containsKey("family")) { 
-					usage.setFamily(line.get("family"));
-				} 
+			output = ResultWriters.open(outputFile, headerNames);
 
-				try { 
-					NameUsage vUsage = validator.validate(usage);
-					if (validator.supportedExtensionTerms().size() > 0) {
-						List<String> columns = new ArrayList<String>();
-						if (vUsage!=null) {
-							Map<String,String> terms = vUsage.getExtension();
-							//String[] added = terms.values().toArray(new String[terms.size()]);
-							logger.debug(vUsage.getGuid());
-							columns.add(Integer.valueOf(vUsage.getInputDbPK()).toString());
-							columns.add(vUsage.getScientificName());
-							columns.add(vUsage.getAuthorship());
-							columns.add(vUsage.getGuid());
-							columns.add(vUsage.getMatchDescription());
-							columns.add(vUsage.getNameMatchDescription());
-							columns.add(vUsage.getOriginalScientificName());
-							columns.add(vUsage.getOriginalAuthorship());
-							columns.add(Double.valueOf(vUsage.getAuthorshipStringEditDistance()).toString());
-							columns.add(Double.valueOf(vUsage.getScientificNameStringEditDistance()).toString());
-							Iterator<String> addedTermIterator = validator.supportedExtensionTerms().iterator();
-							while (addedTermIterator.hasNext()) { 
-								// add in the order of the supportedExtenstionTerms list, to match the header.
-								columns.add(terms.get(addedTermIterator.next()));
+			final boolean parallel = threads > 1;
+			// lookups submitted but not yet written, in input order, bounded so that a 
+			// slow lookup at the head can't let the whole input accumulate in memory.
+			Deque<PendingLookup> pending = new ArrayDeque<PendingLookup>();
+			int window = threads * 4;
+			if (parallel) { 
+				logger.debug("Running with " + threads + " worker threads.");
+				executor = Executors.newFixedThreadPool(threads);
+			}
+			
+			List<NameUsage> batch = new ArrayList<NameUsage>(batchSize);
+			NameUsage usage = names.next();
+			while (usage!=null) { 
+				batch.add(usage);
+				usage = names.next();
+				if (batch.size() >= batchSize || usage==null) { 
+					final List<NameUsage> usages = batch;
+					batch = new ArrayList<NameUsage>(batchSize);
+					if (parallel) { 
+						pending.add(new PendingLookup(usages, executor.submit(new Callable<List<RowResult>>() {
+							@Override
+							public List<RowResult> call() throws Exception {
+								return lookup(validator, usages);
 							}
-							columns.add(vUsage.getAcceptedName());
-							columns.add(vUsage.getAcceptedAuthorship());
-							printer.printRecord(columns);
-							//printer.printRecord(Integer.valueOf(vUsage.getInputDbPK()).toString(),vUsage.getScientificName(),vUsage.getAuthorship(),vUsage.getGuid(),vUsage.getMatchDescription(),vUsage.getOriginalScientificName(), vUsage.getOriginalAuthorship(), Double.valueOf(vUsage.getAuthorshipStringEditDistance()).toString(), added);
-						} else { 
-							String[] added = new String[validator.supportedExtensionTerms().size()];
-							usage.setMatchDescription("Not Found");
-							logger.debug("Not found");
-							columns.add(Integer.valueOf(usage.getInputDbPK()).toString());
-							columns.add(usage.getScientificName());
-							columns.add(usage.getAuthorship());
-							columns.add(usage.getGuid());
-							columns.add(usage.getMatchDescription());
-							columns.add("");
-							columns.add(usage.getOriginalScientificName());
-							columns.add(usage.getOriginalAuthorship());
-							columns.add(Double.valueOf(usage.getAuthorshipStringEditDistance()).toString());
-							columns.add(Double.valueOf(usage.getScientificNameStringEditDistance()).toString());
-							columns.addAll(Arrays.asList(added));
-							printer.printRecord(columns);
-							//printer.printRecord(Integer.valueOf(usage.getInputDbPK()).toString(),usage.getScientificName(),usage.getAuthorship(),usage.getGuid(),usage.getMatchDescription(),usage.getOriginalScientificName(), usage.getOriginalAuthorship(), Double.valueOf(usage.getAuthorshipStringEditDistance()).toString(), added);
-						}	
+						})));
+						while (pending.size() >= window) { 
+							writeResults(output, pending.poll().get());
+						}
 					} else { 
-						if (vUsage!=null) {
-							logger.debug(vUsage.getGuid());
-							printer.printRecord(Integer.valueOf(vUsage.getInputDbPK()).toString(),vUsage.getScientificName(),vUsage.getAuthorship(),vUsage.getGuid(),vUsage.getMatchDescription(),vUsage.getOriginalScientificName(), vUsage.getOriginalAuthorship(), Double.valueOf(vUsage.getAuthorshipStringEditDistance()).toString(),Double.valueOf(usage.getScientificNameStringEditDistance()).toString());
-						} else { 
-							usage.setMatchDescription("Not Found");
-							logger.debug("Not found");
-							printer.printRecord(Integer.valueOf(usage.getInputDbPK()).toString(),usage.getScientificName(),usage.getAuthorship(),usage.getGuid(),usage.getMatchDescription(),usage.getOriginalScientificName(), usage.getOriginalAuthorship(), Double.valueOf(usage.getAuthorshipStringEditDistance()).toString(),Double.valueOf(usage.getScientificNameStringEditDistance()).toString());
-						}	
+						writeResults(output, lookup(validator, usages));
 					}
+				}
+			}
+			while (!pending.isEmpty()) { 
+				writeResults(output, pending.poll().get());
+			}
+			ResultWriter completed = output;
+			output = null;
+			completed.close();
+			result = true;
+		} catch (Exception e) { 
+			logger.error(e.getMessage(), e);
+		} finally { 
+			if (names!=null) { 
+				try { 
+					names.close();
+				} catch (IOException e) { 
+					logger.error(e.getMessage(), e);
+				}
+			}
+			if (output!=null) { 
+				try { 
+					output.close();
+				} catch (IOException e) { 
+					logger.error(e.getMessage(), e);
+				}
+			}
+			if (executor!=null) { 
+				executor.shutdownNow();
+			}
+			if (summaries!=null) { 
+				summaries.shutdownNow();
+			}
+			logMetricsSummary();
+		}
+		return result;
+	}
+	
+	/**
+	 * Start logging a summary of the metrics at the interval given by the system property 
+	 * sciname.metrics.summary.seconds.
+	 * 
+	 * @return the executor logging the summaries, to shut down when the batch completes, 
+	 *   or null if no summaries are to be logged.
+	 */
+	private ScheduledExecutorService startMetricsSummaries() { 
+		long seconds = 60L;
+		String value = System.getProperty(PROPERTY_METRICS_SUMMARY_SECONDS);
+		if (value!=null) { 
+			try { 
+				seconds = Long.parseLong(value.trim());
+			} catch (NumberFormatException e) { 
+				logger.error("Ignoring non-integer value [" + value + "] for " + PROPERTY_METRICS_SUMMARY_SECONDS);
+			}
+		}
+		if (seconds < 1) { 
+			return null;
+		}
+		ScheduledExecutorService result = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "sciname-metrics-summary");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		result.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				logMetricsSummary();
+			}
+		}, seconds, seconds, TimeUnit.SECONDS);
+		return result;
+	}
+	
+	private static void logMetricsSummary() { 
+		String summary = MetricsRegistries.getRegistry().summary();
+		if (summary.length() > 0) { 
+			logger.info("Metrics:\n" + summary);
+		}
+	}
+	
+	/**
+	 * Run the validator on a group of name usages, holding a permit for the validator class 
+	 * if a concurrency limit has been set for it.  If validation of a group fails, the names 
+	 * are validated one at a time, so that only the names that fail are reported as failures.
+	 * 
+	 * @param aValidator the validator to run.
+	 * @param usages the name usages to validate.
+	 * @return the outcome of the lookup of each name usage, in order.
+	 * @throws InterruptedException if interrupted while waiting for a permit.
+	 */
+	private List<RowResult> lookup(Validator aValidator, List<NameUsage> usages) throws InterruptedException {
+		String component = aValidator.getClass().getSimpleName();
+		List<RowResult> rowResults = new ArrayList<RowResult>(usages.size());
+		Semaphore limit = concurrencyLimits.get(aValidator.getClass().getName());
+		if (limit!=null) { 
+			limit.acquire();
+		}
+		try { 
+			if (usages.size() > 1) { 
+				long start = MetricsRegistries.start();
+				boolean failed = true;
+				try { 
+					List<NameUsage> validated = aValidator.validateBatch(usages);
+					for (int i=0; i<usages.size(); i++) { 
+						RowResult rowResult = new RowResult(usages.get(i));
+						rowResult.validated = validated.get(i);
+						rowResults.add(rowResult);
+					}
+					failed = false;
 				} catch (ServiceException ex) { 
 					logger.error(ex.getMessage());
-					printer.printRecord(Integer.valueOf(usage.getInputDbPK()).toString(),"","","","Error, Lookup Failed.",usage.getOriginalScientificName(), usage.getOriginalAuthorship(),"");
+					rowResults.clear();
+				} catch (RuntimeException ex) { 
+					logger.error(ex.getMessage(), ex);
+					rowResults.clear();
+				} finally { 
+					MetricsRegistries.stop(component, "validateBatch", start, failed);
+				}
+			}
+			if (rowResults.isEmpty()) { 
+				Iterator<NameUsage> i = usages.iterator();
+				while (i.hasNext()) { 
+					RowResult rowResult = new RowResult(i.next());
+					long start = MetricsRegistries.start();
+					try { 
+						rowResult.validated = aValidator.validate(rowResult.usage);
+					} catch (ServiceException ex) { 
+						rowResult.failure = ex;
+					} catch (RuntimeException ex) { 
+						logger.error(ex.getMessage(), ex);
+						rowResult.failure = ex;
+					} finally { 
+						MetricsRegistries.stop(component, "validate", start, rowResult.failure!=null);
+					}
+					rowResults.add(rowResult);
+				}
+			}
+		} finally { 
+			if (limit!=null) { 
+				limit.release();
+			}
+		}
+		return rowResults;
+	}
+	
+	/**
+	 * Write the outcomes of a group of lookups as rows of the output.
+	 * 
+	 * @param output to write to.
+	 * @param rowResults the outcomes to write, in order.
+	 * @throws IOException on a problem writing.
+	 */
+	private void writeResults(ResultWriter output, List<RowResult> rowResults) throws IOException { 
+		Iterator<RowResult> i = rowResults.iterator();
+		while (i.hasNext()) { 
+			output.write(toRow(i.next()));
+		}
+	}
+	
+	/**
+	 * Obtain the outcome of a lookup as a row of the output, with a value for each column 
+	 * of the header.
+	 * 
+	 * @param rowResult the outcome of the lookup.
+	 * @return the values of the row.
+	 */
+	private String[] toRow(RowResult rowResult) { 
+		NameUsage usage = rowResult.usage;
+		NameUsage vUsage = rowResult.validated;
+		List<String> extensionTerms = validator.supportedExtensionTerms();
+		String[] row = new String[12 + extensionTerms.size()];
+		if (rowResult.failure!=null) { 
+			logger.error(rowResult.failure.getMessage());
+			row[0] = Integer.toString(usage.getInputDbPK());
+			row[4] = "Error, Lookup Failed.";
+			row[6] = usage.getOriginalScientificName();
+			row[7] = usage.getOriginalAuthorship();
+			return row;
+		} 
+		int column = 0;
+		if (vUsage!=null) { 
+			logger.debug(vUsage.getGuid());
+			row[column++] = Integer.toString(vUsage.getInputDbPK());
+			row[column++] = vUsage.getScientificName();
+			row[column++] = vUsage.getAuthorship();
+			row[column++] = vUsage.getGuid();
+			row[column++] = vUsage.getMatchDescription();
+			row[column++] = vUsage.getNameMatchDescription();
+			row[column++] = vUsage.getOriginalScientificName();
+			row[column++] = vUsage.getOriginalAuthorship();
+			row[column++] = Double.toString(vUsage.getAuthorshipStringEditDistance());
+			row[column++] = Double.toString(vUsage.getScientificNameStringEditDistance());
+			if (extensionTerms.size() > 0) { 
+				Map<String,String> terms = vUsage.getExtension();
+				Iterator<String> addedTermIterator = extensionTerms.iterator();
+				while (addedTermIterator.hasNext()) { 
+					// add in the order of the supportedExtenstionTerms list, to match the header.
+					row[column++] = terms.get(addedTermIterator.next());
 				}
-				
-				printer.flush();
 			}
+			row[column++] = vUsage.getAcceptedName();
+			row[column++] = vUsage.getAcceptedAuthorship();
+		} else { 
+			usage.setMatchDescription("Not Found");
+			logger.debug("Not found");
+			row[column++] = Integer.toString(usage.getInputDbPK());
+			row[column++] = usage.getScientificName();
+			row[column++] = usage.getAuthorship();
+			row[column++] = usage.getGuid();
+			row[column++] = usage.getMatchDescription();
+			row[column++] = "";
+			row[column++] = usage.getOriginalScientificName();
+			row[column++] = usage.getOriginalAuthorship();
+			row[column++] = Double.toString(usage.getAuthorshipStringEditDistance());
+			row[column++] = Double.toString(usage.getScientificNameStringEditDistance());
+		}	
+		return row;
+	}
+	
+	/**
+	 * Source of the names to validate.
+	 */
+	private interface NameSource extends Closeable { 
+		/**
+		 * @return the next name usage to validate, or null at the end of the input.
+		 * @throws IOException on a problem reading the input.
+		 */
+		NameUsage next() throws IOException;
+	}
+	
+	/**
+	 * Names from a csv file with a header, with dbpk, scientificName, and authorship columns,
+	 * and optionally kingdom and family columns.
+	 */
+	private static class CsvNameSource implements NameSource { 
+		private final BufferedReader reader;
+		private final CSVParser records;
+		private final Iterator<CSVRecord> recordIterator;
+		private final boolean hasKingdom;
+		private final boolean hasFamily;
+		
+		private CsvNameSource(File inputFile) throws IOException { 
+			reader = new BufferedReader(new FileReader(inputFile));
+			records = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(reader);
+			recordIterator = records.iterator();
+			hasKingdom = records.getHeaderMap().containsKey("kingdom");
+			hasFamily = records.getHeaderMap().containsKey("family");
+		}
+		
+		@Override
+		public NameUsage next() throws IOException { 
+			if (!recordIterator.hasNext()) { 
+				return null;
+			}
+			CSVRecord line = recordIterator.next();
+			logger.debug(line.get("dbpk"));
+			NameUsage usage = new NameUsage();
+			usage.setInputDbPK(Integer.parseInt(line.get("dbpk")));
+			usage.setScientificName(line.get("scientificName"));
+			usage.setAuthorship(line.get("authorship"));
+			if (hasKingdom) { 
+				usage.setKingdom(line.get("kingdom"));
+			} 
+			if (hasFamily) { 
+				usage.setFamily(line.get("family"));
+			} 
+			return usage;
+		}
+		
+		@Override
+		public void close() throws IOException { 
 			records.close();
 			reader.close();
-			printer.close();
-			writer.close();
-		} catch (Exception e) { 
-			logger.error(e.getMessage(), e);
 		}
-		return result;
+	}
+	
+	/**
+	 * Names from the core of a Darwin Core Archive, numbered by row.
+	 */
+	private static class ArchiveNameSource implements NameSource { 
+		private final DwcArchiveReader reader;
+		
+		private ArchiveNameSource(File archive) throws IOException { 
+			reader = new DwcArchiveReader(archive, ARCHIVE_TERMS);
+			if (!reader.hasTerm(ARCHIVE_TERMS.get(0))) { 
+				reader.close();
+				throw new IOException("Archive [" + archive.getPath() + "] has no scientificName in its core.");
+			}
+		}
+		
+		@Override
+		public NameUsage next() throws IOException { 
+			String[] values = reader.next();
+			if (values==null) { 
+				return null;
+			}
+			NameUsage usage = new NameUsage();
+			usage.setInputDbPK((int)reader.getRowNumber());
+			usage.setScientificName(values[0]);
+			usage.setAuthorship(values[1]==null ? "" : values[1]);
+			if (values[2]!=null) { 
+				usage.setKingdom(values[2]);
+			}
+			if (values[3]!=null) { 
+				usage.setFamily(values[3]);
+			}
+			return usage;
+		}
+		
+		@Override
+		public void close() throws IOException { 
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Outcome of the lookup of one input row.
+	 */
+	private static class RowResult { 
+		private final NameUsage usage;
+		private NameUsage validated;
+		private Exception failure;
+		
+		private RowResult(NameUsage usage) { 
+			this.usage = usage;
+		}
+	}
+	
+	/**
+	 * A group of name usages submitted for lookup, with the outcome of the lookup.
+	 */
+	private static class PendingLookup { 
+		private final List<NameUsage> usages;
+		private final Future<List<RowResult>> future;
+		
+		private PendingLookup(List<NameUsage> usages, Future<List<RowResult>> future) { 
+			this.usages = usages;
+			this.future = future;
+		}
+		
+		/**
+		 * Wait for the outcome of the lookup.  If the lookup failed, each name usage in the 
+		 * group is given the failure, so that it is written as an error row rather than ending
+		 * the batch.
+		 * 
+		 * @return the outcome of the lookup of each name usage, in order.
+		 * @throws InterruptedException if interrupted while waiting.
+		 */
+		private List<RowResult> get() throws InterruptedException { 
+			try { 
+				return future.get();
+			} catch (ExecutionException e) { 
+				Throwable cause = e.getCause();
+				if (cause instanceof Error) { 
+					throw (Error) cause;
+				}
+				logger.error(cause.getMessage(), cause);
+				List<RowResult> result = new ArrayList<RowResult>(usages.size());
+				Iterator<NameUsage> i = usages.iterator();
+				while (i.hasNext()) { 
+					RowResult rowResult = new RowResult(i.next());
+					rowResult.failure = (Exception) cause;
+					result.add(rowResult);
+				}
+				return result;
+			}
+		}
 	}
 	
 }
@@ -0,0 +1,73 @@
+/**
+ * CsvResultWriter.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.QuoteMode;
+
+/**
+ * Writes rows of results to a csv file with a header row, quoting only the values
+ * that need it, through a large buffer, which is flushed only when full and on close.
+ *
+ * Not safe for concurrent use.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public class CsvResultWriter implements ResultWriter {
+
+	/** Size in characters of the buffer in front of the file. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final BufferedWriter writer;
+	private final CSVPrinter printer;
+
+	/**
+	 * Create a csv file and write its header.
+	 *
+	 * @param file the file to write.
+	 * @param columns the names of the columns.
+	 * @throws IOException if the file can't be written.
+	 */
+	public CsvResultWriter(File file, List<String> columns) throws IOException {
+		writer = new BufferedWriter(new FileWriter(file), BUFFER_SIZE);
+		printer = new CSVPrinter(writer,
+				CSVFormat.DEFAULT.withQuoteMode(QuoteMode.MINIMAL).withHeader(columns.toArray(new String[columns.size()])));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void write(String[] row) throws IOException {
+		printer.printRecord((Object[])row);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void close() throws IOException {
+		printer.close();
+		writer.close();
+	}
+
+}
@@ -0,0 +1,440 @@
+/**
+ * DQDatasetRunner.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.datakurator.ffdq.api.DQResponse;
+import org.datakurator.ffdq.api.result.AmendmentValue;
+import org.datakurator.ffdq.api.result.ComplianceValue;
+
+/**
+ * <p>Runs a set of the DwCSciNameDQ tests over a dataset, evaluating each distinct tuple
+ * of values once.</p>
+ *
+ * <p>The response of a test depends only on the values of the information elements it acts
+ * upon and consults (see DQRecordRunner.getTerms()), and the rows of a dataset typically
+ * repeat the same few thousand combinations of those values.  A first pass over the input
+ * groups the rows by the values of the terms used by the requested tests, and each distinct
+ * tuple is run once with a DQRecordRunner, with each test run only for the values of its
+ * own terms that it has not already seen.  A second pass over the input writes the responses
+ * for every row, in the order of the input.  Progress is reported in distinct tuples.</p>
+ *
+ * <p>The input is a csv file with a header row of Darwin Core terms, with or without the dwc:
+ * prefix.  The output repeats the columns of the input, followed by the status, result,
+ * and comment of each test.</p>
+ *
+ * <p>The input may instead be a Darwin Core Archive, zipped or unpacked, which is streamed with
+ * a DwcArchiveReader, reading only the columns of the terms used by the requested tests, so
+ * that large occurrence archives can be evaluated without first extracting them to csv.  The
+ * output then has the id of each row of the core and the terms used by the tests, followed by
+ * the responses of the tests.</p>
+ *
+ * <p>The output is written by a ResultWriter obtained from ResultWriters, as csv, or as an
+ * Arrow IPC file if the name of the output file ends in .arrow or .feather.</p>
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public class DQDatasetRunner {
+
+	private static final Log logger = LogFactory.getLog(DQDatasetRunner.class);
+
+	/** Separates values in the key for a tuple, not expected in the data. */
+	private static final char SEPARATOR = '\u001F';
+
+	private File inputFile;
+	private File outputFile;
+	private String sourceAuthority;
+	private int threads = 1;
+	private int distinctTuples = 0;
+
+	/**
+	 * Constructor for a DQDatasetRunner to read records from an input file, run tests on them
+	 * against a source authority, and write the output to an output file.
+	 *
+	 * @param inputFileName csv file of records to evaluate.
+	 * @param outputFileName into which to write results, if null or empty, a name is derived
+	 *  from the input file name and the current date.
+	 * @param sourceAuthority the bdq:sourceAuthority to use, null for the default.
+	 * @throws org.filteredpush.qc.sciname.FileException if there is a problem reading the input file
+	 *  or writing the output file.
+	 */
+	public DQDatasetRunner(String inputFileName, String outputFileName, String sourceAuthority) throws FileException {
+		File targetInputFile = new File(inputFileName);
+		if (targetInputFile.exists() && targetInputFile.canRead()) { 
+			this.inputFile = targetInputFile;
+		} else { 
+			throw new FileException("Unable to read input file [" + inputFileName + "].");
+		}
+		if (outputFileName==null || outputFileName.trim().length()==0) { 
+			String base = inputFile.getName();
+			if (base.indexOf(".")>0) { 
+				base = base.substring(0, base.indexOf("."));
+			}
+			outputFileName = base.concat("_dq_").concat(LocalDate.now().toString().replace("-","_")).concat(".csv");
+		}
+		File targetOutputFile = new File(outputFileName);
+		if (targetOutputFile.exists()) { 
+			throw new FileException("Output file [" + outputFileName + "] exists, won't overwrite.");
+		}
+		this.outputFile = targetOutputFile;
+		this.sourceAuthority = sourceAuthority;
+	}
+
+	/**
+	 * Obtain the number of threads used for the lookups of each tuple.
+	 *
+	 * @return the number of threads.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Set the number of threads used for the lookups of each tuple.
+	 *
+	 * @param threads the number of threads, values less than 2 run lookups on the calling thread.
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Obtain the number of distinct tuples found by the last run.
+	 *
+	 * @return the number of distinct tuples evaluated.
+	 */
+	public int getDistinctTuples() {
+		return distinctTuples;
+	}
+
+	/**
+	 * Run the tests over the input file, writing the responses for each row to the output file.
+	 *
+	 * @param tests the labels of the tests to run, see DQRecordRunner.getSupportedTests().
+	 * @return success of the run.
+	 */
+	public boolean run(List<String> tests) {
+		boolean result = false;
+		List<String> terms = unionOfTerms(tests);
+		Map<String,DQResponse<?>> responses = new HashMap<String,DQResponse<?>>();
+		DQRecordRunner runner = null;
+		try { 
+			runner = new DQRecordRunner(sourceAuthority, threads);
+
+			// first pass, find the distinct tuples of the terms used by the tests
+			boolean archive = DwcArchiveReader.isArchive(inputFile);
+			Map<String,Map<String,String>> tuples = new LinkedHashMap<String,Map<String,String>>();
+			int rows = 0;
+			Map<String,String> columns = null;
+			if (archive) { 
+				DwcArchiveReader archiveReader = new DwcArchiveReader(inputFile, terms);
+				try { 
+					Map<String,String> record = archiveReader.nextRecord();
+					while (record!=null) { 
+						String key = tupleKey(record, terms);
+						if (!tuples.containsKey(key)) { 
+							tuples.put(key, record);
+						}
+						rows++;
+						record = archiveReader.nextRecord();
+					}
+				} finally { 
+					archiveReader.close();
+				}
+			} else { 
+				BufferedReader reader = new BufferedReader(new FileReader(inputFile));
+				CSVParser records = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(reader);
+				columns = termColumns(records.getHeaderMap().keySet());
+				Iterator<CSVRecord> i = records.iterator();
+				while (i.hasNext()) { 
+					Map<String,String> record = toRecord(i.next(), columns, terms);
+					String key = tupleKey(record, terms);
+					if (!tuples.containsKey(key)) { 
+						tuples.put(key, record);
+					}
+					rows++;
+				}
+				records.close();
+				reader.close();
+			}
+			distinctTuples = tuples.size();
+			logger.info("Found " + distinctTuples + " distinct tuples in " + rows + " rows of " + inputFile.getName());
+
+			// evaluate each test once for each distinct tuple of its own terms
+			int done = 0;
+			Iterator<Map<String,String>> t = tuples.values().iterator();
+			while (t.hasNext()) { 
+				Map<String,String> record = t.next();
+				List<String> toRun = new ArrayList<String>();
+				Iterator<String> ti = tests.iterator();
+				while (ti.hasNext()) { 
+					String test = ti.next();
+					if (!responses.containsKey(responseKey(test, record))) { 
+						toRun.add(test);
+					}
+				}
+				if (toRun.size()>0) { 
+					Map<String,DQResponse<?>> tupleResponses;
+					try { 
+						tupleResponses = runner.run(record, toRun);
+					} catch (RuntimeException e) {
+						// leave the responses for this tuple empty rather than abandon the run
+						logger.error("Unable to run tests on " + record + ": " + e.getMessage(), e);
+						tupleResponses = Collections.emptyMap();
+					}
+					Iterator<Map.Entry<String,DQResponse<?>>> ri = tupleResponses.entrySet().iterator();
+					while (ri.hasNext()) { 
+						Map.Entry<String,DQResponse<?>> entry = ri.next();
+						responses.put(responseKey(entry.getKey(), record), entry.getValue());
+					}
+				}
+				done++;
+				if (done % 100 == 0) { 
+					logger.info("Evaluated " + done + " of " + distinctTuples + " distinct tuples");
+				}
+			}
+			tuples.clear();
+			logger.info("Evaluated " + done + " of " + distinctTuples + " distinct tuples");
+
+			// second pass, write the responses for each row in input order
+			if (archive) { 
+				writeArchiveResponses(tests, terms, responses);
+			} else { 
+				BufferedReader reader = new BufferedReader(new FileReader(inputFile));
+				CSVParser records = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(reader);
+				List<String> headerNames = new ArrayList<String>(records.getHeaderMap().keySet());
+				Iterator<String> ti = tests.iterator();
+				while (ti.hasNext()) { 
+					String test = ti.next();
+					headerNames.add(test + " status");
+					headerNames.add(test + " result");
+					headerNames.add(test + " comment");
+				}
+				ResultWriter output = ResultWriters.open(outputFile, headerNames);
+				try { 
+					int width = headerNames.size();
+					Iterator<CSVRecord> i = records.iterator();
+					while (i.hasNext()) { 
+						CSVRecord line = i.next();
+						Map<String,String> record = toRecord(line, columns, terms);
+						String[] values = new String[width];
+						int column = 0;
+						for (int c=0; c<line.size() && column<width; c++) { 
+							values[column++] = line.get(c);
+						}
+						column = width - tests.size() * 3;
+						ti = tests.iterator();
+						while (ti.hasNext()) { 
+							putResponse(values, column, responses.get(responseKey(ti.next(), record)));
+							column += 3;
+						}
+						output.write(values);
+					}
+				} finally { 
+					output.close();
+					records.close();
+					reader.close();
+				}
+			}
+			result = true;
+		} catch (SourceAuthorityException | IOException e) {
+			logger.error(e.getMessage(), e);
+		} catch (InterruptedException e) {
+			logger.error(e.getMessage(), e);
+			Thread.currentThread().interrupt();
+		} finally { 
+			if (runner!=null) { 
+				runner.close();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Write the responses for each row of the core of an archive, in the order of the archive,
+	 * with the id of the row and the values of the terms used by the tests.
+	 */
+	private void writeArchiveResponses(List<String> tests, List<String> terms, Map<String,DQResponse<?>> responses) throws IOException {
+		List<String> archiveTerms = new ArrayList<String>();
+		archiveTerms.add(DwcArchiveReader.ID_TERM);
+		archiveTerms.addAll(terms);
+		DwcArchiveReader archiveReader = new DwcArchiveReader(inputFile, archiveTerms);
+		try { 
+			List<String> headerNames = new ArrayList<String>(archiveTerms);
+			Iterator<String> ti = tests.iterator();
+			while (ti.hasNext()) { 
+				String test = ti.next();
+				headerNames.add(test + " status");
+				headerNames.add(test + " result");
+				headerNames.add(test + " comment");
+			}
+			ResultWriter output = ResultWriters.open(outputFile, headerNames);
+			try { 
+				Map<String,String> record = archiveReader.nextRecord();
+				while (record!=null) { 
+					String[] values = new String[headerNames.size()];
+					int column = 0;
+					Iterator<String> t = archiveTerms.iterator();
+					while (t.hasNext()) { 
+						values[column++] = record.get(t.next());
+					}
+					ti = tests.iterator();
+					while (ti.hasNext()) { 
+						putResponse(values, column, responses.get(responseKey(ti.next(), record)));
+						column += 3;
+					}
+					output.write(values);
+					record = archiveReader.nextRecord();
+				}
+			} finally { 
+				output.close();
+			}
+		} finally { 
+			archiveReader.close();
+		}
+	}
+
+	/**
+	 * Find the terms used by any of a set of tests.
+	 *
+	 * @param tests the labels of the tests.
+	 * @return the distinct terms used by the tests, in order of first use.
+	 * @throws IllegalArgumentException if a test is not supported.
+	 */
+	protected static List<String> unionOfTerms(List<String> tests) {
+		Set<String> terms = new LinkedHashSet<String>();
+		Iterator<String> i = tests.iterator();
+		while (i.hasNext()) { 
+			terms.addAll(DQRecordRunner.getTerms(i.next()));
+		}
+		return new ArrayList<String>(terms);
+	}
+
+	/**
+	 * Map Darwin Core terms to the columns of the input that hold them.
+	 *
+	 * @param headers the column names of the input, with or without the dwc: prefix.
+	 * @return map of terms, with the dwc: prefix, to column names.
+	 */
+	protected static Map<String,String> termColumns(Set<String> headers) {
+		Map<String,String> result = new HashMap<String,String>();
+		Iterator<String> i = headers.iterator();
+		while (i.hasNext()) { 
+			String header = i.next();
+			String term = header.trim();
+			if (!term.startsWith("dwc:")) { 
+				term = "dwc:" + term;
+			}
+			result.put(term, header);
+		}
+		return result;
+	}
+
+	/**
+	 * Construct the key identifying the values of a set of terms in a record.
+	 *
+	 * @param record map of Darwin Core terms to values.
+	 * @param terms the terms to include in the key.
+	 * @return a key equal for records with equal values for all of the terms.
+	 */
+	protected static String tupleKey(Map<String,String> record, List<String> terms) {
+		StringBuilder key = new StringBuilder();
+		Iterator<String> i = terms.iterator();
+		while (i.hasNext()) { 
+			String value = record.get(i.next());
+			if (value!=null) { 
+				key.append(value);
+			}
+			key.append(SEPARATOR);
+		}
+		return key.toString();
+	}
+
+	private static String responseKey(String test, Map<String,String> record) {
+		return test + SEPARATOR + tupleKey(record, DQRecordRunner.getTerms(test));
+	}
+
+	private static Map<String,String> toRecord(CSVRecord line, Map<String,String> columns, List<String> terms) {
+		Map<String,String> record = new HashMap<String,String>();
+		Iterator<String> i = terms.iterator();
+		while (i.hasNext()) { 
+			String term = i.next();
+			String column = columns.get(term);
+			if (column!=null && line.isSet(column)) { 
+				record.put(term, line.get(column));
+			}
+		}
+		return record;
+	}
+
+	/**
+	 * Put the status, result, and comment of a response into the values of a row, leaving
+	 * them empty for a test that could not be run on the row.
+	 */
+	private static void putResponse(String[] values, int column, DQResponse<?> response) {
+		if (response!=null) { 
+			if (response.getResultState()!=null) { 
+				values[column] = response.getResultState().getLabel();
+			}
+			values[column+1] = valueOf(response.getValue());
+			values[column+2] = response.getComment();
+		}
+	}
+
+	private static String valueOf(Object value) {
+		String result = "";
+		if (value instanceof ComplianceValue) { 
+			result = ((ComplianceValue)value).getLabel();
+		} else if (value instanceof AmendmentValue) { 
+			StringBuilder proposed = new StringBuilder();
+			Iterator<Map.Entry<String,String>> i = ((AmendmentValue)value).getObject().entrySet().iterator();
+			while (i.hasNext()) { 
+				Map.Entry<String,String> entry = i.next();
+				if (proposed.length()>0) { 
+					proposed.append(" | ");
+				}
+				proposed.append(entry.getKey()).append("=").append(entry.getValue());
+			}
+			result = proposed.toString();
+		} else if (value!=null) { 
+			result = value.toString();
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,474 @@
+/**
+ * DQRecordRunner.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.datakurator.ffdq.api.DQResponse;
+import org.datakurator.ffdq.model.ResultState;
+import org.filteredpush.qc.sciname.services.GBIFService;
+import org.filteredpush.qc.sciname.services.IRMNGService;
+import org.filteredpush.qc.sciname.services.MetricsRegistries;
+import org.filteredpush.qc.sciname.services.WoRMSService;
+
+/**
+ * Runs a set of the DwCSciNameDQ tests on one record at a time, planning the remote lookups
+ * the tests will make before running them.
+ *
+ * Several tests look up the same values, validationFamilyFound and
+ * validationClassificationConsistent both look up the family at rank Family,
+ * validationTaxonUnambiguous and amendmentScientificnameidFromTaxon both search for the
+ * scientific name.  Run one after another, each test waits on its own lookups in turn.
+ * This runner works out the distinct lookups that the requested tests need for a record,
+ * runs each of them once, concurrently, which leaves the responses in the in memory caches
+ * of the services (the caches of lookupTaxonAtRank, and the responses held in memory by
+ * the shared LookupCache, see LookupCaches), then evaluates each test, which finds the 
+ * responses it needs in those caches.  The tests themselves are unchanged, so a lookup 
+ * that fails while planning is simply made again by the test that needs it, and reported 
+ * by that test as it would be otherwise.
+ *
+ * Records are maps of Darwin Core terms, with keys such as dwc:kingdom, tests are identified
+ * by their labels, see getSupportedTests().
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public class DQRecordRunner {
+
+	private static final Log logger = LogFactory.getLog(DQRecordRunner.class);
+
+	/** Component under which the evaluation of each test is recorded in the shared MetricsRegistry. */
+	public static final String METRICS_COMPONENT = "DwCSciNameDQ";
+
+	public static final String VALIDATION_KINGDOM_FOUND = "VALIDATION_KINGDOM_FOUND";
+	public static final String VALIDATION_PHYLUM_FOUND = "VALIDATION_PHYLUM_FOUND";
+	public static final String VALIDATION_CLASS_FOUND = "VALIDATION_CLASS_FOUND";
+	public static final String VALIDATION_ORDER_FOUND = "VALIDATION_ORDER_FOUND";
+	public static final String VALIDATION_SUPERFAMILY_FOUND = "VALIDATION_SUPERFAMILY_FOUND";
+	public static final String VALIDATION_FAMILY_FOUND = "VALIDATION_FAMILY_FOUND";
+	public static final String VALIDATION_TRIBE_FOUND = "VALIDATION_TRIBE_FOUND";
+	public static final String VALIDATION_SUBTRIBE_FOUND = "VALIDATION_SUBTRIBE_FOUND";
+	public static final String VALIDATION_GENUS_FOUND = "VALIDATION_GENUS_FOUND";
+	public static final String VALIDATION_CLASSIFICATION_CONSISTENT = "VALIDATION_CLASSIFICATION_CONSISTENT";
+	public static final String VALIDATION_TAXON_UNAMBIGUOUS = "VALIDATION_TAXON_UNAMBIGUOUS";
+	public static final String AMENDMENT_SCIENTIFICNAMEID_FROM_TAXON = "AMENDMENT_SCIENTIFICNAMEID_FROM_TAXON";
+	public static final String VALIDATION_POLYNOMIAL_CONSISTENT = "VALIDATION_POLYNOMIAL_CONSISTENT";
+
+	private static final List<String> SUPPORTED_TESTS = Collections.unmodifiableList(Arrays.asList(
+			VALIDATION_KINGDOM_FOUND, VALIDATION_PHYLUM_FOUND, VALIDATION_CLASS_FOUND, VALIDATION_ORDER_FOUND,
+			VALIDATION_SUPERFAMILY_FOUND, VALIDATION_FAMILY_FOUND, VALIDATION_TRIBE_FOUND, VALIDATION_SUBTRIBE_FOUND,
+			VALIDATION_GENUS_FOUND, VALIDATION_CLASSIFICATION_CONSISTENT, VALIDATION_TAXON_UNAMBIGUOUS,
+			AMENDMENT_SCIENTIFICNAMEID_FROM_TAXON, VALIDATION_POLYNOMIAL_CONSISTENT));
+
+	private static final String[] HIGHER_TERMS = { "dwc:kingdom", "dwc:phylum", "dwc:class", "dwc:order", "dwc:superfamily",
+			"dwc:family", "dwc:subfamily", "dwc:tribe", "dwc:subtribe", "dwc:genus" };
+
+	/** The terms of a Taxon, all of which are acted upon or consulted by the tests that take a Taxon. */
+	private static final String[] TAXON_TERMS = { "dwc:taxonID", "dwc:kingdom", "dwc:phylum", "dwc:class", "dwc:order",
+			"dwc:family", "dwc:subfamily", "dwc:genus", "dwc:subgenus", "dwc:scientificName", "dwc:scientificNameAuthorship",
+			"dwc:genericName", "dwc:specificEpithet", "dwc:infraspecificEpithet", "dwc:taxonRank", "dwc:cultivarEpithet",
+			"dwc:higherClassification", "dwc:vernacularName", "dwc:taxonConceptID", "dwc:scientificNameID",
+			"dwc:originalNameUsageID", "dwc:acceptedNameUsageID", "dwc:superfamily", "dwc:tribe", "dwc:subtribe" };
+
+	/** The terms of the polynomial, compared by validationPolynomialConsistent. */
+	private static final String[] POLYNOMIAL_TERMS = { "dwc:scientificName", "dwc:genericName", "dwc:specificEpithet",
+			"dwc:infraspecificEpithet" };
+
+	/** Higher ranks, from lowest to highest, in the order validationClassificationConsistent chooses the lowest ranking taxon. */
+	private static final String[][] CLASSIFICATION_RANKS = {
+		{ "dwc:genus", "Genus" }, { "dwc:subfamily", "Subfamily" }, { "dwc:subtribe", "Subtribe" },
+		{ "dwc:tribe", "Tribe" }, { "dwc:family", "Family" }, { "dwc:superfamily", "Superfamily" },
+		{ "dwc:order", "Order" }, { "dwc:class", "Class" }, { "dwc:phylum", "Phylum" }, { "dwc:kingdom", "Kingdom" }
+	};
+
+	private final String sourceAuthorityString;
+	private final SciNameSourceAuthority sourceAuthority;
+	private final ExecutorService executor;
+
+	/**
+	 * Create a runner for tests against a source authority.
+	 *
+	 * @param sourceAuthorityString the bdq:sourceAuthority for the tests, if null or empty
+	 *   the GBIF Backbone Taxonomy.
+	 * @param threads the number of lookups to run at once, values less than 2 run the
+	 *   lookups on the calling thread.
+	 * @throws SourceAuthorityException if the source authority is not recognized.
+	 */
+	public DQRecordRunner(String sourceAuthorityString, int threads) throws SourceAuthorityException {
+		this.sourceAuthorityString = sourceAuthorityString;
+		if (SciNameUtils.isEmpty(sourceAuthorityString)) { 
+			sourceAuthority = new SciNameSourceAuthority(EnumSciNameSourceAuthority.GBIF_BACKBONE_TAXONOMY);
+		} else { 
+			sourceAuthority = new SciNameSourceAuthority(sourceAuthorityString);
+		}
+		if (threads > 1) { 
+			executor = Executors.newFixedThreadPool(threads);
+		} else { 
+			executor = null;
+		}
+	}
+
+	/**
+	 * Obtain the labels of the tests this runner can run.
+	 *
+	 * @return the supported test labels.
+	 */
+	public static List<String> getSupportedTests() {
+		return SUPPORTED_TESTS;
+	}
+
+	/**
+	 * Obtain the information elements that a test acts upon or consults, the response of a
+	 * test depends only on the values of these terms in a record.
+	 *
+	 * @param test the label of the test.
+	 * @return the Darwin Core terms used by the test.
+	 * @throws IllegalArgumentException if the test is not supported.
+	 */
+	public static List<String> getTerms(String test) {
+		if (test.equals(VALIDATION_KINGDOM_FOUND)) { 
+			return Collections.singletonList("dwc:kingdom");
+		} else if (test.equals(VALIDATION_PHYLUM_FOUND)) { 
+			return Collections.singletonList("dwc:phylum");
+		} else if (test.equals(VALIDATION_CLASS_FOUND)) { 
+			return Collections.singletonList("dwc:class");
+		} else if (test.equals(VALIDATION_ORDER_FOUND)) { 
+			return Collections.singletonList("dwc:order");
+		} else if (test.equals(VALIDATION_SUPERFAMILY_FOUND)) { 
+			return Collections.singletonList("dwc:superfamily");
+		} else if (test.equals(VALIDATION_FAMILY_FOUND)) { 
+			return Collections.singletonList("dwc:family");
+		} else if (test.equals(VALIDATION_TRIBE_FOUND)) { 
+			return Collections.singletonList("dwc:tribe");
+		} else if (test.equals(VALIDATION_SUBTRIBE_FOUND)) { 
+			return Collections.singletonList("dwc:subtribe");
+		} else if (test.equals(VALIDATION_GENUS_FOUND)) { 
+			return Collections.singletonList("dwc:genus");
+		} else if (test.equals(VALIDATION_CLASSIFICATION_CONSISTENT)) { 
+			return Collections.unmodifiableList(Arrays.asList(HIGHER_TERMS));
+		} else if (test.equals(VALIDATION_TAXON_UNAMBIGUOUS) || test.equals(AMENDMENT_SCIENTIFICNAMEID_FROM_TAXON)) { 
+			return Collections.unmodifiableList(Arrays.asList(TAXON_TERMS));
+		} else if (test.equals(VALIDATION_POLYNOMIAL_CONSISTENT)) { 
+			return Collections.unmodifiableList(Arrays.asList(POLYNOMIAL_TERMS));
+		}
+		throw new IllegalArgumentException("Unsupported test " + test);
+	}
+
+	/**
+	 * Release the threads used for lookups.
+	 */
+	public void close() {
+		if (executor!=null) { 
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Run tests on a record, making each distinct lookup the tests need once, concurrently,
+	 * before evaluating the tests.
+	 *
+	 * @param record map of Darwin Core terms (e.g. dwc:kingdom) to values.
+	 * @param tests the labels of the tests to run, see getSupportedTests().
+	 * @return the response of each test, keyed by test label, in the order of tests.
+	 * @throws IllegalArgumentException if a test is not supported.
+	 * @throws InterruptedException if interrupted while waiting for lookups.
+	 */
+	public Map<String,DQResponse<?>> run(Map<String,String> record, Collection<String> tests) throws InterruptedException {
+		Map<String,Callable<Object>> lookups = plan(record, tests);
+		logger.debug("Running " + lookups.size() + " lookups for " + tests.size() + " tests");
+		prefetch(lookups);
+
+		Map<String,DQResponse<?>> result = new LinkedHashMap<String,DQResponse<?>>();
+		Iterator<String> i = tests.iterator();
+		while (i.hasNext()) { 
+			String test = i.next();
+			result.put(test, evaluate(test, record));
+		}
+		return result;
+	}
+
+	/**
+	 * Work out the distinct lookups that the tests will make for a record.
+	 *
+	 * @param record map of Darwin Core terms to values.
+	 * @param tests the labels of the tests.
+	 * @return the lookups, keyed by a description of each lookup.
+	 * @throws IllegalArgumentException if a test is not supported.
+	 */
+	public Map<String,Callable<Object>> plan(Map<String,String> record, Collection<String> tests) {
+		Map<String,Callable<Object>> lookups = new LinkedHashMap<String,Callable<Object>>();
+		Iterator<String> i = tests.iterator();
+		while (i.hasNext()) { 
+			String test = i.next();
+			if (test.equals(VALIDATION_KINGDOM_FOUND)) { 
+				planAtRank(lookups, value(record, "dwc:kingdom"), "Kingdom", 100);
+			} else if (test.equals(VALIDATION_PHYLUM_FOUND)) { 
+				planAtRank(lookups, value(record, "dwc:phylum"), "Phylum", 100);
+			} else if (test.equals(VALIDATION_CLASS_FOUND)) { 
+				planAtRank(lookups, value(record, "dwc:class"), "Class", 100);
+			} else if (test.equals(VALIDATION_ORDER_FOUND)) { 
+				planAtRank(lookups, value(record, "dwc:order"), "Order", 100);
+			} else if (test.equals(VALIDATION_SUPERFAMILY_FOUND)) { 
+				planAtRank(lookups, value(record, "dwc:superfamily"), "Superfamily", 100);
+			} else if (test.equals(VALIDATION_FAMILY_FOUND)) { 
+				planAtRank(lookups, value(record, "dwc:family"), "Family", 100);
+			} else if (test.equals(VALIDATION_TRIBE_FOUND)) { 
+				planAtRank(lookups, value(record, "dwc:tribe"), "Tribe", 100);
+			} else if (test.equals(VALIDATION_SUBTRIBE_FOUND)) { 
+				planAtRank(lookups, value(record, "dwc:subtribe"), "Subtribe", 100);
+			} else if (test.equals(VALIDATION_GENUS_FOUND)) { 
+				planGenus(lookups, value(record, "dwc:genus"));
+			} else if (test.equals(VALIDATION_CLASSIFICATION_CONSISTENT)) { 
+				for (int r=0; r<CLASSIFICATION_RANKS.length; r++) { 
+					String taxon = value(record, CLASSIFICATION_RANKS[r][0]);
+					if (!SciNameUtils.isEmpty(taxon)) { 
+						// the lowest ranking taxon is checked, then its classification is retrieved
+						planAtRank(lookups, taxon, CLASSIFICATION_RANKS[r][1], 100);
+						planAtRank(lookups, taxon, CLASSIFICATION_RANKS[r][1], 10);
+						break;
+					}
+				}
+			} else if (test.equals(VALIDATION_TAXON_UNAMBIGUOUS) || test.equals(AMENDMENT_SCIENTIFICNAMEID_FROM_TAXON)) { 
+				Taxon taxon = taxon(record);
+				if (SciNameUtils.isEmpty(taxon.getScientificNameID())) { 
+					planTaxon(lookups, DwCSciNameDQ.nameToLookUp(taxon), taxon.getScientificNameAuthorship());
+				}
+			} else if (test.equals(VALIDATION_POLYNOMIAL_CONSISTENT)) { 
+				// compares the terms of the record, no lookups
+			} else { 
+				throw new IllegalArgumentException("Unsupported test " + test);
+			}
+		}
+		return lookups;
+	}
+
+	/**
+	 * Run the planned lookups, concurrently if this runner has threads, ignoring failures,
+	 * which are reported by the tests that repeat the lookups.
+	 */
+	private void prefetch(Map<String,Callable<Object>> lookups) throws InterruptedException {
+		if (executor==null || lookups.size() < 2) { 
+			Iterator<Map.Entry<String,Callable<Object>>> i = lookups.entrySet().iterator();
+			while (i.hasNext()) { 
+				Map.Entry<String,Callable<Object>> lookup = i.next();
+				try { 
+					lookup.getValue().call();
+				} catch (Exception e) {
+					logger.debug("Lookup " + lookup.getKey() + " failed: " + e.getMessage());
+				}
+			}
+		} else { 
+			List<Future<Object>> futures = executor.invokeAll(new ArrayList<Callable<Object>>(lookups.values()));
+			Iterator<Future<Object>> i = futures.iterator();
+			while (i.hasNext()) { 
+				try { 
+					i.next().get();
+				} catch (ExecutionException e) {
+					logger.debug("Lookup failed: " + e.getCause().getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Evaluate one test on a record, recording its duration in the shared MetricsRegistry
+	 * under DwCSciNameDQ and the label of the test, tests that throw or that could not reach
+	 * a service (EXTERNAL_PREREQUISITES_NOT_MET) are counted as failures.
+	 */
+	private DQResponse<?> evaluate(String test, Map<String,String> record) {
+		long start = MetricsRegistries.start();
+		boolean failed = true;
+		try { 
+			DQResponse<?> response = evaluateTest(test, record);
+			failed = response.getResultState()!=null 
+					&& response.getResultState().getLabel().equals(ResultState.EXTERNAL_PREREQUISITES_NOT_MET.getLabel());
+			return response;
+		} finally { 
+			MetricsRegistries.stop(METRICS_COMPONENT, test, start, failed);
+		}
+	}
+
+	/**
+	 * Evaluate one test on a record.
+	 */
+	private DQResponse<?> evaluateTest(String test, Map<String,String> record) {
+		if (test.equals(VALIDATION_KINGDOM_FOUND)) { 
+			return DwCSciNameDQ.validationKingdomFound(value(record, "dwc:kingdom"), sourceAuthority);
+		} else if (test.equals(VALIDATION_PHYLUM_FOUND)) { 
+			return DwCSciNameDQ.validationPhylumFound(value(record, "dwc:phylum"), sourceAuthority);
+		} else if (test.equals(VALIDATION_CLASS_FOUND)) { 
+			return DwCSciNameDQ.validationClassFound(value(record, "dwc:class"), sourceAuthority);
+		} else if (test.equals(VALIDATION_ORDER_FOUND)) { 
+			return DwCSciNameDQ.validationOrderFound(value(record, "dwc:order"), sourceAuthority);
+		} else if (test.equals(VALIDATION_SUPERFAMILY_FOUND)) { 
+			return DwCSciNameDQ.validationSuperfamilyFound(value(record, "dwc:superfamily"), sourceAuthority);
+		} else if (test.equals(VALIDATION_FAMILY_FOUND)) { 
+			return DwCSciNameDQ.validationFamilyFound(value(record, "dwc:family"), sourceAuthority);
+		} else if (test.equals(VALIDATION_TRIBE_FOUND)) { 
+			return DwCSciNameDQ.validationTribeFound(value(record, "dwc:tribe"), sourceAuthority);
+		} else if (test.equals(VALIDATION_SUBTRIBE_FOUND)) { 
+			return DwCSciNameDQ.validationSubtribeFound(value(record, "dwc:subtribe"), sourceAuthority);
+		} else if (test.equals(VALIDATION_GENUS_FOUND)) { 
+			return DwCSciNameDQ.validationGenusFound(value(record, "dwc:genus"), sourceAuthority);
+		} else if (test.equals(VALIDATION_CLASSIFICATION_CONSISTENT)) { 
+			return DwCSciNameDQ.validationClassificationConsistent(value(record, "dwc:kingdom"), value(record, "dwc:phylum"),
+					value(record, "dwc:class"), value(record, "dwc:order"), value(record, "dwc:superfamily"),
+					value(record, "dwc:family"), value(record, "dwc:subfamily"), value(record, "dwc:tribe"),
+					value(record, "dwc:subtribe"), value(record, "dwc:genus"), sourceAuthority);
+		} else if (test.equals(VALIDATION_TAXON_UNAMBIGUOUS)) { 
+			return DwCSciNameDQ.validationTaxonUnambiguous(taxon(record), sourceAuthorityString);
+		} else if (test.equals(AMENDMENT_SCIENTIFICNAMEID_FROM_TAXON)) { 
+			return DwCSciNameDQ.amendmentScientificnameidFromTaxon(taxon(record), sourceAuthority);
+		} else if (test.equals(VALIDATION_POLYNOMIAL_CONSISTENT)) { 
+			return DwCSciNameDQ.validationPolynomialConsistent(value(record, "dwc:scientificName"), value(record, "dwc:genericName"),
+					value(record, "dwc:specificEpithet"), value(record, "dwc:infraspecificEpithet"));
+		}
+		throw new IllegalArgumentException("Unsupported test " + test);
+	}
+
+	/**
+	 * Plan the lookup made by DwCSciNameDQ.validateHigherTaxonAtRank or the retrieval of the
+	 * classification of a taxon by validationClassificationConsistent.
+	 */
+	private void planAtRank(Map<String,Callable<Object>> lookups, final String taxon, final String rank, final int limit) {
+		if (SciNameUtils.isEmpty(taxon)) { 
+			return;
+		}
+		if (sourceAuthority.isGBIFChecklist()) { 
+			final String checklist = sourceAuthority.getAuthoritySubDataset();
+			lookups.put("GBIF|" + checklist + "|" + rank + "|" + limit + "|" + taxon, new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return GBIFService.lookupTaxonAtRank(taxon, checklist, rank, limit);
+				}
+			});
+		} else if (sourceAuthority.getAuthority().equals(EnumSciNameSourceAuthority.WORMS)) { 
+			lookups.put("WORMS|" + rank + "|" + taxon, new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return WoRMSService.lookupTaxonAtRank(taxon, rank);
+				}
+			});
+		} else if (sourceAuthority.getAuthority().equals(EnumSciNameSourceAuthority.IRMNG)) { 
+			lookups.put("IRMNG|" + rank + "|" + taxon, new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return IRMNGService.lookupTaxonAtRank(taxon, rank);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Plan the lookup made by DwCSciNameDQ.validationGenusFound.
+	 */
+	private void planGenus(Map<String,Callable<Object>> lookups, final String genus) {
+		if (SciNameUtils.isEmpty(genus)) { 
+			return;
+		}
+		if (sourceAuthority.isGBIFChecklist()) { 
+			final String checklist = sourceAuthority.getAuthoritySubDataset();
+			lookups.put("GBIF|" + checklist + "|genus|" + genus, new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return GBIFService.lookupGenus(genus, checklist, 100);
+				}
+			});
+		} else if (sourceAuthority.getAuthority().equals(EnumSciNameSourceAuthority.WORMS)) { 
+			lookups.put("WORMS|genus|" + genus, new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return WoRMSService.lookupGenus(genus);
+				}
+			});
+		} else if (sourceAuthority.getAuthority().equals(EnumSciNameSourceAuthority.IRMNG)) { 
+			lookups.put("IRMNG|genus|" + genus, new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return IRMNGService.lookupGenus(genus);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Plan the search for a name made by validationTaxonUnambiguous and
+	 * amendmentScientificnameidFromTaxon.
+	 */
+	private void planTaxon(Map<String,Callable<Object>> lookups, final String name, final String authorship) {
+		if (SciNameUtils.isEmpty(name)) { 
+			return;
+		}
+		if (sourceAuthority.isGBIFChecklist()) { 
+			final String checklist = sourceAuthority.getAuthoritySubDataset();
+			lookups.put("GBIF|" + checklist + "|search|" + name, new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return GBIFService.searchForTaxon(name, checklist);
+				}
+			});
+		} else if (sourceAuthority.getAuthority().equals(EnumSciNameSourceAuthority.WORMS)) { 
+			lookups.put("WORMS|search|" + name, new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return WoRMSService.lookupTaxon(name, authorship);
+				}
+			});
+		} else if (sourceAuthority.getAuthority().equals(EnumSciNameSourceAuthority.IRMNG)) { 
+			lookups.put("IRMNG|search|" + name, new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return IRMNGService.lookupTaxon(name, authorship);
+				}
+			});
+		}
+	}
+
+	private static String value(Map<String,String> record, String term) {
+		return record.get(term);
+	}
+
+	private static Taxon taxon(Map<String,String> record) {
+		return new Taxon(value(record, "dwc:taxonID"), value(record, "dwc:kingdom"), value(record, "dwc:phylum"),
+				value(record, "dwc:class"), value(record, "dwc:order"), value(record, "dwc:family"),
+				value(record, "dwc:subfamily"), value(record, "dwc:genus"), value(record, "dwc:subgenus"),
+				value(record, "dwc:scientificName"), value(record, "dwc:scientificNameAuthorship"),
+				value(record, "dwc:genericName"), value(record, "dwc:specificEpithet"),
+				value(record, "dwc:infraspecificEpithet"), value(record, "dwc:taxonRank"),
+				value(record, "dwc:cultivarEpithet"), value(record, "dwc:higherClassification"),
+				value(record, "dwc:vernacularName"), value(record, "dwc:taxonConceptID"),
+				value(record, "dwc:scientificNameID"), value(record, "dwc:originalNameUsageID"),
+				value(record, "dwc:acceptedNameUsageID"), value(record, "dwc:superfamily"),
+				value(record, "dwc:tribe"), value(record, "dwc:subtribe"));
+	}
+
+}
@@ -29,8 +29,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.xml.parsers.ParserConfigurationException;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.datakurator.ffdq.annotations.*;
@@ -42,17 +40,15 @@ import org.filteredpush.qc.sciname.services.IRMNGService;
 import org.filteredpush.qc.sciname.services.ServiceException;
 import org.filteredpush.qc.sciname.services.Validator;
 import org.filteredpush.qc.sciname.services.WoRMSService;
-import org.gbif.nameparser.NameParserGBIF;
-import org.gbif.nameparser.api.NameParser;
-import org.gbif.nameparser.api.ParsedName;
 import org.gbif.nameparser.api.Rank;
 import org.gbif.nameparser.api.UnparsableNameException;
 import org.marinespecies.aphia.v1_0.handler.ApiException;
-import org.xml.sax.SAXException;
 
 import edu.harvard.mcz.nametools.AuthorNameComparator;
 import edu.harvard.mcz.nametools.NameAuthorshipParse;
 import edu.harvard.mcz.nametools.NameComparison;
+import edu.harvard.mcz.nametools.NameParse;
+import edu.harvard.mcz.nametools.NameParsers;
 import edu.harvard.mcz.nametools.NameUsage;
 
 import org.datakurator.ffdq.api.result.*;
@@ -287,6 +283,7 @@ public class DwCSciNameDQ {
 					toValidate.setAuthorship(parsedName.getAuthorship());
 					logger.debug(parsedName.getNameWithoutAuthorship());
 					logger.debug(parsedName.getAuthorship());
+					result.addComment("Separated authorship from scientificName with the " + parsedName.getParseSource() + ".");
 					set = true;
 				} catch (UnparsableNameException e) { 
 					result.addComment("Unable to parse authorship out of provided scientificName, trying GNI and GBIF parser service with ["+scientificName+"].");
@@ -306,7 +303,7 @@ public class DwCSciNameDQ {
 						result.addComment(e.getMessage());	
 					} 
 				} catch (Exception e) {
-					// could be thrown from parser.close()
+					// unexpected failure in parsing
 					logger.error(e.getMessage(), e);
 				}
 				if (!set) { 
@@ -547,25 +544,7 @@ public class DwCSciNameDQ {
 				sourceAuthority = new SciNameSourceAuthority();
 			}
 			result.addComment("Provided taxon [" + taxon.toString() + "]");
-			String lookMeUp = taxon.getScientificName();
-			if (SciNameUtils.isEmpty(lookMeUp)) { 
-				lookMeUp = taxon.getGenericName();
-				if (!SciNameUtils.isEmpty(taxon.getSpecificEpithet())) { 
-					lookMeUp = lookMeUp + " " + taxon.getSpecificEpithet();
-				}
-				if (!SciNameUtils.isEmpty(taxon.getInfraspecificEpithet())) { 
-					lookMeUp = lookMeUp + " " + taxon.getInfraspecificEpithet();
-				}
-				if (!SciNameUtils.isEmpty(taxon.getCultivarEpithet())) { 
-					lookMeUp = lookMeUp + " " + taxon.getCultivarEpithet();
-				}
-			}
-			logger.debug(lookMeUp);
-			if (!SciNameUtils.isEmpty(taxon.getScientificNameAuthorship())) { 
-				if (lookMeUp.endsWith(taxon.getScientificNameAuthorship())) { 
-					lookMeUp = lookMeUp.substring(0, lookMeUp.lastIndexOf(taxon.getScientificNameAuthorship())).trim();
-				}
-			}
+			String lookMeUp = nameToLookUp(taxon);
 
 			try {
 				List<NameUsage> matchList = null;
@@ -944,25 +923,7 @@ public class DwCSciNameDQ {
 					}
 
 					if (!completed) { 
-						String lookMeUp = taxon.getScientificName();
-						if (SciNameUtils.isEmpty(lookMeUp)) { 
-							lookMeUp = taxon.getGenericName();
-							if (!SciNameUtils.isEmpty(taxon.getSpecificEpithet())) { 
-								lookMeUp = lookMeUp + " " + taxon.getSpecificEpithet();
-							}
-							if (!SciNameUtils.isEmpty(taxon.getInfraspecificEpithet())) { 
-								lookMeUp = lookMeUp + " " + taxon.getInfraspecificEpithet();
-							}
-							if (!SciNameUtils.isEmpty(taxon.getCultivarEpithet())) { 
-								lookMeUp = lookMeUp + " " + taxon.getCultivarEpithet();
-							}
-						}
-						logger.debug(lookMeUp);
-						if (!SciNameUtils.isEmpty(taxon.getScientificNameAuthorship())) { 
-							if (lookMeUp.endsWith(taxon.getScientificNameAuthorship())) { 
-								lookMeUp = lookMeUp.substring(0, lookMeUp.lastIndexOf(taxon.getScientificNameAuthorship())).trim();
-							}
-						}
+						String lookMeUp = nameToLookUp(taxon);
 						logger.debug(lookMeUp);
 
 						result.addComment("Provided taxon ["+taxon.toString()+"]");
@@ -1637,9 +1598,8 @@ public class DwCSciNameDQ {
 				result.setValue(ComplianceValue.NOT_COMPLIANT);
 				result.setResultState(ResultState.RUN_HAS_RESULT);
 			} else { 
-				NameParser nameParser = new NameParserGBIF();
 				try {
-					ParsedName parse = nameParser.parse(scientificName,Rank.UNRANKED, null);
+					NameParse parse = NameParsers.parse(scientificName,Rank.UNRANKED, null);
 					logger.debug(parse.toString());
 					String parseGeneric = parse.getGenus();
 					if (parseGeneric==null) { parseGeneric = ""; }
@@ -1718,11 +1678,6 @@ public class DwCSciNameDQ {
 					result.addComment("Thread Error trying to parse scientific name: " + e.getMessage());
 					result.setResultState(ResultState.EXTERNAL_PREREQUISITES_NOT_MET);
 				}
-				try {
-					nameParser.close();
-				} catch (Exception e) {
-					logger.error(e.getMessage(), e);
-				}
 			}
 		}
 
@@ -2198,52 +2153,14 @@ public class DwCSciNameDQ {
 			try { 
 				if (sourceAuthority.equals("https://rs.gbif.org/vocabulary/gbif/rank.xml") || sourceAuthority.equals("Taxonomic Rank GBIF Vocabulary")) { 
 
-					HashSet<String> values = new HashSet<String>();
-					values.add("domain");
-					values.add("kingdom");
-					values.add("subkingdom");
-					values.add("superphylum");
-					values.add("phylum");
-					values.add("subphylum");
-					values.add("superclass");
-					values.add("class");
-					values.add("subclass");
-					values.add("supercohort");
-					values.add("cohort");
-					values.add("subcohort");
-					values.add("superorder");
-					values.add("order");
-					values.add("suborder");
-					values.add("infraorder");
-					values.add("superfamily");
-					values.add("family");
-					values.add("subfamily");
-					values.add("tribe");
-					values.add("subtribe");
-					values.add("genus");
-					values.add("subgenus");
-					values.add("section");
-					values.add("subsection");
-					values.add("series");
-					values.add("subseries");
-					values.add("speciesAggregate");
-					values.add("species");
-					values.add("subspecificAggregate");
-					values.add("subspecies");
-					values.add("variety");
-					values.add("subvariety");
-					values.add("form");
-					values.add("subform");
-					values.add("cultivarGroup");
-					values.add("cultivar");
-					values.add("strain");
-
-					if (values.contains(taxonRank)) {
+					RankVocabulary vocabulary = RankVocabulary.getInstance();
+
+					if (vocabulary.isRank(taxonRank)) { 
 						result.addComment("Provided value for taxonRank ["+ taxonRank+"] found in the GBIF taxon rank vocabulary.");
 						result.setValue(ComplianceValue.COMPLIANT);
 						result.setResultState(ResultState.RUN_HAS_RESULT);
-					} else if (SciNameSingleton.getInstance().checkRankKnown(taxonRank)) {
-						result.addComment("Provided value for taxonRank ["+ taxonRank+"] found as an alternative form for [" + SciNameSingleton.getInstance().getRank(taxonRank) + "] in the GBIF taxon rank vocabulary.");
+					} else if (vocabulary.isTerm(taxonRank)) { 
+						result.addComment("Provided value for taxonRank ["+ taxonRank+"] found as an alternative form for [" + vocabulary.getRankForTerm(taxonRank) + "] in the GBIF taxon rank vocabulary.");
 						result.setValue(ComplianceValue.COMPLIANT);
 						result.setResultState(ResultState.RUN_HAS_RESULT);
 					} else { 
@@ -2305,115 +2222,19 @@ public class DwCSciNameDQ {
 			try { 
 				if (sourceAuthority.equals("https://rs.gbif.org/vocabulary/gbif/rank.xml") || sourceAuthority.equals("Taxonomic Rank GBIF Vocabulary")) { 
 
-					RankAuthorityLoader loader = new RankAuthorityLoader();
-					try {
-						loader.load();
-					} catch (IOException  e) { 
-						result.addComment("Error looking up " + sourceAuthority + " "  +e.getMessage());
-					} catch (ParserConfigurationException | SAXException e) {
-						logger.debug(e.getMessage(), e);
-					}
+					RankVocabulary vocabulary = RankVocabulary.getInstance();
 
-					Map<String,String> mapping = loader.getValuesCopy();
-					// TODO: Lookup and cache file
-					HashSet<String> values = new HashSet<String>();
-					values.add("domain");
-					values.add("kingdom");
-					values.add("subkingdom");
-					values.add("superphylum");
-					values.add("phylum");
-					values.add("subphylum");
-					values.add("superclass");
-					values.add("class");
-					values.add("subclass");
-					values.add("supercohort");
-					values.add("cohort");
-					values.add("subcohort");
-					values.add("superorder");
-					values.add("order");
-					values.add("suborder");
-					values.add("infraorder");
-					values.add("superfamily");
-					values.add("family");
-					values.add("subfamily");
-					values.add("tribe");
-					values.add("subtribe");
-					values.add("genus");
-					values.add("subgenus");
-					values.add("section");
-					values.add("subsection");
-					values.add("series");
-					values.add("subseries");
-					values.add("speciesAggregate");
-					values.add("species");
-					mapping.put("sp.", "species");
-					mapping.put("sp", "species");
-					values.add("subspecificAggregate");
-					values.add("subspecies");
-					values.add("variety");
-					mapping.put("var.", "variety");
-					mapping.put("var", "variety");
-					values.add("subvariety");
-					mapping.put("subvar", "subvariety");
-					mapping.put("subvar", "subvariety");
-					mapping.put("sub var.", "subvariety");
-					values.add("form");
-					mapping.put("f.", "form");
-					mapping.put("forma", "form");
-					values.add("subform");
-					values.add("cultivarGroup");
-					values.add("cultivar");
-					values.add("strain");
-
-					if (values.contains(taxonRank)) {
+					if (vocabulary.isRank(taxonRank)) { 
 						result.addComment("Provided value for taxonRank ["+ taxonRank+"] found in the GBIF taxon rank vocabulary.");
 						result.setResultState(ResultState.NOT_AMENDED);
 					} else { 
-						if (values.contains(taxonRank.trim().toLowerCase())) { 
-							result.addComment("Provided value for taxonRank ["+ taxonRank+"] matched to value in the GBIF taxon rank vocabulary.");
-							result.setResultState(ResultState.AMENDED);
-							Map<String,String> keyValue = new HashMap<String,String>();
-							keyValue.put("dwc:taxonRank", taxonRank.toLowerCase());
-							AmendmentValue amendment = new AmendmentValue(keyValue);
-							result.setValue(amendment);
-						} else if (taxonRank.trim().equals("var.")) {
-							result.addComment("Provided value for taxonRank ["+ taxonRank+"] matched to value in the GBIF taxon rank vocabulary.");
-							result.setResultState(ResultState.AMENDED);
-							Map<String,String> keyValue = new HashMap<String,String>();
-							keyValue.put("dwc:taxonRank", "variety");
-							AmendmentValue amendment = new AmendmentValue(keyValue);
-							result.setValue(amendment);
-						} else if (taxonRank.trim().toLowerCase().equals("forma")) {
-							result.addComment("Provided value for taxonRank ["+ taxonRank+"] matched to value in the GBIF taxon rank vocabulary.");
-							result.setResultState(ResultState.AMENDED);
-							Map<String,String> keyValue = new HashMap<String,String>();
-							keyValue.put("dwc:taxonRank", "form");
-							AmendmentValue amendment = new AmendmentValue(keyValue);
-							result.setValue(amendment);
-						} else if (taxonRank.trim().toLowerCase().equals("cultivar group")) {
-							result.addComment("Provided value for taxonRank ["+ taxonRank+"] matched to value in the GBIF taxon rank vocabulary.");
-							result.setResultState(ResultState.AMENDED);
-							Map<String,String> keyValue = new HashMap<String,String>();
-							keyValue.put("dwc:taxonRank", "cultivarGroup");
-							AmendmentValue amendment = new AmendmentValue(keyValue);
-							result.setValue(amendment);
-						} else if (taxonRank.trim().toLowerCase().equals("species aggregate")) {
-							result.addComment("Provided value for taxonRank ["+ taxonRank+"] matched to value in the GBIF taxon rank vocabulary.");
-							result.setResultState(ResultState.AMENDED);
-							Map<String,String> keyValue = new HashMap<String,String>();
-							keyValue.put("dwc:taxonRank", "speciesAggregate");
-							AmendmentValue amendment = new AmendmentValue(keyValue);
-							result.setValue(amendment);
-						} else if (taxonRank.trim().toLowerCase().equals("subspecific aggregate") || taxonRank.trim().toLowerCase().equals("subspecies aggregate")) {
-							result.addComment("Provided value for taxonRank ["+ taxonRank+"] matched to value in the GBIF taxon rank vocabulary.");
-							result.setResultState(ResultState.AMENDED);
-							Map<String,String> keyValue = new HashMap<String,String>();
-							keyValue.put("dwc:taxonRank", "subspecificAggregate");
-							AmendmentValue amendment = new AmendmentValue(keyValue);
-							result.setValue(amendment);
-						} else if (mapping.containsKey(taxonRank.trim().toLowerCase())) { 
-							String mappedValue = mapping.get(taxonRank.trim().toLowerCase());
-							result.addComment("Provided value for taxonRank ["+ taxonRank+"] mapped to value ["+mappedValue+"] in the GBIF taxon rank vocabulary.");
+						String mappedValue = vocabulary.lookup(taxonRank);
+						if (mappedValue!=null) { 
+							if (mappedValue.equalsIgnoreCase(taxonRank.trim())) { 
+								result.addComment("Provided value for taxonRank ["+ taxonRank+"] matched to value in the GBIF taxon rank vocabulary.");
+							} else { 
+								result.addComment("Provided value for taxonRank ["+ taxonRank+"] mapped to value ["+mappedValue+"] in the GBIF taxon rank vocabulary.");
+							}
 							result.setResultState(ResultState.AMENDED);
 							Map<String,String> keyValue = new HashMap<String,String>();
 							keyValue.put("dwc:taxonRank", mappedValue);
@@ -2435,6 +2256,37 @@ public class DwCSciNameDQ {
 
 		return result;
 	}
+	/**
+	 * Assemble the name to look up in a source authority for a taxon, the scientific name, or
+	 * if none, the name assembled from the generic name and epithets, without a trailing
+	 * authorship.
+	 *
+	 * @param taxon the taxon to look up.
+	 * @return the name to look up.
+	 */
+	static String nameToLookUp(Taxon taxon) { 
+		String lookMeUp = taxon.getScientificName();
+		if (SciNameUtils.isEmpty(lookMeUp)) { 
+			lookMeUp = taxon.getGenericName();
+			if (!SciNameUtils.isEmpty(taxon.getSpecificEpithet())) { 
+				lookMeUp = lookMeUp + " " + taxon.getSpecificEpithet();
+			}
+			if (!SciNameUtils.isEmpty(taxon.getInfraspecificEpithet())) { 
+				lookMeUp = lookMeUp + " " + taxon.getInfraspecificEpithet();
+			}
+			if (!SciNameUtils.isEmpty(taxon.getCultivarEpithet())) { 
+				lookMeUp = lookMeUp + " " + taxon.getCultivarEpithet();
+			}
+		}
+		logger.debug(lookMeUp);
+		if (!SciNameUtils.isEmpty(taxon.getScientificNameAuthorship())) { 
+			if (lookMeUp.endsWith(taxon.getScientificNameAuthorship())) { 
+				lookMeUp = lookMeUp.substring(0, lookMeUp.lastIndexOf(taxon.getScientificNameAuthorship())).trim();
+			}
+		}
+		return lookMeUp;
+	}
+
 	/**
 	 * Provides internals for validationKingdomNotFound etc.
 	 *
@@ -2728,6 +2580,17 @@ public class DwCSciNameDQ {
 					} else {
 						throw new UnsupportedSourceAuthorityException("Authority " + sourceAuthority.getName() + " Not implemented.");
 					}
+					Map<String,String> higherTaxa = new HashMap<String,String>();
+					higherTaxa.put("Kingdom", kingdom);
+					higherTaxa.put("Phylum", phylum);
+					higherTaxa.put("Class", taxonomic_class);
+					higherTaxa.put("Order", order);
+					higherTaxa.put("Superfamily", superfamily);
+					higherTaxa.put("Family", family);
+					higherTaxa.put("Subfamily", subfamily);
+					higherTaxa.put("Tribe", tribe);
+					higherTaxa.put("Subtribe", subtribe);
+					SciNameUtils.prefetchSameOrSynonym(higherTaxa, lookupResult, sourceAuthority);
 					boolean hasMatch = false;
 					Iterator<NameUsage> i = lookupResult.iterator();
 					while (i.hasNext() && !hasMatch) { 
@@ -0,0 +1,562 @@
+/**
+ * DwcArchiveReader.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * <p>Streams the rows of the core data file of a Darwin Core Archive, as described by its
+ * meta.xml, extracting only the values of a chosen set of terms.</p>
+ *
+ * <p>The archive may be a zip file, a directory holding an unpacked archive, or the meta.xml
+ * file of an unpacked archive.  The core file of an unpacked archive is memory mapped and
+ * read a window at a time, the core file of a zipped archive is inflated as it is read,
+ * so in neither case is the file held in memory, and archives of any size may be read.
+ * The columns holding the requested terms are resolved from meta.xml once, when the reader
+ * is opened, and only the fields in those columns are decoded into strings, the other fields
+ * of each row are skipped over as bytes.</p>
+ *
+ * <p>Terms may be given as simple names (scientificName), with a prefix (dwc:scientificName),
+ * or as term uris, and are matched on the simple name against the terms in meta.xml.  The term
+ * id (or dwc:id) obtains the record identifier of the core.  Terms with a default value in
+ * meta.xml and no column take the default for every row.</p>
+ *
+ * <p>Fields may be enclosed in the fieldsEnclosedBy character, with the character doubled
+ * within a field to represent itself, enclosed fields may span lines.  Lines may end with
+ * either a new line or a carriage return and new line, blank lines are skipped.  Encodings
+ * in which the delimiters are single bytes, such as UTF-8 and ISO-8859-1, are supported.</p>
+ *
+ * <p>Not safe for concurrent use, each reader is read by a single thread.</p>
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public class DwcArchiveReader implements Closeable {
+
+	private static final Log logger = LogFactory.getLog(DwcArchiveReader.class);
+
+	/** Name of the file describing the files of an archive. */
+	public static final String META_FILE = "meta.xml";
+
+	/** Term giving the record identifier of the core. */
+	public static final String ID_TERM = "id";
+
+	/** Size of the portion of the core file mapped at once. */
+	private static final int MAP_WINDOW_SIZE = 1 << 28;
+
+	/** Size of the buffer rows are parsed from. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final File archive;
+	private final List<String> terms;
+
+	// the core, as described by meta.xml
+	private String coreLocation;
+	private Charset encoding;
+	private byte fieldTerminator;
+	private byte lineTerminator;
+	private int fieldEnclosure;
+
+	/** For each column of the core file, the position in terms of the value it holds, or -1 if not wanted. */
+	private int[] columnTerms;
+	/** Value of each term for rows with no column for it, from the defaults in meta.xml, otherwise null. */
+	private String[] defaults;
+	/** Whether each term has a column or a default. */
+	private boolean[] present;
+
+	// source of the core file, either mapped or a stream from a zip file
+	private FileChannel channel = null;
+	private long channelPosition = 0L;
+	private MappedByteBuffer window = null;
+	private ZipFile zipFile = null;
+	private InputStream stream = null;
+
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position = 0;
+	private int limit = 0;
+	private byte[] field = new byte[256];
+	private int fieldLength = 0;
+	private long rowNumber = 0L;
+
+	/**
+	 * Test whether a file appears to be a Darwin Core Archive.
+	 *
+	 * @param file the file to test.
+	 * @return true if the file is a zip file, a meta.xml file, or a directory containing a meta.xml file.
+	 */
+	public static boolean isArchive(File file) {
+		if (file.isDirectory()) { 
+			return new File(file, META_FILE).isFile();
+		}
+		String name = file.getName().toLowerCase();
+		return name.equals(META_FILE) || name.endsWith(".zip");
+	}
+
+	/**
+	 * Open the core of an archive for reading.
+	 *
+	 * @param archive a zip file, a directory holding an unpacked archive, or its meta.xml file.
+	 * @param terms the terms whose values are to be read from each row.
+	 * @throws IOException if the archive can't be read, or meta.xml does not describe a core
+	 *   file in a form that can be read.
+	 */
+	public DwcArchiveReader(File archive, List<String> terms) throws IOException {
+		this.archive = archive;
+		this.terms = Collections.unmodifiableList(new ArrayList<String>(terms));
+		try { 
+			open();
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+		logger.debug("Reading " + coreLocation + " from " + archive.getPath() + " for " + this.terms);
+	}
+
+	private void open() throws IOException {
+		File directory = null;
+		String metaPath;
+		Element core;
+		if (archive.isFile() && archive.getName().toLowerCase().endsWith(".zip")) { 
+			zipFile = new ZipFile(archive);
+			ZipEntry metaEntry = findMetaEntry(zipFile);
+			if (metaEntry==null) { 
+				zipFile.close();
+				throw new IOException("No " + META_FILE + " found in [" + archive.getPath() + "].");
+			}
+			metaPath = metaEntry.getName().substring(0, metaEntry.getName().length() - META_FILE.length());
+			InputStream metaStream = zipFile.getInputStream(metaEntry);
+			try { 
+				core = parseCore(metaStream);
+			} finally { 
+				metaStream.close();
+			}
+		} else { 
+			directory = archive.isDirectory() ? archive : archive.getAbsoluteFile().getParentFile();
+			metaPath = "";
+			InputStream metaStream = new FileInputStream(new File(directory, META_FILE));
+			try { 
+				core = parseCore(metaStream);
+			} finally { 
+				metaStream.close();
+			}
+		}
+
+		encoding = Charset.forName(attribute(core, "encoding", "UTF-8"));
+		if (" \t\r\n,\"".getBytes(encoding).length != 6) { 
+			throw new IOException("Unsupported encoding [" + encoding.name() + "] of [" + archive.getPath() + "], delimiters must be single bytes.");
+		}
+		fieldTerminator = singleByte(attribute(core, "fieldsTerminatedBy", ","), "fieldsTerminatedBy");
+		String lines = unescape(attribute(core, "linesTerminatedBy", "\\n"));
+		lineTerminator = lines.endsWith("\n") ? (byte)'\n' : singleByte(lines, "linesTerminatedBy");
+		String enclosure = unescape(attribute(core, "fieldsEnclosedBy", "\""));
+		fieldEnclosure = enclosure.length()==0 ? -1 : singleByte(enclosure, "fieldsEnclosedBy");
+		int ignoreHeaderLines;
+		try { 
+			ignoreHeaderLines = Integer.parseInt(attribute(core, "ignoreHeaderLines", "0").trim());
+		} catch (NumberFormatException e) {
+			throw new IOException("Unable to read ignoreHeaderLines in " + META_FILE + " of [" + archive.getPath() + "].");
+		}
+
+		NodeList locations = core.getElementsByTagName("location");
+		if (locations.getLength()==0) { 
+			throw new IOException("No core file location in " + META_FILE + " of [" + archive.getPath() + "].");
+		}
+		coreLocation = locations.item(0).getTextContent().trim();
+
+		// resolve the column of each requested term
+		Map<String,Integer> termPositions = new HashMap<String,Integer>();
+		for (int i=0; i<this.terms.size(); i++) { 
+			String name = simpleName(this.terms.get(i));
+			if (!termPositions.containsKey(name)) { 
+				termPositions.put(name, Integer.valueOf(i));
+			}
+		}
+		defaults = new String[this.terms.size()];
+		present = new boolean[this.terms.size()];
+		Map<Integer,Integer> columns = new HashMap<Integer,Integer>();
+		int maxColumn = -1;
+		NodeList ids = core.getElementsByTagName("id");
+		if (ids.getLength()>0 && termPositions.containsKey(ID_TERM)) { 
+			int column = index((Element)ids.item(0));
+			if (column>-1) { 
+				columns.put(Integer.valueOf(column), termPositions.get(ID_TERM));
+				maxColumn = Math.max(maxColumn, column);
+				present[termPositions.get(ID_TERM).intValue()] = true;
+			}
+		}
+		NodeList fields = core.getElementsByTagName("field");
+		for (int i=0; i<fields.getLength(); i++) { 
+			Element fieldElement = (Element)fields.item(i);
+			Integer termPosition = termPositions.get(simpleName(fieldElement.getAttribute("term")));
+			if (termPosition!=null && !present[termPosition.intValue()]) { 
+				int column = index(fieldElement);
+				if (fieldElement.hasAttribute("default")) { 
+					defaults[termPosition.intValue()] = fieldElement.getAttribute("default");
+				}
+				if (column>-1) { 
+					columns.put(Integer.valueOf(column), termPosition);
+					maxColumn = Math.max(maxColumn, column);
+				}
+				present[termPosition.intValue()] = column>-1 || fieldElement.hasAttribute("default");
+			}
+		}
+		columnTerms = new int[maxColumn + 1];
+		Arrays.fill(columnTerms, -1);
+		for (Map.Entry<Integer,Integer> entry : columns.entrySet()) { 
+			columnTerms[entry.getKey().intValue()] = entry.getValue().intValue();
+		}
+
+		// open the core file
+		if (zipFile!=null) { 
+			ZipEntry coreEntry = zipFile.getEntry(metaPath + coreLocation);
+			if (coreEntry==null) { 
+				zipFile.close();
+				throw new IOException("Core file [" + coreLocation + "] not found in [" + archive.getPath() + "].");
+			}
+			stream = zipFile.getInputStream(coreEntry);
+		} else { 
+			File coreFile = new File(directory, coreLocation);
+			if (!coreFile.canRead()) { 
+				throw new IOException("Unable to read core file [" + coreFile.getPath() + "].");
+			}
+			channel = FileChannel.open(coreFile.toPath(), StandardOpenOption.READ);
+		}
+		for (int i=0; i<ignoreHeaderLines; i++) { 
+			if (!skipRow()) { 
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @return the terms read from each row, in the order of the values returned by next().
+	 */
+	public List<String> getTerms() {
+		return terms;
+	}
+
+	/**
+	 * Test whether the core has a column, or a default value, for a requested term.
+	 *
+	 * @param term one of the terms given when the reader was opened.
+	 * @return true if values of the term are present in the archive.
+	 */
+	public boolean hasTerm(String term) {
+		int i = terms.indexOf(term);
+		return i > -1 && present[i];
+	}
+
+	/**
+	 * @return the number of data rows read so far, that is the row number, counting from 1,
+	 *   of the row last returned.
+	 */
+	public long getRowNumber() {
+		return rowNumber;
+	}
+
+	/**
+	 * Read the next row of the core.
+	 *
+	 * @return the values of the terms in the row, in the order of getTerms(), null for terms
+	 *   not present in the archive, or null if there are no more rows.
+	 * @throws IOException on a problem reading the archive.
+	 */
+	public String[] next() throws IOException {
+		String[] values = defaults.clone();
+		if (!readRow(values)) { 
+			return null;
+		}
+		rowNumber++;
+		return values;
+	}
+
+	/**
+	 * Read the next row of the core as a record.
+	 *
+	 * @return map of terms, as given when the reader was opened, to values, for the terms
+	 *   present in the archive, or null if there are no more rows.
+	 * @throws IOException on a problem reading the archive.
+	 */
+	public Map<String,String> nextRecord() throws IOException {
+		String[] values = next();
+		if (values==null) { 
+			return null;
+		}
+		Map<String,String> record = new HashMap<String,String>();
+		for (int i=0; i<values.length; i++) { 
+			if (values[i]!=null) { 
+				record.put(terms.get(i), values[i]);
+			}
+		}
+		return record;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void close() throws IOException {
+		window = null;
+		if (channel!=null) { 
+			channel.close();
+		}
+		if (stream!=null) { 
+			stream.close();
+		}
+		if (zipFile!=null) { 
+			zipFile.close();
+		}
+	}
+
+	/**
+	 * Skip a row, such as a header line.
+	 */
+	private boolean skipRow() throws IOException {
+		return readRow(null);
+	}
+
+	/**
+	 * Parse one row from the core file, placing the wanted fields into values.
+	 *
+	 * @param values to hold the values of the terms, null to discard the row.
+	 * @return false if there are no more rows.
+	 */
+	private boolean readRow(String[] values) throws IOException {
+		int column = 0;
+		boolean content = false;
+		boolean enclosed = false;
+		boolean inEnclosure = false;
+		fieldLength = 0;
+		while (true) { 
+			if (position >= limit && !fill()) { 
+				if (!content) { 
+					return false;
+				}
+				endField(values, column);
+				return true;
+			}
+			byte b = buffer[position++];
+			boolean wanted = values!=null && column < columnTerms.length && columnTerms[column] > -1;
+			if (inEnclosure) { 
+				if (b==fieldEnclosure) { 
+					if (position >= limit && !fill()) { 
+						inEnclosure = false;
+					} else if (buffer[position]==fieldEnclosure) { 
+						// a doubled enclosure character represents itself
+						position++;
+						if (wanted) { 
+							append(b);
+						}
+					} else { 
+						inEnclosure = false;
+					}
+				} else if (wanted) { 
+					append(b);
+				}
+				continue;
+			}
+			if (b==lineTerminator) { 
+				if (!content) { 
+					// blank line
+					continue;
+				}
+				endField(values, column);
+				return true;
+			}
+			if (b=='\r' && lineTerminator=='\n') { 
+				continue;
+			}
+			content = true;
+			if (b==fieldTerminator) { 
+				endField(values, column);
+				column++;
+				enclosed = false;
+			} else if (b==fieldEnclosure && fieldLength==0 && !enclosed) { 
+				enclosed = true;
+				inEnclosure = true;
+			} else if (wanted) { 
+				append(b);
+			}
+		}
+	}
+
+	private void endField(String[] values, int column) {
+		if (values!=null && column < columnTerms.length && columnTerms[column] > -1) { 
+			values[columnTerms[column]] = new String(field, 0, fieldLength, encoding);
+		}
+		fieldLength = 0;
+	}
+
+	private void append(byte b) {
+		if (fieldLength == field.length) { 
+			field = Arrays.copyOf(field, field.length * 2);
+		}
+		field[fieldLength++] = b;
+	}
+
+	/**
+	 * Refill the buffer from the core file.
+	 *
+	 * @return false at the end of the file.
+	 */
+	private boolean fill() throws IOException {
+		position = 0;
+		limit = 0;
+		if (stream!=null) { 
+			int read = stream.read(buffer, 0, buffer.length);
+			while (read==0) { 
+				read = stream.read(buffer, 0, buffer.length);
+			}
+			if (read < 0) { 
+				return false;
+			}
+			limit = read;
+			return true;
+		}
+		if (window==null || !window.hasRemaining()) { 
+			long size = channel.size();
+			if (channelPosition >= size) { 
+				window = null;
+				return false;
+			}
+			long length = Math.min(MAP_WINDOW_SIZE, size - channelPosition);
+			window = channel.map(FileChannel.MapMode.READ_ONLY, channelPosition, length);
+			channelPosition += length;
+		}
+		limit = Math.min(buffer.length, window.remaining());
+		window.get(buffer, 0, limit);
+		return true;
+	}
+
+	/**
+	 * Find meta.xml in a zip file, either at the root or in a single top level directory.
+	 */
+	private static ZipEntry findMetaEntry(ZipFile zip) {
+		ZipEntry result = null;
+		Enumeration<? extends ZipEntry> entries = zip.entries();
+		while (entries.hasMoreElements()) { 
+			ZipEntry entry = entries.nextElement();
+			String name = entry.getName();
+			if (!entry.isDirectory() && (name.equals(META_FILE) || name.endsWith("/" + META_FILE))) { 
+				if (result==null || name.length() < result.getName().length()) { 
+					result = entry;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Parse meta.xml and obtain its core element.
+	 */
+	private Element parseCore(InputStream metaStream) throws IOException {
+		try { 
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware(false);
+			factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+			factory.setExpandEntityReferences(false);
+			DocumentBuilder builder = factory.newDocumentBuilder();
+			Document document = builder.parse(metaStream);
+			NodeList cores = document.getElementsByTagName("core");
+			if (cores.getLength()==0) { 
+				throw new IOException("No core described in " + META_FILE + " of [" + archive.getPath() + "].");
+			}
+			return (Element)cores.item(0);
+		} catch (ParserConfigurationException e) {
+			throw new IOException(e.getMessage(), e);
+		} catch (SAXException e) {
+			throw new IOException("Unable to parse " + META_FILE + " of [" + archive.getPath() + "]: " + e.getMessage(), e);
+		}
+	}
+
+	private static String attribute(Element element, String name, String defaultValue) {
+		if (element.hasAttribute(name)) { 
+			return element.getAttribute(name);
+		}
+		return defaultValue;
+	}
+
+	private static int index(Element element) throws IOException {
+		String index = element.getAttribute("index");
+		if (index==null || index.trim().length()==0) { 
+			return -1;
+		}
+		try { 
+			return Integer.parseInt(index.trim());
+		} catch (NumberFormatException e) {
+			throw new IOException("Unable to read column index [" + index + "] in " + META_FILE + ".");
+		}
+	}
+
+	private byte singleByte(String value, String attribute) throws IOException {
+		byte[] bytes = unescape(value).getBytes(encoding);
+		if (bytes.length!=1) { 
+			throw new IOException("Unsupported " + attribute + " [" + value + "] in " + META_FILE + " of [" + archive.getPath() + "], must be a single character.");
+		}
+		return bytes[0];
+	}
+
+	/**
+	 * Replace the escape sequences used in the attributes of meta.xml.
+	 */
+	private static String unescape(String value) {
+		return value.replace("\\t", "\t").replace("\\n", "\n").replace("\\r", "\r");
+	}
+
+	/**
+	 * Obtain the simple name of a term, without any prefix or namespace.
+	 *
+	 * @param term a simple name, prefixed name (dwc:genus), or uri of a term.
+	 * @return the simple name (genus).
+	 */
+	protected static String simpleName(String term) {
+		String result = term.trim();
+		int separator = Math.max(result.lastIndexOf(':'), result.lastIndexOf('/'));
+		if (separator > -1) { 
+			result = result.substring(separator + 1);
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,47 @@
+/** 
+ * EnumAuthorshipParseStrategy.java 
+ * 
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname;
+
+/**
+ * Strategies for separating a scientific name into the name without authorship and the 
+ * authorship, see SciNameUtils.getNameWithoutAuthorship().
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public enum EnumAuthorshipParseStrategy {
+
+	/** Parse with the local GBIF name parser, asking the GNI parser service only when the 
+	 * local parse is doubtful or fails. */
+	LOCAL_FIRST,
+	/** Ask the GNI parser service, failing over to the local GBIF name parser. */
+	REMOTE_FIRST,
+	/** Only use the local GBIF name parser. */
+	LOCAL_ONLY;
+
+	/**
+	 * <p>getName.</p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getName() {
+		// return the exact name of the enum instance.
+		return name();
+	}
+
+}
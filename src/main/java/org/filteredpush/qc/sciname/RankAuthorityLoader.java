@@ -31,9 +31,8 @@ import javax.xml.parsers.ParserConfigurationException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
-import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 
 /**
@@ -46,6 +45,12 @@ public class RankAuthorityLoader {
 
 	private static final Log logger = LogFactory.getLog(RankAuthorityLoader.class);
 
+	/** Classpath location of the snapshot of the GBIF rank vocabulary. */
+	public static final String SNAPSHOT_RESOURCE = "/org/filteredpush/qc/sciname/rank.xml";
+	
+	/** Network location of the GBIF rank vocabulary. */
+	public static final String GBIF_RANK_VOCABULARY = "https://rs.gbif.org/vocabulary/gbif/rank.xml";
+
 	private Map<String,String> values;
 	
 	private String targetURI;
@@ -54,7 +59,7 @@ public class RankAuthorityLoader {
 	 * <p>Constructor for RankAuthorityLoader.</p>
 	 */
 	public RankAuthorityLoader() { 
-		targetURI ="https://rs.gbif.org/vocabulary/gbif/rank.xml";
+		targetURI = GBIF_RANK_VOCABULARY;
 		values = new HashMap<String,String>();
 	}
 	
@@ -109,82 +114,72 @@ public class RankAuthorityLoader {
 	}
 	
 	/**
-	 * <p>load.</p>
+	 * Load the vocabulary from its network location.
 	 *
 	 * @throws java.io.IOException if any.
 	 * @throws javax.xml.parsers.ParserConfigurationException if any.
 	 * @throws org.xml.sax.SAXException if any.
 	 */
 	public void load() throws IOException, ParserConfigurationException, SAXException { 
-		
-		//TODO: Implement local file cache.
-		
 		URL target = new URL(targetURI);
 		InputStream file = target.openStream();
+		try { 
+			load(file);
+		} finally { 
+			file.close();
+		}
+	}
+	
+	/**
+	 * Load the snapshot of the GBIF rank vocabulary bundled with this library.
+	 *
+	 * @throws java.io.IOException if the snapshot can not be read.
+	 * @throws javax.xml.parsers.ParserConfigurationException if any.
+	 * @throws org.xml.sax.SAXException if any.
+	 */
+	public void loadSnapshot() throws IOException, ParserConfigurationException, SAXException { 
+		InputStream file = RankAuthorityLoader.class.getResourceAsStream(SNAPSHOT_RESOURCE);
+		if (file==null) { 
+			throw new IOException("Rank vocabulary snapshot " + SNAPSHOT_RESOURCE + " not found on classpath");
+		}
+		try { 
+			load(file);
+		} finally { 
+			file.close();
+		}
+	}
+	
+	/**
+	 * Load a GBIF thesaurus document, mapping the identifier of each concept and the title of 
+	 * each of its preferred and alternative terms to the identifier of the concept.
+	 *
+	 * @param file the thesaurus xml.
+	 * @throws java.io.IOException if any.
+	 * @throws javax.xml.parsers.ParserConfigurationException if any.
+	 * @throws org.xml.sax.SAXException if any.
+	 */
+	public void load(InputStream file) throws IOException, ParserConfigurationException, SAXException { 
 		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
 		//an instance of builder to parse the specified xml file
 		DocumentBuilder db = dbf.newDocumentBuilder();
 		Document doc = db.parse(file);
 		doc.getDocumentElement().normalize();
 		logger.debug(doc.getDocumentElement().getNodeName());
-		logger.debug(doc.getDocumentElement().getNodeValue());
-		logger.debug(doc.getNodeType());
-		NodeList nodes = doc.getChildNodes();
-		for (int i=0; i<nodes.getLength(); i++) { 
-			Node node = nodes.item(i);
-		 	logger.debug(node.getNodeName());
-		 	logger.debug(node.getNodeValue());
-		 	logger.debug(node.getNodeType());
-		 	if (node.getNodeType()==Node.ELEMENT_NODE) { 
-		 	NamedNodeMap nodeAttributes = node.getAttributes();
-		 		for (int at=0; at<nodeAttributes.getLength(); at++) { 
-		 			Node attribute = nodeAttributes.item(at);
-		 			logger.debug(attribute.getLocalName());
-		 			logger.debug(attribute.getNodeValue());
-		 		}
-		 	}
-		 	NodeList children = node.getChildNodes();
-		 	for (int j=0; j<children.getLength(); j++) { 
-		 		Node cnode = children.item(j);
-		 		logger.debug(cnode.getNodeName());
-		 		logger.debug(cnode.getNodeValue());
-			 	logger.debug(cnode.getNodeType());
-			 	String identifier = "";
-			 	if (cnode.getNodeType()==Node.ELEMENT_NODE) { 
-			 		NamedNodeMap cnodeAttributes = cnode.getAttributes();
-			 		for (int at=0; at<cnodeAttributes.getLength(); at++) { 
-			 			Node attribute = cnodeAttributes.item(at);
-			 			logger.debug(attribute.getNodeName());
-			 			logger.debug(attribute.getNodeValue());
-			 			if (attribute.getNodeName().equals("dc:identifier")) { 
-			 				identifier = attribute.getNodeValue();
-			 				values.put(identifier, identifier);
-			 			}
-			 		}
-			 	}
-			 	NodeList cchildren = cnode.getChildNodes();
-			 	logger.debug(cchildren.getLength());
-			 	for (int k=0; k<cchildren.getLength(); k++) { 
-			 		Node ccnode = cchildren.item(k);
-			 		logger.debug(ccnode.getNodeType());
-			 		NodeList ccchildren = ccnode.getChildNodes();
-			 		logger.debug(ccchildren.getLength());
-			 		for (int l=0; l<cchildren.getLength(); l++) { 
-			 			Node altnode = ccchildren.item(l);
-			 			if (altnode!=null && altnode.getNodeType()==Node.ELEMENT_NODE) { 
-			 				NamedNodeMap altnodeAttributes = altnode.getAttributes();
-			 				for (int at=0; at<altnodeAttributes.getLength(); at++) { 
-			 					Node attribute = altnodeAttributes.item(at);
-			 					logger.debug(attribute.getNodeName());
-			 					logger.debug(attribute.getNodeValue());
-			 					if (attribute.getNodeName().equals("dc:title")) { 
-			 						values.put(attribute.getNodeValue(), identifier);
-			 					}
-			 				}
-			 			}
-				 	}
-			 	}
-		 	}
+		NodeList concepts = doc.getElementsByTagName("concept");
+		for (int i=0; i<concepts.getLength(); i++) { 
+			Element concept = (Element) concepts.item(i);
+			String identifier = concept.getAttribute("dc:identifier");
+			if (identifier.length()>0) { 
+				values.put(identifier, identifier);
+				NodeList terms = concept.getElementsByTagName("term");
+				for (int j=0; j<terms.getLength(); j++) { 
+					String title = ((Element) terms.item(j)).getAttribute("dc:title");
+					if (title.length()>0) { 
+						logger.debug(title + ":" + identifier);
+						values.put(title, identifier);
+					}
+				}
+			}
 		}
 	}
 
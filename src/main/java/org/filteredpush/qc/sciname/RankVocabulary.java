@@ -0,0 +1,299 @@
+/**
+ * RankVocabulary.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * Immutable, pre-indexed form of the GBIF taxonomic rank vocabulary, for checking and
+ * standardizing values of dwc:taxonRank without a network request or copying the vocabulary
+ * for each record.
+ *
+ * The vocabulary is loaded once from the snapshot bundled on the classpath.  If the system
+ * property sciname.rank.refreshMinutes is set to a positive number of minutes, the vocabulary
+ * is also reloaded from https://rs.gbif.org/vocabulary/gbif/rank.xml in the background at that
+ * interval, replacing the current instance when a load succeeds.
+ *
+ * Terms are matched either exactly, or folded, ignoring case, whitespace, and a trailing
+ * period, so that "Species", "sp", and "sp." all find species.  Folded forms that would
+ * match more than one rank are not indexed.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public final class RankVocabulary {
+
+	private static final Log logger = LogFactory.getLog(RankVocabulary.class);
+
+	/** Minutes between background reloads of the vocabulary from GBIF, not reloaded if not positive. */
+	public static final String PROPERTY_REFRESH_MINUTES = "sciname.rank.refreshMinutes";
+
+	/** Alternative forms of ranks accepted in addition to those in the vocabulary. */
+	private static final String[][] ALIASES = {
+		{ "sp.", "species" },
+		{ "var.", "variety" },
+		{ "subvar.", "subvariety" },
+		{ "f.", "form" },
+		{ "forma", "form" },
+		{ "cultivar group", "cultivarGroup" },
+		{ "species aggregate", "speciesAggregate" },
+		{ "subspecific aggregate", "subspecificAggregate" },
+		{ "subspecies aggregate", "subspecificAggregate" }
+	};
+
+	private static volatile RankVocabulary instance = null;
+	private static ScheduledExecutorService refresher = null;
+
+	private final Set<String> ranks;
+	private final Map<String,String> terms;
+	private final Map<String,String> folded;
+
+	/**
+	 * Index a vocabulary.
+	 *
+	 * @param values map of terms, including the identifiers of the ranks themselves, to the
+	 *   identifier of the rank they represent, as loaded by RankAuthorityLoader.
+	 */
+	public RankVocabulary(Map<String,String> values) {
+		ranks = Collections.unmodifiableSet(new HashSet<String>(values.values()));
+		terms = Collections.unmodifiableMap(new HashMap<String,String>(values));
+
+		Map<String,String> foldedTerms = new HashMap<String,String>();
+		Set<String> ambiguous = new HashSet<String>();
+		Iterator<Map.Entry<String,String>> i = values.entrySet().iterator();
+		while (i.hasNext()) { 
+			Map.Entry<String,String> entry = i.next();
+			addFolded(foldedTerms, ambiguous, entry.getKey(), entry.getValue());
+		}
+		for (int j=0; j<ALIASES.length; j++) { 
+			if (ranks.contains(ALIASES[j][1])) { 
+				addFolded(foldedTerms, ambiguous, ALIASES[j][0], ALIASES[j][1]);
+			}
+		}
+		Iterator<String> a = ambiguous.iterator();
+		while (a.hasNext()) { 
+			String key = a.next();
+			logger.debug("Not indexing ambiguous rank term " + key);
+			foldedTerms.remove(key);
+		}
+		folded = Collections.unmodifiableMap(foldedTerms);
+	}
+
+	private static void addFolded(Map<String,String> foldedTerms, Set<String> ambiguous, String term, String rank) {
+		String key = fold(term);
+		if (key.length()>0) { 
+			String existing = foldedTerms.put(key, rank);
+			if (existing!=null && !existing.equals(rank)) { 
+				ambiguous.add(key);
+			}
+		}
+	}
+
+	/**
+	 * Obtain the current rank vocabulary, loading it from the classpath snapshot on first use.
+	 *
+	 * @return the rank vocabulary.
+	 */
+	public static RankVocabulary getInstance() {
+		RankVocabulary result = instance;
+		if (result==null) { 
+			synchronized (RankVocabulary.class) { 
+				if (instance==null) { 
+					RankAuthorityLoader loader = new RankAuthorityLoader();
+					try { 
+						loader.loadSnapshot();
+					} catch (IOException | ParserConfigurationException | SAXException e) {
+						logger.error("Unable to load rank vocabulary snapshot: " + e.getMessage(), e);
+					}
+					instance = new RankVocabulary(loader.getValues());
+					long minutes = 0L;
+					String value = System.getProperty(PROPERTY_REFRESH_MINUTES);
+					if (value!=null) { 
+						try { 
+							minutes = Long.parseLong(value.trim());
+						} catch (NumberFormatException e) {
+							logger.error("Ignoring non-integer value [" + value + "] for " + PROPERTY_REFRESH_MINUTES);
+						}
+					}
+					if (minutes>0) { 
+						startBackgroundRefresh(minutes);
+					}
+				}
+				result = instance;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reload the vocabulary from GBIF, replacing the current instance if the load succeeds
+	 * and finds any ranks.
+	 *
+	 * @throws IOException if the vocabulary can not be retrieved.
+	 * @throws ParserConfigurationException if any.
+	 * @throws SAXException if the retrieved vocabulary can not be parsed.
+	 */
+	public static void refresh() throws IOException, ParserConfigurationException, SAXException {
+		RankAuthorityLoader loader = new RankAuthorityLoader();
+		loader.load();
+		replace(loader.getValues(), RankAuthorityLoader.GBIF_RANK_VOCABULARY);
+	}
+
+	/**
+	 * Replace the current instance with a newly loaded vocabulary, unless the load found 
+	 * no ranks.
+	 *
+	 * @param values the terms loaded, as for the constructor.
+	 * @param source where the terms were loaded from, for logging.
+	 * @return true if the current instance was replaced.
+	 */
+	static boolean replace(Map<String,String> values, String source) {
+		if (values.isEmpty()) { 
+			logger.error("No ranks found in " + source + ", retaining current rank vocabulary");
+			return false;
+		}
+		instance = new RankVocabulary(values);
+		logger.debug("Reloaded rank vocabulary with " + values.size() + " terms from " + source);
+		return true;
+	}
+
+	/**
+	 * Reload the vocabulary from GBIF periodically on a background daemon thread.
+	 *
+	 * @param periodMinutes minutes between reloads.
+	 */
+	public static synchronized void startBackgroundRefresh(long periodMinutes) {
+		stopBackgroundRefresh();
+		refresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "rank-vocabulary-refresh");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		refresher.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try { 
+					refresh();
+				} catch (Exception e) {
+					logger.error("Unable to refresh rank vocabulary: " + e.getMessage());
+				}
+			}
+		}, periodMinutes, periodMinutes, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Stop any background reloading of the vocabulary.
+	 */
+	public static synchronized void stopBackgroundRefresh() {
+		if (refresher!=null) { 
+			refresher.shutdownNow();
+			refresher = null;
+		}
+	}
+
+	/**
+	 * Fold a term for comparison, ignoring case, whitespace, and a trailing period.
+	 *
+	 * @param term to fold.
+	 * @return the folded form of the term, empty string for null.
+	 */
+	public static String fold(String term) {
+		if (term==null) { 
+			return "";
+		}
+		StringBuilder result = new StringBuilder(term.length());
+		for (int i=0; i<term.length(); i++) { 
+			char c = term.charAt(i);
+			if (!Character.isWhitespace(c)) { 
+				result.append(Character.toLowerCase(c));
+			}
+		}
+		if (result.length()>0 && result.charAt(result.length()-1)=='.') { 
+			result.setLength(result.length()-1);
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Test whether a value is exactly the identifier of a rank in the vocabulary.
+	 *
+	 * @param value to check.
+	 * @return true if value is a rank.
+	 */
+	public boolean isRank(String value) {
+		return ranks.contains(value);
+	}
+
+	/**
+	 * Test whether a value is exactly a rank or one of the terms for a rank in the vocabulary.
+	 *
+	 * @param value to check.
+	 * @return true if value is a term in the vocabulary.
+	 */
+	public boolean isTerm(String value) {
+		return terms.containsKey(value);
+	}
+
+	/**
+	 * Find the rank for a term exactly matching a term in the vocabulary.
+	 *
+	 * @param value to look up.
+	 * @return the rank, or null if value is not a term in the vocabulary.
+	 */
+	public String getRankForTerm(String value) {
+		return terms.get(value);
+	}
+
+	/**
+	 * Find the rank unambiguously matching a value, ignoring case, whitespace, and a
+	 * trailing period.
+	 *
+	 * @param value to look up.
+	 * @return the rank, or null if value does not match a single rank.
+	 */
+	public String lookup(String value) {
+		return folded.get(fold(value));
+	}
+
+	/**
+	 * @return the ranks in the vocabulary, unmodifiable.
+	 */
+	public Set<String> getRanks() {
+		return ranks;
+	}
+
+}
@@ -0,0 +1,41 @@
+/**
+ * ResultWriter.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination for rows of results, each row having a value for each of the columns
+ * given when the writer was opened.  Obtain instances from ResultWriters.open().
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public interface ResultWriter extends Closeable {
+
+	/**
+	 * Write a row.
+	 *
+	 * @param row the value of each column, in the order of the columns, null for no value,
+	 *   the writer may hold on to the array, so it must not be changed after it is written.
+	 * @throws IOException on a problem writing.
+	 */
+	public void write(String[] row) throws IOException;
+
+}
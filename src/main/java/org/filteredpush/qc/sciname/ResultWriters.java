@@ -0,0 +1,79 @@
+/**
+ * ResultWriters.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Opens the writers for the output of BatchRunner and DQDatasetRunner.  The format is chosen
+ * from the name of the output file, an Arrow IPC file (see ArrowResultWriter) for names ending
+ * in .arrow or .feather, otherwise csv.  Either way the rows are written on a thread of their
+ * own by an AsyncResultWriter, with a queue of sciname.output.queue rows (default 10000).
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public class ResultWriters {
+
+	/** System property giving the number of rows that may be queued for writing. */
+	public static final String PROPERTY_QUEUE_SIZE = "sciname.output.queue";
+
+	/** Default number of rows that may be queued for writing. */
+	public static final int DEFAULT_QUEUE_SIZE = 10000;
+
+	private ResultWriters() {
+	}
+
+	/**
+	 * Open a writer for a file, in the format given by its name.
+	 *
+	 * @param file the file to write.
+	 * @param columns the names of the columns.
+	 * @return a writer, which must be closed to complete the file.
+	 * @throws IOException if the file can't be written.
+	 */
+	public static ResultWriter open(File file, List<String> columns) throws IOException {
+		ResultWriter writer;
+		if (isColumnar(file)) { 
+			writer = new ArrowResultWriter(file, columns);
+		} else { 
+			writer = new CsvResultWriter(file, columns);
+		}
+		int queueSize = DEFAULT_QUEUE_SIZE;
+		try { 
+			queueSize = Integer.parseInt(System.getProperty(PROPERTY_QUEUE_SIZE, Integer.toString(DEFAULT_QUEUE_SIZE)));
+		} catch (NumberFormatException e) {
+			// use the default
+		}
+		return new AsyncResultWriter(writer, queueSize);
+	}
+
+	/**
+	 * Test whether a file is to be written in the columnar format.
+	 *
+	 * @param file the output file.
+	 * @return true if the name of the file ends in .arrow or .feather.
+	 */
+	public static boolean isColumnar(File file) {
+		String name = file.getName().toLowerCase();
+		return name.endsWith(".arrow") || name.endsWith(".feather");
+	}
+
+}
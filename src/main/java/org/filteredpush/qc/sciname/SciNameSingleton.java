@@ -3,17 +3,13 @@
  */
 package org.filteredpush.qc.sciname;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.parsers.ParserConfigurationException;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.xml.sax.SAXException;
 
 /**
  * <p>SciNameSingleton class.</p>
@@ -28,22 +24,12 @@ public class SciNameSingleton {
 	private static final SciNameSingleton instance = new SciNameSingleton();
 	private Map<String,Boolean> tgnCountries;
 	
-	private RankAuthorityLoader loader;
-	
-	
 	private SciNameSingleton() { 
 		init();
 	}
 	
 	private void init() { 
 		tgnCountries = new HashMap<String,Boolean>();
-		loader = new RankAuthorityLoader();
-		try {
-			loader.load();
-		} catch (IOException | ParserConfigurationException | SAXException e) {
-		   logger.debug(e.getMessage(), e);
-		}
-		
 	}
 	
 	/**
@@ -62,7 +48,7 @@ public class SciNameSingleton {
 	 * @return a {@link java.lang.String} object.
 	 */
 	public String getRank(String key) { 
-		return loader.getValuesCopy().get(key);
+		return RankVocabulary.getInstance().getRankForTerm(key);
 	}
 	
 	/**
@@ -74,7 +60,7 @@ public class SciNameSingleton {
 	public Boolean checkRankKnown(String rank) { 
 		Boolean retval = null;
 		
-		retval = loader.getValuesCopy().containsKey(rank);
+		retval = RankVocabulary.getInstance().isTerm(rank);
 		
 		return retval;
 	}
@@ -62,6 +62,12 @@ public class SciNameSourceAuthority {
 		updateDefaultSubAuthorities();
 	}
 	
+	/** 
+	 * Name selecting the GBIF backbone taxonomy from a local copy of the backbone archive, 
+	 * see GBIFService.getBackboneIndex(). 
+	 */
+	public static final String LOCAL_GBIF_BACKBONE_TAXONOMY = "GBIF_BACKBONE_TAXONOMY_LOCAL";
+	
 	/**
 	 * Utility constructor to construct a scientific name source authority from a string instead of the enum.
 	 *
@@ -94,6 +100,12 @@ public class SciNameSourceAuthority {
 	    	this.authority = EnumSciNameSourceAuthority.ANSL_APNI;	
 	    } else if (authorityString.toUpperCase().equals(EnumSciNameSourceAuthority.GBIF_BACKBONE_TAXONOMY.getName())) {
 	    	this.authority = EnumSciNameSourceAuthority.GBIF_BACKBONE_TAXONOMY;
+	    } else if (authorityString.toUpperCase().equals(LOCAL_GBIF_BACKBONE_TAXONOMY) || authorityString.toUpperCase().equals("GBIF BACKBONE TAXONOMY (LOCAL)")) { 
+	    	// the local copy of the backbone answers the same lookups as the api, but must be loadable
+	    	if (GBIFService.getBackboneIndex()==null) { 
+	    		throw new SourceAuthorityException("No local GBIF backbone is available, set the system property " + GBIFService.BACKBONE_PROPERTY + " to the location of the unzipped backbone archive.");
+	    	}
+	    	this.authority = EnumSciNameSourceAuthority.GBIF_BACKBONE_TAXONOMY;
 	    } else if (authorityString.toUpperCase().equals(EnumSciNameSourceAuthority.GBIF_COL.getName())) {
 	    	this.authority = EnumSciNameSourceAuthority.GBIF_COL;
 	    } else if (authorityString.toUpperCase().equals(EnumSciNameSourceAuthority.GBIF_FAUNA_EUROPAEA.getName())) {
@@ -25,6 +25,8 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -38,19 +40,19 @@ import org.filteredpush.qc.sciname.services.APNIService;
 import org.filteredpush.qc.sciname.services.GBIFService;
 import org.filteredpush.qc.sciname.services.GNIService;
 import org.filteredpush.qc.sciname.services.IRMNGService;
+import org.filteredpush.qc.sciname.services.LookupCaches;
 import org.filteredpush.qc.sciname.services.Validator;
 import org.filteredpush.qc.sciname.services.WoRMSService;
 import org.filteredpush.qc.sciname.services.ZooBankService;
-import org.gbif.nameparser.NameParserGBIF;
-import org.gbif.nameparser.api.NameParser;
 import org.gbif.nameparser.api.NameType;
-import org.gbif.nameparser.api.ParsedName;
 import org.gbif.nameparser.api.Rank;
 import org.gbif.nameparser.api.UnparsableNameException;
 import org.marinespecies.aphia.v1_0.handler.ApiException;
 
 import edu.harvard.mcz.nametools.LookupResult;
 import edu.harvard.mcz.nametools.NameAuthorshipParse;
+import edu.harvard.mcz.nametools.NameParse;
+import edu.harvard.mcz.nametools.NameParsers;
 import edu.harvard.mcz.nametools.NameUsage;
 
 /**
@@ -62,6 +64,14 @@ import edu.harvard.mcz.nametools.NameUsage;
 public class SciNameUtils {
 
 	private static final Log logger = LogFactory.getLog(SciNameUtils.class);
+
+	/** System property selecting the strategy used by getNameWithoutAuthorship, one of the values of EnumAuthorshipParseStrategy. */
+	public static final String PROPERTY_AUTHORSHIP_PARSE_STRATEGY = "sciname.authorship.strategy";
+	
+	/** Name of the local parser, as recorded in the parseSource of the parses it produces. */
+	public static final String LOCAL_PARSE_SOURCE = "GBIF name parser";
+	
+	private static EnumAuthorshipParseStrategy authorshipParseStrategy = null;
 	
 	/**
 	 * <p>Constructor for SciNameUtils.</p>
@@ -300,6 +310,69 @@ public class SciNameUtils {
 		return result;
 	}
 	
+	/**
+	 * Start concurrently the lookups in a GBIF checklist that sameOrSynonym will make when 
+	 * comparing the higher taxa of a record with those of a list of matches, and wait for them 
+	 * to complete, so that the comparisons then find the responses in the cache instead of 
+	 * making one request after another.  Does nothing for authorities other than GBIF checklists.
+	 *
+	 * @param higherTaxa map of rank (Kingdom, Phylum, Class, Order, Superfamily, Family, Subfamily, 
+	 *   Tribe, Subtribe) to the value of that rank in the record.
+	 * @param matches the name usages from the authority the record is to be compared with.
+	 * @param sourceAuthority the authority in which the comparisons will be made.
+	 */
+	public static void prefetchSameOrSynonym(Map<String,String> higherTaxa, List<NameUsage> matches, SciNameSourceAuthority sourceAuthority) { 
+		if (matches==null || !sourceAuthority.isGBIFChecklist()) { 
+			return;
+		}
+		HashSet<String> started = new HashSet<String>();
+		List<CompletableFuture<List<NameUsage>>> lookups = new LinkedList<CompletableFuture<List<NameUsage>>>();
+		Iterator<NameUsage> i = matches.iterator();
+		while (i.hasNext()) { 
+			NameUsage match = i.next();
+			Iterator<String> ir = higherTaxa.keySet().iterator();
+			while (ir.hasNext()) { 
+				String rank = ir.next();
+				String name = higherTaxa.get(rank);
+				String matchName = valueAtRank(match, rank);
+				// sameOrSynonym first looks up the name from the record where it differs from the match
+				if (!isEmpty(name) && !isEmpty(matchName) && !name.equalsIgnoreCase(matchName) && started.add(rank + ":" + name)) { 
+					lookups.add(GBIFService.lookupTaxonAtRankAsync(name, sourceAuthority.getAuthoritySubDataset(), rank, 50));
+				}
+			}
+		}
+		try { 
+			CompletableFuture.allOf(lookups.toArray(new CompletableFuture[lookups.size()])).join();
+		} catch (CompletionException e) { 
+			// failures are reported when sameOrSynonym repeats the lookup
+			logger.debug(e.getMessage());
+		}
+	}
+	
+	private static String valueAtRank(NameUsage usage, String rank) { 
+		String result = null;
+		if (rank.equalsIgnoreCase("Kingdom")) { 
+			result = usage.getKingdom();
+		} else if (rank.equalsIgnoreCase("Phylum")) { 
+			result = usage.getPhylum();
+		} else if (rank.equalsIgnoreCase("Class")) { 
+			result = usage.getClazz();
+		} else if (rank.equalsIgnoreCase("Order")) { 
+			result = usage.getOrder();
+		} else if (rank.equalsIgnoreCase("Superfamily")) { 
+			result = usage.getSuperfamily();
+		} else if (rank.equalsIgnoreCase("Family")) { 
+			result = usage.getFamily();
+		} else if (rank.equalsIgnoreCase("Subfamily")) { 
+			result = usage.getSubfamily();
+		} else if (rank.equalsIgnoreCase("Tribe")) { 
+			result = usage.getTribe();
+		} else if (rank.equalsIgnoreCase("Subtribe")) { 
+			result = usage.getSubtribe();
+		}
+		return result;
+	}
+	
     /**
      * Does a string contain a non-blank value.
      *
@@ -377,11 +450,10 @@ public class SciNameUtils {
 	 */
 	public static String simpleWoRMSGuidLookup(String scientificName, String scientificNameAuthorship) { 
 		String result = "";
-		NameParserGBIF parser = new NameParserGBIF();
 		logger.debug(scientificName);
 		logger.debug(scientificNameAuthorship);
 		try {
-			ParsedName parse = parser.parse(scientificName,null,null);
+			NameParse parse = NameParsers.parse(scientificName,null,null);
 			//String wormsGuid = WoRMSService.simpleNameSearch(parse.canonized(true).get(),scientificNameAuthorship,true);
 			String wormsGuid = WoRMSService.simpleNameSearch(parse.canonicalName(),scientificNameAuthorship,true);
 			result = wormsGuid;
@@ -390,11 +462,6 @@ public class SciNameUtils {
 			e.printStackTrace();
 		}
 		logger.debug(result);
-		try { 
-			parser.close();
-		} catch (Exception e) { 
-			logger.error(e.getMessage(), e);
-		}
 		
 		return result;
 	}
@@ -408,27 +475,21 @@ public class SciNameUtils {
 	 */
 	public static String simpleGBIFGuidLookup(String scientificName, String scientificNameAuthorship) { 
 		String result = "";
-		NameParserGBIF parser = new NameParserGBIF();
 		try {
-			ParsedName parse = parser.parse(scientificName,null,null);
+			NameParse parse = NameParsers.parse(scientificName,null,null);
 			GBIFService service = new GBIFService();
 			NameUsage nameToTest = new NameUsage();
 			nameToTest.setCanonicalName(parse.canonicalName());
 			nameToTest.setOriginalAuthorship(scientificNameAuthorship);
 			nameToTest.setOriginalScientificName(scientificName);
-			if (service.nameSearchAgainstServices(nameToTest)) { 
-			   String gbifGuid = service.getValidatedNameUsage().getGuid();
-			   result = gbifGuid;
+			NameUsage match = service.nameSearch(nameToTest);
+			if (match!=null) { 
+			   result = match.getGuid();
 			}
 		} catch (Exception e) {
 			logger.error(e);
 			e.printStackTrace();
 		}
-		try { 
-			parser.close();
-		} catch (Exception e) { 
-			logger.error(e.getMessage(), e);
-		}		
 		
 		return result;
 	}	
@@ -444,9 +505,15 @@ public class SciNameUtils {
 		CommandLineParser parser = new DefaultParser();
 		
 		Options options = new Options();
-		options.addOption( "f", "file", true, "Input csv file from which to lookup names.  Assumes a csv file, first three columns being dbpk, scientificName, authorship, (optionally: kingdom, family), columns after the third are ignored. " );
-		options.addOption("o","output", true, "Output file into which to write results of lookup, default output.csv");
+		options.addOption( "f", "file", true, "Input csv file from which to lookup names.  Assumes a csv file, first three columns being dbpk, scientificName, authorship, (optionally: kingdom, family), columns after the third are ignored.  May instead be a Darwin Core archive (zip file or unpacked directory), from whose core the scientificName, scientificNameAuthorship, kingdom, and family are read. " );
+		options.addOption("o","output", true, "Output file into which to write results of lookup, default output.csv.  A name ending in .arrow or .feather writes an Arrow IPC (Feather) file in place of csv.");
 		options.addOption("s","service", true, "Service to lookup names against  WoRMS, GBIF_BACKBONE, GBIF_ITIS, GBIF_FAUNA_EUROPEA, GBIF_UKSI, GBIF_IPNI, GBIF_INDEXFUNGORUM, GBIF_COL, GBIF_PALEOBIOLOGYDB, or ZooBank (TODO: WoRMS+ZooBank). ");
+		options.addOption("p","parallel", true, "Number of names to lookup concurrently, default 1, output remains in input order.");
+		options.addOption("n","batch", true, "Number of names to send to the service in one request, default 1, WoRMS and IRMNG accept up to " + WoRMSService.BATCH_SIZE + ".");
+		options.addOption("c","cache", true, "Directory in which to keep a persistent cache of service responses, reused by later runs.");
+		options.addOption("b","backbone", true, "Directory containing an unzipped copy of the GBIF backbone archive to use in place of the GBIF api for GBIF_BACKBONE.");
+		options.addOption("w","worms", true, "Directory containing an unzipped WoRMS darwin core archive export to use in place of the WoRMS service.");
+		options.addOption("i","irmng", true, "Directory containing an unzipped IRMNG darwin core archive export to use in place of the IRMNG service.");
 		options.addOption("t","test", false, "Test connectivity with an example name");
 		options.addOption("h","help", false, "Print this message");
 		
@@ -468,48 +535,33 @@ public class SciNameUtils {
 					outfile = cmd.getOptionValue("output");
 					logger.debug(outfile);
 				}
+				if (cmd.hasOption("cache")) { 
+					System.setProperty(LookupCaches.PROPERTY_CACHE_DIR, cmd.getOptionValue("cache"));
+				}
+				if (cmd.hasOption("backbone")) { 
+					System.setProperty(GBIFService.BACKBONE_PROPERTY, cmd.getOptionValue("backbone"));
+				}
+				if (cmd.hasOption("worms")) { 
+					System.setProperty(WoRMSService.SNAPSHOT_PROPERTY, cmd.getOptionValue("worms"));
+				}
+				if (cmd.hasOption("irmng")) { 
+					System.setProperty(IRMNGService.SNAPSHOT_PROPERTY, cmd.getOptionValue("irmng"));
+				}
 				String targetService = "WoRMS";
 				if (cmd.hasOption("service")) {
 					targetService = cmd.getOptionValue("service");
 				}
 					
-				Validator validator = null;	
-				switch (targetService.toLowerCase()) { 
-				case "worms":
-					validator = new WoRMSService(true);
-					break;
-				case "gbif_backbone":
-					validator = new GBIFService(GBIFService.KEY_GBIFBACKBONE);
-					break;
-				case "gbif_itis":
-					validator = new GBIFService(GBIFService.KEY_ITIS);
-					break;
-				case "gbif_fauna_europaea":
-					validator = new GBIFService(GBIFService.KEY_ITIS);
-					break;
-				case "gbif_uksi":
-					validator = new GBIFService(GBIFService.KEY_UKSI);
-					break;
-				case "gbif_ipni":
-					validator = new GBIFService(GBIFService.KEY_IPNI);
-					break;
-				case "gbif_indexfungorum":
-					validator = new GBIFService(GBIFService.KEY_INDEXFUNGORUM);
-					break;
-				case "gbif_col":
-					validator = new GBIFService(GBIFService.KEY_COL);
-					break;
-				case "gbif_paleobiologydb":
-					validator = new GBIFService(GBIFService.KEY_PALEIOBIOLOGY_DATABASE);
-					break;
-				case "zoobank":
-					validator = new ZooBankService();
-					break;
-				default: 
-					throw new SourceAuthorityException("Unknown or unsupported service: [" + targetService + "]");
-				}
+				Validator validator = createValidator(targetService);
 				
-				BatchRunner runner = new BatchRunner(infile, outfile, validator);
+				int threads = 1;
+				if (cmd.hasOption("parallel")) { 
+					threads = Integer.parseInt(cmd.getOptionValue("parallel"));
+				}
+				BatchRunner runner = new BatchRunner(infile, outfile, validator, threads);
+				if (cmd.hasOption("batch")) { 
+					runner.setBatchSize(Integer.parseInt(cmd.getOptionValue("batch")));
+				}
 				runner.runBatch();
 			}
 		} catch (ParseException e1) {
@@ -525,11 +577,60 @@ public class SciNameUtils {
 			logger.error(e.getMessage());
 			HelpFormatter formatter = new HelpFormatter();
 			formatter.printHelp( "SciNameUtils", options );
+		} finally { 
+			NameParsers.close();
 		}
 		
 
 	}
 
+	/**
+	 * Create a validator for a named service.
+	 * 
+	 * @param targetService the name of the service, as supplied on the command line.
+	 * @return a new validator instance for the service.
+	 * @throws IOException if the validator could not be constructed.
+	 * @throws SourceAuthorityException if the service name is not recognized.
+	 */
+	private static Validator createValidator(String targetService) throws IOException, SourceAuthorityException { 
+		Validator validator = null;	
+		switch (targetService.toLowerCase()) { 
+		case "worms":
+			validator = new WoRMSService(true);
+			break;
+		case "gbif_backbone":
+			validator = new GBIFService(GBIFService.KEY_GBIFBACKBONE);
+			break;
+		case "gbif_itis":
+			validator = new GBIFService(GBIFService.KEY_ITIS);
+			break;
+		case "gbif_fauna_europaea":
+			validator = new GBIFService(GBIFService.KEY_ITIS);
+			break;
+		case "gbif_uksi":
+			validator = new GBIFService(GBIFService.KEY_UKSI);
+			break;
+		case "gbif_ipni":
+			validator = new GBIFService(GBIFService.KEY_IPNI);
+			break;
+		case "gbif_indexfungorum":
+			validator = new GBIFService(GBIFService.KEY_INDEXFUNGORUM);
+			break;
+		case "gbif_col":
+			validator = new GBIFService(GBIFService.KEY_COL);
+			break;
+		case "gbif_paleobiologydb":
+			validator = new GBIFService(GBIFService.KEY_PALEIOBIOLOGY_DATABASE);
+			break;
+		case "zoobank":
+			validator = new ZooBankService();
+			break;
+		default: 
+			throw new SourceAuthorityException("Unknown or unsupported service: [" + targetService + "]");
+		}
+		return validator;
+	}
+
 	private static void doTest() { 
 		System.out.println(simpleWoRMSGuidLookup("Buccinum canetae","Clench & Aguayo"));
 		
@@ -552,10 +653,43 @@ public class SciNameUtils {
 		System.out.println(simpleGBIFGuidLookup("Buccinum canetae","Clench & Aguayo"));
 	}
 	
+	/**
+	 * Obtain the strategy used by getNameWithoutAuthorship, from the system property 
+	 * sciname.authorship.strategy if not set, defaulting to LOCAL_FIRST.
+	 * 
+	 * @return the strategy for separating names from authorships.
+	 */
+	public static synchronized EnumAuthorshipParseStrategy getAuthorshipParseStrategy() { 
+		if (authorshipParseStrategy==null) { 
+			authorshipParseStrategy = EnumAuthorshipParseStrategy.LOCAL_FIRST;
+			String value = System.getProperty(PROPERTY_AUTHORSHIP_PARSE_STRATEGY);
+			if (value!=null) { 
+				try { 
+					authorshipParseStrategy = EnumAuthorshipParseStrategy.valueOf(value.trim().toUpperCase());
+				} catch (IllegalArgumentException e) { 
+					logger.error("Ignoring unknown value [" + value + "] for " + PROPERTY_AUTHORSHIP_PARSE_STRATEGY);
+				}
+			}
+		}
+		return authorshipParseStrategy;
+	}
+	
+	/**
+	 * Set the strategy used by getNameWithoutAuthorship.
+	 * 
+	 * @param strategy the strategy to use, null to return to the configured default.
+	 */
+	public static synchronized void setAuthorshipParseStrategy(EnumAuthorshipParseStrategy strategy) { 
+		authorshipParseStrategy = strategy;
+	}
+	
 	/**
 	 * Attempt to parse the authorship and the canonical name (name without authorship) out of a scientific name
-	 * by first checking for matches in GNI where the parse is known, and if not found, failing over to using
-	 * GBIF's name parser code.
+	 * using the strategy given by getAuthorshipParseStrategy().  With the default LOCAL_FIRST strategy the name 
+	 * is parsed with GBIF's name parser, and GNI is only asked for names that the local parser flags as doubtful 
+	 * or cannot parse, with REMOTE_FIRST GNI is asked first, failing over to the local parser, with LOCAL_ONLY 
+	 * GNI is not used.  Both local and GNI parses are cached.  The parser used is recorded in the parseSource 
+	 * of the result.
 	 *
 	 * @param scientificName the string to attempt to parse
 	 * @return a NameAuthorshipParse object containing the separate canonical name and authorship string parts
@@ -563,54 +697,62 @@ public class SciNameUtils {
 	 * @throws org.gbif.nameparser.api.UnparsableNameException if unable to parse
 	 */
 	public static NameAuthorshipParse getNameWithoutAuthorship(String scientificName) throws UnparsableNameException {
-		NameAuthorshipParse result = null;
-
-		boolean parsed = false;
+		EnumAuthorshipParseStrategy strategy = getAuthorshipParseStrategy();
+		
+		if (strategy.equals(EnumAuthorshipParseStrategy.REMOTE_FIRST)) { 
+			NameAuthorshipParse gniLookup = gniNameAuthorParse(scientificName);
+			if (gniLookup!=null) { 
+				return gniLookup;
+			}
+		}
+		
+		NameParse parsedName = null;
+		UnparsableNameException failure = null;
 		try {
-			NameAuthorshipParse gniLookup = GNIService.obtainNameAuthorParse(scientificName);
+			parsedName = NameParsers.parse(scientificName, Rank.UNRANKED, null);
+			logger.debug(parsedName.canonicalNameWithoutAuthorship());
+			logger.debug(parsedName.authorshipComplete());
+		} catch (UnparsableNameException e) {
+			failure = e;
+		} catch (InterruptedException e1) {
+			logger.debug(e1.getMessage());
+		}
+		
+		if (strategy.equals(EnumAuthorshipParseStrategy.LOCAL_FIRST) && (parsedName==null || parsedName.isDoubtful())) { 
+			NameAuthorshipParse gniLookup = gniNameAuthorParse(scientificName);
 			if (gniLookup!=null) { 
-				result = gniLookup;
-				parsed = true;
+				return gniLookup;
+			}
+		}
+		
+		if (parsedName==null) { 
+			if (failure!=null) { 
+				throw failure;
 			}
+			throw new UnparsableNameException(NameType.SCIENTIFIC, scientificName, "Unable to parse authorship out of scientific name");
+		}
+		NameAuthorshipParse result = new NameAuthorshipParse();
+		result.setNameWithAuthorship(scientificName);
+		result.setNameWithoutAuthorship(parsedName.canonicalNameWithoutAuthorship());
+		result.setAuthorship(parsedName.authorshipComplete());
+		result.setParseSource(LOCAL_PARSE_SOURCE);
+		return result;
+	}
+	
+	/**
+	 * Ask GNI for the parse of a name.
+	 * 
+	 * @return the parse, or null if GNI did not parse the name or could not be reached.
+	 */
+	private static NameAuthorshipParse gniNameAuthorParse(String scientificName) { 
+		NameAuthorshipParse result = null;
+		try { 
+			result = GNIService.obtainNameAuthorParse(scientificName);
 		} catch (IOException e) {
 			logger.debug(e.getMessage(),e);
 		} catch (org.json.simple.parser.ParseException e) {
 			logger.debug(e.getMessage(),e);
 		}
-
-		if (!parsed) { 
-			NameParser parser = new NameParserGBIF();
-			ParsedName parsedName;
-			try {
-				parsedName = parser.parse(scientificName, Rank.UNRANKED, null);
-				result = new NameAuthorshipParse();
-				result.setNameWithAuthorship(scientificName);
-				result.setNameWithoutAuthorship(parsedName.canonicalNameWithoutAuthorship());
-				result.setAuthorship(parsedName.authorshipComplete());
-				logger.debug(parsedName.canonicalNameWithoutAuthorship());
-				logger.debug(parsedName.authorshipComplete());
-			} catch (UnparsableNameException e1) {
-				try {
-					parser.close();
-					parsed = true;
-				} catch (Exception e) {
-					logger.debug(e);
-				}
-				throw e1;
-			} catch (InterruptedException e1) {
-				logger.debug(e1.getMessage());
-			}
-			try {
-				parser.close();
-				parsed = true;
-			} catch (Exception e) {
-				logger.debug(e);
-			}
-		}
-		if (!parsed) {
-			throw new UnparsableNameException(NameType.SCIENTIFIC, scientificName, "Unable to parse authorship out of scientific name");
-		}
-
 		return result;
 	}
 	
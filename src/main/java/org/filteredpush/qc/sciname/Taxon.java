@@ -2,12 +2,12 @@ package org.filteredpush.qc.sciname;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.gbif.nameparser.NameParserGBIF;
 import org.gbif.nameparser.api.NomCode;
-import org.gbif.nameparser.api.ParsedName;
 import org.gbif.nameparser.api.UnparsableNameException;
 
 import edu.harvard.mcz.nametools.NameComparison;
+import edu.harvard.mcz.nametools.NameParse;
+import edu.harvard.mcz.nametools.NameParsers;
 import edu.harvard.mcz.nametools.NameUsage;
 import edu.harvard.mcz.nametools.ScientificNameComparator;
 
@@ -721,15 +721,14 @@ public class Taxon {
 				nameOne = nameOne.replace(this.getScientificNameAuthorship(), "");
 			} else { 
 				// parse out authorship, remove from scientific name string
-				NameParserGBIF parser = new NameParserGBIF();
-		        ParsedName parse = null;
+		        NameParse parse = null;
 		        try {
 		        	if (kingdom!=null && kingdom.equals("Animalia")) { 
-		        		parse = parser.parse(nameOne,null,NomCode.ZOOLOGICAL);
+		        		parse = NameParsers.parse(nameOne,null,NomCode.ZOOLOGICAL);
 		        	} else if (kingdom!=null && kingdom.equals("Plantae")) { 
-		        		parse = parser.parse(nameOne,null,NomCode.BOTANICAL);
+		        		parse = NameParsers.parse(nameOne,null,NomCode.BOTANICAL);
 		        	} else {
-		        		parse = parser.parse(nameOne,null,null);
+		        		parse = NameParsers.parse(nameOne,null,null);
 		        	}
 					if (parse!=null) { 
 	                  authorOne = parse.authorshipComplete();
@@ -745,15 +744,14 @@ public class Taxon {
 				nameTwo = nameTwo.replace(nameUsage.getAuthorship(), "");
 			} else { 
 				// parse out authorship, remove from scientific name string
-				NameParserGBIF parser = new NameParserGBIF();
-		        ParsedName parse = null;
+		        NameParse parse = null;
 		        try {
 		        	if (kingdom!=null && kingdom.equals("Animalia")) { 
-		        		parse = parser.parse(nameTwo,null,NomCode.ZOOLOGICAL);
+		        		parse = NameParsers.parse(nameTwo,null,NomCode.ZOOLOGICAL);
 		        	} else if (kingdom!=null && kingdom.equals("Plantae")) { 
-		        		parse = parser.parse(nameTwo,null,NomCode.BOTANICAL);
+		        		parse = NameParsers.parse(nameTwo,null,NomCode.BOTANICAL);
 		        	} else {
-		        		parse = parser.parse(nameTwo,null,null);
+		        		parse = NameParsers.parse(nameTwo,null,null);
 		        	}
 					if (parse!=null) { 
 	                  authorTwo = parse.authorshipComplete();
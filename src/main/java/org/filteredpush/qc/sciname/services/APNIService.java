@@ -19,13 +19,12 @@ package org.filteredpush.qc.sciname.services;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.net.URI;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -49,6 +48,9 @@ public class APNIService {
 	private static final Log logger = LogFactory.getLog(APNIService.class);
 
 	private static String endpoint = "https://api.biodiversity.org.au/name/check?dataset=APNI";
+	
+	/** Concurrent identical requests to APNI, keyed by url. */
+	private static final SingleFlight<String> requestsInFlight = new SingleFlight<String>("APNIService");
 			
 	public static void main( String[] args ) {
 		try {
@@ -76,18 +78,12 @@ public class APNIService {
 		}
 		
 		String lookup = "https://id.biodiversity.org.au/name/apni/" + apniID + ".json";
-		URI lookupURI = URI.create(lookup);
-		
-		HttpClient client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
-		HttpRequest request = HttpRequest.newBuilder().uri(lookupURI).GET().build();
 		
-		HttpResponse<String> response;
 		try {
-			response = client.send(request,HttpResponse.BodyHandlers.ofString());
-			JSONObject responseJson = (JSONObject) JSONValue.parse(response.body());
+			String response = fetch(lookup);
+			JSONObject responseJson = (JSONObject) JSONValue.parse(response);
 			
 			logger.debug(response);
-			logger.debug(response.body());
 			
 			logger.debug(responseJson.get("class"));
 			if (responseJson.get("class").toString().equals("au.org.biodiversity.nsl.Name")) { 
@@ -103,9 +99,6 @@ public class APNIService {
 		} catch (IOException e) {
 			logger.error(e.getMessage(), e);
 			throw new ApiException("IO Error accessing APNI:" + e.getMessage());
-		} catch (InterruptedException e) {
-			logger.error(e.getMessage(), e);
-			throw new ApiException("Error accessing APNI:" + e.getMessage());
 		}
 		
 		
@@ -123,72 +116,112 @@ public class APNIService {
 		// works: 
 		// https://api.biodiversity.org.au/name/check?dataset=APNI&q=Solanum%20centrale%20%27Desert%20Tang%27
 		
-		String lookup = "";
-		lookup = "https://api.biodiversity.org.au/name/check?dataset=APNI&q=" + taxon;
+		String lookup = checkUrl(taxon);
+		logger.debug(lookup);
+		try { 
+			String response = fetch(lookup);
+			result = parseCheckResponse(response, authorship);
+		} catch (IOException e) {
+			logger.error(e.getMessage(), e);
+			throw new ApiException("IO Error accessing APNI:" + e.getMessage());
+		} 
+		return result;
+		
+	}
+	
+	/**
+	 * Look up a taxon in APNI without blocking, see lookupTaxon.
+	 * 
+	 * @param taxon the name to look up.
+	 * @param authorship the authorship to compare with the authorship of matches.
+	 * @return a future for the list of matching name usages, completed exceptionally with an 
+	 *   IOException on a problem accessing APNI.
+	 */
+	public static CompletableFuture<List<NameUsage>> lookupTaxonAsync(String taxon, final String authorship) { 
+		final String lookup = checkUrl(taxon);
+		return requestsInFlight.executeAsync("get", lookup, new Supplier<CompletableFuture<String>>() {
+			@Override
+			public CompletableFuture<String> get() {
+				return HttpClients.getAsync(lookup);
+			}
+		}).thenApply(new Function<String,List<NameUsage>>() {
+			@Override
+			public List<NameUsage> apply(String response) {
+				return parseCheckResponse(response, authorship);
+			}
+		});
+	}
+	
+	/**
+	 * Make a GET request on APNI, waiting for any identical request already in flight
+	 * rather than repeating it.
+	 */
+	private static String fetch(final String url) throws IOException { 
+		return requestsInFlight.execute("get", url, new SingleFlight.Call<String,IOException>() {
+			@Override
+			public String call() throws IOException {
+				return HttpClients.get(url);
+			}
+		});
+	}
+	
+	/**
+	 * Build the name check request for a taxon.
+	 */
+	private static String checkUrl(String taxon) { 
+		String lookup = "https://api.biodiversity.org.au/name/check?dataset=APNI&q=" + taxon;
 		try {
 			lookup = "https://api.biodiversity.org.au/name/check?dataset=APNI&q=" + URLEncoder.encode(taxon, "utf-8");
 		} catch (UnsupportedEncodingException e) {
 			logger.debug(e.getMessage());
 		}
+		return lookup;
+	}
+	
+	/**
+	 * Extract the matching name usages from a response from the APNI name check api.
+	 */
+	private static List<NameUsage> parseCheckResponse(String response, String authorship) { 
+		List<NameUsage> result  = new ArrayList<NameUsage>();
+		JSONObject responseJson = (JSONObject) JSONValue.parse(response);
+		logger.debug(response);
 		
-		logger.debug(lookup);
-		URI lookupURI = URI.create(lookup);
+		logger.debug(responseJson.get("class"));
 		
-		HttpClient client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
-		HttpRequest request = HttpRequest.newBuilder().uri(lookupURI).GET().build();
+		Integer noOfResults = Integer.valueOf(responseJson.get("noOfResults").toString());
+		logger.debug(noOfResults);
 		
-		HttpResponse<String> response;
-		try {
-			response = client.send(request,HttpResponse.BodyHandlers.ofString());
-			JSONObject responseJson = (JSONObject) JSONValue.parse(response.body());
-			logger.debug(response);
-			logger.debug(response.body());
-			
-			logger.debug(responseJson.get("class"));
-			
-			Integer noOfResults = Integer.valueOf(responseJson.get("noOfResults").toString());
-			logger.debug(noOfResults);
-			
-			if (noOfResults==0) {
-				logger.debug("No Matches");
-			} else { 
-				JSONArray queryResults =  (JSONArray) responseJson.get("results");
-				for (int i=0; i<noOfResults; i++) { 
-					NameUsage nameUsage = new NameUsage();
-					JSONObject match = (JSONObject) queryResults.get(0);
-					String resultNameMatchType = (String) match.get("resultNameMatchType");
-					logger.debug(resultNameMatchType);
-					logger.debug(match.get("scientificName"));
-					nameUsage.setAcceptedName(match.get("scientificName").toString());
-					nameUsage.setCanonicalName(match.get("canonicalName").toString());
-					logger.debug(match.get("nameType"));
-					logger.debug(match.get("scientificNameID"));
-					logger.debug(match.get("scientificNameAuthorship"));
-					String matchAuthor = (String)match.get("scientificNameAuthorship");
-					if (matchAuthor != null && matchAuthor.length()>0) {
-						nameUsage.setAuthorship(matchAuthor);
-						AuthorNameComparator authorComparator = AuthorNameComparator.authorNameComparatorFactory(authorship, "Plantae");
-						NameComparison nameComparison = authorComparator.compare(matchAuthor, authorship);
-						nameUsage.setAuthorComparator(authorComparator);
-					}
-					String id = match.get("scientificNameID").toString();
-					nameUsage.setAcceptedKey(Integer.parseInt(id.replace("https://id.biodiversity.org.au/name/apni/", "")));
-					if (resultNameMatchType.equals("Exact")) { 
-						nameUsage.setNameMatchDescription(NameComparison.MATCH_EXACT);
-						nameUsage.setGuid(id);
-					}
-					result.add(nameUsage);
+		if (noOfResults==0) { 
+			logger.debug("No Matches");
+		} else { 
+			JSONArray queryResults =  (JSONArray) responseJson.get("results");
+			for (int i=0; i<noOfResults; i++) { 
+				NameUsage nameUsage = new NameUsage();
+				JSONObject match = (JSONObject) queryResults.get(0);
+				String resultNameMatchType = (String) match.get("resultNameMatchType");
+				logger.debug(resultNameMatchType);
+				logger.debug(match.get("scientificName"));
+				nameUsage.setAcceptedName(match.get("scientificName").toString());
+				nameUsage.setCanonicalName(match.get("canonicalName").toString());
+				logger.debug(match.get("nameType"));
+				logger.debug(match.get("scientificNameID"));
+				logger.debug(match.get("scientificNameAuthorship"));
+				String matchAuthor = (String)match.get("scientificNameAuthorship");
+				if (matchAuthor != null && matchAuthor.length()>0) { 
+					nameUsage.setAuthorship(matchAuthor);
+					AuthorNameComparator authorComparator = AuthorNameComparator.authorNameComparatorFactory(authorship, "Plantae");
+					NameComparison nameComparison = authorComparator.compare(matchAuthor, authorship);
+					nameUsage.setAuthorComparator(authorComparator);
+				}
+				String id = match.get("scientificNameID").toString();
+				nameUsage.setAcceptedKey(Integer.parseInt(id.replace("https://id.biodiversity.org.au/name/apni/", "")));
+				if (resultNameMatchType.equals("Exact")) { 
+					nameUsage.setNameMatchDescription(NameComparison.MATCH_EXACT);
+					nameUsage.setGuid(id);
 				}
+				result.add(nameUsage);
 			}
-				
-		} catch (IOException e) {
-			logger.error(e.getMessage(), e);
-			throw new ApiException("IO Error accessing APNI:" + e.getMessage());
-		} catch (InterruptedException e) {
-			logger.error(e.getMessage(), e);
-			throw new ApiException("Error accessing APNI:" + e.getMessage());
-		} 
+		}
 		return result;
-		
 	}
 }
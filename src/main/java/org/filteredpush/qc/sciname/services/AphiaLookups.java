@@ -0,0 +1,205 @@
+/**
+ * AphiaLookups.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The caching of lookups shared by CachingWoRMSTaxonomicDataApi and CachingIRMNGTaxonomicDataApi,
+ * whose generated Aphia clients differ only in the packages of their model and handler classes.
+ * Responses are keyed in the shared LookupCache by the base path of the service, the operation,
+ * and the name or id looked up, and stored as json, serialized and deserialized with the Json
+ * of the generated client.  Concurrent identical lookups are coalesced with a SingleFlight, and
+ * cache lookups and calls to the service are recorded in the shared MetricsRegistry.
+ *
+ * Safe for concurrent use.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+final class AphiaLookups {
+
+	private static final Log logger = LogFactory.getLog(AphiaLookups.class);
+
+	/**
+	 * Serialization of the model classes of a generated Aphia client, backed by its JSON.
+	 */
+	interface Json {
+		/**
+		 * @param value a model object or list of them, may be null.
+		 * @return the json for the value.
+		 */
+		String serialize(Object value);
+
+		/**
+		 * @param json as produced by serialize.
+		 * @param type the type to produce.
+		 * @return the value, null for json null.
+		 */
+		<T> T deserialize(String json, Type type);
+	}
+
+	/**
+	 * Looks up a list of names in one request to the service.
+	 *
+	 * @param <T> the type of the result for one name.
+	 * @param <E> the exception thrown by the generated client.
+	 */
+	interface Batch<T, E extends Exception> {
+		/**
+		 * @param names the names to send to the service.
+		 * @return a result for each name, in the order of the names, or null.
+		 * @throws E on a problem invoking the service.
+		 */
+		List<T> lookup(List<String> names) throws E;
+
+		/**
+		 * @return the result for a name for which the service returned nothing, may be null.
+		 */
+		T empty();
+	}
+
+	private final String component;
+	private final SingleFlight<String> requestsInFlight;
+
+	/**
+	 * @param component the name under which lookups are recorded in the shared MetricsRegistry.
+	 */
+	AphiaLookups(String component) {
+		this.component = component;
+		// concurrent identical requests share the serialized response, so that each caller
+		// deserializes its own copy of the records
+		this.requestsInFlight = new SingleFlight<String>(component);
+	}
+
+	/**
+	 * Look up a single name or id, from the cache if present, otherwise from the service,
+	 * caching the response, including an empty one.
+	 *
+	 * @param authority the base path of the service.
+	 * @param operation the name of the operation, for metrics.
+	 * @param keyOperation the operation and its parameters, for the cache key.
+	 * @param value the name or id looked up.
+	 * @param json to serialize the response.
+	 * @param type the type of the response.
+	 * @param call to invoke the service.
+	 * @return the response, read from the cache or from the service.
+	 * @throws E on a problem invoking the service.
+	 */
+	<T, E extends Exception> T lookup(String authority, final String operation, String keyOperation, String value,
+			final Json json, Type type, final SingleFlight.Call<T,E> call) throws E {
+		final LookupCache cache = LookupCaches.getCache();
+		final String key = LookupCache.key(authority, keyOperation, value, null);
+		String cached = cache.get(key);
+		MetricsRegistries.getRegistry().recordCacheLookup(component, operation, cached!=null);
+		if (cached!=null) { 
+			logger.debug("Cache hit " + value);
+			return json.deserialize(cached, type);
+		}
+		String response = requestsInFlight.execute(operation, key, new SingleFlight.Call<String,E>() {
+			@Override
+			public String call() throws E {
+				T result;
+				long start = MetricsRegistries.start();
+				boolean failed = true;
+				try { 
+					result = call.call();
+					failed = false;
+				} finally { 
+					MetricsRegistries.stop(component, operation, start, failed);
+				}
+				String serialized = json.serialize(result);
+				cache.put(key, serialized);
+				return serialized;
+			}
+		});
+		return json.deserialize(response, type);
+	}
+
+	/**
+	 * Look up each of a list of names, each name cached separately, sending only the names
+	 * not found in the cache to the service in one request.  A name the service returned
+	 * nothing for is given batch.empty(), and is cached unless that is null.
+	 *
+	 * @param authority the base path of the service.
+	 * @param operation the name of the operation, for metrics.
+	 * @param keyOperation the operation and its parameters, for the cache keys.
+	 * @param names the names to look up.
+	 * @param json to serialize the responses.
+	 * @param type the type of the result for one name.
+	 * @param batch to invoke the service.
+	 * @return a result for each name, in the order of the names, or null if no name was
+	 *   cached, the service returned nothing, and batch.empty() is null.
+	 * @throws E on a problem invoking the service.
+	 */
+	<T, E extends Exception> List<T> lookupEach(String authority, String operation, String keyOperation, List<String> names,
+			Json json, Type type, Batch<T,E> batch) throws E {
+		LookupCache cache = LookupCaches.getCache();
+		List<T> result = new ArrayList<T>(names.size());
+		List<String> uncached = new ArrayList<String>();
+		List<Integer> uncachedPositions = new ArrayList<Integer>();
+		for (int i=0; i<names.size(); i++) { 
+			String cached = cache.get(LookupCache.key(authority, keyOperation, names.get(i), null));
+			MetricsRegistries.getRegistry().recordCacheLookup(component, operation, cached!=null);
+			T value = null;
+			if (cached==null) { 
+				uncached.add(names.get(i));
+				uncachedPositions.add(i);
+			} else { 
+				value = json.deserialize(cached, type);
+				if (value==null) { 
+					// a cached response with no content
+					value = batch.empty();
+				}
+			}
+			result.add(value);
+		}
+		if (!uncached.isEmpty()) { 
+			List<T> fetched;
+			long start = MetricsRegistries.start();
+			boolean failed = true;
+			try { 
+				fetched = batch.lookup(uncached);
+				failed = false;
+			} finally { 
+				MetricsRegistries.stop(component, operation, start, failed);
+			}
+			if (fetched==null && uncached.size()==names.size() && batch.empty()==null) { 
+				return null;
+			}
+			for (int i=0; i<uncached.size(); i++) { 
+				boolean answered = fetched!=null && i<fetched.size();
+				T value = answered ? fetched.get(i) : null;
+				if (value==null) { 
+					value = batch.empty();
+				}
+				result.set(uncachedPositions.get(i), value);
+				if (answered || value!=null) { 
+					cache.put(LookupCache.key(authority, keyOperation, uncached.get(i), null), json.serialize(value));
+				}
+			}
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,395 @@
+/** 
+ * AphiaSnapshot.java 
+ * 
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Local, read only, copy of an Aphia database (WoRMS or IRMNG), loaded from the taxon.txt 
+ * file (and, if present, the speciesprofile.txt file) of an unzipped Darwin Core archive 
+ * export of the database.  
+ * 
+ * The taxon file is memory mapped and indexed by a TaxonFileIndex, records are returned
+ * as json in the form returned by the Aphia REST services, so that they can be deserialized 
+ * into the model classes of either generated Aphia client, see LocalWoRMSTaxonomicDataApi 
+ * and LocalIRMNGTaxonomicDataApi.
+ * 
+ * Instances are safe for concurrent use once constructed.
+ * 
+ * @author mole
+ * @version $Id: $Id
+ */
+public class AphiaSnapshot {
+	
+	private static final Log logger = LogFactory.getLog(AphiaSnapshot.class);
+	
+	/** Name of the core file in the archive. */
+	public static final String TAXON_FILE_NAME = "taxon.txt";
+	/** Name of the species profile extension file in the archive. */
+	public static final String SPECIES_PROFILE_FILE_NAME = "speciesprofile.txt";
+	
+	/** Upper bound on the depth of a classification, guards against cycles in the data. */
+	private static final int MAX_CLASSIFICATION_DEPTH = 100;
+	
+	private static final byte MARINE = 1;
+	private static final byte BRACKISH = 2;
+	private static final byte FRESHWATER = 4;
+	private static final byte TERRESTRIAL = 8;
+	private static final byte EXTINCT = 16;
+	/** Flag set on records for which a species profile was found. */
+	private static final byte PROFILED = 32;
+	
+	private final TaxonFileIndex index;
+	private final String idField;
+	private final String lsidPrefix;
+	private final String urlPrefix;
+	/** Habitat flags from the species profile by record number, null if no profile was loaded. */
+	private byte[] profiles = null;
+	
+	private final int columnTaxonID;
+	private final int columnParent;
+	private final int columnAccepted;
+	private final int columnScientificName;
+	private final int columnAuthorship;
+	private final int columnRank;
+	private final int columnStatus;
+	private final int columnRemarks;
+	private final int columnKingdom;
+	private final int columnPhylum;
+	private final int columnClass;
+	private final int columnOrder;
+	private final int columnFamily;
+	private final int columnGenus;
+	private final int columnCitation;
+	private final int columnModified;
+	
+	/**
+	 * Load an Aphia export.
+	 * 
+	 * @param archiveDirectory the directory containing the unzipped archive, or the taxon file itself.
+	 * @param idField the name of the identifier in responses, AphiaID for WoRMS, IRMNG_ID for IRMNG.
+	 * @param lsidPrefix the prefix for lsids constructed from numeric taxonIDs, e.g. urn:lsid:marinespecies.org:taxname:
+	 * @param urlPrefix the prefix for urls of taxon pages, to which the id is appended.
+	 * @throws IOException if the files can't be read or lack the expected columns.
+	 */
+	public AphiaSnapshot(File archiveDirectory, String idField, String lsidPrefix, String urlPrefix) throws IOException { 
+		File taxonFile = archiveDirectory;
+		File profileFile = null;
+		if (archiveDirectory.isDirectory()) { 
+			taxonFile = new File(archiveDirectory, TAXON_FILE_NAME);
+			profileFile = new File(archiveDirectory, SPECIES_PROFILE_FILE_NAME);
+		}
+		this.idField = idField;
+		this.lsidPrefix = lsidPrefix;
+		this.urlPrefix = urlPrefix;
+		index = new TaxonFileIndex(taxonFile);
+		columnTaxonID = index.column("taxonID");
+		columnParent = index.column("parentNameUsageID");
+		columnAccepted = index.column("acceptedNameUsageID");
+		columnScientificName = index.column("scientificName");
+		columnAuthorship = index.column("scientificNameAuthorship");
+		columnRank = index.column("taxonRank");
+		columnStatus = index.column("taxonomicStatus");
+		columnRemarks = index.column("taxonRemarks");
+		columnKingdom = index.column("kingdom");
+		columnPhylum = index.column("phylum");
+		columnClass = index.column("class");
+		columnOrder = index.column("order");
+		columnFamily = index.column("family");
+		columnGenus = index.column("genus");
+		columnCitation = index.column("bibliographicCitation");
+		columnModified = index.column("modified");
+		if (profileFile!=null && profileFile.canRead()) { 
+			loadProfiles(profileFile);
+		}
+	}
+	
+	/**
+	 * @return the number of taxon records in the snapshot.
+	 */
+	public int size() { 
+		return index.size();
+	}
+	
+	private void loadProfiles(File profileFile) throws IOException { 
+		profiles = new byte[index.size()];
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(profileFile), StandardCharsets.UTF_8));
+		try { 
+			String line = reader.readLine();
+			if (line==null) { 
+				return;
+			}
+			String[] header = line.split("\t", -1);
+			int id = -1;
+			int[] habitatColumns = { -1, -1, -1, -1, -1 };
+			String[] habitatTerms = { "isMarine", "isBrackish", "isFreshwater", "isTerrestrial", "isExtinct" };
+			for (int i=0; i<header.length; i++) { 
+				String term = header[i].trim();
+				term = term.substring(Math.max(term.lastIndexOf(':'), term.lastIndexOf('/')) + 1);
+				if (term.equals("taxonID") || term.equals("id") || term.equals("coreid")) { 
+					if (id < 0) { id = i; }
+				}
+				for (int h=0; h<habitatTerms.length; h++) { 
+					if (term.equals(habitatTerms[h])) { 
+						habitatColumns[h] = i;
+					}
+				}
+			}
+			if (id < 0) { 
+				logger.error("No taxonID column in " + profileFile.getPath() + ", habitat flags not loaded.");
+				return;
+			}
+			int count = 0;
+			while ((line = reader.readLine()) != null) { 
+				String[] fields = line.split("\t", -1);
+				Integer key = TaxonFileIndex.parseKey(TaxonFileIndex.field(fields, id));
+				if (key!=null) { 
+					int record = index.recordNumber(key.intValue());
+					if (record > -1) { 
+						byte flags = PROFILED;
+						for (int h=0; h<habitatColumns.length; h++) { 
+							if (isTrue(TaxonFileIndex.field(fields, habitatColumns[h]))) { 
+								flags |= (1 << h);
+							}
+						}
+						profiles[record] |= flags;
+						count++;
+					}
+				}
+			}
+			logger.info("Loaded " + count + " species profiles from " + profileFile.getPath());
+		} finally { 
+			reader.close();
+		}
+	}
+	
+	private static boolean isTrue(String value) { 
+		return value.equals("1") || value.equalsIgnoreCase("true");
+	}
+	
+	/**
+	 * Look up a record by id.
+	 * 
+	 * @param id the AphiaID or IRMNG_ID.
+	 * @return the record in the form of an Aphia AphiaRecord, or null if not found.
+	 */
+	public JsonObject getRecord(int id) { 
+		String[] fields = index.getByKey(id);
+		if (fields==null) { 
+			return null;
+		}
+		return toRecord(fields, "exact");
+	}
+	
+	/**
+	 * Find records with a scientific name, ignoring case.
+	 * 
+	 * @param name the scientific name without authorship.
+	 * @param marineOnly if true, include only records flagged as marine or brackish in the
+	 *   species profile, ignored if no species profile was loaded.
+	 * @return an array, possibly empty, of records in the form of an Aphia AphiaRecord.
+	 */
+	public JsonArray findByName(String name, boolean marineOnly) { 
+		JsonArray result = new JsonArray();
+		Iterator<String[]> i = index.findByName(name, Integer.MAX_VALUE).iterator();
+		while (i.hasNext()) { 
+			String[] fields = i.next();
+			if (!marineOnly || isMarine(fields)) { 
+				result.add(toRecord(fields, "exact"));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Match a name that may include authorship, first as given, then with anything after
+	 * the uninomial, binomial, or trinomial removed.  Unlike the Aphia service, no fuzzy 
+	 * matching is done.
+	 * 
+	 * @param name the name to match, possibly including an authorship.
+	 * @param marineOnly as in findByName.
+	 * @return an array, possibly empty, of matching records.
+	 */
+	public JsonArray matchName(String name, boolean marineOnly) { 
+		JsonArray result = findByName(name, marineOnly);
+		if (result.size()==0 && name!=null) { 
+			String canonical = stripAuthorship(name);
+			if (!canonical.equals(name.trim())) { 
+				result = findByName(canonical, marineOnly);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Find the synonyms of a taxon.
+	 * 
+	 * @param id the id of the accepted taxon.
+	 * @return an array, possibly empty, of records of synonyms.
+	 */
+	public JsonArray findSynonyms(int id) { 
+		JsonArray result = new JsonArray();
+		Iterator<String[]> i = index.findByAccepted(id, Integer.MAX_VALUE).iterator();
+		while (i.hasNext()) { 
+			result.add(toRecord(i.next(), null));
+		}
+		return result;
+	}
+	
+	/**
+	 * Obtain the classification of a taxon by following its parents.
+	 * 
+	 * @param id the id of the taxon.
+	 * @return the classification in the form of an Aphia Classification, nested from the 
+	 *   root down to the taxon, or null if the taxon is not found.
+	 */
+	public JsonObject getClassification(int id) { 
+		List<String[]> lineage = new ArrayList<String[]>();
+		String[] fields = index.getByKey(id);
+		while (fields!=null && lineage.size() < MAX_CLASSIFICATION_DEPTH) { 
+			lineage.add(fields);
+			Integer parent = TaxonFileIndex.parseKey(TaxonFileIndex.field(fields, columnParent));
+			if (parent==null || parent.equals(TaxonFileIndex.parseKey(TaxonFileIndex.field(fields, columnTaxonID)))) { 
+				fields = null;
+			} else { 
+				fields = index.getByKey(parent.intValue());
+			}
+		}
+		JsonObject child = null;
+		for (int i=0; i<lineage.size(); i++) { 
+			String[] taxon = lineage.get(i);
+			JsonObject classification = new JsonObject();
+			classification.addProperty(idField, TaxonFileIndex.parseKey(TaxonFileIndex.field(taxon, columnTaxonID)));
+			classification.addProperty("rank", rank(taxon));
+			classification.addProperty("scientificname", TaxonFileIndex.field(taxon, columnScientificName));
+			classification.add("child", child);
+			child = classification;
+		}
+		return child;
+	}
+	
+	private boolean isMarine(String[] fields) { 
+		if (profiles==null) { 
+			return true;
+		}
+		Integer key = TaxonFileIndex.parseKey(TaxonFileIndex.field(fields, columnTaxonID));
+		int record = index.recordNumber(key.intValue());
+		return (profiles[record] & (MARINE | BRACKISH)) != 0;
+	}
+	
+	/**
+	 * Remove an authorship from a name, keeping a capitalized first word and following 
+	 * lower case epithets and rank markers.
+	 */
+	static String stripAuthorship(String name) { 
+		String[] words = name.trim().split("\\s+");
+		StringBuilder result = new StringBuilder(words[0]);
+		for (int i=1; i<words.length; i++) { 
+			if (!words[i].matches("^[a-z][a-z.-]*$")) { 
+				break;
+			}
+			result.append(" ").append(words[i]);
+		}
+		return result.toString();
+	}
+	
+	private String rank(String[] fields) { 
+		String rank = TaxonFileIndex.field(fields, columnRank).trim();
+		if (rank.length() > 0) { 
+			rank = rank.substring(0, 1).toUpperCase() + rank.substring(1);
+		}
+		return rank;
+	}
+	
+	private JsonObject toRecord(String[] fields, String matchType) { 
+		JsonObject result = new JsonObject();
+		String taxonID = TaxonFileIndex.field(fields, columnTaxonID);
+		Integer id = TaxonFileIndex.parseKey(taxonID);
+		String rank = rank(fields);
+		result.addProperty(idField, id);
+		result.addProperty("url", urlPrefix + id);
+		result.addProperty("scientificname", TaxonFileIndex.field(fields, columnScientificName));
+		result.addProperty("authority", emptyToNull(TaxonFileIndex.field(fields, columnAuthorship)));
+		if (rank.length() > 0) { 
+			result.addProperty("taxonRankID", WoRMSService.rankStringToNumber(rank));
+		}
+		result.addProperty("rank", rank);
+		result.addProperty("status", emptyToNull(TaxonFileIndex.field(fields, columnStatus)));
+		result.addProperty("unacceptreason", emptyToNull(TaxonFileIndex.field(fields, columnRemarks)));
+		Integer accepted = TaxonFileIndex.parseKey(TaxonFileIndex.field(fields, columnAccepted));
+		String[] acceptedFields = fields;
+		if (accepted!=null && !accepted.equals(id)) { 
+			acceptedFields = index.getByKey(accepted.intValue());
+		} else { 
+			accepted = id;
+		}
+		result.addProperty("valid_" + idField, accepted);
+		if (acceptedFields!=null) { 
+			result.addProperty("valid_name", TaxonFileIndex.field(acceptedFields, columnScientificName));
+			result.addProperty("valid_authority", emptyToNull(TaxonFileIndex.field(acceptedFields, columnAuthorship)));
+		}
+		result.addProperty("parentNameUsageID", TaxonFileIndex.parseKey(TaxonFileIndex.field(fields, columnParent)));
+		result.addProperty("kingdom", emptyToNull(TaxonFileIndex.field(fields, columnKingdom)));
+		result.addProperty("phylum", emptyToNull(TaxonFileIndex.field(fields, columnPhylum)));
+		result.addProperty("class", emptyToNull(TaxonFileIndex.field(fields, columnClass)));
+		result.addProperty("order", emptyToNull(TaxonFileIndex.field(fields, columnOrder)));
+		result.addProperty("family", emptyToNull(TaxonFileIndex.field(fields, columnFamily)));
+		result.addProperty("genus", emptyToNull(TaxonFileIndex.field(fields, columnGenus)));
+		result.addProperty("citation", emptyToNull(TaxonFileIndex.field(fields, columnCitation)));
+		if (taxonID.startsWith("urn:lsid:")) { 
+			result.addProperty("lsid", taxonID);
+		} else { 
+			result.addProperty("lsid", lsidPrefix + id);
+		}
+		if (profiles!=null) { 
+			int flags = profiles[index.recordNumber(id.intValue())];
+			if ((flags & PROFILED) != 0) { 
+				result.addProperty("isMarine", Boolean.valueOf((flags & MARINE) != 0));
+				result.addProperty("isBrackish", Boolean.valueOf((flags & BRACKISH) != 0));
+				result.addProperty("isFreshwater", Boolean.valueOf((flags & FRESHWATER) != 0));
+				result.addProperty("isTerrestrial", Boolean.valueOf((flags & TERRESTRIAL) != 0));
+				result.addProperty("isExtinct", Boolean.valueOf((flags & EXTINCT) != 0));
+			}
+		}
+		result.addProperty("match_type", matchType);
+		result.addProperty("modified", emptyToNull(TaxonFileIndex.field(fields, columnModified)));
+		return result;
+	}
+	
+	private static String emptyToNull(String value) { 
+		if (value.length()==0) { 
+			return null;
+		}
+		return value;
+	}
+
+}
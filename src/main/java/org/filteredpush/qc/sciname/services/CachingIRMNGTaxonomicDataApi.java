@@ -0,0 +1,174 @@
+/** 
+ * CachingIRMNGTaxonomicDataApi.java 
+ * 
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+import org.irmng.aphia.v1_0.api.TaxonomicDataApi;
+import org.irmng.aphia.v1_0.handler.ApiClient;
+import org.irmng.aphia.v1_0.handler.ApiException;
+import org.irmng.aphia.v1_0.handler.JSON;
+import org.irmng.aphia.v1_0.model.AphiaRecord;
+import org.irmng.aphia.v1_0.model.AphiaRecordsArray;
+
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * TaxonomicDataApi for the IRMNG Aphia service that consults the shared LookupCache
+ * before invoking the service for the name and id lookups used by IRMNGService, and
+ * stores the responses of the service in the cache.  Empty responses are cached as 
+ * well, so that names not found are not looked up again.  The caching is done by
+ * AphiaLookups, shared with CachingWoRMSTaxonomicDataApi.
+ * 
+ * @author mole
+ * @version $Id: $Id
+ */
+public class CachingIRMNGTaxonomicDataApi extends TaxonomicDataApi {
+	
+	private static final Type RECORD_LIST_TYPE = new TypeToken<List<AphiaRecord>>(){}.getType();
+	private static final Type RECORDS_ARRAY_TYPE = new TypeToken<AphiaRecordsArray>(){}.getType();
+	private static final Type RECORDS_ARRAY_LIST_TYPE = new TypeToken<List<AphiaRecordsArray>>(){}.getType();
+
+	/** Lookups recorded in the shared MetricsRegistry under IRMNGService. */
+	private static final AphiaLookups lookups = new AphiaLookups("IRMNGService");
+
+	private static ApiClient sharedApiClient = null;
+
+	/**
+	 * Construct with the shared ApiClient.
+	 */
+	public CachingIRMNGTaxonomicDataApi() { 
+		super(getSharedApiClient());
+	}
+	
+	/**
+	 * Construct with a provided ApiClient.
+	 * 
+	 * @param apiClient the client to use to invoke the service.
+	 */
+	public CachingIRMNGTaxonomicDataApi(ApiClient apiClient) { 
+		super(apiClient);
+	}
+	
+	/**
+	 * Obtain the ApiClient shared by all instances of the api, which makes its requests with 
+	 * the process wide http client for the service from HttpClients.
+	 * 
+	 * @return the shared ApiClient.
+	 */
+	public static synchronized ApiClient getSharedApiClient() { 
+		if (sharedApiClient==null) { 
+			ApiClient client = new ApiClient().setBasePath(IRMNGService.IRMNGBASEPATH);
+			client.setHttpClient(HttpClients.getClient(client.getBasePath()));
+			sharedApiClient = client;
+		}
+		return sharedApiClient;
+	}
+	
+	private String authority() { 
+		return getApiClient().getBasePath();
+	}
+	
+	/**
+	 * @return the serialization of the model classes by the ApiClient of this api.
+	 */
+	AphiaLookups.Json json() { 
+		final JSON json = getApiClient().getJSON();
+		return new AphiaLookups.Json() {
+			@Override
+			public String serialize(Object value) {
+				return json.serialize(value);
+			}
+			@Override
+			public <T> T deserialize(String body, Type type) {
+				return json.deserialize(body, type);
+			}
+		};
+	}
+
+	@Override
+	public List<AphiaRecord> aphiaRecordsByName(final String scientificName, final Boolean like, final Boolean marineOnly, final Integer offset) throws ApiException {
+		return lookups.lookup(authority(), "aphiaRecordsByName", "aphiaRecordsByName?like=" + like + "&marineOnly=" + marineOnly + "&offset=" + offset, 
+				scientificName, json(), RECORD_LIST_TYPE, new SingleFlight.Call<List<AphiaRecord>,ApiException>() {
+			@Override
+			public List<AphiaRecord> call() throws ApiException {
+				return CachingIRMNGTaxonomicDataApi.super.aphiaRecordsByName(scientificName, like, marineOnly, offset);
+			}
+		});
+	}
+
+	@Override
+	public AphiaRecord aphiaRecordByIRMNGID(final Integer ID) throws ApiException {
+		return lookups.lookup(authority(), "aphiaRecordByIRMNGID", "aphiaRecordByIRMNGID", 
+				String.valueOf(ID), json(), AphiaRecord.class, new SingleFlight.Call<AphiaRecord,ApiException>() {
+			@Override
+			public AphiaRecord call() throws ApiException {
+				return CachingIRMNGTaxonomicDataApi.super.aphiaRecordByIRMNGID(ID);
+			}
+		});
+	}
+
+	/**
+	 * Fuzzy match a list of names, each name is cached separately, and only names 
+	 * not found in the cache are sent to the service.
+	 */
+	@Override
+	public List<AphiaRecordsArray> aphiaRecordsByMatchNames(List<String> scientificnames, final Boolean marineOnly) throws ApiException {
+		return lookups.lookupEach(authority(), "aphiaRecordsByMatchNames", "aphiaRecordsByMatchNames?marineOnly=" + marineOnly, 
+				scientificnames, json(), RECORDS_ARRAY_TYPE, new AphiaLookups.Batch<AphiaRecordsArray,ApiException>() {
+			@Override
+			public List<AphiaRecordsArray> lookup(List<String> names) throws ApiException {
+				return CachingIRMNGTaxonomicDataApi.super.aphiaRecordsByMatchNames(names, marineOnly);
+			}
+			@Override
+			public AphiaRecordsArray empty() {
+				return null;
+			}
+		});
+	}
+	
+	/**
+	 * Find the records for each of a list of scientific names in one request.  The generated 
+	 * aphiaRecordsByNames declares a flat list of records as its return type, but the service 
+	 * returns a list of records for each name, so this is used instead.  Each name is cached 
+	 * separately, under the same key as the first page of aphiaRecordsByName, and only names 
+	 * not found in the cache are sent to the service.
+	 * 
+	 * @param scientificnames the names to look up, the service accepts up to 50.
+	 * @param like if true, match names starting with each name.
+	 * @param marineOnly if true, limit to marine taxa.
+	 * @return a list with one, possibly empty, list of records for each name, in the order of the names.
+	 * @throws ApiException on a problem invoking the service.
+	 */
+	public List<AphiaRecordsArray> aphiaRecordsArraysByNames(List<String> scientificnames, final Boolean like, final Boolean marineOnly) throws ApiException {
+		return lookups.lookupEach(authority(), "aphiaRecordsByNames", "aphiaRecordsByName?like=" + like + "&marineOnly=" + marineOnly + "&offset=1", 
+				scientificnames, json(), RECORDS_ARRAY_TYPE, new AphiaLookups.Batch<AphiaRecordsArray,ApiException>() {
+			@Override
+			public List<AphiaRecordsArray> lookup(List<String> names) throws ApiException {
+				okhttp3.Call call = aphiaRecordsByNamesCall(names, like, marineOnly, null, null);
+				return getApiClient().<List<AphiaRecordsArray>>execute(call, RECORDS_ARRAY_LIST_TYPE).getData();
+			}
+			@Override
+			public AphiaRecordsArray empty() {
+				return new AphiaRecordsArray();
+			}
+		});
+	}
+	
+}
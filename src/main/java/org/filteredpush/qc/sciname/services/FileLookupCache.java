@@ -0,0 +1,372 @@
+/** 
+ * FileLookupCache.java 
+ * 
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A persistent LookupCache held in a single append only file in a cache directory, 
+ * with an in memory index of the position of each value in the file, so that the 
+ * cache survives restarts of the JVM and can be shared by successive runs.  
+ * 
+ * Entries expire after a time to live, and the least recently used entries are 
+ * evicted when the cache holds more than a maximum number of entries.  Superseded,
+ * evicted, and expired records are removed from the file by compaction when they 
+ * come to occupy more of the file than the live records.  A record truncated by 
+ * an interrupted write is discarded when the file is next opened.
+ * 
+ * Only one JVM at a time should open a given cache directory.
+ * 
+ * @author mole
+ * @version $Id: $Id
+ */
+public class FileLookupCache implements LookupCache {
+	
+	private static final Log logger = LogFactory.getLog(FileLookupCache.class);
+	
+	/** Name of the file within the cache directory that holds the cache. */
+	public static final String CACHE_FILE_NAME = "lookupcache.dat";
+	
+	private static final byte[] MAGIC = "SNQCLC01".getBytes(StandardCharsets.US_ASCII);
+	/** key length, value length, time stored */
+	private static final int RECORD_HEADER_LENGTH = 4 + 4 + 8;
+	/** don't bother compacting files smaller than this */
+	private static final long MIN_COMPACT_LENGTH = 1024L * 1024L;
+	
+	private final File cacheFile;
+	private final long timeToLiveMillis;
+	private final int maxEntries;
+	
+	private FileChannel channel;
+	private long fileLength;
+	private long deadBytes;
+	private final LinkedHashMap<String,Entry> index;
+	
+	/**
+	 * Open or create a persistent cache in a directory.
+	 * 
+	 * @param directory in which to hold the cache, created if it does not exist.
+	 * @param timeToLiveMillis time after storage after which entries expire, zero or 
+	 *   less for no expiry.
+	 * @param maxEntries the maximum number of entries to hold, least recently used 
+	 *   entries are evicted beyond this.
+	 * @throws IOException if the cache file can't be opened, read or created.
+	 */
+	public FileLookupCache(File directory, long timeToLiveMillis, int maxEntries) throws IOException { 
+		if (!directory.exists() && !directory.mkdirs()) { 
+			throw new IOException("Unable to create cache directory [" + directory.getPath() + "]");
+		}
+		this.cacheFile = new File(directory, CACHE_FILE_NAME);
+		this.timeToLiveMillis = timeToLiveMillis;
+		this.maxEntries = maxEntries;
+		this.index = new LinkedHashMap<String,Entry>(1024, 0.75f, true);
+		open();
+		logger.debug("Opened lookup cache " + cacheFile.getPath() + " with " + index.size() + " entries.");
+	}
+	
+	private void open() throws IOException { 
+		channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		if (channel.size()==0) { 
+			writeFully(ByteBuffer.wrap(MAGIC), 0);
+			fileLength = MAGIC.length;
+		} else { 
+			load();
+		}
+	}
+
+	/**
+	 * Rebuild the index from the cache file.
+	 */
+	private void load() throws IOException { 
+		ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+		readFully(magic, 0);
+		if (!Arrays.equals(magic.array(), MAGIC)) { 
+			throw new IOException("File [" + cacheFile.getPath() + "] is not a lookup cache.");
+		}
+		long size = channel.size();
+		long position = MAGIC.length;
+		long now = System.currentTimeMillis();
+		ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+		while (position + RECORD_HEADER_LENGTH <= size) { 
+			header.clear();
+			readFully(header, position);
+			header.flip();
+			int keyLength = header.getInt();
+			int valueLength = header.getInt();
+			long storedAt = header.getLong();
+			long recordLength = RECORD_HEADER_LENGTH + (long)keyLength + Math.max(valueLength, 0);
+			if (keyLength < 0 || position + recordLength > size) { 
+				break;
+			}
+			ByteBuffer keyBytes = ByteBuffer.allocate(keyLength);
+			readFully(keyBytes, position + RECORD_HEADER_LENGTH);
+			String key = new String(keyBytes.array(), StandardCharsets.UTF_8);
+			Entry previous;
+			if (valueLength < 0) { 
+				previous = index.remove(key);
+				deadBytes += recordLength;
+			} else { 
+				Entry entry = new Entry(position, keyLength, valueLength, storedAt);
+				if (isExpired(entry, now)) { 
+					previous = index.remove(key);
+					deadBytes += recordLength;
+				} else { 
+					previous = index.put(key, entry);
+				}
+			}
+			if (previous!=null) { 
+				deadBytes += previous.recordLength();
+			}
+			position += recordLength;
+		}
+		if (position < size) { 
+			logger.warn("Discarding incomplete record at end of lookup cache " + cacheFile.getPath());
+			channel.truncate(position);
+		}
+		fileLength = position;
+		while (index.size() > maxEntries) { 
+			evictEldest();
+		}
+		compactIfNeeded();
+	}
+	
+	@Override
+	public synchronized String get(String key) {
+		if (channel==null || key==null) { 
+			return null;
+		}
+		Entry entry = index.get(key);
+		if (entry==null) { 
+			return null;
+		}
+		if (isExpired(entry, System.currentTimeMillis())) { 
+			index.remove(key);
+			deadBytes += entry.recordLength();
+			return null;
+		}
+		try { 
+			ByteBuffer value = ByteBuffer.allocate(entry.valueLength);
+			readFully(value, entry.valuePosition());
+			return new String(value.array(), StandardCharsets.UTF_8);
+		} catch (IOException e) { 
+			logger.error(e.getMessage(), e);
+			return null;
+		}
+	}
+
+	@Override
+	public synchronized void put(String key, String value) {
+		if (channel==null || key==null || value==null) { 
+			return;
+		}
+		try { 
+			Entry entry = append(key, value.getBytes(StandardCharsets.UTF_8), System.currentTimeMillis());
+			Entry previous = index.put(key, entry);
+			if (previous!=null) { 
+				deadBytes += previous.recordLength();
+			}
+			while (index.size() > maxEntries) { 
+				evictEldest();
+			}
+			compactIfNeeded();
+		} catch (IOException e) { 
+			logger.error(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public synchronized void invalidate(String key) {
+		if (channel==null || key==null) { 
+			return;
+		}
+		Entry previous = index.remove(key);
+		if (previous!=null) { 
+			deadBytes += previous.recordLength();
+			try { 
+				appendTombstone(key);
+			} catch (IOException e) {
+				logger.error(e.getMessage(), e);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void clear() {
+		if (channel==null) { 
+			return;
+		}
+		index.clear();
+		try { 
+			channel.truncate(MAGIC.length);
+			fileLength = MAGIC.length;
+			deadBytes = 0;
+		} catch (IOException e) { 
+			logger.error(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public synchronized int size() {
+		return index.size();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (channel!=null) { 
+			compactIfNeeded();
+			channel.force(true);
+			channel.close();
+			channel = null;
+		}
+	}
+	
+	private boolean isExpired(Entry entry, long now) { 
+		return timeToLiveMillis > 0 && now - entry.storedAt > timeToLiveMillis;
+	}
+	
+	private void evictEldest() throws IOException { 
+		Iterator<Map.Entry<String,Entry>> i = index.entrySet().iterator();
+		if (i.hasNext()) { 
+			Map.Entry<String,Entry> eldest = i.next();
+			i.remove();
+			deadBytes += eldest.getValue().recordLength();
+			appendTombstone(eldest.getKey());
+		}
+	}
+	
+	private Entry append(String key, byte[] value, long storedAt) throws IOException { 
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + keyBytes.length + value.length);
+		record.putInt(keyBytes.length);
+		record.putInt(value.length);
+		record.putLong(storedAt);
+		record.put(keyBytes);
+		record.put(value);
+		record.flip();
+		Entry entry = new Entry(fileLength, keyBytes.length, value.length, storedAt);
+		writeFully(record, fileLength);
+		fileLength += record.capacity();
+		return entry;
+	}
+	
+	private void appendTombstone(String key) throws IOException { 
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + keyBytes.length);
+		record.putInt(keyBytes.length);
+		record.putInt(-1);
+		record.putLong(System.currentTimeMillis());
+		record.put(keyBytes);
+		record.flip();
+		writeFully(record, fileLength);
+		fileLength += record.capacity();
+		deadBytes += record.capacity();
+	}
+	
+	/**
+	 * Rewrite the cache file with only the live entries when dead records make up 
+	 * more than half of a file of a non-trivial size.
+	 */
+	private void compactIfNeeded() throws IOException { 
+		if (fileLength < MIN_COMPACT_LENGTH || deadBytes * 2 < fileLength) { 
+			return;
+		}
+		logger.debug("Compacting lookup cache " + cacheFile.getPath());
+		File compacted = new File(cacheFile.getParentFile(), CACHE_FILE_NAME + ".compact");
+		FileChannel target = FileChannel.open(compacted.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		long position = 0;
+		try { 
+			position += target.write(ByteBuffer.wrap(MAGIC), position);
+			Iterator<Map.Entry<String,Entry>> i = index.entrySet().iterator();
+			while (i.hasNext()) { 
+				Map.Entry<String,Entry> item = i.next();
+				Entry entry = item.getValue();
+				ByteBuffer record = ByteBuffer.allocate((int)entry.recordLength());
+				readFully(record, entry.position);
+				record.flip();
+				long newPosition = position;
+				while (record.hasRemaining()) { 
+					position += target.write(record, position);
+				}
+				item.setValue(new Entry(newPosition, entry.keyLength, entry.valueLength, entry.storedAt));
+			}
+			target.force(true);
+		} finally { 
+			target.close();
+		}
+		channel.close();
+		Files.move(compacted.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		fileLength = position;
+		deadBytes = 0;
+	}
+	
+	private void readFully(ByteBuffer buffer, long position) throws IOException { 
+		while (buffer.hasRemaining()) { 
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0) { 
+				throw new IOException("Unexpected end of lookup cache file " + cacheFile.getPath());
+			}
+		}
+	}
+	
+	private void writeFully(ByteBuffer buffer, long position) throws IOException { 
+		while (buffer.hasRemaining()) { 
+			channel.write(buffer, position + buffer.position());
+		}
+	}
+	
+	/**
+	 * Location of a record in the cache file.
+	 */
+	private static class Entry { 
+		private final long position;
+		private final int keyLength;
+		private final int valueLength;
+		private final long storedAt;
+		
+		private Entry(long position, int keyLength, int valueLength, long storedAt) { 
+			this.position = position;
+			this.keyLength = keyLength;
+			this.valueLength = valueLength;
+			this.storedAt = storedAt;
+		}
+		
+		private long valuePosition() { 
+			return position + RECORD_HEADER_LENGTH + keyLength;
+		}
+		
+		private long recordLength() { 
+			return RECORD_HEADER_LENGTH + (long)keyLength + valueLength;
+		}
+	}
+
+}
@@ -0,0 +1,249 @@
+/** 
+ * GBIFBackboneIndex.java 
+ * 
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Local, read only, copy of the GBIF Backbone Taxonomy, loaded from the Taxon.tsv file 
+ * of the published backbone Darwin Core archive (https://hosted-datasets.gbif.org/datasets/backbone/), 
+ * which must be unzipped.  
+ * 
+ * The file is memory mapped and indexed by a TaxonFileIndex, records are returned 
+ * as json objects in the form returned by the GBIF species API, so that they can be 
+ * consumed by the same code as responses from the API.
+ * 
+ * Instances are safe for concurrent use once constructed.
+ * 
+ * @author mole
+ * @version $Id: $Id
+ */
+public class GBIFBackboneIndex {
+	
+	/** Name of the core file in the backbone archive. */
+	public static final String TAXON_FILE_NAME = "Taxon.tsv";
+	
+	private final TaxonFileIndex index;
+	
+	private final int columnTaxonID;
+	private final int columnParent;
+	private final int columnAccepted;
+	private final int columnScientificName;
+	private final int columnAuthorship;
+	private final int columnRank;
+	private final int columnStatus;
+	private final int columnKingdom;
+	private final int columnPhylum;
+	private final int columnClass;
+	private final int columnOrder;
+	private final int columnFamily;
+	private final int columnGenus;
+	
+	/**
+	 * Load the backbone.
+	 * 
+	 * @param taxonFileOrDirectory either the Taxon.tsv file, or the directory containing
+	 *   the unzipped backbone archive.
+	 * @throws IOException if the file can't be read, or doesn't have the expected columns.
+	 */
+	public GBIFBackboneIndex(File taxonFileOrDirectory) throws IOException { 
+		File taxonFile = taxonFileOrDirectory;
+		if (taxonFileOrDirectory.isDirectory()) { 
+			taxonFile = new File(taxonFileOrDirectory, TAXON_FILE_NAME);
+		}
+		index = new TaxonFileIndex(taxonFile);
+		columnTaxonID = index.column("taxonID");
+		columnParent = index.column("parentNameUsageID");
+		columnAccepted = index.column("acceptedNameUsageID");
+		columnScientificName = index.column("scientificName");
+		columnAuthorship = index.column("scientificNameAuthorship");
+		columnRank = index.column("taxonRank");
+		columnStatus = index.column("taxonomicStatus");
+		columnKingdom = index.column("kingdom");
+		columnPhylum = index.column("phylum");
+		columnClass = index.column("class");
+		columnOrder = index.column("order");
+		columnFamily = index.column("family");
+		columnGenus = index.column("genus");
+		if (columnRank < 0) { 
+			throw new IOException("File [" + taxonFile.getPath() + "] lacks a taxonRank column.");
+		}
+	}
+	
+	/**
+	 * @return the number of records in the backbone.
+	 */
+	public int size() { 
+		return index.size();
+	}
+	
+	/**
+	 * Look up a taxon by its key.
+	 * 
+	 * @param key the GBIF backbone taxon key
+	 * @return the record as a json object in the form of the GBIF species api, or null 
+	 *   if the key is not in the backbone.
+	 */
+	public JSONObject getByKey(int key) { 
+		String[] fields = index.getByKey(key);
+		if (fields==null) { 
+			return null;
+		}
+		return toJSON(fields);
+	}
+	
+	/**
+	 * Find taxa with a canonical name or scientific name matching a name, ignoring case.
+	 * 
+	 * @param name the name to look for.
+	 * @param limit the maximum number of records to return.
+	 * @return a list, possibly empty, of matching records as json objects.
+	 */
+	public List<JSONObject> findByName(String name, int limit) { 
+		return toJSON(index.findByName(name, limit));
+	}
+	
+	/**
+	 * Find taxa with a canonical name within an edit distance of a name, ignoring case.
+	 * 
+	 * @param name the canonical name to look for.
+	 * @param maxDistance the largest edit distance of interest.
+	 * @param limit the maximum number of records to return.
+	 * @return a list, possibly empty, of matching records as json objects, the closest names first.
+	 * @see TaxonFileIndex#findByApproximateName(String, int, int)
+	 */
+	public List<JSONObject> findByApproximateName(String name, int maxDistance, int limit) { 
+		return toJSON(index.findByApproximateName(name, maxDistance, limit));
+	}
+	
+	/**
+	 * Find taxa with a name at a rank.
+	 * 
+	 * @param name the canonical name to look for, case is ignored.
+	 * @param rank the rank to look for, case is ignored.
+	 * @return a list, possibly empty, of matching records as json objects.
+	 */
+	public List<JSONObject> findByNameAtRank(String name, String rank) { 
+		List<JSONObject> result = new ArrayList<JSONObject>();
+		if (name==null || rank==null) { 
+			return result;
+		}
+		Iterator<String[]> i = index.findByName(name, Integer.MAX_VALUE).iterator();
+		while (i.hasNext()) { 
+			String[] fields = i.next();
+			if (index.canonicalName(fields).equalsIgnoreCase(name.trim()) && TaxonFileIndex.field(fields, columnRank).equalsIgnoreCase(rank)) { 
+				result.add(toJSON(fields));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Find the synonyms of an accepted taxon.
+	 * 
+	 * @param acceptedKey the key of the accepted taxon.
+	 * @param limit the maximum number of records to return.
+	 * @return a list, possibly empty, of synonyms as json objects.
+	 */
+	public List<JSONObject> findSynonyms(int acceptedKey, int limit) { 
+		return toJSON(index.findByAccepted(acceptedKey, limit));
+	}
+	
+	/**
+	 * Wrap a list of records in the paged response form of the GBIF species api.
+	 * 
+	 * @param records the records to include in the response.
+	 * @param limit the limit requested.
+	 * @return a json string.
+	 */
+	@SuppressWarnings("unchecked")
+	public static String toSearchResponse(List<JSONObject> records, int limit) { 
+		JSONObject response = new JSONObject();
+		response.put("offset", Integer.valueOf(0));
+		response.put("limit", Integer.valueOf(limit));
+		response.put("endOfRecords", Boolean.TRUE);
+		JSONArray results = new JSONArray();
+		results.addAll(records);
+		response.put("results", results);
+		return response.toJSONString();
+	}
+	
+	private List<JSONObject> toJSON(List<String[]> records) { 
+		List<JSONObject> result = new ArrayList<JSONObject>(records.size());
+		Iterator<String[]> i = records.iterator();
+		while (i.hasNext()) { 
+			result.add(toJSON(i.next()));
+		}
+		return result;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private JSONObject toJSON(String[] fields) { 
+		JSONObject result = new JSONObject();
+		Integer key = TaxonFileIndex.parseKey(TaxonFileIndex.field(fields, columnTaxonID));
+		String status = TaxonFileIndex.field(fields, columnStatus).trim().toUpperCase().replace(' ', '_');
+		if (status.length()==0) { 
+			status = "DOUBTFUL";
+		}
+		result.put("key", key);
+		result.put("nubKey", key);
+		result.put("taxonID", "gbif:" + key);
+		result.put("datasetKey", GBIFService.KEY_GBIFBACKBONE);
+		result.put("scientificName", TaxonFileIndex.field(fields, columnScientificName));
+		result.put("canonicalName", index.canonicalName(fields));
+		result.put("authorship", TaxonFileIndex.field(fields, columnAuthorship));
+		result.put("rank", TaxonFileIndex.field(fields, columnRank).trim().toUpperCase());
+		result.put("taxonomicStatus", status);
+		result.put("synonym", Boolean.valueOf(status.contains("SYNONYM")));
+		result.put("numDescendants", Integer.valueOf(0));
+		Integer parentKey = TaxonFileIndex.parseKey(TaxonFileIndex.field(fields, columnParent));
+		if (parentKey!=null) { 
+			result.put("parentKey", parentKey);
+		}
+		Integer acceptedKey = TaxonFileIndex.parseKey(TaxonFileIndex.field(fields, columnAccepted));
+		if (acceptedKey!=null && !acceptedKey.equals(key)) { 
+			result.put("acceptedKey", acceptedKey);
+			String[] accepted = index.getByKey(acceptedKey.intValue());
+			if (accepted!=null) { 
+				result.put("accepted", TaxonFileIndex.field(accepted, columnScientificName));
+			}
+		}
+		putIfPresent(result, "kingdom", TaxonFileIndex.field(fields, columnKingdom));
+		putIfPresent(result, "phylum", TaxonFileIndex.field(fields, columnPhylum));
+		putIfPresent(result, "class", TaxonFileIndex.field(fields, columnClass));
+		putIfPresent(result, "order", TaxonFileIndex.field(fields, columnOrder));
+		putIfPresent(result, "family", TaxonFileIndex.field(fields, columnFamily));
+		putIfPresent(result, "genus", TaxonFileIndex.field(fields, columnGenus));
+		return result;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static void putIfPresent(JSONObject json, String key, String value) { 
+		if (value.length() > 0) { 
+			json.put(key, value);
+		}
+	}
+
+}
@@ -0,0 +1,245 @@
+/**
+ * GBIFNameUsageReader.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.simple.JSONObject;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import edu.harvard.mcz.nametools.NameUsage;
+
+/**
+ * Streaming decoder for responses from the GBIF species api, either a page of results
+ * ({"results":[...], "endOfRecords":...}), a bare array of name usages, or a single name
+ * usage.
+ *
+ * Each name usage is read with a pull parser, keeping only the fields that NameUsage uses
+ * and skipping nested structures, the NameUsage is only constructed for records that pass
+ * the canonical name and rank filter, and reading stops as soon as a requested single
+ * match is found, so a large response is never held as a json document tree.
+ *
+ * A page of results with endOfRecords false holds only the first of the records found,
+ * readPage reports this to callers for which an incomplete list matters.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public class GBIFNameUsageReader {
+
+	private static final Log logger = LogFactory.getLog(GBIFNameUsageReader.class);
+
+	/** The fields of a GBIF name usage read by NameUsage(JSONObject). */
+	private static final Set<String> FIELDS = new HashSet<String>(Arrays.asList(
+			"key", "taxonomicStatus", "acceptedKey", "accepted", "datasetKey", "parentKey",
+			"numDescendants", "parent", "scientificName", "canonicalName", "authorship", "rank",
+			"kingdom", "phylum", "class", "clazz", "order", "superfamily", "family", "subfamily",
+			"tribe", "subtribe", "genus", "sourceId", "link", "synonym", "taxonID"));
+
+	/**
+	 * The name usages read from a response, and whether they are all of the records found.
+	 */
+	public static final class Page {
+		private final List<NameUsage> usages;
+		private final boolean endOfRecords;
+
+		Page(List<NameUsage> usages, boolean endOfRecords) {
+			this.usages = usages;
+			this.endOfRecords = endOfRecords;
+		}
+
+		/**
+		 * @return the name usages read, empty if none.
+		 */
+		public List<NameUsage> getUsages() {
+			return usages;
+		}
+
+		/**
+		 * @return false if the response was a page of results with endOfRecords false, that is
+		 *   the service found more records than it returned, otherwise true.
+		 */
+		public boolean isEndOfRecords() {
+			return endOfRecords;
+		}
+	}
+
+	/**
+	 * Read all of the name usages in a response.
+	 *
+	 * @param json the response.
+	 * @return a list of name usages, empty if none.
+	 * @throws IOException on a problem reading or parsing the response.
+	 */
+	public static List<NameUsage> readAll(Reader json) throws IOException {
+		return readPage(json).getUsages();
+	}
+
+	/**
+	 * Read all of the name usages in a response, noting whether the service returned all of
+	 * the records it found.
+	 *
+	 * @param json the response.
+	 * @return the name usages, and whether they are all of the records found.
+	 * @throws IOException on a problem reading or parsing the response.
+	 */
+	public static Page readPage(Reader json) throws IOException {
+		return read(json, null, null, false, true);
+	}
+
+	/**
+	 * Read the name usages in a response with a given canonical name at a given rank,
+	 * compared without regard to case.
+	 *
+	 * @param json the response.
+	 * @param canonicalName the canonical name the name usages must have.
+	 * @param rank the rank the name usages must have.
+	 * @return a list of matching name usages, empty if none.
+	 * @throws IOException on a problem reading or parsing the response.
+	 */
+	public static List<NameUsage> readAtRank(Reader json, String canonicalName, String rank) throws IOException {
+		return read(json, canonicalName, rank, false, true).getUsages();
+	}
+
+	/**
+	 * Read a response up to the first name usage in its results with exactly a given
+	 * canonical name.
+	 *
+	 * @param json the response.
+	 * @param canonicalName the canonical name to find.
+	 * @return the first matching name usage, or null if none.
+	 * @throws IOException on a problem reading or parsing the response.
+	 */
+	public static NameUsage readFirstNamed(Reader json, String canonicalName) throws IOException {
+		List<NameUsage> result = read(json, canonicalName, null, true, false).getUsages();
+		if (result.isEmpty()) { 
+			return null;
+		}
+		return result.get(0);
+	}
+
+	/**
+	 * Read name usages from a response.
+	 *
+	 * @param json the response
+	 * @param canonicalName if not null, only name usages with this canonical name are returned.
+	 * @param rank if not null, only name usages with this rank are returned, canonicalName and
+	 *   rank are compared without regard to case if rank is given, otherwise canonicalName is
+	 *   compared exactly.
+	 * @param firstOnly if true, stop reading at the first matching name usage.
+	 * @param acceptSingle if true, treat a response that is a single object without results
+	 *   as one name usage.
+	 * @return the matching name usages, and false for endOfRecords only if the response said so,
+	 *   which may not have been read if firstOnly.
+	 */
+	private static Page read(Reader json, String canonicalName, String rank, boolean firstOnly, boolean acceptSingle) throws IOException {
+		List<NameUsage> result = new ArrayList<NameUsage>();
+		boolean endOfRecords = true;
+		JsonReader reader = new JsonReader(json);
+		if (reader.peek()==JsonToken.BEGIN_ARRAY) { 
+			readArray(reader, canonicalName, rank, firstOnly, result);
+		} else { 
+			JSONObject topLevel = new JSONObject();
+			boolean hasResults = false;
+			reader.beginObject();
+			while (reader.hasNext() && !(firstOnly && result.size()>0)) { 
+				String name = reader.nextName();
+				if (name.equals("results") && reader.peek()==JsonToken.BEGIN_ARRAY) { 
+					hasResults = true;
+					readArray(reader, canonicalName, rank, firstOnly, result);
+				} else if (name.equals("endOfRecords") && reader.peek()==JsonToken.BOOLEAN) { 
+					endOfRecords = reader.nextBoolean();
+					if (!endOfRecords) { 
+						logger.debug("Incomplete Harvest");
+					}
+				} else { 
+					readField(reader, name, topLevel);
+				}
+			}
+			if (!hasResults && acceptSingle && topLevel.size()>0 && matches(topLevel, canonicalName, rank)) { 
+				result.add(new NameUsage(topLevel));
+			}
+		}
+		return new Page(result, endOfRecords);
+	}
+
+	/**
+	 * Read an array of name usages, adding those that match to result.
+	 */
+	private static void readArray(JsonReader reader, String canonicalName, String rank, boolean firstOnly, List<NameUsage> result) throws IOException {
+		reader.beginArray();
+		while (reader.hasNext()) { 
+			if (reader.peek()!=JsonToken.BEGIN_OBJECT) { 
+				reader.skipValue();
+				continue;
+			}
+			JSONObject usage = new JSONObject();
+			reader.beginObject();
+			while (reader.hasNext()) { 
+				readField(reader, reader.nextName(), usage);
+			}
+			reader.endObject();
+			if (matches(usage, canonicalName, rank)) { 
+				result.add(new NameUsage(usage));
+				if (firstOnly) { 
+					// leave the rest of the response unread
+					return;
+				}
+			}
+		}
+		reader.endArray();
+	}
+
+	/**
+	 * Read the value of a field into fields as a string if it is one used by NameUsage and
+	 * is a primitive, skipping it otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	private static void readField(JsonReader reader, String name, JSONObject fields) throws IOException {
+		JsonToken token = reader.peek();
+		if (FIELDS.contains(name) && (token==JsonToken.STRING || token==JsonToken.NUMBER)) { 
+			fields.put(name, reader.nextString());
+		} else if (FIELDS.contains(name) && token==JsonToken.BOOLEAN) { 
+			fields.put(name, Boolean.toString(reader.nextBoolean()));
+		} else { 
+			reader.skipValue();
+		}
+	}
+
+	private static boolean matches(JSONObject usage, String canonicalName, String rank) {
+		if (canonicalName==null) { 
+			return true;
+		}
+		String usageName = NameUsage.getValFromKey(usage, "canonicalName");
+		if (rank==null) { 
+			return usageName.equals(canonicalName);
+		}
+		return usageName.equalsIgnoreCase(canonicalName) && NameUsage.getValFromKey(usage, "rank").equalsIgnoreCase(rank);
+	}
+
+}
@@ -18,18 +18,19 @@
  */
 package org.filteredpush.qc.sciname.services;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -86,12 +87,42 @@ public class GBIFService implements Validator {
 	/** Constant <code>KEY_UKSI="dbaa27eb-29e7-4cbb-8eab-3f689cfce116"</code> */
 	public static final String KEY_UKSI = "dbaa27eb-29e7-4cbb-8eab-3f689cfce116";
 	
-	private NameUsage validatedNameUsage = null;
+	/** The match found by the last call to nameSearchAgainstServices on each thread. */
+	private final ThreadLocal<NameUsage> lastValidatedNameUsage = new ThreadLocal<NameUsage>();
+	/** The comments on the last call to nameSearchAgainstServices, and from addToComment, on each thread. */
+	private final ThreadLocal<StringBuffer> lastComments = new ThreadLocal<StringBuffer>() {
+		@Override
+		protected StringBuffer initialValue() {
+			return new StringBuffer();
+		}
+	};
+	
+	protected final String targetKey;
+	protected final String targetDataSetName; 
+	protected final boolean fetchSynonymsAboveSpecies;
+	
+	/** Cache of lookups of higher taxa by lookupTaxonAtRank, results are shared, treat as read only. */
+	private static final LruCache<String,List<NameUsage>> taxonAtRankCache = new LruCache<String,List<NameUsage>>(LookupCaches.TAXON_AT_RANK_CACHE_SIZE, LookupCaches.TAXON_AT_RANK_CACHE_TTL);
+	static { 
+		MetricsRegistries.registerCache("GBIFService.taxonAtRank", taxonAtRankCache);
+	}
 	
+	/** System property giving the location of an unzipped copy of the GBIF backbone archive to use instead of the api. */
+	public static final String BACKBONE_PROPERTY = "sciname.gbif.backbone";
 	
-	protected String targetKey;
-	protected String targetDataSetName; 
-	protected boolean fetchSynonymsAboveSpecies;
+	/** Component under which calls are recorded in the shared MetricsRegistry. */
+	private static final String METRICS_COMPONENT = "GBIFService";
+	
+	/** Concurrent identical requests to the GBIF API, shared by fetchCached and fetchCachedAsync. */
+	private static final SingleFlight<String> requestsInFlight = new SingleFlight<String>(METRICS_COMPONENT);
+	/** Concurrent identical lookups by lookupTaxonAtRank, results are shared, treat as read only. */
+	private static final SingleFlight<List<NameUsage>> taxonAtRankInFlight = new SingleFlight<List<NameUsage>>(METRICS_COMPONENT);
+	
+	/** Largest edit distance between a name not found in a local backbone and the names offered as its correct spelling. */
+	public static final int APPROXIMATE_MATCH_DISTANCE = 2;
+	
+	private static GBIFBackboneIndex backboneIndex = null;
+	private static boolean backboneConfigured = false;
 
 	/**
 	 * <p>Constructor for GBIFService.</p>
@@ -103,7 +134,6 @@ public class GBIFService implements Validator {
 		targetKey = GBIFService.KEY_GBIFBACKBONE;
 		targetDataSetName = "GBIF Backbone Taxonomy";
 		fetchSynonymsAboveSpecies = true;
-		initSciName();
 		test();
 	}
 	
@@ -118,7 +148,6 @@ public class GBIFService implements Validator {
 		targetKey = GBIFService.KEY_GBIFBACKBONE;
 		targetDataSetName = "GBIF Backbone Taxonomy";
 		fetchSynonymsAboveSpecies = true;
-		initSciName();
 		if (test) { 
 			test();
 		}
@@ -133,18 +162,7 @@ public class GBIFService implements Validator {
 	public GBIFService(String targetKey)  throws IOException  { 
 		this.targetKey = targetKey;
 		fetchSynonymsAboveSpecies = true;
-		//TODO: Lookup title for dataset from targetKey (and check that datset exists).
-		targetDataSetName = "GBIF Dataset" + targetKey; 
-		if (targetKey.equals(KEY_IPNI)) { 
-		    targetDataSetName = "GBIF IPNI Dataset"; 
-		}
-		if (targetKey.equals(KEY_COL)) { 
-		    targetDataSetName = "GBIF COL Dataset"; 
-		}
-		if (targetKey.equals(KEY_INDEXFUNGORUM)) { 
-		    targetDataSetName = "GBIF IndexFungorum Dataset"; 
-		}
-		initSciName();
+		targetDataSetName = dataSetName(targetKey);
 		test();
 	}
 	
@@ -158,18 +176,7 @@ public class GBIFService implements Validator {
 	public GBIFService(String targetKey, boolean test)  throws IOException  { 
 		this.targetKey = targetKey;
 		fetchSynonymsAboveSpecies = true;
-		//TODO: Lookup title for dataset from targetKey (and check that datset exists).
-		targetDataSetName = "GBIF Dataset" + targetKey; 
-		if (targetKey.equals(KEY_IPNI)) { 
-		    targetDataSetName = "GBIF IPNI Dataset"; 
-		}
-		if (targetKey.equals(KEY_COL)) { 
-		    targetDataSetName = "GBIF COL Dataset"; 
-		}
-		if (targetKey.equals(KEY_INDEXFUNGORUM)) { 
-		    targetDataSetName = "GBIF IndexFungorum Dataset"; 
-		}
-		initSciName();
+		targetDataSetName = dataSetName(targetKey);
 		if (test) { 
 			test();
 		}
@@ -177,10 +184,24 @@ public class GBIFService implements Validator {
 	
 	
 	/**
-	 * <p>initSciName.</p>
+	 * Obtain a name for a checklist dataset in GBIF to use in comments.  The datasets
+	 * with KEY_ constants are named, others are identified by their key, the title
+	 * of the dataset is not looked up.
+	 *
+	 * @param targetKey the key of the dataset.
+	 * @return a name for the dataset.
 	 */
-	protected void initSciName() { 
-		validatedNameUsage = new NameUsage("GBIF",new ICZNAuthorNameComparator(.75d, .5d));
+	private static String dataSetName(String targetKey) { 
+		if (targetKey.equals(KEY_IPNI)) { 
+		    return "GBIF IPNI Dataset"; 
+		}
+		if (targetKey.equals(KEY_COL)) { 
+		    return "GBIF COL Dataset"; 
+		}
+		if (targetKey.equals(KEY_INDEXFUNGORUM)) { 
+		    return "GBIF IndexFungorum Dataset"; 
+		}
+		return "GBIF Dataset" + targetKey; 
 	}
 	
 	/**
@@ -209,35 +230,26 @@ public class GBIFService implements Validator {
 	 * @return the parsed name list as a json string
 	 */
 	public static String runNameParser(String nameString) { 
-		StringBuilder result = new StringBuilder();
-		String datasetKey = "";
-		URL url;
+		String result = "";
 		try {
-			url = new URL(GBIF_SERVICE + "/parser/name");
-			logger.debug(url.toString());
-			URLConnection connection = url.openConnection();
-			HttpURLConnection httpConnection = (HttpURLConnection)connection;
-			httpConnection.setRequestMethod("POST");
-			httpConnection.setDoOutput(true);
-			nameString = "[\"" + nameString + "\"]";
-			byte[] output = nameString.getBytes(StandardCharsets.UTF_8);
-			int length = output.length;
-			logger.debug(new String(output));
-			httpConnection.setFixedLengthStreamingMode(length);
-			httpConnection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-			httpConnection.connect();
-			OutputStream outputStream = httpConnection.getOutputStream();
-			outputStream.write(output);
-			String line;
-			BufferedReader reader = new BufferedReader(new InputStreamReader(httpConnection.getInputStream()));
-			while((line = reader.readLine()) != null) {
-				result.append(line);
-			}
+			result = HttpClients.await(runNameParserAsync(nameString));
 		} catch (IOException e) {
 			logger.error(e.getMessage(),e);
 		}
-
-		return result.toString();
+		return result;
+	}
+	
+	/**
+	 * Invoke the GBIF Name Parser service without blocking.
+	 *
+	 * @param nameString to parse
+	 * @return a future for the parsed name list as a json string
+	 */
+	public static CompletableFuture<String> runNameParserAsync(String nameString) { 
+		JSONArray names = new JSONArray();
+		names.add(nameString);
+		logger.debug(names.toJSONString());
+		return HttpClients.postAsync(GBIF_SERVICE + "/parser/name", names.toJSONString());
 	}
 	
 	/**
@@ -286,6 +298,152 @@ public class GBIFService implements Validator {
 		return response;
 	}
 	
+	/**
+	 * Obtain the local copy of the GBIF backbone, loading it on first use from the location 
+	 * given in the system property sciname.gbif.backbone, if set.
+	 * 
+	 * @return the local backbone, or null if none is configured or it could not be loaded.
+	 */
+	public static synchronized GBIFBackboneIndex getBackboneIndex() { 
+		if (!backboneConfigured) { 
+			backboneConfigured = true;
+			String location = System.getProperty(BACKBONE_PROPERTY);
+			if (location!=null && location.trim().length()>0) { 
+				try { 
+					backboneIndex = new GBIFBackboneIndex(new File(location.trim()));
+				} catch (IOException e) {
+					logger.error("Unable to load local GBIF backbone: " + e.getMessage());
+				}
+			}
+		}
+		return backboneIndex;
+	}
+	
+	/**
+	 * Use a local copy of the GBIF backbone for lookups against the backbone instead of the api.
+	 * 
+	 * @param index the local backbone to use, or null to use the api.
+	 */
+	public static synchronized void setBackboneIndex(GBIFBackboneIndex index) { 
+		backboneConfigured = true;
+		backboneIndex = index;
+		taxonAtRankCache.clear();
+	}
+	
+	/**
+	 * @return the local backbone if targetChecklist is the GBIF backbone and a local 
+	 *   backbone is available, otherwise null.
+	 */
+	private static GBIFBackboneIndex localBackbone(String targetChecklist) { 
+		if (KEY_GBIFBACKBONE.equals(targetChecklist)) { 
+			return getBackboneIndex();
+		}
+		return null;
+	}
+	
+	/**
+	 * Obtain the response to a GET request on the GBIF API, consulting the shared 
+	 * LookupCache before invoking the service, and adding the response to the cache.
+	 * Concurrent identical requests wait for the first rather than invoking the service again.
+	 * 
+	 * @param url the request to make
+	 * @param targetChecklist the dataset key of the checklist the request is limited to, may be null.
+	 * @param operation the operation on the service, including any parameters other than the name 
+	 *   that affect the response.
+	 * @param name the name or identifier being looked up.
+	 * @return the response from the service or cache.
+	 * @throws IOException on a problem invoking the service.
+	 */
+	private static String fetchCached(final URL url, String targetChecklist, String operation, String name) throws IOException { 
+		final LookupCache cache = LookupCaches.getCache();
+		String authority = GBIF_SERVICE;
+		if (targetChecklist!=null) { 
+			authority = GBIF_SERVICE + " " + targetChecklist;
+		}
+		final String key = LookupCache.key(authority, operation, name, null);
+		String result = cache.get(key);
+		final String metricsOperation = metricsOperation(operation);
+		MetricsRegistries.getRegistry().recordCacheLookup(METRICS_COMPONENT, metricsOperation, result!=null);
+		if (result==null) { 
+			result = requestsInFlight.execute(metricsOperation, key, new SingleFlight.Call<String,IOException>() {
+				@Override
+				public String call() throws IOException {
+					String response;
+					long start = MetricsRegistries.start();
+					boolean failed = true;
+					try { 
+						response = HttpClients.get(url.toString());
+						failed = false;
+					} finally { 
+						MetricsRegistries.stop(METRICS_COMPONENT, metricsOperation, start, failed);
+					}
+					cache.put(key, response);
+					return response;
+				}
+			});
+		} else { 
+			logger.debug("Cache hit " + url.toString());
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the operation on the service without its parameters, under which calls 
+	 *   are recorded in the shared MetricsRegistry.
+	 */
+	private static String metricsOperation(String operation) { 
+		int query = operation.indexOf('?');
+		if (query > -1) { 
+			return operation.substring(0, query);
+		}
+		return operation;
+	}
+	
+	/**
+	 * Obtain the response to a GET request on the GBIF API without blocking, consulting the 
+	 * shared LookupCache before invoking the service, and adding the response to the cache.
+	 * Concurrent identical requests share the first rather than invoking the service again.
+	 * 
+	 * @param url the request to make
+	 * @param targetChecklist the dataset key of the checklist the request is limited to, may be null.
+	 * @param operation the operation on the service, as for fetchCached.
+	 * @param name the name or identifier being looked up.
+	 * @return a future for the response from the service or cache.
+	 */
+	private static CompletableFuture<String> fetchCachedAsync(final String url, String targetChecklist, String operation, String name) { 
+		final LookupCache cache = LookupCaches.getCache();
+		String authority = GBIF_SERVICE;
+		if (targetChecklist!=null) { 
+			authority = GBIF_SERVICE + " " + targetChecklist;
+		}
+		final String key = LookupCache.key(authority, operation, name, null);
+		String cached = cache.get(key);
+		final String metricsOperation = metricsOperation(operation);
+		MetricsRegistries.getRegistry().recordCacheLookup(METRICS_COMPONENT, metricsOperation, cached!=null);
+		if (cached!=null) { 
+			logger.debug("Cache hit " + url);
+			return CompletableFuture.completedFuture(cached);
+		}
+		return requestsInFlight.executeAsync(metricsOperation, key, new Supplier<CompletableFuture<String>>() {
+			@Override
+			public CompletableFuture<String> get() {
+				final long start = MetricsRegistries.start();
+				return HttpClients.getAsync(url).whenComplete(new BiConsumer<String,Throwable>() {
+					@Override
+					public void accept(String response, Throwable failure) {
+						MetricsRegistries.stop(METRICS_COMPONENT, metricsOperation, start, failure!=null);
+					}
+				}).thenApply(new Function<String,String>() {
+					@Override
+					public String apply(String response) {
+						cache.put(key, response);
+						return response;
+					}
+				});
+			}
+		});
+	}
+	
 	/**
 	 * <p>fetchTaxon.</p>
 	 *
@@ -299,16 +457,15 @@ public class GBIFService implements Validator {
 		if (targetChecklist!=null) { 
 			datasetKey = "datasetKey=" + targetChecklist;
 		}
+		GBIFBackboneIndex backbone = localBackbone(targetChecklist);
+		if (backbone!=null) { 
+			return GBIFBackboneIndex.toSearchResponse(backbone.findByName(taxon, 100), 100);
+		}
 		URL url;
 		try {
 			//url = new URL(GBIF_SERVICE + "/name_usage/" + taxon + "?limit=100&" + datasetKey);
 			url = new URL(GBIF_SERVICE + "/species/?name=" + taxon + "?limit=100&" + datasetKey);
-			URLConnection connection = url.openConnection();
-			String line;
-			BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-			while((line = reader.readLine()) != null) {
-				result.append(line);
-			}
+			result.append(fetchCached(url, targetChecklist, "species?name?limit=100", taxon));
 		} catch (IOException e) {
 			logger.error(e.getMessage());
 		}
@@ -336,14 +493,14 @@ public class GBIFService implements Validator {
 			if (!taxonID.matches("^[0-9]+$")) { 
 				throw new IDFormatException("provided taxonID is not an integer");
 			}
+			GBIFBackboneIndex backbone = localBackbone(targetChecklist);
+			if (backbone!=null) { 
+				JSONObject record = backbone.getByKey(Integer.parseInt(taxonID));
+				return record==null ? "" : record.toJSONString();
+			}
 			try {
 				url = new URL(GBIF_SERVICE + "/species/" + taxonID + datasetKey);
-				URLConnection connection = url.openConnection();
-				String line;
-				BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-				while((line = reader.readLine()) != null) {
-					result.append(line);
-				}
+				result.append(fetchCached(url, targetChecklist, "species/{id}", taxonID));
 			} catch (IOException e) {
 				logger.error(e.getMessage());
 			}
@@ -367,17 +524,16 @@ public class GBIFService implements Validator {
 		if (targetChecklist!=null) { 
 			datasetKey = "datasetKey=" + targetChecklist;
 		}
+		GBIFBackboneIndex backbone = localBackbone(targetChecklist);
+		if (backbone!=null) { 
+			return GBIFBackboneIndex.toSearchResponse(backbone.findByName(name, 100), 100);
+		}
 		URL url;
 		
 			//url = new URL(GBIF_SERVICE + "/name_usage/search?q=" + name + "&limit=100&" + datasetKey);
 			url = new URL(GBIF_SERVICE + "/species/?name=" + URLEncoder.encode(name,"UTF-8") + "&limit=100&" + datasetKey);
-			URLConnection connection = url.openConnection();
 			logger.debug(url.toString());
-			String line;
-			BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-			while((line = reader.readLine()) != null) {
-				result.append(line);
-			}
+			result.append(fetchCached(url, targetChecklist, "species?name&limit=100", name));
 			// TODO: Keep iterating past 100 matches.
 
 		return result.toString();
@@ -397,17 +553,16 @@ public class GBIFService implements Validator {
 		if (targetChecklist!=null) { 
 			datasetKey = "datasetKey=" + targetChecklist;
 		}
+		GBIFBackboneIndex backbone = localBackbone(targetChecklist);
+		if (backbone!=null) { 
+			return GBIFBackboneIndex.toSearchResponse(backbone.findByNameAtRank(name, "SPECIES"), 100);
+		}
 		URL url;
 			//url = new URL(GBIF_SERVICE + "/name_usage/search?q=" + URLEncoder.encode(name,"UTF-8") + "&rank=SPECIES&limit=100&" + datasetKey);
 			url = new URL(GBIF_SERVICE + "/species/search?q=" + URLEncoder.encode(name,"UTF-8") + "&rank=SPECIES&limit=100&" + datasetKey);
 			logger.debug(url.toString());
-			URLConnection connection = url.openConnection();
-			String line;
-			BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-			while((line = reader.readLine()) != null) {
-				result.append(line);
-				logger.debug(line);
-			}
+			result.append(fetchCached(url, targetChecklist, "species/search?q&rank=SPECIES&limit=100", name));
+			logger.debug(result.toString());
 		return result.toString();
 	}	
 	
@@ -426,16 +581,19 @@ public class GBIFService implements Validator {
 		if (targetChecklist!=null) { 
 			datasetKey = "datasetKey=" + targetChecklist;
 		}
+		GBIFBackboneIndex backbone = localBackbone(targetChecklist);
+		if (backbone!=null) { 
+			List<JSONObject> genera = backbone.findByNameAtRank(name, "GENUS");
+			if (genera.size() > limit) { 
+				genera = genera.subList(0, limit);
+			}
+			return GBIFBackboneIndex.toSearchResponse(genera, limit);
+		}
 		URL url;
 			url = new URL(GBIF_SERVICE + "/species/search?q=" + URLEncoder.encode(name,"UTF-8") + "&rank=GENUS&strict=true&limit=" + Integer.toString(limit) + "&" + datasetKey);
 			logger.debug(url.toString());
-			URLConnection connection = url.openConnection();
-			String line;
-			BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-			while((line = reader.readLine()) != null) {
-				result.append(line);
-				logger.debug(line);
-			}
+			result.append(fetchCached(url, targetChecklist, "species/search?q&rank=GENUS&strict=true&limit=" + Integer.toString(limit), name));
+			logger.debug(result.toString());
 		return result.toString();
 	}	
 	
@@ -450,15 +608,19 @@ public class GBIFService implements Validator {
 		NameUsage result = new NameUsage();
 		StringBuilder gbifLookup = new StringBuilder();
 		
-		URL url = new URL(GBIF_SERVICE + "/species/" + URLEncoder.encode(id,"UTF-8"));
-		logger.debug(url.toString());
-		URLConnection connection = url.openConnection();
-		String line;
-		BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-		while((line = reader.readLine()) != null) {
-			gbifLookup.append(line);
-			logger.debug(line);
+		GBIFBackboneIndex backbone = getBackboneIndex();
+		JSONObject record = null;
+		if (backbone!=null && id!=null && id.trim().matches("^[0-9]+$")) { 
+			record = backbone.getByKey(Integer.parseInt(id.trim()));
+		}
+		if (record!=null) { 
+			gbifLookup.append(record.toJSONString());
+		} else { 
+			URL url = new URL(GBIF_SERVICE + "/species/" + URLEncoder.encode(id,"UTF-8"));
+			logger.debug(url.toString());
+			gbifLookup.append(fetchCached(url, null, "species/{id}", id));
 		}
+		logger.debug(gbifLookup.toString());
 		
 		List<NameUsage> resultList = GBIFService.parseAllNameUsagesFromJSON(gbifLookup.toString());
 		if (resultList.size()==1) { 
@@ -499,24 +661,17 @@ public class GBIFService implements Validator {
 			if (targetChecklist!=null) { 
 				datasetKey = "datasetKey=" + targetChecklist;
 			}
-			URL url;
-			url = new URL(GBIF_SERVICE + "/species/?name=" + URLEncoder.encode(name,"UTF-8") + "&limit=" + Integer.toString(limit) + "&" + datasetKey);
-			logger.debug(url.toString());
-			URLConnection connection = url.openConnection();
-			String line;
-			BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-			while((line = reader.readLine()) != null) {
-				result.append(line);
-				logger.debug(line);
+			GBIFBackboneIndex backbone = localBackbone(targetChecklist);
+			if (backbone!=null) { 
+				result.append(GBIFBackboneIndex.toSearchResponse(backbone.findByName(name, limit), limit));
+			} else { 
+				URL url;
+				url = new URL(GBIF_SERVICE + "/species/?name=" + URLEncoder.encode(name,"UTF-8") + "&limit=" + Integer.toString(limit) + "&" + datasetKey);
+				logger.debug(url.toString());
+				result.append(fetchCached(url, targetChecklist, "species?name&limit=" + Integer.toString(limit), name));
 			}
-			List<NameUsage> resultList = GBIFService.parseAllNameUsagesFromJSON(result.toString());
-			Iterator<NameUsage> i = resultList.iterator();
-			while (i.hasNext()) {
-				NameUsage usage = i.next();
-				if (usage.getRank().equalsIgnoreCase("GENUS") && usage.getCanonicalName().equalsIgnoreCase(name)) { 
-					returnvalue.add(usage);
-				}
-			}	
+			logger.debug(result.toString());
+			returnvalue = filterAtRank(result.toString(), name, "GENUS");
 		}
 		return returnvalue;
 	}	
@@ -524,6 +679,9 @@ public class GBIFService implements Validator {
 	/**
 	 * Lookup records of a name at a particular rank in a particular GBIF name list.
 	 *
+	 * Results are held in an in memory cache, see getTaxonAtRankCache(), concurrent 
+	 * lookups of the same name wait for the first rather than repeating it.
+	 *
 	 * @param name the name to search for
 	 * @param targetChecklist the checklist in which to look for the name
 	 * @param rank that matching records must possess
@@ -531,36 +689,123 @@ public class GBIFService implements Validator {
 	 * @return a list of matching NameUsages
 	 * @throws java.io.IOException in case of problems forming or making the request to GBIF
 	 */
-	public static List<NameUsage> lookupTaxonAtRank(String name, String targetChecklist, String rank, int limit) throws IOException { 
+	public static List<NameUsage> lookupTaxonAtRank(final String name, final String targetChecklist, final String rank, final int limit) throws IOException { 
+		final String key = targetChecklist + LookupCache.KEY_SEPARATOR + rank + LookupCache.KEY_SEPARATOR + limit + LookupCache.KEY_SEPARATOR + name;
+		List<NameUsage> cached = taxonAtRankCache.get(key);
+		if (cached==null) { 
+			cached = taxonAtRankInFlight.execute("lookupTaxonAtRank", key, new SingleFlight.Call<List<NameUsage>,IOException>() {
+				@Override
+				public List<NameUsage> call() throws IOException {
+					List<NameUsage> found = lookupTaxonAtRankUncached(name, targetChecklist, rank, limit);
+					taxonAtRankCache.put(key, found);
+					return found;
+				}
+			});
+		}
+		return new ArrayList<NameUsage>(cached);
+	}
+	
+	/**
+	 * Lookup records of a name at a particular rank in a particular GBIF name list without 
+	 * blocking, so that lookups of several names, for example each of the higher taxa of one 
+	 * record, can be made concurrently.  Shares its cache with lookupTaxonAtRank.
+	 *
+	 * @param name the name to search for
+	 * @param targetChecklist the checklist in which to look for the name
+	 * @param rank that matching records must possess
+	 * @param limit limit of the number of records to check
+	 * @return a future for the list of matching NameUsages, completed exceptionally with an 
+	 *   IOException on a problem making the request to GBIF
+	 */
+	public static CompletableFuture<List<NameUsage>> lookupTaxonAtRankAsync(final String name, String targetChecklist, final String rank, int limit) { 
+		final String key = targetChecklist + LookupCache.KEY_SEPARATOR + rank + LookupCache.KEY_SEPARATOR + limit + LookupCache.KEY_SEPARATOR + name;
+		List<NameUsage> cached = taxonAtRankCache.get(key);
+		if (cached!=null) { 
+			return CompletableFuture.completedFuture((List<NameUsage>)new ArrayList<NameUsage>(cached));
+		}
+		CompletableFuture<List<NameUsage>> result = new CompletableFuture<List<NameUsage>>();
+		if (SciNameUtils.isEmpty(name) || localBackbone(targetChecklist)!=null) { 
+			// nothing to wait for, look up synchronously
+			try { 
+				result.complete(lookupTaxonAtRank(name, targetChecklist, rank, limit));
+			} catch (IOException e) {
+				result.completeExceptionally(e);
+			}
+			return result;
+		}
+		try { 
+			String url = speciesByNameUrl(name, targetChecklist, limit);
+			result = fetchCachedAsync(url, targetChecklist, "species?name&limit=" + Integer.toString(limit), name)
+					.thenApply(new Function<String,List<NameUsage>>() {
+						@Override
+						public List<NameUsage> apply(String json) {
+							List<NameUsage> found = filterAtRank(json, name, rank);
+							taxonAtRankCache.put(key, found);
+							return new ArrayList<NameUsage>(found);
+						}
+					});
+		} catch (UnsupportedEncodingException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+	
+	/**
+	 * Obtain the statistics and contents of the cache of lookups of taxa at ranks.
+	 * 
+	 * @return the cache used by lookupTaxonAtRank.
+	 */
+	public static LruCache<String,List<NameUsage>> getTaxonAtRankCache() { 
+		return taxonAtRankCache;
+	}
+	
+	/**
+	 * Lookup a taxon at a rank without consulting the cache.
+	 */
+	private static List<NameUsage> lookupTaxonAtRankUncached(String name, String targetChecklist, String rank, int limit) throws IOException { 
 		List<NameUsage> returnvalue = new ArrayList<NameUsage>();
 		if (!SciNameUtils.isEmpty(name)) { 
 			StringBuilder result = new StringBuilder();
-			String datasetKey = "";
-			if (targetChecklist!=null) { 
-				datasetKey = "datasetKey=" + targetChecklist;
-			}
-			URL url;
-			url = new URL(GBIF_SERVICE + "/species/?name=" + URLEncoder.encode(name,"UTF-8") + "&limit=" + Integer.toString(limit) + "&" + datasetKey);
-			logger.debug(url.toString());
-			URLConnection connection = url.openConnection();
-			String line;
-			BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-			while((line = reader.readLine()) != null) {
-				result.append(line);
-				logger.debug(line);
+			GBIFBackboneIndex backbone = localBackbone(targetChecklist);
+			if (backbone!=null) { 
+				result.append(GBIFBackboneIndex.toSearchResponse(backbone.findByName(name, limit), limit));
+			} else { 
+				URL url = new URL(speciesByNameUrl(name, targetChecklist, limit));
+				logger.debug(url.toString());
+				result.append(fetchCached(url, targetChecklist, "species?name&limit=" + Integer.toString(limit), name));
 			}
-			List<NameUsage> resultList = GBIFService.parseAllNameUsagesFromJSON(result.toString());
-			Iterator<NameUsage> i = resultList.iterator();
-			while (i.hasNext()) {
-				NameUsage usage = i.next();
-				if (usage.getRank().equalsIgnoreCase(rank) && usage.getCanonicalName().equalsIgnoreCase(name)) { 
-					returnvalue.add(usage);
-				}
-			}	
+			logger.debug(result.toString());
+			returnvalue = filterAtRank(result.toString(), name, rank);
 		}
 		return returnvalue;
 	}	
 	
+	/**
+	 * Build the url for a search of the species api by name.
+	 */
+	private static String speciesByNameUrl(String name, String targetChecklist, int limit) throws UnsupportedEncodingException { 
+		String datasetKey = "";
+		if (targetChecklist!=null) { 
+			datasetKey = "datasetKey=" + targetChecklist;
+		}
+		return GBIF_SERVICE + "/species/?name=" + URLEncoder.encode(name,"UTF-8") + "&limit=" + Integer.toString(limit) + "&" + datasetKey;
+	}
+	
+	/**
+	 * Select the name usages in a species api response with the given canonical name at the given rank.
+	 */
+	private static List<NameUsage> filterAtRank(String json, String name, String rank) { 
+		List<NameUsage> returnvalue = new ArrayList<NameUsage>();
+		try { 
+			returnvalue = GBIFNameUsageReader.readAtRank(new StringReader(json), name, rank);
+		} catch (IOException e) {
+			logger.error(e.getMessage());
+		} catch (IllegalStateException e) {
+			logger.error(e.getMessage());
+		}
+		return returnvalue;
+	}
+	
 	/**
 	 * <p>fetchSynonyms.</p>
 	 *
@@ -574,16 +819,15 @@ public class GBIFService implements Validator {
 		if (targetChecklist!=null) { 
 			datasetKey = "datasetKey=" + targetChecklist;
 		}
+		GBIFBackboneIndex backbone = localBackbone(targetChecklist);
+		if (backbone!=null) { 
+			return GBIFBackboneIndex.toSearchResponse(backbone.findSynonyms(taxonId, 1000), 1000);
+		}
 		URL url;
 		try {
 			//url = new URL(GBIF_SERVICE + "/name_usage/" + taxonId + "/synonyms?limit=1000&" + datasetKey);
 			url = new URL(GBIF_SERVICE + "/species/" + taxonId + "/synonyms?limit=1000&" + datasetKey);
-			URLConnection connection = url.openConnection();
-			String line;
-			BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-			while((line = reader.readLine()) != null) {
-				result.append(line);
-			}
+			result.append(fetchCached(url, targetChecklist, "species/{id}/synonyms?limit=1000", Integer.toString(taxonId)));
 		} catch (IOException e) {
 			logger.error(e.getMessage());
 		}
@@ -599,52 +843,36 @@ public class GBIFService implements Validator {
 	 * @return a {@link java.util.List} object.
 	 */
 	public static List<NameUsage> parseAllNameUsagesFromJSON(String json) {
-		boolean gotAll = true;
-		ArrayList<NameUsage> result = new ArrayList<NameUsage>(); 
-        JSONParser parser=new JSONParser();
-
-        try {
-        	JSONArray array = new JSONArray();
-        	JSONObject o = null;
-        	try {
-        		o = (JSONObject)parser.parse(json);
-        		array = (JSONArray)o.get("results");
-        		//System.out.println(o.get("offset"));
-        		//System.out.println(o.get("limit"));
-        		//System.out.println(o.get("endOfRecords"));
-        		//System.out.println(o.get("count"));
-        		if (o.get("endOfRecords")!=null && o.get("endOfRecords").equals("false")) { 
-        			gotAll = false;
-        		}
-        	} catch (ClassCastException e) { 
-        		logger.debug(e.getMessage(), e);
-        		array = (JSONArray)parser.parse(json);
-        	}
-
-        	if (array ==null && o!=null) { 
-        		NameUsage name = new NameUsage(o);
-        		result.add(name);
-        	} else { 
-        		Iterator i = array.iterator();
-        		while (i.hasNext()) { 
-        			JSONObject obj = (JSONObject)i.next();
-        			NameUsage name = new NameUsage(obj);
-        			result.add(name);
-        		}
-        	}
- 
-		} catch (ParseException e) {
+		List<NameUsage> result = new ArrayList<NameUsage>(); 
+		try { 
+			result = GBIFNameUsageReader.readAll(new StringReader(json));
+		} catch (IOException e) {
+			logger.error(e.getMessage());
+		} catch (IllegalStateException e) {
 			logger.error(e.getMessage());
 		}
-		// TODO: Report not getting all records.
-		if (!gotAll) { 
-			logger.error("Incomplete Harvest");
-			System.out.println("Incomplete Harvest");
-		}
-		
 		return result;
 	}	
 	
+	/**
+	 * Parse the name usages in a response from the species api, noting whether the 
+	 * response held all of the records found.
+	 *
+	 * @param json a response from the species api.
+	 * @return the name usages, empty if none or the response could not be parsed, 
+	 *   and whether they are all of the records found.
+	 */
+	public static GBIFNameUsageReader.Page parseNameUsagePageFromJSON(String json) {
+		try { 
+			return GBIFNameUsageReader.readPage(new StringReader(json));
+		} catch (IOException e) {
+			logger.error(e.getMessage());
+		} catch (IllegalStateException e) {
+			logger.error(e.getMessage());
+		}
+		return new GBIFNameUsageReader.Page(new ArrayList<NameUsage>(), true);
+	}
+	
 	/**
 	 * <p>parseNameUsageFromJSON.</p>
 	 *
@@ -653,34 +881,12 @@ public class GBIFService implements Validator {
 	 * @return a {@link edu.harvard.mcz.nametools.NameUsage} object.
 	 */
 	public static NameUsage parseNameUsageFromJSON(String targetName, String json) { 
-        JSONParser parser=new JSONParser();
-
-        try {
-        	JSONArray array = new JSONArray();
-        	try {
-        	    JSONObject o = (JSONObject)parser.parse(json);
-        	    if (o.get("results")!=null) {  
-			        array = (JSONArray)o.get("results");
-        	    } else { 
-        	    	// array = (JSONArray)parser.parse(json);
-        	    }
-        	} catch (ClassCastException e) { 
-        		logger.debug(e.getMessage(),e);
-    			array = (JSONArray)parser.parse(json);
-        	}
-    			 
-			Iterator<JSONObject> i = array.iterator();
-			while (i.hasNext()) { 
-				JSONObject obj = i.next();
-				// System.out.println(obj.toJSONString());
-				NameUsage name = new NameUsage(obj);
-				if (name.getCanonicalName().equals(targetName)) { 
-					return name;
-				}
-			}
- 
-		} catch (ParseException e) {
-        	logger.debug(e.getMessage(),e);
+		try { 
+			return GBIFNameUsageReader.readFirstNamed(new StringReader(json), targetName);
+		} catch (IOException e) {
+			logger.debug(e.getMessage(),e);
+		} catch (IllegalStateException e) {
+			logger.debug(e.getMessage(),e);
 		}
 		return null;
 	}
@@ -691,10 +897,42 @@ public class GBIFService implements Validator {
 	 *
 	 * @param toCheck a {@link edu.harvard.mcz.nametools.NameUsage} object.
 	 * @return a boolean.
+	 * @deprecated use nameSearch, which returns the match, this keeps the match for
+	 *   getValidatedNameUsage and the comments for getComments on the calling thread,
+	 *   replacing those of any earlier search on that thread.
 	 */
-	@SuppressWarnings("static-access")
+	@Deprecated
 	public boolean nameSearchAgainstServices(NameUsage toCheck) {
+		StringBuffer comments = lastComments.get();
+		comments.setLength(0);
+		NameUsage match = nameSearch(toCheck, comments);
+		lastValidatedNameUsage.set(match);
+		return match!=null;
+	}
+
+	/**
+	 * Search the target dataset for a name, keeping all state of the search local to the
+	 * call, so that one instance can be used from several threads.
+	 *
+	 * @param toCheck a {@link edu.harvard.mcz.nametools.NameUsage} object.
+	 * @return the matching name usage, or null if no match was found.
+	 */
+	public NameUsage nameSearch(NameUsage toCheck) {
+		return nameSearch(toCheck, null);
+	}
+
+	/**
+	 * Search the target dataset for a name, keeping all state of the search local to the
+	 * call, so that one instance can be used from several threads.
+	 *
+	 * @param toCheck a {@link edu.harvard.mcz.nametools.NameUsage} object.
+	 * @param comments to which to append comments on how the match was found, separated
+	 *   by |, or null if the comments are not wanted.
+	 * @return the matching name usage, or null if no match was found.
+	 */
+	public NameUsage nameSearch(NameUsage toCheck, StringBuffer comments) {
 		boolean result = false;
+		NameUsage validatedNameUsage = null;
 		ScientificNameComparator nameComparator = new ScientificNameComparator();
 		if (toCheck!=null) {
 			// TODO: Handle autonyms of botanical names (should not have an authorship).
@@ -706,7 +944,11 @@ public class GBIFService implements Validator {
 			String authorship = toCheck.getOriginalAuthorship();
 			List<NameUsage> hits;
 			try {
-				hits = GBIFService.parseAllNameUsagesFromJSON(GBIFService.searchForTaxon(taxonName, targetKey));
+				GBIFNameUsageReader.Page page = GBIFService.parseNameUsagePageFromJSON(GBIFService.searchForTaxon(taxonName, targetKey));
+				hits = page.getUsages();
+				if (!page.isEndOfRecords()) { 
+					addToComment(comments, "More names matching " + taxonName + " found in " + targetDataSetName + " than were returned, only the first " + hits.size() + " were compared.");
+				}
 				if (hits==null || hits.size()==0) { 
 					// no matches
 					result = false;
@@ -722,7 +964,7 @@ public class GBIFService implements Validator {
 						potentialMatch.setMatchDescription(NameComparison.MATCH_EXACT);
 						validatedNameUsage = potentialMatch;
 						validatedNameUsage.setAuthorshipStringEditDistance(1d);
-						addToComment("Exact match found in found in " + targetDataSetName + ".");
+						addToComment(comments, "Exact match found in found in " + targetDataSetName + ".");
 					} else { 
 						NameComparison authorComparison = authorNameComparator.compare(authorship, potentialMatch.getAuthorship());
 						double similarity = authorComparison.getSimilarity();
@@ -736,7 +978,7 @@ public class GBIFService implements Validator {
 						NameComparison nameComparison = nameComparator.compareWithoutAuthor(taxonName, potentialMatch.getCanonicalName());
 						validatedNameUsage.setNameMatchDescription(nameComparison.getMatchType());
 						validatedNameUsage.setScientificNameStringEditDistance(nameComparison.getSimilarity());
-						addToComment("Potential match found in found in " + targetDataSetName + ". " + validatedNameUsage.getMatchDescription());
+						addToComment(comments, "Potential match found in found in " + targetDataSetName + ". " + validatedNameUsage.getMatchDescription());
 					}
 					validatedNameUsage.setInputDbPK(toCheck.getInputDbPK());
 					validatedNameUsage.setScientificNameStringEditDistance(1d);
@@ -773,7 +1015,7 @@ public class GBIFService implements Validator {
 								validatedNameUsage.setOriginalAuthorship(toCheck.getOriginalAuthorship());
 								validatedNameUsage.setOriginalScientificName(toCheck.getCanonicalName());
 								validatedNameUsage.setScientificNameStringEditDistance(1d);
-								addToComment("Exact match found in multiple results found in " + targetDataSetName + ".  There may be homonyms. " + validatedNameUsage.getScientificName() + " " + validatedNameUsage.getAuthorship() + " " + validatedNameUsage.getMatchDescription());
+								addToComment(comments, "Exact match found in multiple results found in " + targetDataSetName + ".  There may be homonyms. " + validatedNameUsage.getScientificName() + " " + validatedNameUsage.getAuthorship() + " " + validatedNameUsage.getMatchDescription());
 								exactMatch = true;
 								result = true;
 							}
@@ -783,11 +1025,11 @@ public class GBIFService implements Validator {
 						if (matches.size()>1 && toCheck.getOriginalAuthorship().trim().length()==0) { 
 							// There are multiple matches in GBIF, and we don't have an authorship string to 
 							// disambiguate amongst them.
-							addToComment("Multiple results found in " + targetDataSetName + ".  A homonym or hemihomonym could exist, and authorship was not provided.");
+							addToComment(comments, "Multiple results found in " + targetDataSetName + ".  A homonym or hemihomonym could exist, and authorship was not provided.");
 							Iterator<NameUsage> im = matches.iterator();
 							while (im.hasNext()) {
 								NameUsage current = im.next();
-								addToComment(current.getScientificName() + " " + current.getAuthorship());
+								addToComment(comments, current.getScientificName() + " " + current.getAuthorship());
 							}
 							result = false;
 						} else { 
@@ -802,7 +1044,7 @@ public class GBIFService implements Validator {
 									NameComparison nameComparison = nameComparator.compareWithoutAuthor(taxonName, current.getCanonicalName());
 									if (NameComparison.isPlausible(nameComparison.getMatchType()))  {
 										names.append("; ").append(current.getScientificName()).append(" ").append(current.getAuthorship()).append(" ").append(current.getUnacceptReason()).append(" ").append(current.getTaxonomicStatus());
-										if (toCheck.getAuthorComparator().calulateSimilarityOfAuthor(closest.getAuthorship(), authorship) < toCheck.getAuthorComparator().calulateSimilarityOfAuthor(current.getAuthorship(), authorship)) { 
+										if (closest == null || AuthorNameComparator.calulateSimilarityOfAuthor(closest.getAuthorship(), authorship) < AuthorNameComparator.calulateSimilarityOfAuthor(current.getAuthorship(), authorship)) { 
 											closest = current;
 										}
 									}
@@ -814,8 +1056,8 @@ public class GBIFService implements Validator {
 									validatedNameUsage.setOriginalAuthorship(toCheck.getOriginalAuthorship());
 									validatedNameUsage.setOriginalScientificName(toCheck.getCanonicalName());
 									validatedNameUsage.setScientificNameStringEditDistance(1d);
-									validatedNameUsage.setAuthorshipStringEditDistance(toCheck.getAuthorComparator().calulateSimilarityOfAuthor(toCheck.getAuthorship(), validatedNameUsage.getAuthorship()));
-									addToComment("Plausible match in multiple results found in " + targetDataSetName + ".  The result could incorrectly be a homonym of the desired name. " + validatedNameUsage.getScientificName() + " " + validatedNameUsage.getAuthorship() + " " + validatedNameUsage.getMatchDescription());
+									validatedNameUsage.setAuthorshipStringEditDistance(AuthorNameComparator.calulateSimilarityOfAuthor(toCheck.getAuthorship(), validatedNameUsage.getAuthorship()));
+									addToComment(comments, "Plausible match in multiple results found in " + targetDataSetName + ".  The result could incorrectly be a homonym of the desired name. " + validatedNameUsage.getScientificName() + " " + validatedNameUsage.getAuthorship() + " " + validatedNameUsage.getMatchDescription());
 									result = true;
 								}
 							}
@@ -835,39 +1077,65 @@ public class GBIFService implements Validator {
 			validatedNameUsage.setGuid("http://api.gbif.org/v1/species/" + Integer.toString(validatedNameUsage.getKey()));
 		}
 		if (!result) { 
-			addToComment("No match found in " + targetDataSetName + ".");
+			addToComment(comments, "No match found in " + targetDataSetName + ".");
+			return null;
 		}
-		return result;
+		return validatedNameUsage;
 	}
 	
-	private StringBuffer comments;
-
 	/**
 	 * <p>addToComment.</p>
 	 *
+	 * @param comments the comments on the search so far, or null if they are not wanted.
 	 * @param comment a {@link java.lang.String} object.
 	 */
-	public void addToComment(String comment) {
+	private static void addToComment(StringBuffer comments, String comment) {
 		logger.debug(comment);
 		if (comments==null) { 
-			comments = new StringBuffer();
+			return;
+		}
+		if (comments.length()==0) { 
 			comments.append(comment);
 		} else { 
 			comments.append("|").append(comment);
 		}
 	}
+
+	/**
+	 * <p>addToComment.</p>
+	 *
+	 * @param comment a {@link java.lang.String} object.
+	 * @deprecated pass a buffer for the comments to nameSearch, this appends to the 
+	 *   comments kept for getComments on the calling thread.
+	 */
+	@Deprecated
+	public void addToComment(String comment) {
+		addToComment(lastComments.get(), comment);
+	}
+
+	/**
+	 * <p>Obtain the comments on the last call to nameSearchAgainstServices, and any added since.</p>
+	 *
+	 * @return the comments on the calling thread, separated by |.
+	 * @deprecated pass a buffer for the comments to nameSearch.
+	 */
+	@Deprecated
+	public String getComments() { 
+		return lastComments.get().toString();
+	}
 	
 	/**
-	 * <p>Getter for the field <code>validatedNameUsage</code>.</p>
+	 * <p>Obtain the match found by the last call to nameSearchAgainstServices.</p>
 	 *
-	 * @return a {@link edu.harvard.mcz.nametools.NameUsage} object.
+	 * @return the match found by the last call to nameSearchAgainstServices on the calling thread.
+	 * @deprecated use the result of nameSearch.
 	 */
+	@Deprecated
 	public NameUsage getValidatedNameUsage() { 
-		return validatedNameUsage;
+		return lastValidatedNameUsage.get();
 	}
 
 	/** {@inheritDoc} */
-	@SuppressWarnings("static-access")
 	@Override
 	public NameUsage validate(NameUsage taxonNameToValidate) throws ServiceException {
 		NameUsage result = null;
@@ -885,6 +1153,7 @@ public class GBIFService implements Validator {
 				if (hits==null || hits.size()==0) { 
 					// no matches
 					logger.debug("No Matches");
+					result = matchApproximately(taxonNameToValidate, taxonName, nameComparator);
 				} else if (hits.size()==1) { 
 					Iterator<NameUsage> i = hits.iterator();
 					// One possible match
@@ -961,7 +1230,7 @@ public class GBIFService implements Validator {
 									nameComparison = nameComparator.compareWithoutAuthor(taxonName, current.getCanonicalName());
 									if (nameComparison.getMatchType().equals(NameComparison.MATCH_EXACT) || NameComparison.isPlausible(nameComparison.getMatchType())) { 
 										names.append("; ").append(current.getScientificName()).append(" ").append(current.getAuthorship()).append(" ").append(current.getUnacceptReason()).append(" ").append(current.getTaxonomicStatus());
-										if (closest == null || taxonNameToValidate.getAuthorComparator().calulateSimilarityOfAuthor(closest.getAuthorship(), authorship) < taxonNameToValidate.getAuthorComparator().calulateSimilarityOfAuthor(current.getAuthorship(), authorship)) { 
+										if (closest == null || AuthorNameComparator.calulateSimilarityOfAuthor(closest.getAuthorship(), authorship) < AuthorNameComparator.calulateSimilarityOfAuthor(current.getAuthorship(), authorship)) { 
 											closest = current;
 										}
 									}
@@ -970,7 +1239,7 @@ public class GBIFService implements Validator {
 									logger.debug(nameComparison.getMatchType());
 									if (NameComparison.isPlausible(nameComparison.getMatchType())) { 
 										names.append("; ").append(current.getScientificName()).append(" ").append(current.getAuthorship()).append(" ").append(current.getUnacceptReason()).append(" ").append(current.getTaxonomicStatus());
-										if (closest == null || taxonNameToValidate.getAuthorComparator().calulateSimilarityOfAuthor(closest.getAuthorship(), authorship) < taxonNameToValidate.getAuthorComparator().calulateSimilarityOfAuthor(current.getAuthorship(), authorship)) { 
+										if (closest == null || AuthorNameComparator.calulateSimilarityOfAuthor(closest.getAuthorship(), authorship) < AuthorNameComparator.calulateSimilarityOfAuthor(current.getAuthorship(), authorship)) { 
 											closest = current;
 										}
 									}
@@ -983,7 +1252,7 @@ public class GBIFService implements Validator {
 								result.setOriginalAuthorship(taxonNameToValidate.getAuthorship());
 								result.setOriginalScientificName(taxonNameToValidate.getCanonicalName());
 								result.setScientificNameStringEditDistance(1d);
-								result.setAuthorshipStringEditDistance(taxonNameToValidate.getAuthorComparator().calulateSimilarityOfAuthor(taxonNameToValidate.getAuthorship(), result.getAuthorship()));
+								result.setAuthorshipStringEditDistance(AuthorNameComparator.calulateSimilarityOfAuthor(taxonNameToValidate.getAuthorship(), result.getAuthorship()));
 								if (SciNameUtils.isEmpty(authorship)) { 
 									result.setNameMatchDescription(NameComparison.MATCH_EXACT);
 								}
@@ -1007,6 +1276,75 @@ public class GBIFService implements Validator {
 
 	}
 
+	/**
+	 * Find the probable correct spelling of a name not found in the target checklist, from 
+	 * the names in a local copy of the backbone within APPROXIMATE_MATCH_DISTANCE edits of 
+	 * the name, without a request to the api for each misspelled name.
+	 * 
+	 * @param taxonNameToValidate the name being validated.
+	 * @param taxonName the canonical name being validated.
+	 * @param nameComparator to rank the candidate names.
+	 * @return the record with the single plausible matching name, the one with the closest 
+	 *   authorship where several records have that name, or null if there is no local backbone 
+	 *   for the target checklist or there is not exactly one plausible matching name.
+	 */
+	private NameUsage matchApproximately(NameUsage taxonNameToValidate, String taxonName, ScientificNameComparator nameComparator) { 
+		NameUsage result = null;
+		GBIFBackboneIndex backbone = localBackbone(targetKey);
+		if (backbone==null) { 
+			return null;
+		}
+		List<NameUsage> candidates = parseAllNameUsagesFromJSON(GBIFBackboneIndex.toSearchResponse(backbone.findByApproximateName(taxonName, APPROXIMATE_MATCH_DISTANCE, 100), 100));
+		List<String> candidateNames = new ArrayList<String>();
+		Iterator<NameUsage> i = candidates.iterator();
+		while (i.hasNext()) { 
+			String candidateName = i.next().getCanonicalName();
+			if (!candidateNames.contains(candidateName)) { 
+				candidateNames.add(candidateName);
+			}
+		}
+		NameComparison plausible = null;
+		int plausibleCount = 0;
+		Iterator<NameComparison> ic = nameComparator.rankCandidates(taxonName, candidateNames).iterator();
+		while (ic.hasNext()) { 
+			NameComparison comparison = ic.next();
+			if (NameComparison.isPlausible(comparison.getMatchType())) { 
+				if (plausible==null) { 
+					plausible = comparison;
+				}
+				plausibleCount++;
+			}
+		}
+		logger.debug("Approximate Matches: " + candidateNames.size() + " plausible: " + plausibleCount);
+		if (plausibleCount==1) { 
+			String authorship = taxonNameToValidate.getAuthorship();
+			AuthorNameComparator authorNameComparator = taxonNameToValidate.getAuthorComparator();
+			Iterator<NameUsage> im = candidates.iterator();
+			while (im.hasNext()) { 
+				NameUsage current = im.next();
+				if (plausible.getNameTwo().equals(current.getCanonicalName())) { 
+					if (authorNameComparator==null) { 
+						authorNameComparator = AuthorNameComparator.authorNameComparatorFactory(authorship, current.getKingdom());
+					}
+					if (result == null || AuthorNameComparator.calulateSimilarityOfAuthor(result.getAuthorship(), authorship) < AuthorNameComparator.calulateSimilarityOfAuthor(current.getAuthorship(), authorship)) { 
+						result = current;
+					}
+				}
+			}
+			if (result!=null) { 
+				String authorComparison = authorNameComparator.compare(authorship, result.getAuthorship()).getMatchType();
+				result.setMatchDescription(NameComparison.MATCH_FUZZY_SCINAME + "; authorship " + authorComparison);
+				result.setNameMatchDescription(plausible.getMatchType());
+				result.setScientificNameStringEditDistance(plausible.getSimilarity());
+				result.setAuthorshipStringEditDistance(AuthorNameComparator.calulateSimilarityOfAuthor(authorship, result.getAuthorship()));
+				result.setOriginalAuthorship(taxonNameToValidate.getAuthorship());
+				result.setOriginalScientificName(taxonNameToValidate.getCanonicalName());
+				result.setInputDbPK(taxonNameToValidate.getInputDbPK());
+			}
+		}
+		return result;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public List<String> supportedExtensionTerms() {
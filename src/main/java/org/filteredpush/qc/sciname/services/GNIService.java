@@ -17,16 +17,11 @@
  */
 package org.filteredpush.qc.sciname.services;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLConnection;
+import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -52,6 +47,16 @@ public class GNIService {
 	// New end point for parser - distinct from validator 
 	private static String parserEndpoint = "https://parser.globalnames.org/api/v1/";
 	
+	/** Name of this service, as recorded in the parseSource of the parses it returns. */
+	public static final String PARSE_SOURCE = "GNI parser service";
+	
+	/** Cached parses by name string, with NO_MATCH recording names the service did not parse. */
+	private static final LruCache<String,NameAuthorshipParse> authorParseCache = new LruCache<String,NameAuthorshipParse>(10000, 0L);
+	static { 
+		MetricsRegistries.registerCache("GNIService.authorParse", authorParseCache);
+	}
+	private static final NameAuthorshipParse NO_MATCH = new NameAuthorshipParse();
+	
 	/**
 	 * Query GNI with a scientific name string and if a match is found, return the canonical name
 	 * (name without authorship) for that scientific name from the matching authority.
@@ -68,20 +73,7 @@ public class GNIService {
 		// request.append(parserEndpoint).append("?names=").append(URLEncoder.encode(nameString, "utf-8")).append("&best_match_only=true");
 		request.append(parserEndpoint).append(URLEncoder.encode(nameString, "utf-8"));
 		
-		StringBuilder requestResponse = new StringBuilder();
-		URL url = new URL(request.toString());
-		logger.debug(url.toString());
-		URLConnection connection = url.openConnection();
-		HttpURLConnection httpConnection = (HttpURLConnection)connection;
-		httpConnection.setRequestMethod("GET");
-		httpConnection.setDoOutput(true);
-		httpConnection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-		httpConnection.connect();
-		String line;
-		BufferedReader reader = new BufferedReader(new InputStreamReader(httpConnection.getInputStream()));
-		while((line = reader.readLine()) != null) {
-			requestResponse.append(line);
-		}
+		String requestResponse = HttpClients.get(request.toString());
 		
 		if (requestResponse.length() > 0) { 
 			try { 
@@ -113,27 +105,75 @@ public class GNIService {
 	 * @throws org.json.simple.parser.ParseException if unable to parse the returned json from the service.
 	 */
 	public static NameAuthorshipParse obtainNameAuthorParse(String nameString) throws IOException, ParseException { 
-		NameAuthorshipParse result = null;
-		
 		StringBuilder request = new StringBuilder();
 		//request.append(parserEndpoint).append("?names=").append(URLEncoder.encode(nameString,"utf-8")).append("&best_match_only=true");
+		NameAuthorshipParse cached = authorParseCache.get(nameString);
+		if (cached!=null) { 
+			return copyOf(cached);
+		}
 		request.append(parserEndpoint).append(URLEncoder.encode(nameString,"utf-8"));
 		
-		StringBuilder requestResponse = new StringBuilder();
-		URL url = new URL(request.toString());
-		logger.debug(url.toString());
-		URLConnection connection = url.openConnection();
-		HttpURLConnection httpConnection = (HttpURLConnection)connection;
-		httpConnection.setRequestMethod("GET");
-		httpConnection.setDoOutput(true);
-		httpConnection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-		httpConnection.connect();
-		String line;
-		BufferedReader reader = new BufferedReader(new InputStreamReader(httpConnection.getInputStream()));
-		while((line = reader.readLine()) != null) {
-			requestResponse.append(line);
-		}
+		String requestResponse = HttpClients.get(request.toString());
 		
+		return cacheNameAuthorParse(nameString, parseNameAuthorParse(requestResponse));
+	}
+	
+	/**
+	 * Query GNI with a scientific name string without blocking, see obtainNameAuthorParse.
+	 *
+	 * @param nameString to check against GNI
+	 * @return a future for a NameAuthorshipParse object containing the canonical portion of the name 
+	 *   and the authorship portion of the name, or for null if no match, completed exceptionally with
+	 *   an IOException if there is an error with the service.
+	 */
+	public static CompletableFuture<NameAuthorshipParse> obtainNameAuthorParseAsync(final String nameString) { 
+		NameAuthorshipParse cached = authorParseCache.get(nameString);
+		if (cached!=null) { 
+			return CompletableFuture.completedFuture(copyOf(cached));
+		}
+		StringBuilder request = new StringBuilder();
+		try { 
+			request.append(parserEndpoint).append(URLEncoder.encode(nameString,"utf-8"));
+		} catch (UnsupportedEncodingException e) {
+			CompletableFuture<NameAuthorshipParse> failed = new CompletableFuture<NameAuthorshipParse>();
+			failed.completeExceptionally(e);
+			return failed;
+		}
+		return HttpClients.getAsync(request.toString()).thenApply(new Function<String,NameAuthorshipParse>() {
+			@Override
+			public NameAuthorshipParse apply(String response) {
+				return cacheNameAuthorParse(nameString, parseNameAuthorParse(response));
+			}
+		});
+	}
+	
+	/**
+	 * Record the parse of a name string obtained from the service, or the lack of one.
+	 * 
+	 * @return a copy of parse, or null if parse is null.
+	 */
+	private static NameAuthorshipParse cacheNameAuthorParse(String nameString, NameAuthorshipParse parse) { 
+		authorParseCache.put(nameString, parse==null ? NO_MATCH : parse);
+		return parse==null ? null : copyOf(parse);
+	}
+	
+	/**
+	 * NameAuthorshipParse is mutable, so callers are given copies of cached parses.
+	 */
+	private static NameAuthorshipParse copyOf(NameAuthorshipParse parse) { 
+		if (parse==NO_MATCH) { 
+			return null;
+		}
+		NameAuthorshipParse result = new NameAuthorshipParse(parse.getNameWithoutAuthorship(), parse.getAuthorship(), parse.getNameWithAuthorship());
+		result.setParseSource(parse.getParseSource());
+		return result;
+	}
+	
+	/**
+	 * Extract the canonical name and authorship from a response from the GNI parser.
+	 */
+	private static NameAuthorshipParse parseNameAuthorParse(String requestResponse) { 
+		NameAuthorshipParse result = null;
 		logger.debug(requestResponse);
 		
 		if (requestResponse.length() > 0) { 
@@ -154,6 +194,7 @@ public class GNIService {
 					result.setNameWithoutAuthorship(canonicalForm);
 					result.setAuthorship(fullString.replace(canonicalForm, "").trim());
 					result.setNameWithAuthorship(fullString);
+					result.setParseSource(PARSE_SOURCE);
 				}
 			} catch (Exception e) { 
 				logger.debug(e.getMessage());
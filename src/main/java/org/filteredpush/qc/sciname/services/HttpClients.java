@@ -0,0 +1,696 @@
+/** 
+ * HttpClients.java 
+ * 
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Process wide OkHttp clients for the remote name services.  All clients share one 
+ * connection pool and one dispatcher, so connections (and their TLS sessions) are kept 
+ * alive and reused across every api instance talking to a host, and HTTP/2 is negotiated
+ * where the server supports it.  OkHttp requests and transparently decompresses gzip 
+ * responses.  Each host (authority) gets its own client, so that timeouts can be tuned
+ * per service.
+ * 
+ * Settings are read from system properties when a client is first created.  Each may be 
+ * given for all hosts, e.g. sciname.http.readTimeout=60, or for one host by appending the 
+ * host name, e.g. sciname.http.readTimeout.www.irmng.org=120.  Times are in seconds.
+ * 
+ * The get and post methods make requests with these clients for services that do not have 
+ * a generated api, either blocking, or asynchronously returning a CompletableFuture so that
+ * several lookups can be in flight at once.  Response bodies are handed to a BodyHandler as
+ * a stream, the default handler reads the body into a string.
+ * 
+ * Every request made with these clients, including those made by the generated apis, is 
+ * recorded in the shared {@link MetricsRegistry} under the host of the request, with 
+ * the time until the response body is closed and the (decompressed) bytes read from it.
+ * 
+ * Every request is also passed through the {@link ResilienceGuard} for its host, which 
+ * retries failed requests and overload responses (429, 503) with a jittered exponential 
+ * backoff that honors Retry-After, and stops sending requests for a while to a service 
+ * that keeps failing.  Only GET and HEAD requests are retried after a network failure.
+ * If sciname.http.rateLimit is set, the guard also limits the rate of requests to a host,
+ * adapting it when the service responds that it is overloaded, by default there is no limit.
+ * Blocking requests, including those of the generated apis, wait and retry on the calling 
+ * thread.  The waits and retries of requests made with getAsync and postAsync are scheduled
+ * on a timer thread, so that they do not hold up the threads of the http client.
+ * 
+ * @author mole
+ * @version $Id: $Id
+ */
+public class HttpClients {
+	
+	private static final Log logger = LogFactory.getLog(HttpClients.class);
+	
+	/** Seconds to wait to establish a connection, default 10. */
+	public static final String PROPERTY_CONNECT_TIMEOUT = "sciname.http.connectTimeout";
+	/** Seconds to wait for data on an open connection, default 60. */
+	public static final String PROPERTY_READ_TIMEOUT = "sciname.http.readTimeout";
+	/** Seconds allowed for a complete call, default 0, no limit. */
+	public static final String PROPERTY_CALL_TIMEOUT = "sciname.http.callTimeout";
+	/** Maximum idle connections kept in the shared pool, default 16, applies to all hosts. */
+	public static final String PROPERTY_MAX_IDLE_CONNECTIONS = "sciname.http.maxIdleConnections";
+	/** Seconds an idle connection is kept alive, default 300, applies to all hosts. */
+	public static final String PROPERTY_KEEP_ALIVE = "sciname.http.keepAlive";
+	/** Maximum concurrent asynchronous requests to one host, default 8, applies to all hosts. */
+	public static final String PROPERTY_MAX_REQUESTS_PER_HOST = "sciname.http.maxRequestsPerHost";
+	/** Highest rate of requests to one host in requests per second, default 0, no limit. */
+	public static final String PROPERTY_RATE_LIMIT = "sciname.http.rateLimit";
+	/** Requests to one host that may be made at once after a quiet period, default the rate limit. */
+	public static final String PROPERTY_BURST = "sciname.http.burst";
+	/** Times a failed request is retried, default 3. */
+	public static final String PROPERTY_MAX_RETRIES = "sciname.http.maxRetries";
+	/** Milliseconds to wait before the first retry, doubled for each retry after, default 500. */
+	public static final String PROPERTY_RETRY_DELAY_MILLIS = "sciname.http.retryDelayMillis";
+	/** Longest wait in seconds before a retry, longer Retry-After responses are not waited for, default 30. */
+	public static final String PROPERTY_MAX_RETRY_DELAY = "sciname.http.maxRetryDelay";
+	/** Consecutive failed requests after which requests to a host are paused, default 5. */
+	public static final String PROPERTY_FAILURE_THRESHOLD = "sciname.http.failureThreshold";
+	/** Seconds for which requests to a failing host are paused, default 30. */
+	public static final String PROPERTY_CIRCUIT_OPEN = "sciname.http.circuitOpen";
+	
+	/** Media type for json request bodies. */
+	public static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+	
+	/**
+	 * Consumes the body of a successful response.
+	 *
+	 * @param <T> the type produced from the response body.
+	 */
+	public interface BodyHandler<T> { 
+		/**
+		 * Produce a result from a response body.
+		 * 
+		 * @param body the character stream of the response body, decoded with the charset 
+		 *   of the response, closed by the caller.
+		 * @return the result.
+		 * @throws IOException on a problem reading the body.
+		 */
+		T handle(Reader body) throws IOException;
+	}
+	
+	/** BodyHandler that reads the whole response body into a string. */
+	public static final BodyHandler<String> STRING = new BodyHandler<String>() {
+		@Override
+		public String handle(Reader body) throws IOException {
+			StringBuilder result = new StringBuilder();
+			char[] buffer = new char[8192];
+			int read;
+			while ((read = body.read(buffer)) != -1) { 
+				result.append(buffer, 0, read);
+			}
+			return result.toString();
+		}
+	};
+	
+	private static OkHttpClient rootClient = null;
+	private static final Map<String,OkHttpClient> clients = new HashMap<String,OkHttpClient>();
+	private static final Map<String,ResilienceGuard> guards = new HashMap<String,ResilienceGuard>();
+	private static ScheduledExecutorService scheduler = null;
+	
+	/** Tags requests whose waits and retries are scheduled by a ScheduledCall, rather than made by the ResilienceInterceptor. */
+	private static final class Scheduled { 
+	}
+	private static final Scheduled SCHEDULED = new Scheduled();
+	
+	/**
+	 * Obtain the shared client for the host of a service.
+	 * 
+	 * @param serviceUrl the base url of the service, or any url on the host.
+	 * @return an OkHttpClient shared by all callers for that host.
+	 */
+	public static synchronized OkHttpClient getClient(String serviceUrl) { 
+		String host = hostOf(serviceUrl);
+		OkHttpClient client = clients.get(host);
+		if (client==null) { 
+			client = getRootClient().newBuilder()
+					.connectTimeout(setting(PROPERTY_CONNECT_TIMEOUT, host, 10), TimeUnit.SECONDS)
+					.readTimeout(setting(PROPERTY_READ_TIMEOUT, host, 60), TimeUnit.SECONDS)
+					.callTimeout(setting(PROPERTY_CALL_TIMEOUT, host, 0), TimeUnit.SECONDS)
+					.build();
+			clients.put(host, client);
+			logger.debug("Created http client for " + host);
+		}
+		return client;
+	}
+	
+	/**
+	 * Obtain the rate limit, backoff, and circuit breaker shared by all requests to a host.
+	 * 
+	 * @param serviceUrl the base url of the service, or any url on the host.
+	 * @return the guard for that host.
+	 */
+	public static synchronized ResilienceGuard getGuard(String serviceUrl) { 
+		String host = hostOf(serviceUrl);
+		ResilienceGuard guard = guards.get(host);
+		if (guard==null) { 
+			int rateLimit = setting(PROPERTY_RATE_LIMIT, host, 0);
+			guard = new ResilienceGuard(host, rateLimit, 
+					setting(PROPERTY_BURST, host, Math.max(1, rateLimit)),
+					setting(PROPERTY_MAX_RETRIES, host, 3),
+					setting(PROPERTY_RETRY_DELAY_MILLIS, host, 500),
+					TimeUnit.SECONDS.toMillis(setting(PROPERTY_MAX_RETRY_DELAY, host, 30)),
+					setting(PROPERTY_FAILURE_THRESHOLD, host, 5),
+					TimeUnit.SECONDS.toMillis(setting(PROPERTY_CIRCUIT_OPEN, host, 30)));
+			guards.put(host, guard);
+		}
+		return guard;
+	}
+	
+	/**
+	 * Obtain the timer thread on which the waits and retries of asynchronous requests are scheduled.
+	 */
+	private static synchronized ScheduledExecutorService getScheduler() { 
+		if (scheduler==null) { 
+			scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "sciname-http-retry");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return scheduler;
+	}
+	
+	private static OkHttpClient getRootClient() { 
+		if (rootClient==null) { 
+			Dispatcher dispatcher = new Dispatcher();
+			dispatcher.setMaxRequestsPerHost(setting(PROPERTY_MAX_REQUESTS_PER_HOST, null, 8));
+			rootClient = new OkHttpClient.Builder()
+					.connectionPool(new ConnectionPool(setting(PROPERTY_MAX_IDLE_CONNECTIONS, null, 16), setting(PROPERTY_KEEP_ALIVE, null, 300), TimeUnit.SECONDS))
+					.dispatcher(dispatcher)
+					.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+					.retryOnConnectionFailure(true)
+					.addInterceptor(new ResilienceInterceptor())
+					.addInterceptor(new MetricsInterceptor())
+					.build();
+		}
+		return rootClient;
+	}
+	
+	/**
+	 * Obtain a setting from the host specific or general system property.
+	 */
+	private static int setting(String property, String host, int defaultValue) { 
+		String value = null;
+		if (host!=null) { 
+			value = System.getProperty(property + "." + host);
+		}
+		if (value==null) { 
+			value = System.getProperty(property);
+		}
+		if (value!=null) { 
+			try { 
+				return Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) { 
+				logger.error("Ignoring non-integer value [" + value + "] for " + property);
+			}
+		}
+		return defaultValue;
+	}
+	
+	private static String hostOf(String serviceUrl) { 
+		try { 
+			String host = URI.create(serviceUrl).getHost();
+			if (host!=null) { 
+				return host.toLowerCase();
+			}
+		} catch (IllegalArgumentException e) { 
+			logger.debug(e.getMessage());
+		}
+		return serviceUrl;
+	}
+	
+	/**
+	 * Make a GET request, blocking until the response has been read.
+	 * 
+	 * @param url the request to make.
+	 * @return the body of the response.
+	 * @throws IOException on a problem making the request or on a response other than a success.
+	 */
+	public static String get(String url) throws IOException { 
+		return execute(new Request.Builder().url(url).get().build(), STRING);
+	}
+	
+	/**
+	 * Make a POST request, blocking until the response has been read.
+	 * 
+	 * @param url the request to make.
+	 * @param json the body of the request, sent as application/json.
+	 * @return the body of the response.
+	 * @throws IOException on a problem making the request or on a response other than a success.
+	 */
+	public static String post(String url, String json) throws IOException { 
+		return execute(new Request.Builder().url(url).post(RequestBody.create(json, JSON)).build(), STRING);
+	}
+	
+	/**
+	 * Make a GET request without blocking.
+	 * 
+	 * @param url the request to make.
+	 * @return a future for the body of the response, completed exceptionally with an IOException
+	 *   on a problem making the request or on a response other than a success.
+	 */
+	public static CompletableFuture<String> getAsync(String url) { 
+		return getAsync(url, STRING);
+	}
+	
+	/**
+	 * Make a GET request without blocking, handing the response body to a BodyHandler.
+	 * 
+	 * @param url the request to make.
+	 * @param handler to produce the result from the response body, invoked on an http client thread.
+	 * @return a future for the result of the handler.
+	 */
+	public static <T> CompletableFuture<T> getAsync(String url, BodyHandler<T> handler) { 
+		try { 
+			return enqueue(new Request.Builder().url(url).get().build(), handler);
+		} catch (IllegalArgumentException e) { 
+			return failed(new IOException("Invalid url " + url, e));
+		}
+	}
+	
+	/**
+	 * Make a POST request with a json body without blocking.
+	 * 
+	 * @param url the request to make.
+	 * @param json the body of the request, sent as application/json.
+	 * @return a future for the body of the response.
+	 */
+	public static CompletableFuture<String> postAsync(String url, String json) { 
+		try { 
+			return enqueue(new Request.Builder().url(url).post(RequestBody.create(json, JSON)).build(), STRING);
+		} catch (IllegalArgumentException e) { 
+			return failed(new IOException("Invalid url " + url, e));
+		}
+	}
+	
+	/**
+	 * Wait for the result of an asynchronous request, unwrapping the failure.
+	 * 
+	 * @param future returned from one of the asynchronous methods.
+	 * @return the result of the request.
+	 * @throws IOException if the request failed.
+	 */
+	public static <T> T await(CompletableFuture<T> future) throws IOException { 
+		try { 
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted waiting for response", e);
+		} catch (ExecutionException e) {
+			throw asIOException(e.getCause());
+		}
+	}
+	
+	/**
+	 * Obtain the IOException behind the failure of a future.
+	 * 
+	 * @param failure the throwable a future was completed with, may be a CompletionException wrapping the cause.
+	 * @return the underlying failure as an IOException.
+	 */
+	public static IOException asIOException(Throwable failure) { 
+		if (failure instanceof CompletionException && failure.getCause()!=null) { 
+			failure = failure.getCause();
+		}
+		if (failure instanceof IOException) { 
+			return (IOException) failure;
+		}
+		return new IOException(failure.getMessage(), failure);
+	}
+	
+	private static <T> T execute(Request request, BodyHandler<T> handler) throws IOException { 
+		logger.debug(request.url().toString());
+		Response response = getClient(request.url().toString()).newCall(request).execute();
+		try { 
+			return handle(response, handler);
+		} finally { 
+			response.close();
+		}
+	}
+	
+	private static <T> CompletableFuture<T> enqueue(Request request, BodyHandler<T> handler) { 
+		logger.debug(request.url().toString());
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		ResilienceGuard guard = getGuard(request.url().host());
+		boolean trial;
+		try { 
+			trial = guard.checkCircuit();
+		} catch (IOException e) { 
+			result.completeExceptionally(e);
+			return result;
+		}
+		new ScheduledCall<T>(request.newBuilder().tag(Scheduled.class, SCHEDULED).build(), guard, trial, handler, result).attempt();
+		return result;
+	}
+	
+	private static <T> T handle(Response response, BodyHandler<T> handler) throws IOException { 
+		if (!response.isSuccessful()) { 
+			throw new IOException("HTTP " + response.code() + " from " + response.request().url());
+		}
+		ResponseBody body = response.body();
+		if (body==null) { 
+			return handler.handle(new StringReader(""));
+		}
+		Reader reader = body.charStream();
+		try { 
+			return handler.handle(reader);
+		} finally { 
+			reader.close();
+		}
+	}
+	
+	private static <T> CompletableFuture<T> failed(IOException e) { 
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		result.completeExceptionally(e);
+		return result;
+	}
+	
+	private static boolean isIdempotent(Request request) { 
+		return request.method().equals("GET") || request.method().equals("HEAD");
+	}
+	
+	/**
+	 * Decide whether to retry a request that failed without a response, recording the 
+	 * failure with the guard if it is not to be retried, which ends any trial request.
+	 * 
+	 * @return the delay in milliseconds before retrying, or -1 if the request is not to be retried.
+	 */
+	private static long retryDelay(ResilienceGuard guard, Request request, IOException failure, boolean canceled, int attempt) { 
+		long delay = isIdempotent(request) && !canceled ? guard.backoffMillis(attempt, 0L) : -1L;
+		if (delay < 0L) { 
+			guard.onFailure();
+		} else { 
+			logger.debug("Retrying " + request.url() + " after " + failure.getMessage());
+		}
+		return delay;
+	}
+	
+	/**
+	 * Decide whether to retry a request on its response, recording the outcome with the 
+	 * guard if it is not to be retried, which ends any trial request.
+	 * 
+	 * @return the delay in milliseconds before retrying, or -1 if the response is to be returned.
+	 */
+	private static long retryDelay(ResilienceGuard guard, Request request, Response response, int attempt) { 
+		int code = response.code();
+		boolean overloaded = code==429 || code==503;
+		if (overloaded || (isIdempotent(request) && (code==502 || code==504))) { 
+			long retryAfter = ResilienceGuard.parseRetryAfter(response.header("Retry-After"), System.currentTimeMillis());
+			if (overloaded) { 
+				guard.onThrottled(retryAfter);
+			}
+			long delay = guard.backoffMillis(attempt, retryAfter);
+			if (delay < 0L) { 
+				guard.onFailure();
+			} else { 
+				logger.debug("Retrying " + request.url() + " after HTTP " + code);
+			}
+			return delay;
+		}
+		if (code >= 500) { 
+			guard.onFailure();
+		} else { 
+			guard.onSuccess();
+		}
+		return -1L;
+	}
+	
+	/**
+	 * Passes each blocking request through the ResilienceGuard for its host, waiting for the 
+	 * rate limit, and retrying failures and overload responses with backoff, on the calling 
+	 * thread.  Requests tagged as Scheduled are passed straight through, their ScheduledCall 
+	 * does the same without blocking.  A trial request that ends without an outcome, 
+	 * interrupted while waiting or by an unexpected error, releases the trial.  Placed before
+	 * the MetricsInterceptor, so that each attempt is measured.
+	 */
+	private static class ResilienceInterceptor implements Interceptor { 
+		
+		@Override
+		public Response intercept(Chain chain) throws IOException {
+			Request request = chain.request();
+			if (request.tag(Scheduled.class)!=null) { 
+				return chain.proceed(request);
+			}
+			String host = request.url().host();
+			ResilienceGuard guard = getGuard(host);
+			boolean trial = guard.checkCircuit();
+			boolean settled = false;
+			try { 
+				int attempt = 0;
+				while (true) { 
+					guard.acquire();
+					Response response;
+					try { 
+						response = chain.proceed(request);
+					} catch (IOException e) { 
+						long delay = retryDelay(guard, request, e, chain.call().isCanceled(), attempt);
+						if (delay < 0L) { 
+							settled = true;
+							throw e;
+						}
+						MetricsRegistries.getRegistry().recordRetry(host, "http");
+						ResilienceGuard.sleep(delay);
+						attempt++;
+						continue;
+					}
+					long delay = retryDelay(guard, request, response, attempt);
+					if (delay < 0L) { 
+						settled = true;
+						return response;
+					}
+					response.close();
+					MetricsRegistries.getRegistry().recordRetry(host, "http");
+					ResilienceGuard.sleep(delay);
+					attempt++;
+				}
+			} finally { 
+				if (trial && !settled) { 
+					guard.releaseTrial();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * An asynchronous request, passed through the ResilienceGuard for its host like the 
+	 * ResilienceInterceptor does for blocking requests, but with each wait for the rate limit
+	 * and each retry scheduled on the timer thread rather than slept through, so that the 
+	 * dispatcher threads of the http client are never held up.  A trial request that ends
+	 * without an outcome, failing to be scheduled or by an unexpected error, releases the trial.
+	 *
+	 * @param <T> the type produced from the response body.
+	 */
+	private static class ScheduledCall<T> implements Callback { 
+		
+		private final Request request;
+		private final ResilienceGuard guard;
+		private final boolean trial;
+		private final BodyHandler<T> handler;
+		private final CompletableFuture<T> result;
+		private volatile int attempt = 0;
+		private volatile boolean settled = false;
+		
+		ScheduledCall(Request request, ResilienceGuard guard, boolean trial, BodyHandler<T> handler, CompletableFuture<T> result) { 
+			this.request = request;
+			this.guard = guard;
+			this.trial = trial;
+			this.handler = handler;
+			this.result = result;
+		}
+		
+		/**
+		 * Make an attempt once the rate limit allows.
+		 */
+		void attempt() { 
+			long wait = guard.reserveMillis();
+			if (wait > 0L) { 
+				schedule(wait, new Runnable() {
+					@Override
+					public void run() {
+						send();
+					}
+				});
+			} else { 
+				send();
+			}
+		}
+		
+		private void send() { 
+			try { 
+				getClient(request.url().toString()).newCall(request).enqueue(this);
+			} catch (RuntimeException e) { 
+				fail(e);
+			}
+		}
+		
+		private void retry(long delay) { 
+			attempt++;
+			MetricsRegistries.getRegistry().recordRetry(request.url().host(), "http");
+			schedule(delay, new Runnable() {
+				@Override
+				public void run() {
+					attempt();
+				}
+			});
+		}
+		
+		private void schedule(long delay, Runnable task) { 
+			try { 
+				getScheduler().schedule(task, delay, TimeUnit.MILLISECONDS);
+			} catch (RuntimeException e) { 
+				fail(e);
+			}
+		}
+		
+		/**
+		 * Complete with a failure, releasing the trial if the guard has not been given the outcome.
+		 */
+		private void fail(Throwable e) { 
+			if (trial && !settled) { 
+				settled = true;
+				guard.releaseTrial();
+			}
+			result.completeExceptionally(e);
+		}
+		
+		@Override
+		public void onFailure(Call call, IOException e) {
+			try { 
+				long delay = retryDelay(guard, request, e, call.isCanceled(), attempt);
+				if (delay < 0L) { 
+					settled = true;
+					result.completeExceptionally(e);
+				} else { 
+					retry(delay);
+				}
+			} catch (RuntimeException ex) { 
+				fail(ex);
+			}
+		}
+		
+		@Override
+		public void onResponse(Call call, Response response) {
+			try { 
+				long delay = retryDelay(guard, request, response, attempt);
+				if (delay >= 0L) { 
+					retry(delay);
+				} else { 
+					settled = true;
+					result.complete(handle(response, handler));
+				}
+			} catch (Exception e) { 
+				fail(e);
+			} finally { 
+				response.close();
+			}
+		}
+	}
+	
+	/**
+	 * Records each request in the shared MetricsRegistry, with component the host and 
+	 * operation http, counting the bytes read from the response body, and completing the 
+	 * measurement when the body is closed.  Responses other than a success count as failures.
+	 */
+	private static class MetricsInterceptor implements Interceptor { 
+		
+		private static final String OPERATION = "http";
+		
+		@Override
+		public Response intercept(Chain chain) throws IOException {
+			final String host = chain.request().url().host();
+			final long start = MetricsRegistries.start();
+			Response response;
+			try { 
+				response = chain.proceed(chain.request());
+			} catch (IOException e) { 
+				MetricsRegistries.stop(host, OPERATION, start, true);
+				throw e;
+			}
+			final boolean failed = !response.isSuccessful();
+			ResponseBody body = response.body();
+			if (body==null) { 
+				MetricsRegistries.stop(host, OPERATION, start, failed);
+				return response;
+			}
+			Source counting = new ForwardingSource(body.source()) {
+				private long bytes = 0L;
+				private boolean closed = false;
+				@Override
+				public long read(Buffer sink, long byteCount) throws IOException {
+					long read = super.read(sink, byteCount);
+					if (read > 0) { 
+						bytes += read;
+					}
+					return read;
+				}
+				@Override
+				public void close() throws IOException {
+					try { 
+						super.close();
+					} finally { 
+						if (!closed) { 
+							closed = true;
+							MetricsRegistries.getRegistry().recordBytesReceived(host, OPERATION, bytes);
+							MetricsRegistries.stop(host, OPERATION, start, failed);
+						}
+					}
+				}
+			};
+			return response.newBuilder()
+					.body(ResponseBody.create(Okio.buffer(counting), body.contentType(), body.contentLength()))
+					.build();
+		}
+	}
+
+}
@@ -0,0 +1,188 @@
+/**
+ * InMemoryMetricsRegistry.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * MetricsRegistry holding the measurements of each operation in memory as OperationMetrics,
+ * optionally registering each, and each registered cache, as an MBean with the platform
+ * MBeanServer, under the domain org.filteredpush.qc.sciname, with names of the form
+ * type=Operation,component=...,operation=... and type=Cache,name=....
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public class InMemoryMetricsRegistry implements MetricsRegistry {
+
+	private static final Log logger = LogFactory.getLog(InMemoryMetricsRegistry.class);
+
+	/** Domain of the names of the MBeans registered by this registry. */
+	public static final String JMX_DOMAIN = "org.filteredpush.qc.sciname";
+
+	private final boolean jmx;
+	private final ConcurrentMap<String,OperationMetrics> operations = new ConcurrentHashMap<String,OperationMetrics>();
+	private final ConcurrentMap<String,LruCache<?,?>> caches = new ConcurrentHashMap<String,LruCache<?,?>>();
+	private final List<ObjectName> registered = Collections.synchronizedList(new ArrayList<ObjectName>());
+
+	/**
+	 * Create a registry.
+	 *
+	 * @param jmx true to register the measurements with the platform MBeanServer.
+	 */
+	public InMemoryMetricsRegistry(boolean jmx) {
+		this.jmx = jmx;
+	}
+
+	/**
+	 * Obtain the measurements of an operation, creating them if this is the first measurement.
+	 *
+	 * @param component the service or other component called.
+	 * @param operation the operation invoked.
+	 * @return the measurements of the operation.
+	 */
+	public OperationMetrics getOperation(String component, String operation) {
+		String key = component + LookupCache.KEY_SEPARATOR + operation;
+		OperationMetrics result = operations.get(key);
+		if (result==null) { 
+			OperationMetrics created = new OperationMetrics(component, operation);
+			result = operations.putIfAbsent(key, created);
+			if (result==null) { 
+				result = created;
+				register("type=Operation,component=" + ObjectName.quote(component) + ",operation=" + ObjectName.quote(operation), result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the measurements of all operations so far, ordered by component and operation.
+	 */
+	public List<OperationMetrics> getOperations() {
+		List<String> keys = new ArrayList<String>(operations.keySet());
+		Collections.sort(keys);
+		List<OperationMetrics> result = new ArrayList<OperationMetrics>(keys.size());
+		Iterator<String> i = keys.iterator();
+		while (i.hasNext()) { 
+			result.add(operations.get(i.next()));
+		}
+		return result;
+	}
+
+	@Override
+	public void recordCall(String component, String operation, long elapsedNanos, boolean failed) {
+		getOperation(component, operation).recordCall(elapsedNanos, failed);
+	}
+
+	@Override
+	public void recordRetry(String component, String operation) {
+		getOperation(component, operation).recordRetry();
+	}
+
+	@Override
+	public void recordCoalesced(String component, String operation) {
+		getOperation(component, operation).recordCoalesced();
+	}
+
+	@Override
+	public void recordBytesReceived(String component, String operation, long bytes) {
+		getOperation(component, operation).recordBytesReceived(bytes);
+	}
+
+	@Override
+	public void recordCacheLookup(String component, String operation, boolean hit) {
+		getOperation(component, operation).recordCacheLookup(hit);
+	}
+
+	@Override
+	public void registerCache(String name, LruCache<?,?> cache) {
+		if (caches.putIfAbsent(name, cache)==null) { 
+			register("type=Cache,name=" + ObjectName.quote(name), cache);
+		}
+	}
+
+	@Override
+	public String summary() {
+		StringBuilder result = new StringBuilder();
+		Iterator<OperationMetrics> i = getOperations().iterator();
+		while (i.hasNext()) { 
+			result.append(i.next().toString()).append('\n');
+		}
+		List<String> names = new ArrayList<String>(caches.keySet());
+		Collections.sort(names);
+		Iterator<String> in = names.iterator();
+		while (in.hasNext()) { 
+			String name = in.next();
+			LruCache<?,?> cache = caches.get(name);
+			result.append("cache ").append(name).append(' ').append(cache.toString());
+			result.append(String.format(" hitRatio=%.2f", cache.getHitRatio())).append('\n');
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Unregister any MBeans registered by this registry.
+	 */
+	@Override
+	public void close() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		synchronized (registered) { 
+			Iterator<ObjectName> i = registered.iterator();
+			while (i.hasNext()) { 
+				try { 
+					server.unregisterMBean(i.next());
+				} catch (JMException e) {
+					logger.debug(e.getMessage());
+				}
+			}
+			registered.clear();
+		}
+	}
+
+	private void register(String properties, Object mbean) {
+		if (!jmx) { 
+			return;
+		}
+		try { 
+			ObjectName name = new ObjectName(JMX_DOMAIN + ":" + properties);
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (server.isRegistered(name)) { 
+				// left by a previous registry
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(mbean, name);
+			registered.add(name);
+		} catch (JMException e) {
+			logger.error("Unable to register " + properties + " with JMX: " + e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,163 @@
+/**
+ * LocalAphiaLookups.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+
+/**
+ * The lookups against an AphiaSnapshot shared by LocalWoRMSTaxonomicDataApi and
+ * LocalIRMNGTaxonomicDataApi, which differ only in the packages of the model classes
+ * the results are deserialized into, with the Json of the generated client.  As with
+ * the service, lookups that find nothing return null, and only the first page (offset 1)
+ * of results has content.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+final class LocalAphiaLookups {
+
+	private final AphiaSnapshot snapshot;
+
+	/**
+	 * @param snapshot the local copy of the service to query.
+	 */
+	LocalAphiaLookups(AphiaSnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * @return the local copy of the service queried.
+	 */
+	AphiaSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Find the records with a name, as aphiaRecordsByName.
+	 *
+	 * @param json to deserialize the records.
+	 * @param type a list of the record model class.
+	 * @param scientificName the name to find.
+	 * @param marineOnly if true, limit to marine taxa.
+	 * @param offset the page of results, only the first has content.
+	 * @return the records, or null if there are none.
+	 */
+	<T> T recordsByName(AphiaLookups.Json json, Type type, String scientificName, Boolean marineOnly, Integer offset) {
+		if (offset!=null && offset.intValue() > 1) { 
+			return null;
+		}
+		return deserializeNonEmpty(json, type, snapshot.findByName(scientificName, Boolean.TRUE.equals(marineOnly)));
+	}
+
+	/**
+	 * Find the record with an id, as aphiaRecordByAphiaID.
+	 *
+	 * @param json to deserialize the record.
+	 * @param type the record model class.
+	 * @param id the id of the record.
+	 * @return the record, or null if there is none.
+	 */
+	<T> T record(AphiaLookups.Json json, Type type, int id) {
+		return deserialize(json, type, snapshot.getRecord(id));
+	}
+
+	/**
+	 * Find the classification of the record with an id, as aphiaClassificationByAphiaID.
+	 *
+	 * @param json to deserialize the classification.
+	 * @param type the classification model class.
+	 * @param id the id of the record.
+	 * @return the classification, or null if there is no such record.
+	 */
+	<T> T classification(AphiaLookups.Json json, Type type, int id) {
+		return deserialize(json, type, snapshot.getClassification(id));
+	}
+
+	/**
+	 * Find the synonyms of the record with an id, as aphiaSynonymsByAphiaID.
+	 *
+	 * @param json to deserialize the records.
+	 * @param type a list of the record model class.
+	 * @param id the id of the record.
+	 * @param offset the page of results, only the first has content.
+	 * @return the synonyms, or null if there are none.
+	 */
+	<T> T synonyms(AphiaLookups.Json json, Type type, int id, Integer offset) {
+		if (offset!=null && offset.intValue() > 1) { 
+			return null;
+		}
+		return deserializeNonEmpty(json, type, snapshot.findSynonyms(id));
+	}
+
+	/**
+	 * Match each of a list of names, as aphiaRecordsByMatchNames.
+	 *
+	 * @param json to deserialize the records.
+	 * @param type the records array model class.
+	 * @param scientificnames the names to match.
+	 * @param marineOnly if true, limit to marine taxa.
+	 * @return a list with one, possibly empty, list of records for each name, in the order of the names.
+	 */
+	<T> List<T> recordsArraysByMatchNames(AphiaLookups.Json json, Type type, List<String> scientificnames, Boolean marineOnly) {
+		List<T> result = new ArrayList<T>(scientificnames.size());
+		Iterator<String> i = scientificnames.iterator();
+		while (i.hasNext()) { 
+			result.add(json.<T>deserialize(snapshot.matchName(i.next(), Boolean.TRUE.equals(marineOnly)).toString(), type));
+		}
+		return result;
+	}
+
+	/**
+	 * Find the records for each of a list of names, as aphiaRecordsArraysByNames.
+	 *
+	 * @param json to deserialize the records.
+	 * @param type the records array model class.
+	 * @param scientificnames the names to find.
+	 * @param marineOnly if true, limit to marine taxa.
+	 * @return a list with one, possibly empty, list of records for each name, in the order of the names.
+	 */
+	<T> List<T> recordsArraysByNames(AphiaLookups.Json json, Type type, List<String> scientificnames, Boolean marineOnly) {
+		List<T> result = new ArrayList<T>(scientificnames.size());
+		Iterator<String> i = scientificnames.iterator();
+		while (i.hasNext()) { 
+			result.add(json.<T>deserialize(snapshot.findByName(i.next(), Boolean.TRUE.equals(marineOnly)).toString(), type));
+		}
+		return result;
+	}
+
+	private static <T> T deserialize(AphiaLookups.Json json, Type type, JsonElement element) {
+		if (element==null) { 
+			return null;
+		}
+		return json.deserialize(element.toString(), type);
+	}
+
+	private static <T> T deserializeNonEmpty(AphiaLookups.Json json, Type type, JsonArray elements) {
+		if (elements.size()==0) { 
+			return null;
+		}
+		return json.deserialize(elements.toString(), type);
+	}
+
+}
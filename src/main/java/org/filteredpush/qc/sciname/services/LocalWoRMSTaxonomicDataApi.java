@@ -0,0 +1,128 @@
+/** 
+ * LocalWoRMSTaxonomicDataApi.java 
+ * 
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+import org.marinespecies.aphia.v1_0.handler.ApiException;
+import org.marinespecies.aphia.v1_0.model.AphiaRecord;
+import org.marinespecies.aphia.v1_0.model.AphiaRecordsArray;
+import org.marinespecies.aphia.v1_0.model.Classification;
+
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * TaxonomicDataApi for WoRMS that answers the name, id, match, classification, and synonym
+ * lookups used by WoRMSService from a local AphiaSnapshot of a WoRMS export instead of 
+ * invoking the service.  As with the service, lookups that find nothing return null, and 
+ * only the first page (offset 1) of results has content.  Wildcard (like) searches and 
+ * fuzzy matching are not supported, names are matched exactly, ignoring case.  Nothing
+ * is written to the LookupCache.  The lookups are done by LocalAphiaLookups, shared with
+ * LocalIRMNGTaxonomicDataApi.
+ * 
+ * @author mole
+ * @version $Id: $Id
+ */
+public class LocalWoRMSTaxonomicDataApi extends CachingWoRMSTaxonomicDataApi {
+	
+	/** Prefix for lsids of WoRMS taxa. */
+	public static final String LSID_PREFIX = "urn:lsid:marinespecies.org:taxname:";
+	/** Prefix for urls of WoRMS taxon pages. */
+	public static final String URL_PREFIX = "https://www.marinespecies.org/aphia.php?p=taxdetails&id=";
+	
+	private static final Type RECORD_LIST_TYPE = new TypeToken<List<AphiaRecord>>(){}.getType();
+	private static final Type RECORDS_ARRAY_TYPE = new TypeToken<AphiaRecordsArray>(){}.getType();
+	
+	private final LocalAphiaLookups lookups;
+
+	/**
+	 * Construct on a snapshot of WoRMS.
+	 * 
+	 * @param snapshot the local copy of WoRMS to query, with AphiaID as its idField.
+	 */
+	public LocalWoRMSTaxonomicDataApi(AphiaSnapshot snapshot) { 
+		super(getSharedApiClient());
+		this.lookups = new LocalAphiaLookups(snapshot);
+	}
+	
+	/**
+	 * @return the local copy of WoRMS queried by this api.
+	 */
+	public AphiaSnapshot getSnapshot() { 
+		return lookups.getSnapshot();
+	}
+
+	@Override
+	public List<AphiaRecord> aphiaRecordsByName(String scientificName, Boolean like, Boolean marineOnly, Integer offset) throws ApiException {
+		if (scientificName==null) { 
+			throw new ApiException("Missing the required parameter 'scientificName' when calling aphiaRecordsByName(Async)");
+		}
+		return lookups.recordsByName(json(), RECORD_LIST_TYPE, scientificName, marineOnly, offset);
+	}
+
+	@Override
+	public AphiaRecord aphiaRecordByAphiaID(Integer ID) throws ApiException {
+		if (ID==null) { 
+			throw new ApiException("Missing the required parameter 'ID' when calling aphiaRecordByAphiaID(Async)");
+		}
+		return lookups.record(json(), AphiaRecord.class, ID.intValue());
+	}
+	
+	@Override
+	public String aphiaNameByAphiaID(Integer ID) throws ApiException {
+		AphiaRecord record = aphiaRecordByAphiaID(ID);
+		if (record==null) { 
+			return null;
+		}
+		return record.getScientificname();
+	}
+
+	@Override
+	public List<AphiaRecordsArray> aphiaRecordsByMatchNames(List<String> scientificnames, Boolean marineOnly) throws ApiException {
+		if (scientificnames==null) { 
+			throw new ApiException("Missing the required parameter 'scientificnames' when calling aphiaRecordsByMatchNames(Async)");
+		}
+		return lookups.recordsArraysByMatchNames(json(), RECORDS_ARRAY_TYPE, scientificnames, marineOnly);
+	}
+
+	@Override
+	public Classification aphiaClassificationByAphiaID(Integer ID) throws ApiException {
+		if (ID==null) { 
+			throw new ApiException("Missing the required parameter 'ID' when calling aphiaClassificationByAphiaID(Async)");
+		}
+		return lookups.classification(json(), Classification.class, ID.intValue());
+	}
+
+	@Override
+	public List<AphiaRecord> aphiaSynonymsByAphiaID(Integer ID, Integer offset) throws ApiException {
+		if (ID==null) { 
+			throw new ApiException("Missing the required parameter 'ID' when calling aphiaSynonymsByAphiaID(Async)");
+		}
+		return lookups.synonyms(json(), RECORD_LIST_TYPE, ID.intValue(), offset);
+	}
+	
+	@Override
+	public List<AphiaRecordsArray> aphiaRecordsArraysByNames(List<String> scientificnames, Boolean like, Boolean marineOnly) throws ApiException {
+		if (scientificnames==null) { 
+			throw new ApiException("Missing the required parameter 'scientificnames' when calling aphiaRecordsByNames(Async)");
+		}
+		return lookups.recordsArraysByNames(json(), RECORDS_ARRAY_TYPE, scientificnames, marineOnly);
+	}
+	
+}
@@ -0,0 +1,128 @@
+/** 
+ * LookupCache.java 
+ * 
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.io.IOException;
+
+/**
+ * A cache of responses from remote name services, keyed on the source authority,
+ * the operation invoked on that authority, the name looked up and the authorship 
+ * looked up.  Values are the serialized (usually json) responses of the service, 
+ * so that comparisons of the input with the response are still made locally on 
+ * each lookup.
+ * 
+ * Implementations must be safe for concurrent use.
+ * 
+ * @author mole
+ * @version $Id: $Id
+ */
+public interface LookupCache {
+	
+	/** Separator between the parts of a cache key, not expected in any name or authorship. */
+	public static final char KEY_SEPARATOR = '\u001F';
+	
+	/**
+	 * Obtain a cached response.
+	 * 
+	 * @param key the cache key, see {@link #key(String, String, String, String)}
+	 * @return the cached value, or null if there is no unexpired value for the key.
+	 */
+	public String get(String key);
+	
+	/**
+	 * Store a response in the cache.
+	 * 
+	 * @param key the cache key, see {@link #key(String, String, String, String)}
+	 * @param value the value to store, null values are not stored.
+	 */
+	public void put(String key, String value);
+	
+	/**
+	 * Remove a response from the cache.
+	 * 
+	 * @param key the cache key to remove.
+	 */
+	public void invalidate(String key);
+	
+	/**
+	 * Remove all responses from the cache.
+	 */
+	public void clear();
+	
+	/**
+	 * @return the number of responses in the cache, may include expired responses
+	 *   that have not yet been evicted.
+	 */
+	public int size();
+	
+	/**
+	 * Release any resources held by the cache, writing any pending changes.
+	 * 
+	 * @throws IOException on an error writing the cache.
+	 */
+	public void close() throws IOException;
+	
+	/**
+	 * Assemble a cache key from its parts, normalizing whitespace in the name and 
+	 * authorship so that trivially different forms of the same lookup share an entry.
+	 * Case is retained, as some services distinguish names by case.
+	 * 
+	 * @param sourceAuthority the service being consulted, including any dataset.
+	 * @param operation the operation invoked on the service, including any parameters
+	 *   that affect the response other than the name and authorship.
+	 * @param name the name being looked up.
+	 * @param authorship the authorship being looked up, may be null.
+	 * @return a key for the lookup.
+	 */
+	public static String key(String sourceAuthority, String operation, String name, String authorship) { 
+		StringBuilder result = new StringBuilder();
+		result.append(sourceAuthority).append(KEY_SEPARATOR);
+		result.append(operation).append(KEY_SEPARATOR);
+		result.append(normalize(name)).append(KEY_SEPARATOR);
+		result.append(normalize(authorship));
+		return result.toString();
+	}
+	
+	/**
+	 * Trim and collapse runs of whitespace to a single space.
+	 * 
+	 * @param value to normalize
+	 * @return the normalized value, or an empty string for a null value.
+	 */
+	public static String normalize(String value) { 
+		if (value==null) { 
+			return "";
+		}
+		StringBuilder result = new StringBuilder(value.length());
+		boolean inSpace = false;
+		for (int i=0; i<value.length(); i++) { 
+			char c = value.charAt(i);
+			if (Character.isWhitespace(c)) { 
+				inSpace = true;
+			} else { 
+				if (inSpace && result.length()>0) { 
+					result.append(' ');
+				}
+				inSpace = false;
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+
+}
@@ -0,0 +1,235 @@
+/** 
+ * LookupCaches.java 
+ * 
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Holder for the LookupCache shared by all of the Validator implementations and 
+ * static lookup methods in this package, and for the sizes of the in memory caches
+ * held by those services.
+ * 
+ * Responses are always held in a bounded in memory cache, for 12 hours, of up to 
+ * sciname.cache.memory.maxentries (default 1000) responses, so that repeated lookups
+ * of the same name within a run, such as those made by the tests run on one record, 
+ * invoke the service only once.  By default nothing is cached beyond that.  A persistent 
+ * cache, consulted when a response is not held in memory, is configured either by 
+ * calling {@link #setCache(LookupCache)} or by setting the system property 
+ * sciname.cache.dir to a directory in which to hold the cache, with optional system
+ * properties sciname.cache.ttl.days (default 30) and sciname.cache.maxentries 
+ * (default 1000000).
+ * 
+ * @author mole
+ * @version $Id: $Id
+ */
+public class LookupCaches {
+	
+	private static final Log logger = LogFactory.getLog(LookupCaches.class);
+	
+	/** System property for the directory in which to hold a persistent cache. */
+	public static final String PROPERTY_CACHE_DIR = "sciname.cache.dir";
+	/** System property for the time to live of cached entries in days. */
+	public static final String PROPERTY_CACHE_TTL_DAYS = "sciname.cache.ttl.days";
+	/** System property for the maximum number of cached entries. */
+	public static final String PROPERTY_CACHE_MAX_ENTRIES = "sciname.cache.maxentries";
+	/** System property for the maximum number of responses held in memory. */
+	public static final String PROPERTY_MEMORY_MAX_ENTRIES = "sciname.cache.memory.maxentries";
+	
+	/** Default time to live for cached responses. */
+	public static final int DEFAULT_TTL_DAYS = 30;
+	/** Default maximum number of cached responses. */
+	public static final int DEFAULT_MAX_ENTRIES = 1000000;
+	/** Default maximum number of responses held in memory. */
+	public static final int DEFAULT_MEMORY_MAX_ENTRIES = 1000;
+	/** Time to live in milliseconds of responses held in memory, 12 hours. */
+	public static final long MEMORY_CACHE_TTL = 12L * 60L * 60L * 1000L;
+	
+	/** Number of higher taxon lookups held in memory by each service's lookupTaxonAtRank. */
+	public static final int TAXON_AT_RANK_CACHE_SIZE = 10000;
+	/** Time to live in milliseconds of higher taxon lookups held in memory, 12 hours. */
+	public static final long TAXON_AT_RANK_CACHE_TTL = 12L * 60L * 60L * 1000L;
+	
+	/** Responses held in memory in front of the shared cache. */
+	private static final LruCache<String,String> responses = new LruCache<String,String>(memoryMaxEntries(), MEMORY_CACHE_TTL);
+	static { 
+		MetricsRegistries.registerCache("LookupCaches.responses", responses);
+	}
+	
+	private static LookupCache cache = null;
+	private static LookupCache inMemoryFirst = null;
+	private static boolean shutdownHookAdded = false;
+	
+	private LookupCaches() { 
+	}
+	
+	/**
+	 * Obtain the shared lookup cache, configuring it from system properties on first use.
+	 * 
+	 * @return the shared cache, which consults the responses held in memory before any
+	 *   configured cache.
+	 */
+	public static synchronized LookupCache getCache() { 
+		if (cache==null) { 
+			LookupCache configured = null;
+			String directory = System.getProperty(PROPERTY_CACHE_DIR);
+			if (directory!=null && directory.trim().length()>0) { 
+				try { 
+					int ttlDays = Integer.parseInt(System.getProperty(PROPERTY_CACHE_TTL_DAYS, Integer.toString(DEFAULT_TTL_DAYS)));
+					int maxEntries = Integer.parseInt(System.getProperty(PROPERTY_CACHE_MAX_ENTRIES, Integer.toString(DEFAULT_MAX_ENTRIES)));
+					configured = new FileLookupCache(new File(directory.trim()), ttlDays * 24L * 60L * 60L * 1000L, maxEntries);
+				} catch (IOException | NumberFormatException e) {
+					logger.error("Unable to open lookup cache in [" + directory + "], lookups will only be cached in memory. " + e.getMessage(), e);
+				}
+			}
+			setCache(configured);
+		}
+		return inMemoryFirst;
+	}
+	
+	/**
+	 * Replace the cache consulted when a response is not held in memory, closing any 
+	 * previous cache and discarding the responses held in memory.  The cache will be 
+	 * closed on shutdown of the JVM.
+	 * 
+	 * @param newCache the cache to use, null to hold responses only in memory.
+	 */
+	public static synchronized void setCache(LookupCache newCache) { 
+		if (cache!=null && cache!=newCache) { 
+			try { 
+				cache.close();
+			} catch (IOException e) {
+				logger.error(e.getMessage(), e);
+			}
+		}
+		if (newCache==null) { 
+			cache = new DisabledLookupCache();
+		} else { 
+			cache = newCache;
+		}
+		responses.clear();
+		inMemoryFirst = new InMemoryFirstLookupCache(responses, cache);
+		if (!shutdownHookAdded) { 
+			Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					closeCache();
+				}
+			}, "lookup-cache-shutdown"));
+			shutdownHookAdded = true;
+		}
+	}
+	
+	/**
+	 * Obtain the statistics and contents of the responses held in memory.
+	 * 
+	 * @return the in memory cache consulted before the configured cache.
+	 */
+	public static LruCache<String,String> getMemoryCache() { 
+		return responses;
+	}
+	
+	private static int memoryMaxEntries() { 
+		try { 
+			return Integer.parseInt(System.getProperty(PROPERTY_MEMORY_MAX_ENTRIES, Integer.toString(DEFAULT_MEMORY_MAX_ENTRIES)));
+		} catch (NumberFormatException e) {
+			logger.error("Unable to read " + PROPERTY_MEMORY_MAX_ENTRIES + ", using " + DEFAULT_MEMORY_MAX_ENTRIES + ". " + e.getMessage());
+			return DEFAULT_MEMORY_MAX_ENTRIES;
+		}
+	}
+	
+	private static synchronized void closeCache() { 
+		if (cache!=null) { 
+			try { 
+				cache.close();
+			} catch (IOException e) {
+				logger.error(e.getMessage(), e);
+			}
+		}
+	}
+	
+	/**
+	 * LookupCache that consults the responses held in memory before another cache, 
+	 * holding in memory the responses found in or added to the other cache.
+	 */
+	private static class InMemoryFirstLookupCache implements LookupCache { 
+		private final LruCache<String,String> memory;
+		private final LookupCache next;
+		
+		private InMemoryFirstLookupCache(LruCache<String,String> memory, LookupCache next) { 
+			this.memory = memory;
+			this.next = next;
+		}
+		
+		@Override
+		public String get(String key) {
+			String result = memory.get(key);
+			if (result==null) { 
+				result = next.get(key);
+				memory.put(key, result);
+			}
+			return result;
+		}
+		@Override
+		public void put(String key, String value) {
+			memory.put(key, value);
+			next.put(key, value);
+		}
+		@Override
+		public void invalidate(String key) {
+			memory.remove(key);
+			next.invalidate(key);
+		}
+		@Override
+		public void clear() {
+			memory.clear();
+			next.clear();
+		}
+		@Override
+		public int size() {
+			// responses held in memory are also in the other cache, unless it holds nothing
+			return Math.max(memory.size(), next.size());
+		}
+		@Override
+		public void close() throws IOException {
+			next.close();
+		}
+	}
+	
+	/**
+	 * LookupCache that holds nothing.
+	 */
+	private static class DisabledLookupCache implements LookupCache { 
+		@Override
+		public String get(String key) { return null; }
+		@Override
+		public void put(String key, String value) { }
+		@Override
+		public void invalidate(String key) { }
+		@Override
+		public void clear() { }
+		@Override
+		public int size() { return 0; }
+		@Override
+		public void close() { }
+	}
+	
+}
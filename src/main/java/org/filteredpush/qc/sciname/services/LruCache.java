@@ -0,0 +1,177 @@
+/** 
+ * LruCache.java 
+ * 
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, thread safe, in memory cache that evicts the least recently used entry 
+ * when full, and treats entries older than a time to live as absent, keeping counts 
+ * of hits, misses, and evictions.
+ * 
+ * @author mole
+ * @version $Id: $Id
+ * 
+ * @param <K> the type of the keys.
+ * @param <V> the type of the cached values, should be immutable or treated as read only.
+ */
+public class LruCache<K,V> implements LruCacheMBean {
+	
+	private final int maxSize;
+	private final long timeToLiveMillis;
+	private final LinkedHashMap<K,Entry<V>> entries;
+	
+	private long hits = 0L;
+	private long misses = 0L;
+	private long evictions = 0L;
+	
+	/**
+	 * Construct a cache.
+	 * 
+	 * @param maxSize the maximum number of entries to hold.
+	 * @param timeToLiveMillis the time after which entries expire, zero or less for no expiry.
+	 */
+	public LruCache(int maxSize, long timeToLiveMillis) { 
+		this.maxSize = maxSize;
+		this.timeToLiveMillis = timeToLiveMillis;
+		this.entries = new LinkedHashMap<K,Entry<V>>(Math.min(maxSize, 1024), 0.75f, true);
+	}
+	
+	/**
+	 * Obtain a cached value.
+	 * 
+	 * @param key for which to return the value.
+	 * @return the value, or null if not present or expired.
+	 */
+	public synchronized V get(K key) { 
+		Entry<V> entry = entries.get(key);
+		if (entry!=null && timeToLiveMillis > 0 && System.currentTimeMillis() - entry.storedAt > timeToLiveMillis) { 
+			entries.remove(key);
+			evictions++;
+			entry = null;
+		}
+		if (entry==null) { 
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.value;
+	}
+	
+	/**
+	 * Add a value to the cache, evicting the least recently used entry if full.
+	 * 
+	 * @param key for the value.
+	 * @param value to cache, null values are not cached.
+	 */
+	public synchronized void put(K key, V value) { 
+		if (value==null) { 
+			return;
+		}
+		entries.put(key, new Entry<V>(value, System.currentTimeMillis()));
+		Iterator<Map.Entry<K,Entry<V>>> i = entries.entrySet().iterator();
+		while (entries.size() > maxSize && i.hasNext()) { 
+			i.next();
+			i.remove();
+			evictions++;
+		}
+	}
+	
+	/**
+	 * Remove an entry.
+	 * 
+	 * @param key of the entry to remove.
+	 */
+	public synchronized void remove(K key) { 
+		entries.remove(key);
+	}
+	
+	/**
+	 * Remove all entries, retains the statistics.
+	 */
+	public synchronized void clear() { 
+		entries.clear();
+	}
+	
+	/**
+	 * @return the number of entries currently held, may include expired entries.
+	 */
+	public synchronized int size() { 
+		return entries.size();
+	}
+
+	/**
+	 * @return the number of lookups that found an unexpired value.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of lookups that did not find an unexpired value.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the number of entries removed as least recently used or expired.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+	
+	/**
+	 * @return the proportion of lookups that were hits, zero if there have been no lookups.
+	 */
+	public synchronized double getHitRatio() { 
+		long total = hits + misses;
+		if (total==0) { 
+			return 0d;
+		}
+		return (double)hits / (double)total;
+	}
+	
+	/**
+	 * Reset the hit, miss, and eviction counts to zero.
+	 */
+	public synchronized void resetStatistics() { 
+		hits = 0L;
+		misses = 0L;
+		evictions = 0L;
+	}
+	
+	/** {@inheritDoc} */
+	@Override
+	public synchronized String toString() { 
+		return "size=" + entries.size() + " hits=" + hits + " misses=" + misses + " evictions=" + evictions;
+	}
+	
+	private static class Entry<V> { 
+		private final V value;
+		private final long storedAt;
+		
+		private Entry(V value, long storedAt) { 
+			this.value = value;
+			this.storedAt = storedAt;
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+/**
+ * LruCacheMBean.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+/**
+ * JMX view of the statistics of an {@link LruCache}.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public interface LruCacheMBean {
+
+	/** @return the number of entries currently held. */
+	public int size();
+
+	/** @return the number of lookups that found an unexpired value. */
+	public long getHits();
+
+	/** @return the number of lookups that did not find an unexpired value. */
+	public long getMisses();
+
+	/** @return the number of entries removed as least recently used or expired. */
+	public long getEvictions();
+
+	/** @return the proportion of lookups that were hits. */
+	public double getHitRatio();
+
+	/** Reset the hit, miss, and eviction counts to zero. */
+	public void resetStatistics();
+
+	/** Remove all entries. */
+	public void clear();
+
+}
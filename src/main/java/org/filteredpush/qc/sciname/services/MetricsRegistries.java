@@ -0,0 +1,148 @@
+/**
+ * MetricsRegistries.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holder for the MetricsRegistry shared by the services in this package, the batch
+ * runners, and DQRecordRunner, with helpers for timing calls.
+ *
+ * By default measurements are held by an InMemoryMetricsRegistry and registered with JMX.
+ * Set the system property sciname.metrics.jmx to false to not register with JMX, or
+ * sciname.metrics.enabled to false to discard all measurements, or call
+ * {@link #setRegistry(MetricsRegistry)} to send measurements elsewhere.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public class MetricsRegistries {
+
+	/** System property, false to discard all measurements, default true. */
+	public static final String PROPERTY_METRICS_ENABLED = "sciname.metrics.enabled";
+	/** System property, false to not register measurements with JMX, default true. */
+	public static final String PROPERTY_METRICS_JMX = "sciname.metrics.jmx";
+
+	private static volatile MetricsRegistry registry = null;
+	/** In memory caches registered so far, registered again with any replacement registry. */
+	private static final Map<String,LruCache<?,?>> caches = new LinkedHashMap<String,LruCache<?,?>>();
+
+	private MetricsRegistries() {
+	}
+
+	/**
+	 * Obtain the shared registry, configuring it from system properties on first use.
+	 *
+	 * @return the shared registry.
+	 */
+	public static MetricsRegistry getRegistry() {
+		MetricsRegistry result = registry;
+		if (result==null) { 
+			synchronized (MetricsRegistries.class) { 
+				if (registry==null) { 
+					if (Boolean.parseBoolean(System.getProperty(PROPERTY_METRICS_ENABLED, "true"))) { 
+						setRegistry(new InMemoryMetricsRegistry(Boolean.parseBoolean(System.getProperty(PROPERTY_METRICS_JMX, "true"))));
+					} else { 
+						setRegistry(null);
+					}
+				}
+				result = registry;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Replace the shared registry, closing any previous registry.
+	 *
+	 * @param newRegistry the registry to use, null to discard measurements.
+	 */
+	public static synchronized void setRegistry(MetricsRegistry newRegistry) {
+		if (registry!=null && registry!=newRegistry) { 
+			registry.close();
+		}
+		if (newRegistry==null) { 
+			registry = new DisabledMetricsRegistry();
+		} else { 
+			registry = newRegistry;
+		}
+		Iterator<Map.Entry<String,LruCache<?,?>>> i = caches.entrySet().iterator();
+		while (i.hasNext()) { 
+			Map.Entry<String,LruCache<?,?>> entry = i.next();
+			registry.registerCache(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Make the statistics of an in memory cache available through the shared registry,
+	 * and any registry that replaces it.
+	 *
+	 * @param name a unique name for the cache.
+	 * @param cache the cache.
+	 */
+	public static synchronized void registerCache(String name, LruCache<?,?> cache) {
+		caches.put(name, cache);
+		getRegistry().registerCache(name, cache);
+	}
+
+	/**
+	 * Start timing a call.
+	 *
+	 * @return the start time to pass to {@link #stop(String, String, long, boolean)}.
+	 */
+	public static long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Record a call timed from {@link #start()} in the shared registry.
+	 *
+	 * @param component the service or other component called.
+	 * @param operation the operation invoked.
+	 * @param start the value returned by start() when the call began.
+	 * @param failed true if the call failed.
+	 */
+	public static void stop(String component, String operation, long start, boolean failed) {
+		getRegistry().recordCall(component, operation, System.nanoTime() - start, failed);
+	}
+
+	/**
+	 * MetricsRegistry that discards all measurements.
+	 */
+	private static class DisabledMetricsRegistry implements MetricsRegistry {
+		@Override
+		public void recordCall(String component, String operation, long elapsedNanos, boolean failed) { }
+		@Override
+		public void recordRetry(String component, String operation) { }
+		@Override
+		public void recordCoalesced(String component, String operation) { }
+		@Override
+		public void recordBytesReceived(String component, String operation, long bytes) { }
+		@Override
+		public void recordCacheLookup(String component, String operation, boolean hit) { }
+		@Override
+		public void registerCache(String name, LruCache<?,?> cache) { }
+		@Override
+		public String summary() { return ""; }
+		@Override
+		public void close() { }
+	}
+
+}
@@ -0,0 +1,100 @@
+/**
+ * MetricsRegistry.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+/**
+ * Receives measurements of the calls made to remote name services, of the data quality
+ * tests run on records, and of the caches in front of them, so that the time spent in
+ * each service and test can be found.  Measurements are identified by a component, such as
+ * a service class, the host of a service, or DwCSciNameDQ, and an operation on that component,
+ * such as an api method or the label of a test.
+ *
+ * The shared registry is held by {@link MetricsRegistries}, implement this interface to send
+ * measurements to another metrics library.  Implementations must be safe for concurrent use,
+ * and should be cheap, as they are called on every lookup.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public interface MetricsRegistry {
+
+	/**
+	 * Record a completed call.
+	 *
+	 * @param component the service or other component called.
+	 * @param operation the operation invoked.
+	 * @param elapsedNanos the duration of the call in nanoseconds.
+	 * @param failed true if the call failed.
+	 */
+	public void recordCall(String component, String operation, long elapsedNanos, boolean failed);
+
+	/**
+	 * Record a call being retried after a failure.
+	 *
+	 * @param component the service or other component called.
+	 * @param operation the operation invoked.
+	 */
+	public void recordRetry(String component, String operation);
+
+	/**
+	 * Record a call saved by waiting for the result of an identical call already in flight,
+	 * see {@link SingleFlight}.
+	 *
+	 * @param component the service or other component called.
+	 * @param operation the operation invoked.
+	 */
+	public void recordCoalesced(String component, String operation);
+
+	/**
+	 * Record data received in response to a call.
+	 *
+	 * @param component the service or other component called.
+	 * @param operation the operation invoked.
+	 * @param bytes the number of bytes received.
+	 */
+	public void recordBytesReceived(String component, String operation, long bytes);
+
+	/**
+	 * Record a lookup in a cache of the responses to an operation.
+	 *
+	 * @param component the service whose responses are cached.
+	 * @param operation the operation whose responses are cached.
+	 * @param hit true if the response was found in the cache.
+	 */
+	public void recordCacheLookup(String component, String operation, boolean hit);
+
+	/**
+	 * Make the statistics of an in memory cache available through the registry.
+	 *
+	 * @param name a unique name for the cache.
+	 * @param cache the cache.
+	 */
+	public void registerCache(String name, LruCache<?,?> cache);
+
+	/**
+	 * @return a human readable summary of the measurements so far, one line per operation
+	 *   and cache.
+	 */
+	public String summary();
+
+	/**
+	 * Release any resources held by the registry, such as registrations with JMX.
+	 */
+	public void close();
+
+}
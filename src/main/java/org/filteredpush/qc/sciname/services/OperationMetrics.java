@@ -0,0 +1,288 @@
+/**
+ * OperationMetrics.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts, latency histogram, and cache statistics for one operation on one component,
+ * as held by InMemoryMetricsRegistry.  Durations are counted in buckets of powers of two
+ * microseconds, so percentiles are the upper bound of the bucket holding the percentile,
+ * accurate to within a factor of two, which is enough to tell a slow service from a fast one.
+ *
+ * Safe for concurrent use, recording does not block.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+
+	/** Number of buckets, the last holds all durations of more than about 35 minutes. */
+	private static final int BUCKETS = 32;
+
+	private final String component;
+	private final String operation;
+
+	private final LongAdder count = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+	private final LongAdder bytesReceived = new LongAdder();
+	private final LongAdder cacheHits = new LongAdder();
+	private final LongAdder cacheMisses = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+	private final AtomicLong firstCall = new AtomicLong();
+	/** Count of calls taking from 2^i to 2^(i+1) microseconds in bucket i. */
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	/**
+	 * @param component the service or other component called.
+	 * @param operation the operation invoked.
+	 */
+	public OperationMetrics(String component, String operation) {
+		this.component = component;
+		this.operation = operation;
+	}
+
+	/**
+	 * Record a completed call.
+	 *
+	 * @param elapsedNanos the duration of the call.
+	 * @param failed true if the call failed.
+	 */
+	public void recordCall(long elapsedNanos, boolean failed) {
+		long nanos = Math.max(0L, elapsedNanos);
+		firstCall.compareAndSet(0L, System.currentTimeMillis());
+		count.increment();
+		if (failed) { 
+			failures.increment();
+		}
+		totalNanos.add(nanos);
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) { 
+			max = maxNanos.get();
+		}
+		buckets.incrementAndGet(bucket(nanos));
+	}
+
+	/**
+	 * Record a retry of a failed call.
+	 */
+	public void recordRetry() {
+		retries.increment();
+	}
+
+	/**
+	 * Record a call saved by waiting for an identical call in flight.
+	 */
+	public void recordCoalesced() {
+		coalesced.increment();
+	}
+
+	/**
+	 * Record data received.
+	 *
+	 * @param bytes the number of bytes received.
+	 */
+	public void recordBytesReceived(long bytes) {
+		bytesReceived.add(bytes);
+	}
+
+	/**
+	 * Record a cache lookup.
+	 *
+	 * @param hit true if the lookup found a response.
+	 */
+	public void recordCacheLookup(boolean hit) {
+		if (hit) { 
+			cacheHits.increment();
+		} else { 
+			cacheMisses.increment();
+		}
+	}
+
+	private static int bucket(long nanos) {
+		long micros = Math.max(1L, nanos / 1000L);
+		return Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+	}
+
+	@Override
+	public String getComponent() {
+		return component;
+	}
+
+	@Override
+	public String getOperation() {
+		return operation;
+	}
+
+	@Override
+	public long getCount() {
+		return count.sum();
+	}
+
+	@Override
+	public long getFailures() {
+		return failures.sum();
+	}
+
+	@Override
+	public long getRetries() {
+		return retries.sum();
+	}
+
+	@Override
+	public long getCoalesced() {
+		return coalesced.sum();
+	}
+
+	@Override
+	public long getBytesReceived() {
+		return bytesReceived.sum();
+	}
+
+	@Override
+	public long getCacheHits() {
+		return cacheHits.sum();
+	}
+
+	@Override
+	public long getCacheMisses() {
+		return cacheMisses.sum();
+	}
+
+	@Override
+	public double getCacheHitRatio() {
+		long hits = cacheHits.sum();
+		long total = hits + cacheMisses.sum();
+		if (total==0) { 
+			return 0d;
+		}
+		return (double)hits / (double)total;
+	}
+
+	@Override
+	public double getMeanMillis() {
+		long calls = count.sum();
+		if (calls==0) { 
+			return 0d;
+		}
+		return totalNanos.sum() / (calls * 1000000d);
+	}
+
+	@Override
+	public double getMaxMillis() {
+		return maxNanos.get() / 1000000d;
+	}
+
+	@Override
+	public double getMedianMillis() {
+		return getPercentileMillis(0.5d);
+	}
+
+	@Override
+	public double getPercentile95Millis() {
+		return getPercentileMillis(0.95d);
+	}
+
+	@Override
+	public double getPercentile99Millis() {
+		return getPercentileMillis(0.99d);
+	}
+
+	/**
+	 * Estimate a percentile of the duration of calls.
+	 *
+	 * @param fraction the percentile as a fraction, e.g. 0.95 for the 95th percentile.
+	 * @return the upper bound of the histogram bucket holding the percentile in milliseconds,
+	 *   no more than the longest call, or zero if there have been no calls.
+	 */
+	public double getPercentileMillis(double fraction) {
+		long[] counts = new long[BUCKETS];
+		long total = 0L;
+		for (int i=0; i<BUCKETS; i++) { 
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total==0) { 
+			return 0d;
+		}
+		long target = (long)Math.ceil(total * fraction);
+		long seen = 0L;
+		int bucket = 0;
+		while (bucket < BUCKETS - 1 && seen + counts[bucket] < target) { 
+			seen += counts[bucket];
+			bucket++;
+		}
+		double upperBound = (1L << (bucket + 1)) / 1000d;
+		return Math.min(upperBound, getMaxMillis());
+	}
+
+	@Override
+	public double getCallsPerSecond() {
+		long first = firstCall.get();
+		if (first==0L) { 
+			return 0d;
+		}
+		long elapsed = Math.max(1L, System.currentTimeMillis() - first);
+		return count.sum() * 1000d / elapsed;
+	}
+
+	@Override
+	public void reset() {
+		count.reset();
+		failures.reset();
+		retries.reset();
+		coalesced.reset();
+		bytesReceived.reset();
+		cacheHits.reset();
+		cacheMisses.reset();
+		totalNanos.reset();
+		maxNanos.set(0L);
+		firstCall.set(0L);
+		for (int i=0; i<BUCKETS; i++) { 
+			buckets.set(i, 0L);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		result.append(component).append(' ').append(operation);
+		result.append(" calls=").append(getCount());
+		result.append(" failures=").append(getFailures());
+		result.append(" retries=").append(getRetries());
+		result.append(String.format(" mean=%.1fms p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms rate=%.2f/s",
+				getMeanMillis(), getMedianMillis(), getPercentile95Millis(), getPercentile99Millis(), getMaxMillis(), getCallsPerSecond()));
+		if (getCoalesced() > 0) { 
+			result.append(" coalesced=").append(getCoalesced());
+		}
+		if (getBytesReceived() > 0) { 
+			result.append(" bytes=").append(getBytesReceived());
+		}
+		if (getCacheHits() + getCacheMisses() > 0) { 
+			result.append(String.format(" cacheHits=%d cacheMisses=%d hitRatio=%.2f", getCacheHits(), getCacheMisses(), getCacheHitRatio()));
+		}
+		return result.toString();
+	}
+
+}
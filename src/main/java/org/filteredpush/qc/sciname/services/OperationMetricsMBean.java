@@ -0,0 +1,79 @@
+/**
+ * OperationMetricsMBean.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+/**
+ * JMX view of the measurements of one operation, see {@link OperationMetrics}.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public interface OperationMetricsMBean {
+
+	/** @return the service or other component called. */
+	public String getComponent();
+
+	/** @return the operation invoked. */
+	public String getOperation();
+
+	/** @return the number of calls completed. */
+	public long getCount();
+
+	/** @return the number of calls that failed. */
+	public long getFailures();
+
+	/** @return the number of calls retried after a failure. */
+	public long getRetries();
+
+	/** @return the number of calls saved by waiting for an identical call in flight. */
+	public long getCoalesced();
+
+	/** @return the number of bytes received. */
+	public long getBytesReceived();
+
+	/** @return the number of cache lookups that found a response. */
+	public long getCacheHits();
+
+	/** @return the number of cache lookups that did not find a response. */
+	public long getCacheMisses();
+
+	/** @return the proportion of cache lookups that were hits, zero if there have been none. */
+	public double getCacheHitRatio();
+
+	/** @return the mean duration of a call in milliseconds. */
+	public double getMeanMillis();
+
+	/** @return the longest duration of a call in milliseconds. */
+	public double getMaxMillis();
+
+	/** @return the median duration of a call in milliseconds, to within a factor of two. */
+	public double getMedianMillis();
+
+	/** @return the 95th percentile duration of a call in milliseconds, to within a factor of two. */
+	public double getPercentile95Millis();
+
+	/** @return the 99th percentile duration of a call in milliseconds, to within a factor of two. */
+	public double getPercentile99Millis();
+
+	/** @return the mean number of calls completed per second since the first call. */
+	public double getCallsPerSecond();
+
+	/** Set all of the measurements back to zero. */
+	public void reset();
+
+}
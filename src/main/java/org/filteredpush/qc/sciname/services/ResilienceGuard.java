@@ -0,0 +1,343 @@
+/**
+ * ResilienceGuard.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Rate limit, backoff, and circuit breaker for the requests made to one source authority,
+ * so that a throttling or failing service is slowed down to what it sustains, or left alone
+ * for a while, rather than being sent retries as fast as they fail.  One guard is held for
+ * each host by HttpClients, which consults it for every request.
+ *
+ * The rate limit, if one is given, is a token bucket, adapted to the service: it is halved each time the service
+ * responds that it is overloaded (HTTP 429 or 503), and grows back towards the configured rate
+ * by about one request per second each second while requests succeed.  A Retry-After given by
+ * the service pauses all requests to it until that time.  Retries are delayed by an exponential
+ * backoff with jitter.  After a number of consecutive failed requests the circuit opens, and
+ * requests fail at once without being sent until a pause has passed, then a single trial request
+ * is let through, closing the circuit again if it succeeds.  A trial request that ends without
+ * an outcome, interrupted or by an unexpected error, is released with releaseTrial so that
+ * the next request is let through as the trial.
+ *
+ * Safe for concurrent use.
+ *
+ * @author mole
+ * @version $Id: $Id
+ */
+public class ResilienceGuard {
+
+	private static final Log logger = LogFactory.getLog(ResilienceGuard.class);
+
+	/** States of the circuit breaker. */
+	public enum CircuitState {
+		/** Requests are sent. */
+		CLOSED,
+		/** Requests fail without being sent. */
+		OPEN,
+		/** A single trial request has been sent to find out if the service has recovered. */
+		HALF_OPEN
+	}
+
+	/** Lowest rate the limit is reduced to, in requests per second. */
+	private static final double MIN_RATE = 0.5d;
+
+	private final String authority;
+	private final double maxRate;
+	private final double burst;
+	private final int maxRetries;
+	private final long baseDelayMillis;
+	private final long maxDelayMillis;
+	private final int failureThreshold;
+	private final long openMillis;
+
+	// token bucket, guarded by this
+	private double rate;
+	private double tokens;
+	private long lastRefillNanos;
+	private long pausedUntilNanos;
+
+	// circuit breaker, guarded by this
+	private CircuitState state = CircuitState.CLOSED;
+	private int consecutiveFailures = 0;
+	private long openUntilMillis = 0L;
+	private boolean trialInFlight = false;
+
+	/**
+	 * Create a guard.
+	 *
+	 * @param authority the host or other name of the service, used in messages.
+	 * @param maxRate the highest rate of requests in requests per second, 0 or less for no limit.
+	 * @param burst the number of requests that may be made at once after a quiet period.
+	 * @param maxRetries the number of times a request is retried.
+	 * @param baseDelayMillis the delay before the first retry, doubled for each retry after.
+	 * @param maxDelayMillis the longest delay before a retry, a Retry-After longer than this
+	 *   is not waited for.
+	 * @param failureThreshold the number of consecutive failed requests that opens the circuit.
+	 * @param openMillis how long the circuit stays open before a trial request.
+	 */
+	public ResilienceGuard(String authority, double maxRate, int burst, int maxRetries, long baseDelayMillis, long maxDelayMillis,
+			int failureThreshold, long openMillis) {
+		this.authority = authority;
+		this.maxRate = maxRate;
+		this.burst = Math.max(1, burst);
+		this.maxRetries = Math.max(0, maxRetries);
+		this.baseDelayMillis = Math.max(1L, baseDelayMillis);
+		this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+		this.failureThreshold = Math.max(1, failureThreshold);
+		this.openMillis = Math.max(0L, openMillis);
+		this.rate = maxRate;
+		this.tokens = this.burst;
+		this.lastRefillNanos = System.nanoTime();
+		this.pausedUntilNanos = lastRefillNanos;
+	}
+
+	/**
+	 * Check that a request may be made, to be called once for each request, before any attempt.
+	 *
+	 * @return true if the request is the trial request of a half open circuit, which must end
+	 *   with onSuccess, onFailure, or releaseTrial, otherwise false.
+	 * @throws CircuitOpenException if the circuit is open, or a trial request is already in flight.
+	 */
+	public synchronized boolean checkCircuit() throws CircuitOpenException {
+		if (state==CircuitState.CLOSED) { 
+			return false;
+		}
+		if (state==CircuitState.OPEN && System.currentTimeMillis() >= openUntilMillis) { 
+			state = CircuitState.HALF_OPEN;
+			trialInFlight = false;
+		}
+		if (state==CircuitState.HALF_OPEN && !trialInFlight) { 
+			trialInFlight = true;
+			logger.info("Trying " + authority + " again.");
+			return true;
+		}
+		throw new CircuitOpenException("Not sending request to " + authority + ", the service has failed repeatedly, will try again after a pause.");
+	}
+
+	/**
+	 * Wait until the rate limit, and any pause requested by the service, allow an attempt.
+	 *
+	 * @throws InterruptedIOException if interrupted while waiting.
+	 */
+	public void acquire() throws InterruptedIOException {
+		long waitMillis = reserveMillis();
+		if (waitMillis > 0L) { 
+			sleep(waitMillis);
+		}
+	}
+
+	/**
+	 * Reserve an attempt under the rate limit without waiting, for callers that schedule
+	 * the attempt rather than block until it may be made.
+	 *
+	 * @return the time in milliseconds to wait before making the attempt, 0 for none.
+	 */
+	public long reserveMillis() {
+		long waitNanos;
+		synchronized (this) { 
+			long now = System.nanoTime();
+			waitNanos = Math.max(0L, pausedUntilNanos - now);
+			if (rate > 0d) { 
+				tokens = Math.min(burst, tokens + (now - lastRefillNanos) * rate / 1e9d);
+				lastRefillNanos = now;
+				// reserve a token, going into debt which later callers wait out
+				tokens -= 1d;
+				if (tokens < 0d) { 
+					waitNanos = Math.max(waitNanos, (long)(-tokens / rate * 1e9d));
+				}
+			}
+		}
+		if (waitNanos > 0L) { 
+			return TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1L;
+		}
+		return 0L;
+	}
+
+	/**
+	 * Record a request that succeeded, closing the circuit and growing the rate back
+	 * towards the configured rate.
+	 */
+	public synchronized void onSuccess() {
+		if (state!=CircuitState.CLOSED) { 
+			logger.info("Service " + authority + " has recovered.");
+		}
+		state = CircuitState.CLOSED;
+		trialInFlight = false;
+		consecutiveFailures = 0;
+		if (maxRate > 0d && rate < maxRate) { 
+			rate = Math.min(maxRate, rate + 1d / rate);
+		}
+	}
+
+	/**
+	 * Release the trial request of a half open circuit that ended without onSuccess or onFailure,
+	 * so that the next request is let through as the trial, rather than every later request
+	 * failing while the circuit waits for an outcome that will not come.
+	 */
+	public synchronized void releaseTrial() {
+		if (state==CircuitState.HALF_OPEN) { 
+			trialInFlight = false;
+		}
+	}
+
+	/**
+	 * Record a response saying that the service is overloaded, halving the rate, and pausing
+	 * requests for any time requested by the service.
+	 *
+	 * @param retryAfterMillis the time to wait given by the service, 0 if none.
+	 */
+	public synchronized void onThrottled(long retryAfterMillis) {
+		if (maxRate > 0d) { 
+			rate = Math.max(MIN_RATE, rate / 2d);
+			tokens = Math.min(tokens, 0d);
+		}
+		if (retryAfterMillis > 0L && retryAfterMillis <= maxDelayMillis) { 
+			pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis));
+		}
+		logger.debug("Throttled by " + authority + ", rate now " + rate);
+	}
+
+	/**
+	 * Record a request that failed after any retries, opening the circuit after
+	 * failureThreshold consecutive failures, or if a trial request failed.
+	 */
+	public synchronized void onFailure() {
+		consecutiveFailures++;
+		trialInFlight = false;
+		if (state==CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) { 
+			if (state!=CircuitState.OPEN) { 
+				logger.error("Service " + authority + " failed " + consecutiveFailures + " times, pausing requests for " + openMillis + " ms.");
+			}
+			state = CircuitState.OPEN;
+			openUntilMillis = System.currentTimeMillis() + openMillis;
+		}
+	}
+
+	/**
+	 * Obtain the delay before retrying a request.
+	 *
+	 * @param attempt the number of retries already made for the request, from 0.
+	 * @param retryAfterMillis the time to wait given by the service, 0 if none.
+	 * @return the delay in milliseconds, between half of and the full exponential backoff for the
+	 *   attempt, and no less than any Retry-After, or -1 if the request should not be retried.
+	 */
+	public long backoffMillis(int attempt, long retryAfterMillis) {
+		if (attempt >= maxRetries || retryAfterMillis > maxDelayMillis) { 
+			return -1L;
+		}
+		long delay = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt, 30));
+		delay = delay / 2L + ThreadLocalRandom.current().nextLong(delay / 2L + 1L);
+		return Math.max(delay, retryAfterMillis);
+	}
+
+	/**
+	 * Parse the value of a Retry-After header.
+	 *
+	 * @param value the header value, either a number of seconds or an HTTP date, may be null.
+	 * @param nowMillis the current time.
+	 * @return the time to wait in milliseconds, 0 if none or unparsable.
+	 */
+	public static long parseRetryAfter(String value, long nowMillis) {
+		if (value==null || value.trim().length()==0) { 
+			return 0L;
+		}
+		String trimmed = value.trim();
+		try { 
+			return Math.max(0L, Long.parseLong(trimmed) * 1000L);
+		} catch (NumberFormatException e) {
+			try { 
+				long at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+				return Math.max(0L, at - nowMillis);
+			} catch (DateTimeParseException ex) {
+				logger.debug("Ignoring Retry-After [" + value + "]");
+			}
+		}
+		return 0L;
+	}
+
+	/**
+	 * Sleep before a retry or while rate limited.
+	 *
+	 * @param millis the time to sleep.
+	 * @throws InterruptedIOException if interrupted.
+	 */
+	public static void sleep(long millis) throws InterruptedIOException {
+		try { 
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to make a request.");
+		}
+	}
+
+	/**
+	 * @return the host or other name of the service.
+	 */
+	public String getAuthority() {
+		return authority;
+	}
+
+	/**
+	 * @return the current rate limit in requests per second, 0 or less for no limit.
+	 */
+	public synchronized double getRate() {
+		return rate;
+	}
+
+	/**
+	 * @return the state of the circuit breaker.
+	 */
+	public synchronized CircuitState getCircuitState() {
+		if (state==CircuitState.OPEN && System.currentTimeMillis() >= openUntilMillis) { 
+			return CircuitState.HALF_OPEN;
+		}
+		return state;
+	}
+
+	/**
+	 * @return the number of times a request is retried.
+	 */
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	/**
+	 * Thrown instead of sending a request while the circuit is open.
+	 */
+	public static class CircuitOpenException extends IOException {
+		private static final long serialVersionUID = 4619357384524791302L;
+
+		/**
+		 * @param message the detail message.
+		 */
+		public CircuitOpenException(String message) {
+			super(message);
+		}
+	}
+
+}
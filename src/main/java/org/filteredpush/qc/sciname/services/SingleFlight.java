@@ -0,0 +1,196 @@
+/**
+ * SingleFlight.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical lookups, so that when several threads ask for the same
+ * key at the same time, for example the same family while records are validated in
+ * parallel, only the first makes the call and the others wait for and share its result
+ * (or its failure).  Only calls in flight are shared, once a call completes the next
+ * lookup of the key makes a new call, so this complements rather than replaces the caches.
+ *
+ * Results are handed to every waiting caller, so should be immutable, such as a response
+ * string, or treated as read only.  Each call saved is recorded in the shared MetricsRegistry
+ * against the component and operation, and counted in getCoalesced().
+ *
+ * @author mole
+ * @version $Id: $Id
+ *
+ * @param <V> the type of the result of a lookup.
+ */
+public class SingleFlight<V> {
+
+	/**
+	 * A lookup to make on behalf of all concurrent callers with the same key.
+	 *
+	 * @param <V> the type of the result.
+	 * @param <E> the type of exception thrown by the lookup.
+	 */
+	public interface Call<V, E extends Exception> {
+		/**
+		 * Make the lookup.
+		 *
+		 * @return the result of the lookup.
+		 * @throws E on a failure of the lookup.
+		 */
+		public V call() throws E;
+	}
+
+	private final String component;
+	private final ConcurrentMap<String,CompletableFuture<V>> inFlight = new ConcurrentHashMap<String,CompletableFuture<V>>();
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+
+	/**
+	 * @param component the service whose lookups are coalesced, under which the calls saved
+	 *   are recorded in the shared MetricsRegistry.
+	 */
+	public SingleFlight(String component) {
+		this.component = component;
+	}
+
+	/**
+	 * Make a lookup, or if an identical lookup is already in flight, wait for its result.
+	 *
+	 * @param operation the operation on the service, lookups are identical if they have the
+	 *   same operation and key.
+	 * @param key identifies the lookup within the operation, including any parameters that
+	 *   affect the result.
+	 * @param call makes the lookup, invoked only if no identical lookup is in flight.
+	 * @return the result of this or the identical lookup.
+	 * @throws E if this or the identical lookup failed.
+	 */
+	public <E extends Exception> V execute(String operation, String key, Call<V,E> call) throws E {
+		String flightKey = operation + LookupCache.KEY_SEPARATOR + key;
+		CompletableFuture<V> created = new CompletableFuture<V>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(flightKey, created);
+		if (existing!=null) { 
+			coalesced(operation);
+			return await(existing);
+		}
+		calls.increment();
+		try { 
+			V result = call.call();
+			created.complete(result);
+			return result;
+		} catch (Exception e) {
+			created.completeExceptionally(e);
+			throw e;
+		} catch (Error e) {
+			created.completeExceptionally(e);
+			throw e;
+		} finally { 
+			inFlight.remove(flightKey, created);
+		}
+	}
+
+	/**
+	 * Make a lookup without blocking, or if an identical lookup is already in flight (whether
+	 * started with this method or with execute), return a future for its result.
+	 *
+	 * @param operation the operation on the service, as for execute.
+	 * @param key identifies the lookup within the operation, as for execute.
+	 * @param call starts the lookup, invoked only if no identical lookup is in flight.
+	 * @return a future for the result of this or the identical lookup.
+	 */
+	public CompletableFuture<V> executeAsync(String operation, String key, Supplier<CompletableFuture<V>> call) {
+		final String flightKey = operation + LookupCache.KEY_SEPARATOR + key;
+		final CompletableFuture<V> created = new CompletableFuture<V>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(flightKey, created);
+		if (existing!=null) { 
+			coalesced(operation);
+			return existing;
+		}
+		calls.increment();
+		CompletableFuture<V> started;
+		try { 
+			started = call.get();
+		} catch (RuntimeException e) {
+			inFlight.remove(flightKey, created);
+			created.completeExceptionally(e);
+			return created;
+		}
+		started.whenComplete(new BiConsumer<V,Throwable>() {
+			@Override
+			public void accept(V result, Throwable failure) {
+				inFlight.remove(flightKey, created);
+				if (failure!=null) { 
+					created.completeExceptionally(failure instanceof CompletionException && failure.getCause()!=null ? failure.getCause() : failure);
+				} else { 
+					created.complete(result);
+				}
+			}
+		});
+		return created;
+	}
+
+	private void coalesced(String operation) {
+		coalesced.increment();
+		MetricsRegistries.getRegistry().recordCoalesced(component, operation);
+	}
+
+	/**
+	 * Wait, uninterruptibly, for the result of a lookup made by another caller.
+	 */
+	@SuppressWarnings("unchecked")
+	private <E extends Exception> V await(CompletableFuture<V> future) throws E {
+		try { 
+			return future.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) { 
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) { 
+				throw (Error) cause;
+			}
+			// thrown by a Call<V,E> for the same operation, or by a future started by executeAsync
+			throw (E) cause;
+		}
+	}
+
+	/**
+	 * @return the number of lookups made.
+	 */
+	public long getCalls() {
+		return calls.sum();
+	}
+
+	/**
+	 * @return the number of lookups saved by waiting for an identical lookup in flight.
+	 */
+	public long getCoalesced() {
+		return coalesced.sum();
+	}
+
+	/**
+	 * @return the number of lookups currently in flight.
+	 */
+	public int getInFlight() {
+		return inFlight.size();
+	}
+
+}
@@ -0,0 +1,481 @@
+/** 
+ * TaxonFileIndex.java 
+ * 
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import edu.harvard.mcz.nametools.ApproximateNameIndex;
+
+/**
+ * Read only index over the tab delimited taxon core file of a Darwin Core archive 
+ * exported from a taxonomic authority, such as the Taxon.tsv file of the GBIF backbone 
+ * or the taxon.txt file of a WoRMS or IRMNG export.  The first line of the file must
+ * be a header giving the Darwin Core terms of the columns.
+ * 
+ * The file is memory mapped, and only the offset of each record is held in memory, along 
+ * with sorted indexes of taxon keys, of hashes of canonical names and scientific names, 
+ * and of the accepted keys of synonyms.  Records are parsed from the mapped file on each
+ * lookup.  An index of the distinct canonical names for approximate matching is built 
+ * on the first approximate lookup.  Taxon keys are the integers at the end of the taxonID, so both plain integer 
+ * identifiers and LSIDs such as urn:lsid:marinespecies.org:taxname:1 can be indexed.
+ * 
+ * Instances are safe for concurrent use once constructed.
+ * 
+ * @author mole
+ * @version $Id: $Id
+ */
+public class TaxonFileIndex {
+	
+	private static final Log logger = LogFactory.getLog(TaxonFileIndex.class);
+	
+	/** Largest mapped segment of the file, segments end on line boundaries. */
+	private static final int MAX_SEGMENT_SIZE = 1 << 30;
+	
+	private final File taxonFile;
+	private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+	private final Map<String,Integer> columns = new HashMap<String,Integer>();
+	
+	/** Packed segment index (high) and position within the segment (low) of each record. */
+	private long[] recordLocations = new long[1024];
+	private int recordCount = 0;
+	
+	/** Packed taxon key (high) and record number (low), sorted. */
+	private long[] keyIndex;
+	/** Packed hash of lower case name (high) and record number (low), sorted. */
+	private long[] nameIndex;
+	/** Packed accepted key (high) and record number (low) for synonyms, sorted. */
+	private long[] acceptedIndex;
+	
+	/** Distinct canonical names, built on first use by findByApproximateName(). */
+	private ApproximateNameIndex approximateNameIndex = null;
+	
+	private int columnTaxonID = -1;
+	private int columnAccepted = -1;
+	private int columnScientificName = -1;
+	private int columnAuthorship = -1;
+	private int columnCanonicalName = -1;
+	
+	/**
+	 * Load and index a taxon file.
+	 * 
+	 * @param taxonFile the tab delimited taxon file, with a header.
+	 * @throws IOException if the file can't be read, or doesn't have taxonID and 
+	 *   scientificName columns.
+	 */
+	public TaxonFileIndex(File taxonFile) throws IOException { 
+		this.taxonFile = taxonFile;
+		if (!taxonFile.canRead()) { 
+			throw new IOException("Unable to read taxon file [" + taxonFile.getPath() + "]");
+		}
+		long start = System.currentTimeMillis();
+		load();
+		logger.info("Indexed " + recordCount + " taxon records from " + taxonFile.getPath() + " in " + (System.currentTimeMillis() - start) + " ms");
+	}
+	
+	/**
+	 * @return the number of records in the file.
+	 */
+	public int size() { 
+		return recordCount;
+	}
+	
+	/**
+	 * Find the column holding a Darwin Core term.
+	 * 
+	 * @param term the simple name of the term, e.g. taxonRank.
+	 * @return the position of the column, or -1 if the file has no such column.
+	 */
+	public int column(String term) { 
+		Integer result = columns.get(term);
+		if (result==null) { 
+			return -1;
+		}
+		return result.intValue();
+	}
+	
+	private void load() throws IOException { 
+		FileChannel channel = FileChannel.open(taxonFile.toPath(), StandardOpenOption.READ);
+		try { 
+			long size = channel.size();
+			long start = 0;
+			while (start < size) { 
+				long length = Math.min(MAX_SEGMENT_SIZE, size - start);
+				MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+				int end = (int)length;
+				if (start + length < size) { 
+					// end the segment after the last complete line
+					while (end > 0 && segment.get(end - 1) != '\n') { 
+						end--;
+					}
+					if (end==0) { 
+						throw new IOException("Line longer than " + MAX_SEGMENT_SIZE + " bytes in " + taxonFile.getPath());
+					}
+					segment = channel.map(FileChannel.MapMode.READ_ONLY, start, end);
+				}
+				segments.add(segment);
+				start += end;
+			}
+		} finally { 
+			channel.close();
+		}
+		
+		LongList keys = new LongList();
+		LongList names = new LongList();
+		LongList accepted = new LongList();
+		boolean header = true;
+		for (int s=0; s<segments.size(); s++) { 
+			MappedByteBuffer segment = segments.get(s);
+			int position = 0;
+			int limit = segment.limit();
+			while (position < limit) { 
+				int lineEnd = position;
+				while (lineEnd < limit && segment.get(lineEnd) != '\n') { 
+					lineEnd++;
+				}
+				if (lineEnd > position) { 
+					String[] fields = split(segment, position, lineEnd);
+					if (header) { 
+						readHeader(fields);
+						header = false;
+					} else { 
+						Integer key = parseKey(field(fields, columnTaxonID));
+						if (key!=null) { 
+							int record = addRecord(s, position);
+							keys.add(pack(key.intValue(), record));
+							int canonicalHash = canonicalName(fields).toLowerCase().hashCode();
+							names.add(pack(canonicalHash, record));
+							int scientificNameHash = field(fields, columnScientificName).toLowerCase().hashCode();
+							if (scientificNameHash != canonicalHash) { 
+								names.add(pack(scientificNameHash, record));
+							}
+							Integer acceptedKey = parseKey(field(fields, columnAccepted));
+							if (acceptedKey!=null && !acceptedKey.equals(key)) { 
+								accepted.add(pack(acceptedKey.intValue(), record));
+							}
+						}
+					}
+				}
+				position = lineEnd + 1;
+			}
+		}
+		keyIndex = keys.toSortedArray();
+		nameIndex = names.toSortedArray();
+		acceptedIndex = accepted.toSortedArray();
+	}
+	
+	private void readHeader(String[] fields) throws IOException { 
+		for (int i=0; i<fields.length; i++) { 
+			String term = fields[i].trim();
+			// accept either simple names or full term uris
+			int separator = Math.max(term.lastIndexOf(':'), term.lastIndexOf('/'));
+			if (separator > -1) { 
+				term = term.substring(separator + 1);
+			}
+			if (!columns.containsKey(term)) { 
+				columns.put(term, Integer.valueOf(i));
+			}
+		}
+		columnTaxonID = column("taxonID");
+		columnAccepted = column("acceptedNameUsageID");
+		columnScientificName = column("scientificName");
+		columnAuthorship = column("scientificNameAuthorship");
+		columnCanonicalName = column("canonicalName");
+		if (columnTaxonID < 0 || columnScientificName < 0) { 
+			throw new IOException("File [" + taxonFile.getPath() + "] lacks a header with taxonID and scientificName columns.");
+		}
+	}
+	
+	private int addRecord(int segment, int position) { 
+		if (recordCount == recordLocations.length) { 
+			recordLocations = Arrays.copyOf(recordLocations, recordLocations.length * 2);
+		}
+		recordLocations[recordCount] = pack(segment, position);
+		return recordCount++;
+	}
+	
+	/**
+	 * Find the position of the record for a taxon in the file, for use by callers 
+	 * holding additional data about records in arrays.
+	 * 
+	 * @param key the taxon key.
+	 * @return the number of the record, counting from zero, or -1 if the key is not present.
+	 */
+	public int recordNumber(int key) { 
+		int[] records = find(keyIndex, key);
+		if (records.length==0) { 
+			return -1;
+		}
+		return records[0];
+	}
+	
+	/**
+	 * Look up a taxon by its key.
+	 * 
+	 * @param key the taxon key.
+	 * @return the fields of the record, or null if the key is not present.
+	 */
+	public String[] getByKey(int key) { 
+		int record = recordNumber(key);
+		if (record < 0) { 
+			return null;
+		}
+		return readRecord(record);
+	}
+	
+	/**
+	 * Find taxa with a canonical name or scientific name matching a name, ignoring case.
+	 * 
+	 * @param name the name to look for.
+	 * @param limit the maximum number of records to return.
+	 * @return a list, possibly empty, of the fields of matching records, in file order.
+	 */
+	public List<String[]> findByName(String name, int limit) { 
+		List<String[]> result = new ArrayList<String[]>();
+		if (name==null) { 
+			return result;
+		}
+		String target = name.trim();
+		int[] records = find(nameIndex, target.toLowerCase().hashCode());
+		for (int i=0; i<records.length && result.size()<limit; i++) { 
+			String[] fields = readRecord(records[i]);
+			if (canonicalName(fields).equalsIgnoreCase(target) || field(fields, columnScientificName).equalsIgnoreCase(target)) { 
+				result.add(fields);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Find taxa with a canonical name within an edit distance of a name, ignoring case, 
+	 * for finding the probable correct spelling of a misspelled name.
+	 * 
+	 * @param name the canonical name to look for.
+	 * @param maxDistance the largest edit distance of interest, at most ApproximateNameIndex.DEFAULT_MAX_DISTANCE.
+	 * @param limit the maximum number of records to return.
+	 * @return a list, possibly empty, of the fields of matching records, the closest names first.
+	 */
+	public List<String[]> findByApproximateName(String name, int maxDistance, int limit) { 
+		List<String[]> result = new ArrayList<String[]>();
+		if (name==null) { 
+			return result;
+		}
+		List<ApproximateNameIndex.Match> matches = getApproximateNameIndex().find(name, maxDistance, limit);
+		for (int i=0; i<matches.size() && result.size()<limit; i++) { 
+			String matchedName = matches.get(i).getName();
+			List<String[]> records = findByName(matchedName, limit - result.size());
+			for (int j=0; j<records.size(); j++) { 
+				String[] fields = records.get(j);
+				// findByName also matches on scientificName, keep only canonical name matches
+				if (ApproximateNameIndex.normalize(canonicalName(fields)).equals(matchedName)) { 
+					result.add(fields);
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Obtain the index of the distinct canonical names in the file, building it on first use.
+	 * 
+	 * @return the approximate name index.
+	 */
+	public synchronized ApproximateNameIndex getApproximateNameIndex() { 
+		if (approximateNameIndex==null) { 
+			long start = System.currentTimeMillis();
+			ApproximateNameIndex names = new ApproximateNameIndex();
+			for (int record=0; record<recordCount; record++) { 
+				names.add(canonicalName(readRecord(record)));
+			}
+			approximateNameIndex = names;
+			logger.info("Indexed " + names.size() + " distinct canonical names from " + taxonFile.getPath() + " in " + (System.currentTimeMillis() - start) + " ms");
+		}
+		return approximateNameIndex;
+	}
+	
+	/**
+	 * Find the synonyms of an accepted taxon.
+	 * 
+	 * @param acceptedKey the key of the accepted taxon.
+	 * @param limit the maximum number of records to return.
+	 * @return a list, possibly empty, of the fields of records of synonyms.
+	 */
+	public List<String[]> findByAccepted(int acceptedKey, int limit) { 
+		List<String[]> result = new ArrayList<String[]>();
+		int[] records = find(acceptedIndex, acceptedKey);
+		for (int i=0; i<records.length && result.size()<limit; i++) { 
+			result.add(readRecord(records[i]));
+		}
+		return result;
+	}
+	
+	/**
+	 * Obtain the canonical name of a record, from the canonicalName column if present, 
+	 * otherwise from the scientificName with any authorship removed.
+	 * 
+	 * @param fields the fields of a record.
+	 * @return the canonical name, or an empty string.
+	 */
+	public String canonicalName(String[] fields) { 
+		String canonicalName = field(fields, columnCanonicalName);
+		if (canonicalName.length()==0) { 
+			canonicalName = field(fields, columnScientificName);
+			String authorship = field(fields, columnAuthorship);
+			if (authorship.length() > 0 && canonicalName.endsWith(authorship)) { 
+				canonicalName = canonicalName.substring(0, canonicalName.length() - authorship.length()).trim();
+			}
+		}
+		return canonicalName;
+	}
+	
+	/**
+	 * Obtain the value of a field of a record.
+	 * 
+	 * @param fields the fields of a record.
+	 * @param column the column from column(String), may be -1.
+	 * @return the value, or an empty string if the column is absent or the value is null (\N).
+	 */
+	public static String field(String[] fields, int column) { 
+		if (column < 0 || column >= fields.length) { 
+			return "";
+		}
+		String value = fields[column];
+		if (value.equals("\\N")) { 
+			return "";
+		}
+		return value;
+	}
+	
+	/**
+	 * Obtain a taxon key from an identifier, either an integer or an identifier ending 
+	 * with a colon and an integer.
+	 * 
+	 * @param value the identifier
+	 * @return the key, or null if value is empty or not in the expected form.
+	 */
+	public static Integer parseKey(String value) { 
+		if (value==null) { 
+			return null;
+		}
+		String key = value.trim();
+		int separator = key.lastIndexOf(':');
+		if (separator > -1) { 
+			key = key.substring(separator + 1);
+		}
+		if (key.length()==0) { 
+			return null;
+		}
+		try { 
+			return Integer.valueOf(key);
+		} catch (NumberFormatException e) { 
+			return null;
+		}
+	}
+	
+	private String[] readRecord(int record) { 
+		long location = recordLocations[record];
+		MappedByteBuffer segment = segments.get((int)(location >>> 32));
+		int start = (int)location;
+		int end = start;
+		int limit = segment.limit();
+		while (end < limit && segment.get(end) != '\n') { 
+			end++;
+		}
+		return split(segment, start, end);
+	}
+	
+	/**
+	 * Split a line of the mapped file on tabs, using absolute gets so that the 
+	 * shared buffer's position is not changed.
+	 */
+	private static String[] split(MappedByteBuffer segment, int start, int end) { 
+		if (end > start && segment.get(end - 1) == '\r') { 
+			end--;
+		}
+		byte[] line = new byte[end - start];
+		for (int i=0; i<line.length; i++) { 
+			line[i] = segment.get(start + i);
+		}
+		List<String> fields = new ArrayList<String>(24);
+		int fieldStart = 0;
+		for (int i=0; i<=line.length; i++) { 
+			if (i==line.length || line[i]=='\t') { 
+				fields.add(new String(line, fieldStart, i - fieldStart, StandardCharsets.UTF_8));
+				fieldStart = i + 1;
+			}
+		}
+		return fields.toArray(new String[fields.size()]);
+	}
+	
+	private static long pack(int high, int low) { 
+		return ((long)high << 32) | (low & 0xFFFFFFFFL);
+	}
+	
+	/**
+	 * Find the records stored under a value in a sorted packed index.
+	 */
+	private static int[] find(long[] index, int value) { 
+		int position = Arrays.binarySearch(index, (long)value << 32);
+		if (position < 0) { 
+			position = -position - 1;
+		}
+		int end = position;
+		while (end < index.length && (int)(index[end] >> 32) == value) { 
+			end++;
+		}
+		int[] result = new int[end - position];
+		for (int i=position; i<end; i++) { 
+			result[i - position] = (int)index[i];
+		}
+		return result;
+	}
+	
+	/**
+	 * Growable array of primitive longs.
+	 */
+	private static class LongList { 
+		private long[] values = new long[1024];
+		private int size = 0;
+		
+		private void add(long value) { 
+			if (size == values.length) { 
+				values = Arrays.copyOf(values, values.length * 2);
+			}
+			values[size++] = value;
+		}
+		
+		private long[] toSortedArray() { 
+			long[] result = Arrays.copyOf(values, size);
+			Arrays.sort(result);
+			return result;
+		}
+	}
+
+}
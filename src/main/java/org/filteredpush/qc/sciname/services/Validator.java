@@ -3,6 +3,8 @@
  */
 package org.filteredpush.qc.sciname.services;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import edu.harvard.mcz.nametools.NameUsage;
@@ -11,6 +13,10 @@ import edu.harvard.mcz.nametools.NameUsage;
  * Interface for data sources that are capable of validating scientific
  * name usages.  A consumer of NameUsages returned by validate() is responsible
  * for serialization of those objects to output.
+ * 
+ * Implementations must be safe for concurrent use, keeping any state of a lookup
+ * local to the call rather than in fields, so that one configured instance for a 
+ * source authority can be shared by all of the threads validating names against it.
  *
  * @author mole
  * @version $Id: $Id
@@ -26,6 +32,24 @@ public interface Validator {
 	 */
 	public NameUsage validate(NameUsage taxonToValidate) throws ServiceException;
 	
+	/**
+	 * Validate a list of name usages, for sources that can look up several names in one 
+	 * request.  The default implementation invokes validate() on each name in turn.
+	 *
+	 * @param taxaToValidate the name usages to validate.
+	 * @return a list of the same size as taxaToValidate, with the result of validate() for
+	 *   each name usage in the same position, null where no match was found.
+	 * @throws org.filteredpush.qc.sciname.services.ServiceException if any.
+	 */
+	public default List<NameUsage> validateBatch(List<NameUsage> taxaToValidate) throws ServiceException { 
+		List<NameUsage> result = new ArrayList<NameUsage>(taxaToValidate.size());
+		Iterator<NameUsage> i = taxaToValidate.iterator();
+		while (i.hasNext()) { 
+			result.add(validate(i.next()));
+		}
+		return result;
+	}
+	
 	/**
 	 * <p>supportedExtensionTerms.</p>
 	 *
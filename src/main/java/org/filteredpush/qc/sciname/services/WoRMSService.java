@@ -31,9 +31,9 @@ import org.filteredpush.qc.sciname.SciNameUtils;
 import org.marinespecies.aphia.v1_0.model.AphiaRecord;
 import org.marinespecies.aphia.v1_0.model.AphiaRecordsArray;
 import org.marinespecies.aphia.v1_0.api.TaxonomicDataApi;
-import org.marinespecies.aphia.v1_0.handler.ApiClient;
 import org.marinespecies.aphia.v1_0.handler.ApiException;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLConnection;
@@ -57,13 +57,27 @@ import java.util.Map;
 public class WoRMSService implements Validator {
 
 	private static final Log logger = LogFactory.getLog(WoRMSService.class);
-	private static int MAX_RETRIES = 3;
 	
-	private TaxonomicDataApi wormsService;
-	protected AuthorNameComparator authorNameComparator;
-	protected int depth;  // for managing retries on network failure
+	/** Maximum number of names sent in one request by validateBatch(). */
+	public static final int BATCH_SIZE = 50;
+	
+	private final TaxonomicDataApi wormsService;
 	
 	private final static String WORMSGUIDPREFIX = "urn:lsid:marinespecies.org:taxname:";
+	
+	/** Cache of lookups of higher taxa by lookupTaxonAtRank, results are shared, treat as read only. */
+	private static final LruCache<String,List<NameUsage>> taxonAtRankCache = new LruCache<String,List<NameUsage>>(LookupCaches.TAXON_AT_RANK_CACHE_SIZE, LookupCaches.TAXON_AT_RANK_CACHE_TTL);
+	static { 
+		MetricsRegistries.registerCache("WoRMSService.taxonAtRank", taxonAtRankCache);
+	}
+	/** Concurrent identical lookups by lookupTaxonAtRank, results are shared, treat as read only. */
+	private static final SingleFlight<List<NameUsage>> taxonAtRankInFlight = new SingleFlight<List<NameUsage>>("WoRMSService");
+	
+	/** System property giving the location of an unzipped WoRMS export to use instead of the service. */
+	public static final String SNAPSHOT_PROPERTY = "sciname.worms.snapshot";
+	
+	private static AphiaSnapshot snapshot = null;
+	private static boolean snapshotConfigured = false;
 
 	/**
 	 * No argument constructor, creates the service, doesn't run a test.
@@ -71,10 +85,7 @@ public class WoRMSService implements Validator {
 	 * @throws IOException
 	 */
 	public WoRMSService() throws IOException { 
-		wormsService = new TaxonomicDataApi();
-		wormsService.setApiClient(new ApiClient());
-		depth = MAX_RETRIES;  // on test failure, don't retry
-		depth = 0;
+		wormsService = createApi();
 	}
 	
 	/**
@@ -85,13 +96,57 @@ public class WoRMSService implements Validator {
 	 */
 	public WoRMSService(boolean test) throws IOException {
 		super();
-		wormsService = new TaxonomicDataApi();
-		wormsService.setApiClient(new ApiClient());
-		depth = MAX_RETRIES;  // on test failure, don't retry
+		wormsService = createApi();
 		if (test) { 
 			test();
 		}
-		depth = 0;
+	}
+	
+	/**
+	 * Create an instance of the Aphia api for WoRMS, answering from the local snapshot 
+	 * if one is configured, otherwise consulting the shared LookupCache before invoking 
+	 * the service.
+	 * 
+	 * @return a TaxonomicDataApi for WoRMS.
+	 */
+	protected static TaxonomicDataApi createApi() { 
+		AphiaSnapshot local = getSnapshot();
+		if (local!=null) { 
+			return new LocalWoRMSTaxonomicDataApi(local);
+		}
+		return new CachingWoRMSTaxonomicDataApi();
+	}
+	
+	/**
+	 * Obtain the local snapshot of WoRMS, loading it on first use from the location 
+	 * given in the system property sciname.worms.snapshot, if set.
+	 * 
+	 * @return the local snapshot, or null if none is configured or it could not be loaded.
+	 */
+	public static synchronized AphiaSnapshot getSnapshot() { 
+		if (!snapshotConfigured) { 
+			snapshotConfigured = true;
+			String location = System.getProperty(SNAPSHOT_PROPERTY);
+			if (location!=null && location.trim().length()>0) { 
+				try { 
+					snapshot = new AphiaSnapshot(new File(location.trim()), "AphiaID", LocalWoRMSTaxonomicDataApi.LSID_PREFIX, LocalWoRMSTaxonomicDataApi.URL_PREFIX);
+				} catch (IOException e) {
+					logger.error("Unable to load local WoRMS snapshot: " + e.getMessage());
+				}
+			}
+		}
+		return snapshot;
+	}
+	
+	/**
+	 * Answer lookups from a local snapshot of WoRMS instead of the service.
+	 * 
+	 * @param localSnapshot the snapshot to use, or null to use the service.
+	 */
+	public static synchronized void setSnapshot(AphiaSnapshot localSnapshot) { 
+		snapshotConfigured = true;
+		snapshot = localSnapshot;
+		taxonAtRankCache.clear();
 	}
 	
 	/**
@@ -100,6 +155,10 @@ public class WoRMSService implements Validator {
 	 * @throws java.io.IOException if any.
 	 */
 	protected void test()  throws IOException { 
+		if (wormsService instanceof LocalWoRMSTaxonomicDataApi) { 
+			// nothing to connect to
+			return;
+		}
 		logger.debug(wormsService.getApiClient().getBasePath());
 		URL test = new URL(wormsService.getApiClient().getBasePath());
 		URLConnection conn = test.openConnection();
@@ -121,8 +180,7 @@ public class WoRMSService implements Validator {
 				throw new IDFormatException("provided aphiaID is not an integer");
 			}
 			Integer intAphiaID = Integer.parseInt(aphiaID);
-			TaxonomicDataApi wormsService = new TaxonomicDataApi();
-			wormsService.setApiClient(new ApiClient());
+			TaxonomicDataApi wormsService = createApi();
 			AphiaRecord ar = wormsService.aphiaRecordByAphiaID(intAphiaID);
 			if (ar !=null && ar.getScientificname()!=null ) { 
 				logger.debug(ar.getScientificname());
@@ -151,8 +209,7 @@ public class WoRMSService implements Validator {
 		List<NameUsage> result  = new ArrayList<NameUsage>();
 		
 		if (!SciNameUtils.isEmpty(taxon)) { 
-			TaxonomicDataApi wormsService = new TaxonomicDataApi();
-			wormsService.setApiClient(new ApiClient());
+			TaxonomicDataApi wormsService = createApi();
 
 			List<AphiaRecord> results = wormsService.aphiaRecordsByName(taxon, false, false, 1);
 			if (results!=null && results.size()>0) { 
@@ -198,8 +255,7 @@ public class WoRMSService implements Validator {
 	public static String simpleNameSearch(String taxon, String author, boolean marineOnly) throws Exception {
 		String id  = null;
 
-		TaxonomicDataApi wormsService = new TaxonomicDataApi();
-		wormsService.setApiClient(new ApiClient());
+		TaxonomicDataApi wormsService = createApi();
 
 		try {
 			List<AphiaRecord> results = wormsService.aphiaRecordsByName(taxon, false, marineOnly, 1);	
@@ -258,8 +314,7 @@ public class WoRMSService implements Validator {
 		List<NameUsage> result  = new ArrayList<NameUsage>();
 		
 		if (!SciNameUtils.isEmpty(genus)) { 
-			TaxonomicDataApi wormsService = new TaxonomicDataApi();
-			wormsService.setApiClient(new ApiClient());
+			TaxonomicDataApi wormsService = createApi();
 
 			List<AphiaRecord> results = wormsService.aphiaRecordsByName(genus, false, false, 1);
 			if (results!=null && results.size()>0) { 
@@ -292,17 +347,47 @@ public class WoRMSService implements Validator {
 	/**
 	 * <p>lookupTaxonAtRank.</p>
 	 *
+	 * Results are held in an in memory cache, see getTaxonAtRankCache(), concurrent 
+	 * lookups of the same taxon wait for the first rather than repeating it.
+	 *
 	 * @param taxon a {@link java.lang.String} object.
 	 * @param rank a {@link java.lang.String} object.
 	 * @return a {@link java.util.List} object.
 	 * @throws org.marinespecies.aphia.v1_0.handler.ApiException if any.
 	 */
-	public static  List<NameUsage> lookupTaxonAtRank(String taxon, String rank) throws ApiException { 
+	public static  List<NameUsage> lookupTaxonAtRank(final String taxon, final String rank) throws ApiException { 
+		final String key = rank + LookupCache.KEY_SEPARATOR + taxon;
+		List<NameUsage> cached = taxonAtRankCache.get(key);
+		if (cached==null) { 
+			cached = taxonAtRankInFlight.execute("lookupTaxonAtRank", key, new SingleFlight.Call<List<NameUsage>,ApiException>() {
+				@Override
+				public List<NameUsage> call() throws ApiException {
+					List<NameUsage> found = lookupTaxonAtRankUncached(taxon, rank);
+					taxonAtRankCache.put(key, found);
+					return found;
+				}
+			});
+		}
+		return new ArrayList<NameUsage>(cached);
+	}
+	
+	/**
+	 * Obtain the statistics and contents of the cache of lookups of taxa at ranks.
+	 * 
+	 * @return the cache used by lookupTaxonAtRank.
+	 */
+	public static LruCache<String,List<NameUsage>> getTaxonAtRankCache() { 
+		return taxonAtRankCache;
+	}
+	
+	/**
+	 * Lookup a taxon at a rank without consulting the cache.
+	 */
+	private static List<NameUsage> lookupTaxonAtRankUncached(String taxon, String rank) throws ApiException { 
 		List<NameUsage> result  = new ArrayList<NameUsage>();
 		
 		if (!SciNameUtils.isEmpty(taxon)) { 
-			TaxonomicDataApi wormsService = new TaxonomicDataApi();
-			wormsService.setApiClient(new ApiClient());
+			TaxonomicDataApi wormsService = createApi();
 
 			List<AphiaRecord> results = wormsService.aphiaRecordsByName(taxon, false, false, 1);
 			if (results!=null && results.size()>0) { 
@@ -573,8 +658,7 @@ public class WoRMSService implements Validator {
 	public static LookupResult nameComparisonSearch(String taxon, String author, boolean marineOnly) throws Exception {
 		LookupResult result  = null;
 
-		TaxonomicDataApi wormsService = new TaxonomicDataApi();
-		wormsService.setApiClient(new ApiClient());
+		TaxonomicDataApi wormsService = createApi();
 
 		try {
 			List<AphiaRecord> results = wormsService.aphiaRecordsByName(taxon, false, marineOnly, 1);	
@@ -624,175 +708,27 @@ public class WoRMSService implements Validator {
 			return null;
 		}
 		NameUsage result = null;
-		depth++;   
 		try {
 			String taxonName = taxonNameToValidate.getScientificName();
 			String authorship = taxonNameToValidate.getAuthorship();
-			authorNameComparator = AuthorNameComparator.authorNameComparatorFactory(authorship, taxonNameToValidate.getKingdom());
+			AuthorNameComparator authorNameComparator = AuthorNameComparator.authorNameComparatorFactory(authorship, taxonNameToValidate.getKingdom());
 			ScientificNameComparator scientificNameComparator = new ScientificNameComparator();
 			taxonNameToValidate.setAuthorComparator(authorNameComparator);
-			wormsService.setApiClient(new ApiClient());
 			List<AphiaRecord> results = wormsService.aphiaRecordsByName(taxonName, false, false, 1);
 			if (results!=null && results.size()>0) { 
-				// We got at least one result
-				Iterator<AphiaRecord> i = results.iterator();
-				//Multiple matches indicate homonyms (or in WoRMS, deleted records).
-				if (results.size()>1) {
-				    logger.debug("More than one match: " + results.size());
-					boolean exactMatch = false;
-					List<AphiaRecord> matches = new ArrayList<AphiaRecord>();
-					while (i.hasNext() && !exactMatch) { 
-					    AphiaRecord ar = i.next();
-					    matches.add(ar);
-					    logger.debug(ar.getScientificname());
-					    logger.debug(ar.getAphiaID());
-					    logger.debug(ar.getAuthority());
-					    logger.debug(ar.getUnacceptreason());
-					    logger.debug(ar.getStatus());
-					    if (ar !=null && ar.getScientificname()!=null && taxonName!=null && ar.getScientificname().equals(taxonName)) {
-					    	if (ar.getAuthority()!=null && ar.getAuthority().equals(authorship)) {
-					    		// If one of the results is an exact match on scientific name and authorship, pick that one. 
-					    		result = new NameUsage(ar);
-					    		result.setInputDbPK(taxonNameToValidate.getInputDbPK());
-					    		result.setMatchDescription(NameComparison.MATCH_EXACT);
-					    		result.setNameMatchDescription(NameComparison.MATCH_EXACT);
-					    		result.setAuthorshipStringEditDistance(1d);
-					    		result.setOriginalAuthorship(taxonNameToValidate.getAuthorship());
-					    		result.setOriginalScientificName(taxonNameToValidate.getScientificName());
-					    		result.setScientificNameStringEditDistance(1d);
-					    		result.setExtension(lookupHabitat(ar));
-					    		exactMatch = true;
-					    	}
-					    }
-					}
-					if (!exactMatch) {
-						// If we didn't find an exact match on scientific name and authorship in the list, pick the 
-						// closest authorship and list all of the potential matches.  
-						Iterator<AphiaRecord> im = matches.iterator();
-						NameUsage closest = null;
-						StringBuffer names = new StringBuffer();
-						while (im.hasNext()) { 
-							AphiaRecord ar = im.next();
-							NameUsage current = new NameUsage(ar);
-							NameComparison comparison = scientificNameComparator.compareWithoutAuthor(taxonName, current.getScientificName());
-							if (NameComparison.isPlausible(comparison.getMatchType())) { 
-								names.append("; ").append(current.getScientificName()).append(" ").append(current.getAuthorship()).append(" ").append(current.getUnacceptReason()).append(" ").append(current.getTaxonomicStatus());
-								if (ICZNAuthorNameComparator.calulateSimilarityOfAuthor(closest.getAuthorship(), authorship) < ICZNAuthorNameComparator.calulateSimilarityOfAuthor(current.getAuthorship(), authorship)) { 
-									current.setExtension(lookupHabitat(ar));
-									closest = current;
-								}
-							}
-						}
-						if (closest==null) {
-							// none of the responses were plausible, treat as no match.
-							logger.debug("No plausible matches");
-						} else { 
-							result = closest;
-							result.setInputDbPK(taxonNameToValidate.getInputDbPK());
-							result.setMatchDescription(NameComparison.MATCH_MULTIPLE + " " + names.toString());
-							result.setOriginalAuthorship(taxonNameToValidate.getAuthorship());
-							result.setOriginalScientificName(taxonNameToValidate.getScientificName());
-							result.setScientificNameStringEditDistance(1d);
-							result.setAuthorshipStringEditDistance(ICZNAuthorNameComparator.calulateSimilarityOfAuthor(taxonNameToValidate.getAuthorship(), result.getAuthorship()));
-						}
-					}
-				} else { 
-				  // we got exactly one result
-				  while (i.hasNext()) { 
-					AphiaRecord ar = i.next();
-					if (ar !=null && ar.getScientificname()!=null && taxonName!=null && ar.getScientificname().equals(taxonName)) {
-						if (ar.getAuthority()!=null && ar.getAuthority().equals(authorship)) { 
-							// scientific name and authorship are an exact match 
-							result = new NameUsage(ar);
-							result.setInputDbPK(taxonNameToValidate.getInputDbPK());
-							result.setMatchDescription(NameComparison.MATCH_EXACT);
-				    		result.setNameMatchDescription(NameComparison.MATCH_EXACT);
-							result.setAuthorshipStringEditDistance(1d);
-							result.setOriginalAuthorship(taxonNameToValidate.getAuthorship());
-							result.setOriginalScientificName(taxonNameToValidate.getScientificName());
-							result.setScientificNameStringEditDistance(1d);
-							result.setExtension(lookupHabitat(ar));
-						} else {
-							// find how 
-							if (authorship!=null && ar!=null && ar.getAuthority()!=null) { 
-								//double similarity = taxonNameToValidate.calulateSimilarityOfAuthor(ar.getAuthority());
-								logger.debug(authorship);
-								logger.debug(ar.getAuthority());
-								NameComparison comparison = authorNameComparator.compare(authorship, ar.getAuthority());
-								String match = comparison.getMatchType();
-								double similarity = comparison.getSimilarity();
-								logger.debug(similarity);
-								result = new NameUsage(ar);
-								result.setInputDbPK(taxonNameToValidate.getInputDbPK());
-								result.setAuthorshipStringEditDistance(similarity);
-								result.setOriginalAuthorship(taxonNameToValidate.getAuthorship());
-								result.setOriginalScientificName(taxonNameToValidate.getScientificName());
-								result.setMatchDescription(match);
-								NameComparison nameComparison = scientificNameComparator.compareWithoutAuthor(taxonName, ar.getScientificname());
-								result.setNameMatchDescription(nameComparison.getMatchType());
-								result.setScientificNameStringEditDistance(nameComparison.getSimilarity());
-								result.setExtension(lookupHabitat(ar));
-							} else { 
-								// no authorship was provided in the results, treat as no match
-								logger.error("Result with null authorship.");
-							}
-						}
-					}
-				  }
-				}
+				result = interpretNameResults(taxonNameToValidate, results, scientificNameComparator);
 			} else { 
 				logger.debug("No match.");
 				// Try WoRMS fuzzy matching query
 				String[] searchNames = { taxonName + " " + authorship };
 				List<String> searchNamesList = Arrays.asList(searchNames);
 				List<AphiaRecordsArray> matchResultsArr = wormsService.aphiaRecordsByMatchNames(searchNamesList, false);
-				if (matchResultsArr!=null && matchResultsArr.size()>0) {
-					Iterator<AphiaRecordsArray> i0 = matchResultsArr.iterator();
-					while (i0.hasNext()) {
-						// iterate through the inputs, there should be one and only one
-						AphiaRecordsArray matchResArr = i0.next();
-						Iterator<AphiaRecord> im = matchResArr.iterator();
-						List<NameUsage> potentialMatches = new ArrayList<NameUsage>();
-						while (im.hasNext()) { 
-							// iterate through the results, no match will have one result that is null
-							AphiaRecord ar = im.next();
-							if (ar!=null) { 
-								NameUsage match = new NameUsage(ar);
-								double similarity = ICZNAuthorNameComparator.calulateSimilarityOfAuthor(taxonNameToValidate.getAuthorship(), match.getAuthorship());
-								match.setAuthorshipStringEditDistance(similarity);
-								logger.debug(match.getScientificName());
-								logger.debug(match.getAuthorship());
-								logger.debug(similarity);
-								NameComparison comparison = scientificNameComparator.compareWithoutAuthor(taxonName, match.getScientificName());
-								if (NameComparison.isPlausible(comparison.getMatchType())) { 
-									match.setNameMatchDescription(comparison.getMatchType());
-									match.setScientificNameStringEditDistance(comparison.getSimilarity());
-									match.setExtension(lookupHabitat(ar));
-									potentialMatches.add(match);
-								}
-							} else {
-								logger.debug("im.next() was null");
-							}
-						} 
-						logger.debug("Fuzzy Matches: " + potentialMatches.size());
-						if (potentialMatches.size()==1) { 
-							result = potentialMatches.get(0);
-							String authorComparison = authorNameComparator.compare(taxonNameToValidate.getAuthorship(), result.getAuthorship()).getMatchType();
-							result.setMatchDescription(NameComparison.MATCH_FUZZY_SCINAME + "; authorship " + authorComparison);
-							result.setOriginalAuthorship(taxonNameToValidate.getAuthorship());
-							result.setOriginalScientificName(taxonNameToValidate.getScientificName());
-							result.setInputDbPK(taxonNameToValidate.getInputDbPK());
-						}
-					} // iterator over input names, should be just one.
-			    } else {
-			    	logger.error("Fuzzy match query returned null instead of a result set.");
-			    }
+				result = interpretMatchResults(taxonNameToValidate, matchResultsArr, scientificNameComparator);
 			}
 		} catch (ApiException e) {
 			if (e.getMessage().equals("Forbidden")) {
 				// Form of name provided is invalid, GBIF Parser can return '? epithet', which WoRMS can't lookup.
 				logger.error(e.getMessage() + " Request to lookup [" + taxonNameToValidate.getScientificName() +"] denied");
-				depth = MAX_RETRIES + 1;
 				result = null;
 			} else { 
 				if (e.getMessage().equals("Connection timed out")) { 
@@ -802,17 +738,303 @@ public class WoRMSService implements Validator {
 				} else {
 					logger.error(e.getMessage(), e);
 				}
-				if (depth<=MAX_RETRIES) {
-					// Try again, up to MAX_RETRIES times.
-					result = this.validate(taxonNameToValidate);
+				// retries with backoff are made by HttpClients, see ResilienceGuard
+				throw new ServiceException(e.getMessage());
+			}
+		}
+		return result;		
+	}
+
+	/**
+	 * Validate a list of names, sending up to BATCH_SIZE names in each request to WoRMS, 
+	 * first for exact matches on scientific name, then for fuzzy matches of the names with
+	 * authorship for names not found, the responses are interpreted for each name as in 
+	 * validate(NameUsage).  If a request fails, the names in that request are validated 
+	 * one at a time with validate(NameUsage).
+	 *
+	 * @param taxaToValidate the name usages to validate.
+	 * @return a list with the result for each name usage in the same position, null where no
+	 *   match was found.
+	 * @throws org.filteredpush.qc.sciname.services.ServiceException if any.
+	 */
+	@Override
+	public List<NameUsage> validateBatch(List<NameUsage> taxaToValidate) throws ServiceException {
+		List<NameUsage> result = new ArrayList<NameUsage>(taxaToValidate.size());
+		List<Integer> pending = new ArrayList<Integer>();
+		for (int i=0; i<taxaToValidate.size(); i++) { 
+			result.add(null);
+			String name = taxaToValidate.get(i).getScientificName();
+			if (name!=null && !name.trim().equals("?") && !name.trim().startsWith("? ")) { 
+				// names starting with ? will produce a forbidden exception on service
+				pending.add(Integer.valueOf(i));
+			}
+		}
+		for (int start=0; start<pending.size(); start+=BATCH_SIZE) { 
+			List<Integer> group = pending.subList(start, Math.min(start + BATCH_SIZE, pending.size()));
+			try { 
+				validateGroup(taxaToValidate, group, result);
+			} catch (ApiException e) { 
+				logger.error("Lookup of " + group.size() + " names failed, validating one at a time. " + e.getMessage());
+				Iterator<Integer> i = group.iterator();
+				while (i.hasNext()) { 
+					int position = i.next().intValue();
+					result.set(position, validate(taxaToValidate.get(position)));
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Validate a group of names with one request for exact matches and at most one request
+	 * for fuzzy matches.
+	 * 
+	 * @param taxaToValidate all of the names being validated.
+	 * @param group the positions in taxaToValidate of the names to validate.
+	 * @param result into which to set the result for each position in the group.
+	 * @throws ApiException on a problem invoking the service.
+	 */
+	private void validateGroup(List<NameUsage> taxaToValidate, List<Integer> group, List<NameUsage> result) throws ApiException { 
+		ScientificNameComparator scientificNameComparator = new ScientificNameComparator();
+		List<String> names = new ArrayList<String>(group.size());
+		Iterator<Integer> ig = group.iterator();
+		while (ig.hasNext()) { 
+			names.add(taxaToValidate.get(ig.next().intValue()).getScientificName());
+		}
+		List<AphiaRecordsArray> found = recordsByNames(names);
+		List<Integer> unmatched = new ArrayList<Integer>();
+		List<String> matchNames = new ArrayList<String>();
+		for (int i=0; i<group.size(); i++) { 
+			int position = group.get(i).intValue();
+			NameUsage taxonNameToValidate = taxaToValidate.get(position);
+			AuthorNameComparator authorNameComparator = AuthorNameComparator.authorNameComparatorFactory(taxonNameToValidate.getAuthorship(), taxonNameToValidate.getKingdom());
+			taxonNameToValidate.setAuthorComparator(authorNameComparator);
+			AphiaRecordsArray records = null;
+			if (found!=null && i<found.size()) { 
+				records = found.get(i);
+			}
+			if (records!=null && records.size()>0) { 
+				result.set(position, interpretNameResults(taxonNameToValidate, records, scientificNameComparator));
+			} else { 
+				unmatched.add(Integer.valueOf(position));
+				matchNames.add(taxonNameToValidate.getScientificName() + " " + taxonNameToValidate.getAuthorship());
+			}
+		}
+		if (!unmatched.isEmpty()) { 
+			List<AphiaRecordsArray> matches = wormsService.aphiaRecordsByMatchNames(matchNames, false);
+			for (int i=0; i<unmatched.size(); i++) { 
+				int position = unmatched.get(i).intValue();
+				NameUsage taxonNameToValidate = taxaToValidate.get(position);
+				List<AphiaRecordsArray> matchResultsArr = null;
+				if (matches!=null && i<matches.size() && matches.get(i)!=null) { 
+					matchResultsArr = new ArrayList<AphiaRecordsArray>();
+					matchResultsArr.add(matches.get(i));
+				}
+				result.set(position, interpretMatchResults(taxonNameToValidate, matchResultsArr, scientificNameComparator));
+			}
+		}
+	}
+	
+	/**
+	 * Look up the exact matches for a list of names in one request where the api supports it.
+	 * 
+	 * @param names the scientific names to look up.
+	 * @return a list of the records found for each name, in the order of the names.
+	 * @throws ApiException on a problem invoking the service.
+	 */
+	private List<AphiaRecordsArray> recordsByNames(List<String> names) throws ApiException { 
+		if (wormsService instanceof CachingWoRMSTaxonomicDataApi) { 
+			return ((CachingWoRMSTaxonomicDataApi)wormsService).aphiaRecordsArraysByNames(names, false, false);
+		}
+		List<AphiaRecordsArray> result = new ArrayList<AphiaRecordsArray>(names.size());
+		Iterator<String> i = names.iterator();
+		while (i.hasNext()) { 
+			AphiaRecordsArray records = new AphiaRecordsArray();
+			List<AphiaRecord> found = wormsService.aphiaRecordsByName(i.next(), false, false, 1);
+			if (found!=null) { 
+				records.addAll(found);
+			}
+			result.add(records);
+		}
+		return result;
+	}
+	
+	/**
+	 * Select the best of the records found for a scientific name, comparing authorship.
+	 * 
+	 * @param taxonNameToValidate the name being validated, with its authorComparator set.
+	 * @param results the non-empty list of records found for the scientific name.
+	 * @param scientificNameComparator to compare names.
+	 * @return the selected record as a NameUsage, or null if there is no plausible match.
+	 * @throws ApiException on a problem looking up the habitat of the selected record.
+	 */
+	private NameUsage interpretNameResults(NameUsage taxonNameToValidate, List<AphiaRecord> results, ScientificNameComparator scientificNameComparator) throws ApiException { 
+		NameUsage result = null;
+		String taxonName = taxonNameToValidate.getScientificName();
+		String authorship = taxonNameToValidate.getAuthorship();
+		// We got at least one result
+		Iterator<AphiaRecord> i = results.iterator();
+		//Multiple matches indicate homonyms (or in WoRMS, deleted records).
+		if (results.size()>1) { 
+		    logger.debug("More than one match: " + results.size());
+			boolean exactMatch = false;
+			List<AphiaRecord> matches = new ArrayList<AphiaRecord>();
+			while (i.hasNext() && !exactMatch) { 
+			    AphiaRecord ar = i.next();
+			    matches.add(ar);
+			    logger.debug(ar.getScientificname());
+			    logger.debug(ar.getAphiaID());
+			    logger.debug(ar.getAuthority());
+			    logger.debug(ar.getUnacceptreason());
+			    logger.debug(ar.getStatus());
+			    if (ar !=null && ar.getScientificname()!=null && taxonName!=null && ar.getScientificname().equals(taxonName)) { 
+			    	if (ar.getAuthority()!=null && ar.getAuthority().equals(authorship)) { 
+			    		// If one of the results is an exact match on scientific name and authorship, pick that one. 
+			    		result = new NameUsage(ar);
+			    		result.setInputDbPK(taxonNameToValidate.getInputDbPK());
+			    		result.setMatchDescription(NameComparison.MATCH_EXACT);
+			    		result.setNameMatchDescription(NameComparison.MATCH_EXACT);
+			    		result.setAuthorshipStringEditDistance(1d);
+			    		result.setOriginalAuthorship(taxonNameToValidate.getAuthorship());
+			    		result.setOriginalScientificName(taxonNameToValidate.getScientificName());
+			    		result.setScientificNameStringEditDistance(1d);
+			    		result.setExtension(lookupHabitat(ar));
+			    		exactMatch = true;
+			    	}
+			    }
+			}
+			if (!exactMatch) { 
+				// If we didn't find an exact match on scientific name and authorship in the list, pick the 
+				// closest authorship and list all of the potential matches.  
+				Iterator<AphiaRecord> im = matches.iterator();
+				NameUsage closest = null;
+				StringBuffer names = new StringBuffer();
+				while (im.hasNext()) { 
+					AphiaRecord ar = im.next();
+					NameUsage current = new NameUsage(ar);
+					NameComparison comparison = scientificNameComparator.compareWithoutAuthor(taxonName, current.getScientificName());
+					if (NameComparison.isPlausible(comparison.getMatchType())) { 
+						names.append("; ").append(current.getScientificName()).append(" ").append(current.getAuthorship()).append(" ").append(current.getUnacceptReason()).append(" ").append(current.getTaxonomicStatus());
+						if (ICZNAuthorNameComparator.calulateSimilarityOfAuthor(closest.getAuthorship(), authorship) < ICZNAuthorNameComparator.calulateSimilarityOfAuthor(current.getAuthorship(), authorship)) { 
+							current.setExtension(lookupHabitat(ar));
+							closest = current;
+						}
+					}
+				}
+				if (closest==null) { 
+					// none of the responses were plausible, treat as no match.
+					logger.debug("No plausible matches");
 				} else { 
-					depth = 1;
-					throw new ServiceException(e.getMessage());
+					result = closest;
+					result.setInputDbPK(taxonNameToValidate.getInputDbPK());
+					result.setMatchDescription(NameComparison.MATCH_MULTIPLE + " " + names.toString());
+					result.setOriginalAuthorship(taxonNameToValidate.getAuthorship());
+					result.setOriginalScientificName(taxonNameToValidate.getScientificName());
+					result.setScientificNameStringEditDistance(1d);
+					result.setAuthorshipStringEditDistance(ICZNAuthorNameComparator.calulateSimilarityOfAuthor(taxonNameToValidate.getAuthorship(), result.getAuthorship()));
 				}
 			}
+		} else { 
+		  // we got exactly one result
+		  while (i.hasNext()) { 
+			AphiaRecord ar = i.next();
+			if (ar !=null && ar.getScientificname()!=null && taxonName!=null && ar.getScientificname().equals(taxonName)) { 
+				if (ar.getAuthority()!=null && ar.getAuthority().equals(authorship)) { 
+					// scientific name and authorship are an exact match 
+					result = new NameUsage(ar);
+					result.setInputDbPK(taxonNameToValidate.getInputDbPK());
+					result.setMatchDescription(NameComparison.MATCH_EXACT);
+		    		result.setNameMatchDescription(NameComparison.MATCH_EXACT);
+					result.setAuthorshipStringEditDistance(1d);
+					result.setOriginalAuthorship(taxonNameToValidate.getAuthorship());
+					result.setOriginalScientificName(taxonNameToValidate.getScientificName());
+					result.setScientificNameStringEditDistance(1d);
+					result.setExtension(lookupHabitat(ar));
+				} else { 
+					// find how 
+					if (authorship!=null && ar!=null && ar.getAuthority()!=null) { 
+						//double similarity = taxonNameToValidate.calulateSimilarityOfAuthor(ar.getAuthority());
+						logger.debug(authorship);
+						logger.debug(ar.getAuthority());
+						NameComparison comparison = taxonNameToValidate.getAuthorComparator().compare(authorship, ar.getAuthority());
+						String match = comparison.getMatchType();
+						double similarity = comparison.getSimilarity();
+						logger.debug(similarity);
+						result = new NameUsage(ar);
+						result.setInputDbPK(taxonNameToValidate.getInputDbPK());
+						result.setAuthorshipStringEditDistance(similarity);
+						result.setOriginalAuthorship(taxonNameToValidate.getAuthorship());
+						result.setOriginalScientificName(taxonNameToValidate.getScientificName());
+						result.setMatchDescription(match);
+						NameComparison nameComparison = scientificNameComparator.compareWithoutAuthor(taxonName, ar.getScientificname());
+						result.setNameMatchDescription(nameComparison.getMatchType());
+						result.setScientificNameStringEditDistance(nameComparison.getSimilarity());
+						result.setExtension(lookupHabitat(ar));
+					} else { 
+						// no authorship was provided in the results, treat as no match
+						logger.error("Result with null authorship.");
+					}
+				}
+			}
+		  }
 		}
-		depth--;
-		return result;		
+		return result;
+	}
+	
+	/**
+	 * Select the single plausible record from a fuzzy match of a name.
+	 * 
+	 * @param taxonNameToValidate the name being validated, with its authorComparator set.
+	 * @param matchResultsArr the response of aphiaRecordsByMatchNames for the name.
+	 * @param scientificNameComparator to compare names.
+	 * @return the match as a NameUsage, or null if there is not exactly one plausible match.
+	 * @throws ApiException on a problem looking up the habitat of the selected record.
+	 */
+	private NameUsage interpretMatchResults(NameUsage taxonNameToValidate, List<AphiaRecordsArray> matchResultsArr, ScientificNameComparator scientificNameComparator) throws ApiException { 
+		NameUsage result = null;
+		String taxonName = taxonNameToValidate.getScientificName();
+		if (matchResultsArr!=null && matchResultsArr.size()>0) { 
+			Iterator<AphiaRecordsArray> i0 = matchResultsArr.iterator();
+			while (i0.hasNext()) { 
+				// iterate through the inputs, there should be one and only one
+				AphiaRecordsArray matchResArr = i0.next();
+				Iterator<AphiaRecord> im = matchResArr.iterator();
+				List<NameUsage> potentialMatches = new ArrayList<NameUsage>();
+				while (im.hasNext()) { 
+					// iterate through the results, no match will have one result that is null
+					AphiaRecord ar = im.next();
+					if (ar!=null) { 
+						NameUsage match = new NameUsage(ar);
+						double similarity = ICZNAuthorNameComparator.calulateSimilarityOfAuthor(taxonNameToValidate.getAuthorship(), match.getAuthorship());
+						match.setAuthorshipStringEditDistance(similarity);
+						logger.debug(match.getScientificName());
+						logger.debug(match.getAuthorship());
+						logger.debug(similarity);
+						NameComparison comparison = scientificNameComparator.compareWithoutAuthor(taxonName, match.getScientificName());
+						if (NameComparison.isPlausible(comparison.getMatchType())) { 
+							match.setNameMatchDescription(comparison.getMatchType());
+							match.setScientificNameStringEditDistance(comparison.getSimilarity());
+							match.setExtension(lookupHabitat(ar));
+							potentialMatches.add(match);
+						}
+					} else { 
+						logger.debug("im.next() was null");
+					}
+				} 
+				logger.debug("Fuzzy Matches: " + potentialMatches.size());
+				if (potentialMatches.size()==1) { 
+					result = potentialMatches.get(0);
+					String authorComparison = taxonNameToValidate.getAuthorComparator().compare(taxonNameToValidate.getAuthorship(), result.getAuthorship()).getMatchType();
+					result.setMatchDescription(NameComparison.MATCH_FUZZY_SCINAME + "; authorship " + authorComparison);
+					result.setOriginalAuthorship(taxonNameToValidate.getAuthorship());
+					result.setOriginalScientificName(taxonNameToValidate.getScientificName());
+					result.setInputDbPK(taxonNameToValidate.getInputDbPK());
+				}
+			} // iterator over input names, should be just one.
+	    } else { 
+	    	logger.error("Fuzzy match query returned null instead of a result set.");
+	    }
+		return result;
 	}
 
 	/** {@inheritDoc} */
@@ -837,7 +1059,6 @@ public class WoRMSService implements Validator {
 	public Map<String,String> lookupHabitat(AphiaRecord ar) throws ApiException { 
 		Map<String,String> attributes = new HashMap<String,String>();
 		if (ar!=null)  {
-			wormsService.setApiClient(new ApiClient());
 			AphiaRecord wormsRecord = wormsService.aphiaRecordByAphiaID(ar.getAphiaID());
 			if (wormsRecord.isIsBrackish()==null) { 
 				attributes.put("brackish", "");
@@ -17,11 +17,15 @@
  */
 package org.filteredpush.qc.sciname.services;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -33,13 +37,12 @@ import javax.json.JsonReader;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.filteredpush.qc.sciname.services.ZooBankNomenclaturalAct;
-import org.gbif.nameparser.NameParserGBIF;
-import org.gbif.nameparser.api.NameParser;
-import org.gbif.nameparser.api.ParsedName;
 import org.gbif.nameparser.api.UnparsableNameException;
 
 import edu.harvard.mcz.nametools.ICZNAuthorNameComparator;
 import edu.harvard.mcz.nametools.NameComparison;
+import edu.harvard.mcz.nametools.NameParse;
+import edu.harvard.mcz.nametools.NameParsers;
 import edu.harvard.mcz.nametools.NameUsage;
 import edu.harvard.mcz.nametools.ScientificNameComparator;
 
@@ -53,6 +56,9 @@ public class ZooBankService implements Validator {
 
 	private static final Log log = LogFactory.getLog(ZooBankService.class);
 	
+	/** Constant <code>ZOOBANK_SERVICE="http://zoobank.org"</code> */
+	public static final String ZOOBANK_SERVICE = "http://zoobank.org";
+	
 	/**
 	 * <p>Constructor for ZooBankService.</p>
 	 *
@@ -99,9 +105,51 @@ public class ZooBankService implements Validator {
 		try { 
 		    URL url = new URL("http://zoobank.org/NomenclaturalActs.json/" + taxonToValidate.getScientificName().replace(' ', '_'));
 	        log.debug(url.toString());
-			InputStream is = url.openStream();
+	        LookupCache cache = LookupCaches.getCache();
+	        String key = LookupCache.key(ZOOBANK_SERVICE, "NomenclaturalActs.json", taxonToValidate.getScientificName(), null);
+	        String response = cache.get(key);
+	        MetricsRegistries.getRegistry().recordCacheLookup("ZooBankService", "NomenclaturalActs.json", response!=null);
+	        if (response==null) { 
+	        	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	        	// not made with HttpClients, as no match is reported as a 404, but still rate limited
+	        	ResilienceGuard guard = HttpClients.getGuard(url.toString());
+	        	boolean trial = guard.checkCircuit();
+	        	try { 
+	        		guard.acquire();
+	        	} catch (InterruptedIOException e) { 
+	        		if (trial) { 
+	        			guard.releaseTrial();
+	        		}
+	        		throw e;
+	        	}
+	        	long start = MetricsRegistries.start();
+	        	boolean failed = true;
+	        	try { 
+	        		InputStream is = url.openStream();
+	        		byte[] buffer = new byte[8192];
+	        		int read;
+	        		while ((read = is.read(buffer)) != -1) { 
+	        			bytes.write(buffer, 0, read);
+	        		}
+	        		is.close();
+	        		failed = false;
+	        	} catch (FileNotFoundException e) { 
+	        		failed = false;
+	        		throw e;
+	        	} finally { 
+	        		MetricsRegistries.stop("ZooBankService", "NomenclaturalActs.json", start, failed);
+	        		if (failed) { 
+	        			guard.onFailure();
+	        		} else { 
+	        			guard.onSuccess();
+	        		}
+	        	}
+	        	MetricsRegistries.getRegistry().recordBytesReceived("ZooBankService", "NomenclaturalActs.json", bytes.size());
+	        	response = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	        	cache.put(key, response);
+	        }
 			log.debug("1");
-		    JsonReader rdr = Json.createReader(is);
+		    JsonReader rdr = Json.createReader(new StringReader(response));
 			log.debug("2");
 		    JsonArray results = rdr.readArray();
 		    log.debug(results.toString());
@@ -117,9 +165,8 @@ public class ZooBankService implements Validator {
 		    		NameUsage usage = new NameUsage();
 		    		String scientificName = act.getCleanprotonym();
 		    		String foundAuthor = "";
-		    		NameParser nameParser = new NameParserGBIF();
 		    		try {
-		    			ParsedName parse = nameParser.parse(scientificName);
+		    			NameParse parse = NameParsers.parse(scientificName);
 		    			foundAuthor = parse.authorshipComplete();
 		    			if (foundAuthor!=null && foundAuthor.length()>0) { 
 		    				scientificName = parse.canonicalNameWithoutAuthorship();
@@ -131,11 +178,6 @@ public class ZooBankService implements Validator {
 		    		} catch (UnparsableNameException | InterruptedException e) {
 		    			log.error(e.getMessage());
 		    		}
-		    		try {
-						nameParser.close();
-					} catch (Exception e) {
-						log.error(e.getMessage(), e);
-					}
 		    		NameComparison nameComparison = sciComp.compareWithoutAuthor(taxonToValidate.getScientificName(), scientificName);
 		    		if (nameComparison.equals(NameComparison.MATCH_EXACT)) { 
 		    			usage.setScientificName(scientificName);
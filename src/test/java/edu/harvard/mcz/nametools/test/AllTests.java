@@ -9,6 +9,10 @@ import org.junit.runners.Suite.SuiteClasses;
 	TestAuthorNameComparator.class, 
 	TestICZNAuthorNameComparator.class, 
 	TestICNafpAuthorNameComparator.class,
+	TestNormalizedAuthorship.class,
+	TestNameParsers.class,
+	TestEditDistance.class,
+	TestApproximateNameIndex.class,
 	TestLookupResult.class
 	})
 public class AllTests {
@@ -0,0 +1,105 @@
+package edu.harvard.mcz.nametools.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.harvard.mcz.nametools.ApproximateNameIndex;
+import edu.harvard.mcz.nametools.EditDistance;
+import edu.harvard.mcz.nametools.NameComparison;
+import edu.harvard.mcz.nametools.ScientificNameComparator;
+
+public class TestApproximateNameIndex {
+
+	@Test
+	public void testFind() {
+		ApproximateNameIndex index = new ApproximateNameIndex();
+		assertTrue(index.add("Puma concolor"));
+		assertTrue(index.add("Puma"));
+		assertTrue(index.add("Felis concolor"));
+		assertTrue(index.add("Felis catus"));
+		assertTrue(index.add("puma  CONCOLOR"));
+		assertFalse(index.add(""));
+		assertFalse(index.add(null));
+		assertEquals(5, index.size());
+
+		List<ApproximateNameIndex.Match> matches = index.find("Puma concolour", 2, 10);
+		assertEquals(1, matches.size());
+		assertEquals("puma concolor", matches.get(0).getName());
+		assertEquals(1, matches.get(0).getDistance());
+
+		matches = index.find("Pelis catus", 2, 10);
+		assertEquals(1, matches.size());
+		assertEquals("felis catus", matches.get(0).getName());
+
+		index.add("Puma concolar");
+		matches = index.find("Puma concolour", 2, 10);
+		assertEquals(2, matches.size());
+		assertEquals("puma concolor", matches.get(0).getName());
+		assertEquals("puma concolar", matches.get(1).getName());
+		assertEquals(2, matches.get(1).getDistance());
+		assertEquals(1, index.find("Puma concolour", 2, 1).size());
+		assertEquals(1, index.find("PUMA", 1, 10).size());
+
+		assertEquals(0, index.find("Lynx lynx", 2, 10).size());
+		assertEquals(0, index.find(null, 2, 10).size());
+		assertEquals(0, new ApproximateNameIndex().find("Puma", 2, 10).size());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testFindDistanceTooLarge() {
+		new ApproximateNameIndex().find("Puma", ApproximateNameIndex.DEFAULT_MAX_DISTANCE + 1, 10);
+	}
+
+	@Test
+	public void testFindMatchesLinearSearch() {
+		Random random = new Random(1758);
+		String alphabet = "abcdeilnorstu ";
+		List<String> names = new ArrayList<String>();
+		ApproximateNameIndex index = new ApproximateNameIndex(3);
+		for (int i=0; i<2000; i++) { 
+			StringBuilder name = new StringBuilder();
+			int length = 1 + random.nextInt(12);
+			for (int j=0; j<length; j++) { 
+				name.append(alphabet.charAt(random.nextInt(alphabet.length() - 1)));
+			}
+			index.add(name.toString());
+			if (!names.contains(name.toString())) { 
+				names.add(name.toString());
+			}
+		}
+		for (int i=0; i<200; i++) { 
+			String query = names.get(random.nextInt(names.size()));
+			query = query.substring(1) + alphabet.charAt(random.nextInt(alphabet.length() - 1));
+			for (int maxDistance=0; maxDistance<=3; maxDistance++) { 
+				int expected = 0;
+				for (int j=0; j<names.size(); j++) { 
+					if (EditDistance.distance(query, names.get(j))<=maxDistance) { 
+						expected++;
+					}
+				}
+				assertEquals(query, expected, index.find(query, maxDistance, Integer.MAX_VALUE).size());
+			}
+		}
+	}
+
+	@Test
+	public void testRankCandidates() {
+		List<String> candidates = new ArrayList<String>();
+		candidates.add("Puma");
+		candidates.add("Felis concolor");
+		candidates.add("Puma concolor");
+		List<NameComparison> ranked = new ScientificNameComparator().rankCandidates("Puma concolour", candidates);
+		assertEquals(3, ranked.size());
+		assertEquals("Puma concolor", ranked.get(0).getNameTwo());
+		assertEquals(NameComparison.SNMATCH_ONGENUS, ranked.get(0).getMatchType());
+		assertTrue(NameComparison.isPlausible(ranked.get(0).getMatchType()));
+		assertFalse(NameComparison.isPlausible(ranked.get(1).getMatchType()));
+		assertTrue(ranked.get(1).getSimilarity() >= ranked.get(2).getSimilarity());
+	}
+
+}
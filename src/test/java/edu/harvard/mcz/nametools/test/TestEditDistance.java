@@ -0,0 +1,53 @@
+package edu.harvard.mcz.nametools.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import edu.harvard.mcz.nametools.EditDistance;
+
+public class TestEditDistance {
+
+	@Test
+	public void testDistance() {
+		assertEquals(0, EditDistance.distance("", ""));
+		assertEquals(5, EditDistance.distance("", "Smith"));
+		assertEquals(5, EditDistance.distance("Smith", ""));
+		assertEquals(0, EditDistance.distance("Linnaeus", "Linnaeus"));
+		assertEquals(1, EditDistance.distance("Smith", "Smyth"));
+		assertEquals(3, EditDistance.distance("kitten", "sitting"));
+		assertEquals(3, EditDistance.distance("sitting", "kitten"));
+		assertEquals(2, EditDistance.distance("Linné", "Linne."));
+		assertEquals(1, EditDistance.distance("Günther", "Gunther"));
+
+		// longer than the 64 chars of the bit-parallel algorithm
+		StringBuilder longer = new StringBuilder();
+		for (int i=0; i<10; i++) { 
+			longer.append("Torr. & A. Gray ");
+		}
+		String other = longer.toString().replace("Gray", "Grey");
+		assertEquals(10, EditDistance.distance(longer, other));
+		assertEquals(-1, EditDistance.distance(longer, other, 9));
+	}
+
+	@Test
+	public void testBoundedDistance() {
+		assertEquals(3, EditDistance.distance("kitten", "sitting", 3));
+		assertEquals(-1, EditDistance.distance("kitten", "sitting", 2));
+		assertEquals(-1, EditDistance.distance("Lamarck", "L.", 1));
+		assertEquals(0, EditDistance.distance("Say", "Say", 0));
+		assertEquals(-1, EditDistance.distance("Say", "Saj", 0));
+	}
+
+	@Test
+	public void testSimilarity() {
+		assertEquals(1d, EditDistance.similarity("", ""), 0d);
+		assertEquals(0.8d, EditDistance.similarity("Smith", "Smyth"), .00001d);
+		assertEquals(0.8d, EditDistance.similarity("Smith", "Smyth", 0.8d), .00001d);
+		assertEquals(-1d, EditDistance.similarity("Smith", "Smyth", 0.81d), 0d);
+		assertEquals(1d, EditDistance.similarity("Smith", "Smith", 1d), 0d);
+		assertEquals(-1d, EditDistance.similarity("Smith", "Smithe", 1d), 0d);
+		assertEquals(0d, EditDistance.similarity("abc", "xyz", 0d), 0d);
+	}
+
+}
@@ -0,0 +1,64 @@
+/** 
+ * TestNameParsers.java
+ * 
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.harvard.mcz.nametools.test;
+
+import static org.junit.Assert.*;
+
+import org.gbif.nameparser.api.Rank;
+import org.gbif.nameparser.api.UnparsableNameException;
+import org.junit.Test;
+
+import edu.harvard.mcz.nametools.NameParse;
+import edu.harvard.mcz.nametools.NameParsers;
+
+/**
+ * Tests of the shared name parser and its cache of parse results.
+ * 
+ * @author mole
+ *
+ */
+public class TestNameParsers {
+
+	@Test
+	public void testParse() throws UnparsableNameException, InterruptedException {
+		NameParse parse = NameParsers.parse("Puma concolor (Linnaeus, 1771)");
+		assertEquals("Puma concolor", parse.canonicalNameWithoutAuthorship());
+		assertEquals("(Linnaeus, 1771)", parse.authorshipComplete());
+		assertEquals("Puma", parse.getGenus());
+		assertEquals("concolor", parse.getSpecificEpithet());
+		assertEquals(Rank.SPECIES, parse.getRank());
+		assertFalse(parse.isUnparsable());
+		
+		// the cached parse is returned for the same name, rank, and code
+		assertSame(parse, NameParsers.parse("Puma concolor (Linnaeus, 1771)", Rank.UNRANKED, null));
+		assertTrue(NameParsers.getParseCacheSize() > 0);
+	}
+	
+	@Test
+	public void testParseUnparsable() throws InterruptedException {
+		for (int i=0; i<2; i++) { 
+			try { 
+				NameParsers.parse("Tobacco mosaic virus");
+				fail("Expected an UnparsableNameException");
+			} catch (UnparsableNameException e) { 
+				assertEquals("Tobacco mosaic virus", e.getName());
+			}
+		}
+	}
+
+}
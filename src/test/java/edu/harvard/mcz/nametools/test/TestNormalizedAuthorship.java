@@ -0,0 +1,66 @@
+package edu.harvard.mcz.nametools.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import edu.harvard.mcz.nametools.ICNafpAuthorNameComparator;
+import edu.harvard.mcz.nametools.ICZNAuthorNameComparator;
+import edu.harvard.mcz.nametools.NameComparison;
+import edu.harvard.mcz.nametools.NormalizedAuthorship;
+
+public class TestNormalizedAuthorship {
+
+	@Test
+	public void testForms() {
+		NormalizedAuthorship authorship = new NormalizedAuthorship("(H. Adams & A. Adams, 1853)");
+		assertEquals("(hadams&aadams1853)", authorship.getCompact());
+		assertEquals("hadamsaadams", authorship.getLetters());
+		assertEquals("hadamsandaadams", authorship.getLettersWithAnd());
+		assertEquals("1853", authorship.getDigits());
+		assertTrue(authorship.hasYear());
+		assertTrue(authorship.hasParen());
+
+		authorship = new NormalizedAuthorship("Linnaeus, [1758]");
+		assertEquals("linnaeus[1758]", authorship.getCompact());
+		assertEquals("linnaeus1758", authorship.getCompactWithoutBrackets());
+		assertFalse(authorship.hasParen());
+
+		assertFalse(new NormalizedAuthorship("(L.) (Mill.)").hasParen());
+		assertFalse(new NormalizedAuthorship("Smith, 12345").hasYear());
+	}
+
+	@Test
+	public void testTokens() {
+		NormalizedAuthorship authorship = new NormalizedAuthorship("(Pers.: Fr.) P. Kumm. ex Gray");
+		assertEquals(4, authorship.getTokens().size());
+		assertEquals("Pers.", authorship.getTokens().get(0));
+		assertEquals("Fr.", authorship.getTokens().get(1));
+		assertEquals("P. Kumm.", authorship.getTokens().get(2));
+		assertEquals("Gray", authorship.getTokens().get(3));
+		assertEquals(ICNafpAuthorNameComparator.tokenizeAuthorship("(Pers.: Fr.) P. Kumm. ex Gray"), authorship.getTokens());
+
+		assertEquals(0, new NormalizedAuthorship("").getTokens().size());
+	}
+
+	@Test
+	public void testValueOf() {
+		assertNull(NormalizedAuthorship.valueOf(null));
+		assertSame(NormalizedAuthorship.valueOf("Lamarck, 1822"), NormalizedAuthorship.valueOf("Lamarck, 1822"));
+	}
+
+	@Test
+	public void testCompareNormalized() {
+		ICZNAuthorNameComparator zoological = new ICZNAuthorNameComparator(.75d,.5d);
+		NormalizedAuthorship authorship = NormalizedAuthorship.valueOf("(Linnaeus, 1758)");
+		assertEquals(NameComparison.MATCH_EXACT, zoological.compareNormalized(authorship, NormalizedAuthorship.valueOf("(Linnaeus 1758)")).getMatchType());
+		assertEquals(zoological.compare("(Linnaeus, 1758)", "Linnaeus, 1758").getMatchType(),
+				zoological.compareNormalized(authorship, NormalizedAuthorship.valueOf("Linnaeus, 1758")).getMatchType());
+		assertEquals(NameComparison.MATCH_ERROR, zoological.compareNormalized(authorship, null).getMatchType());
+
+		ICNafpAuthorNameComparator botanical = new ICNafpAuthorNameComparator(.75d,.5d);
+		assertEquals(botanical.compare("(L.) Mill.", "(L.) Miller").getMatchType(),
+				botanical.compareNormalized(NormalizedAuthorship.valueOf("(L.) Mill."), NormalizedAuthorship.valueOf("(L.) Miller")).getMatchType());
+	}
+
+}
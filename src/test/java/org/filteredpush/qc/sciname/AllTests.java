@@ -8,7 +8,13 @@ import org.junit.runners.Suite.SuiteClasses;
 @SuiteClasses({ 
 	TestDwCSciNameDQ.class, 
 	TestSciNameUtils.class,
-	TaxonTest.class
+	TaxonTest.class,
+	TestBatchRunner.class,
+	TestDwcArchiveReader.class,
+	TestResultWriters.class,
+	TestDQRecordRunner.class,
+	TestDQDatasetRunner.class,
+	TestRankVocabulary.class
 })
 public class AllTests {
 
@@ -0,0 +1,264 @@
+/** 
+ * TestBatchRunner.java
+ * 
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.filteredpush.qc.sciname.services.ServiceException;
+import org.filteredpush.qc.sciname.services.Validator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.harvard.mcz.nametools.NameUsage;
+
+/**
+ * Tests for BatchRunner, using a local validator so that no network access is needed.
+ * 
+ * @author mole
+ *
+ */
+public class TestBatchRunner {
+
+	private static final Log logger = LogFactory.getLog(TestBatchRunner.class);
+	
+	private static final int ROWS = 200;
+
+	private File input;
+	private File output;
+	
+	@Before
+	public void setUp() throws IOException { 
+		input = File.createTempFile("batchrunner_in", ".csv");
+		output = new File(input.getParentFile(), input.getName().replace("_in", "_out"));
+		FileWriter writer = new FileWriter(input);
+		writer.write("dbpk,scientificName,authorship\n");
+		for (int i=1; i<=ROWS; i++) { 
+			writer.write(Integer.toString(i) + ",Name" + i + ",Author\n");
+		}
+		writer.close();
+	}
+	
+	@After
+	public void tearDown() { 
+		input.delete();
+		output.delete();
+	}
+	
+	/**
+	 * Test method for {@link org.filteredpush.qc.sciname.BatchRunner#runBatch()}.
+	 */
+	@Test
+	public void testRunBatchSingleThread() throws Exception {
+		BatchRunner runner = new BatchRunner(input.getPath(), output.getPath(), new SlowValidator(null));
+		assertTrue(runner.runBatch());
+		assertInInputOrder(readOutput());
+	}
+
+	/**
+	 * Test method for {@link org.filteredpush.qc.sciname.BatchRunner#runBatch()}, 
+	 * output must remain in input order when lookups complete out of order.
+	 */
+	@Test
+	public void testRunBatchParallel() throws Exception {
+		final AtomicInteger inFlight = new AtomicInteger(0);
+		final AtomicInteger maxInFlight = new AtomicInteger(0);
+		BatchRunner.setConcurrencyLimit(SlowValidator.class, 3);
+		try { 
+			BatchRunner runner = new BatchRunner(input.getPath(), output.getPath(), new SlowValidator(new AtomicInteger[] { inFlight, maxInFlight }), 8);
+			assertEquals(8, runner.getThreads());
+			assertTrue(runner.runBatch());
+		} finally { 
+			BatchRunner.setConcurrencyLimit(SlowValidator.class, 0);
+		}
+		assertInInputOrder(readOutput());
+		logger.debug(maxInFlight.get());
+		assertTrue(maxInFlight.get() <= 3);
+		assertTrue(maxInFlight.get() > 0);
+	}
+	
+	/**
+	 * Test method for {@link org.filteredpush.qc.sciname.BatchRunner#runBatch()}, 
+	 * with names passed to the validator in groups, including a final partial group,
+	 * groups containing a failing name fall back to validating one name at a time.
+	 */
+	@Test
+	public void testRunBatchGrouped() throws Exception {
+		BatchRunner runner = new BatchRunner(input.getPath(), output.getPath(), new SlowValidator(null), 4);
+		runner.setBatchSize(3);
+		assertEquals(3, runner.getBatchSize());
+		assertTrue(runner.runBatch());
+		assertInInputOrder(readOutput());
+	}
+	
+	/**
+	 * Test method for {@link org.filteredpush.qc.sciname.BatchRunner#runBatch()}, 
+	 * a validator throwing an unchecked exception fails only the rows it was thrown for,
+	 * in groups and one name at a time.
+	 */
+	@Test
+	public void testRunBatchUncheckedFailure() throws Exception {
+		BatchRunner runner = new BatchRunner(input.getPath(), output.getPath(), new SlowValidator(null, true), 4);
+		assertTrue(runner.runBatch());
+		assertInInputOrder(readOutput());
+		
+		runner.setBatchSize(3);
+		assertTrue(runner.runBatch());
+		assertInInputOrder(readOutput());
+	}
+	
+	/**
+	 * Test method for {@link org.filteredpush.qc.sciname.BatchRunner#runBatch()}, 
+	 * reading names from an unpacked Darwin Core archive, numbered by row.
+	 */
+	@Test
+	public void testRunBatchArchive() throws Exception {
+		File archive = new File(input.getParentFile(), input.getName().replace(".csv", "_dwca"));
+		archive.mkdir();
+		File meta = new File(archive, DwcArchiveReader.META_FILE);
+		File core = new File(archive, "occurrence.txt");
+		try { 
+			FileWriter writer = new FileWriter(meta);
+			writer.write("<archive xmlns=\"http://rs.tdwg.org/dwc/text/\">\n"
+					+ "<core fieldsTerminatedBy=\"\\t\" linesTerminatedBy=\"\\n\" fieldsEnclosedBy=\"\" ignoreHeaderLines=\"1\" rowType=\"http://rs.tdwg.org/dwc/terms/Occurrence\">\n"
+					+ "<files><location>occurrence.txt</location></files>\n"
+					+ "<id index=\"0\"/>\n"
+					+ "<field index=\"1\" term=\"http://rs.tdwg.org/dwc/terms/catalogNumber\"/>\n"
+					+ "<field index=\"2\" term=\"http://rs.tdwg.org/dwc/terms/scientificName\"/>\n"
+					+ "<field index=\"3\" term=\"http://rs.tdwg.org/dwc/terms/scientificNameAuthorship\"/>\n"
+					+ "</core>\n</archive>\n");
+			writer.close();
+			writer = new FileWriter(core);
+			writer.write("id\tcatalogNumber\tscientificName\tscientificNameAuthorship\n");
+			for (int i=1; i<=ROWS; i++) { 
+				writer.write("occ" + i + "\tMCZ:" + i + "\tName" + i + "\tAuthor\n");
+			}
+			writer.close();
+			BatchRunner runner = new BatchRunner(archive.getPath(), output.getPath(), new SlowValidator(null), 4);
+			assertTrue(runner.runBatch());
+			assertInInputOrder(readOutput());
+		} finally { 
+			meta.delete();
+			core.delete();
+			archive.delete();
+		}
+	}
+	
+	private List<CSVRecord> readOutput() throws IOException { 
+		List<CSVRecord> result = new ArrayList<CSVRecord>();
+		CSVParser parser = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(new FileReader(output));
+		Iterator<CSVRecord> i = parser.iterator();
+		while (i.hasNext()) { 
+			result.add(i.next());
+		}
+		parser.close();
+		return result;
+	}
+	
+	private void assertInInputOrder(List<CSVRecord> rows) { 
+		assertEquals(ROWS, rows.size());
+		for (int i=0; i<ROWS; i++) { 
+			String dbpk = Integer.toString(i+1);
+			assertEquals(dbpk, rows.get(i).get("dbpk"));
+			if ((i+1) % 7 == 0) { 
+				assertEquals("Error, Lookup Failed.", rows.get(i).get("match"));
+			} else if ((i+1) % 5 == 0) { 
+				assertEquals("Not Found", rows.get(i).get("match"));
+			} else { 
+				assertEquals("Name" + dbpk, rows.get(i).get("scientificName"));
+				assertEquals("Exact Match", rows.get(i).get("match"));
+			}
+		}
+	}
+	
+	/**
+	 * Validator that takes a variable time to respond, so that lookups complete out of order,
+	 * finds most names, doesn't find every fifth name, and fails on every seventh name.
+	 */
+	private static class SlowValidator implements Validator { 
+		
+		private AtomicInteger[] counters;
+		private boolean unchecked;
+		
+		SlowValidator(AtomicInteger[] counters) { 
+			this(counters, false);
+		}
+		
+		/**
+		 * @param counters names in flight and the maximum in flight, or null.
+		 * @param unchecked if true, fail with an unchecked exception rather than a ServiceException.
+		 */
+		SlowValidator(AtomicInteger[] counters, boolean unchecked) { 
+			this.counters = counters;
+			this.unchecked = unchecked;
+		}
+
+		@Override
+		public NameUsage validate(NameUsage taxonNameToValidate) throws ServiceException {
+			if (counters!=null) { 
+				int current = counters[0].incrementAndGet();
+				counters[1].accumulateAndGet(current, Math::max);
+			}
+			try { 
+				int dbpk = taxonNameToValidate.getInputDbPK();
+				Thread.sleep((ROWS - dbpk) % 4);
+				if (dbpk % 7 == 0) { 
+					if (unchecked) { 
+						throw new IllegalStateException("Simulated failure");
+					}
+					throw new ServiceException("Simulated failure");
+				}
+				if (dbpk % 5 == 0) { 
+					return null;
+				}
+				NameUsage result = new NameUsage();
+				result.setInputDbPK(dbpk);
+				result.setScientificName(taxonNameToValidate.getScientificName());
+				result.setAuthorship(taxonNameToValidate.getAuthorship());
+				result.setMatchDescription("Exact Match");
+				return result;
+			} catch (InterruptedException e) {
+				throw new ServiceException(e.getMessage());
+			} finally { 
+				if (counters!=null) { 
+					counters[0].decrementAndGet();
+				}
+			}
+		}
+
+		@Override
+		public List<String> supportedExtensionTerms() {
+			return new ArrayList<String>();
+		}
+	}
+	
+}
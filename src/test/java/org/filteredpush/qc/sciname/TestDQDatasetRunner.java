@@ -0,0 +1,109 @@
+/**
+ * TestDQDatasetRunner.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.datakurator.ffdq.api.result.ComplianceValue;
+import org.datakurator.ffdq.model.ResultState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of DQDatasetRunner, using a test that makes no lookups, so that no network
+ * access is needed.
+ *
+ * @author mole
+ *
+ */
+public class TestDQDatasetRunner {
+
+	private static final String TEST = DQRecordRunner.VALIDATION_POLYNOMIAL_CONSISTENT;
+
+	private File input;
+	private File output;
+
+	@Before
+	public void setUp() throws IOException {
+		input = File.createTempFile("datasetrunner_in", ".csv");
+		output = new File(input.getParentFile(), input.getName().replace("_in", "_out"));
+		FileWriter writer = new FileWriter(input);
+		writer.write("occurrenceID,scientificName,genericName,specificEpithet,locality\n");
+		writer.write("1,Murex pecten,Murex,pecten,Here\n");
+		writer.write("2,Murex pecten,Conus,pecten,Here\n");
+		writer.write("3,,Murex,pecten,Here\n");
+		// same tuple as the first row, differing only in a term the test does not use
+		writer.write("4,Murex pecten,Murex,pecten,There\n");
+		writer.write("5,Murex pecten,Conus,pecten,There\n");
+		writer.close();
+	}
+
+	@After
+	public void tearDown() {
+		input.delete();
+		output.delete();
+	}
+
+	@Test
+	public void testRun() throws Exception {
+		DQDatasetRunner runner = new DQDatasetRunner(input.getPath(), output.getPath(), null);
+		assertTrue(runner.run(Collections.singletonList(TEST)));
+		assertEquals(3, runner.getDistinctTuples());
+
+		List<CSVRecord> rows = new ArrayList<CSVRecord>();
+		FileReader reader = new FileReader(output);
+		CSVParser records = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(reader);
+		try { 
+			rows.addAll(records.getRecords());
+		} finally { 
+			records.close();
+			reader.close();
+		}
+
+		// every row has the response for its tuple, in the order of the input
+		String[] expectedState = { ResultState.RUN_HAS_RESULT.getLabel(), ResultState.RUN_HAS_RESULT.getLabel(),
+				ResultState.INTERNAL_PREREQUISITES_NOT_MET.getLabel(), ResultState.RUN_HAS_RESULT.getLabel(),
+				ResultState.RUN_HAS_RESULT.getLabel() };
+		String[] expectedValue = { ComplianceValue.COMPLIANT.getLabel(), ComplianceValue.NOT_COMPLIANT.getLabel(),
+				"", ComplianceValue.COMPLIANT.getLabel(), ComplianceValue.NOT_COMPLIANT.getLabel() };
+		String[] expectedLocality = { "Here", "Here", "Here", "There", "There" };
+		assertEquals(expectedState.length, rows.size());
+		for (int i=0; i<rows.size(); i++) { 
+			CSVRecord row = rows.get(i);
+			assertEquals(Integer.toString(i+1), row.get("occurrenceID"));
+			assertEquals(expectedLocality[i], row.get("locality"));
+			assertEquals(expectedState[i], row.get(TEST + " status"));
+			assertEquals(expectedValue[i], row.get(TEST + " result"));
+		}
+		// rows of the same tuple share the response
+		assertEquals(rows.get(0).get(TEST + " comment"), rows.get(3).get(TEST + " comment"));
+	}
+
+}
@@ -0,0 +1,161 @@
+/** 
+ * TestDQRecordRunner.java
+ * 
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.datakurator.ffdq.api.DQResponse;
+import org.filteredpush.qc.sciname.services.LookupCache;
+import org.filteredpush.qc.sciname.services.LookupCaches;
+import org.junit.Test;
+
+/**
+ * Tests of the planning of lookups for a record by DQRecordRunner, does not require 
+ * network access.
+ * 
+ * @author mole
+ *
+ */
+public class TestDQRecordRunner {
+
+	@Test
+	public void testPlan() throws SourceAuthorityException {
+		DQRecordRunner runner = new DQRecordRunner(null, 1);
+		Map<String,String> record = new HashMap<String,String>();
+		record.put("dwc:kingdom", "Animalia");
+		record.put("dwc:family", "Muricidae");
+		
+		List<String> tests = new ArrayList<String>();
+		tests.add(DQRecordRunner.VALIDATION_FAMILY_FOUND);
+		tests.add(DQRecordRunner.VALIDATION_CLASSIFICATION_CONSISTENT);
+		tests.add(DQRecordRunner.VALIDATION_GENUS_FOUND);
+		Map<String,Callable<Object>> lookups = runner.plan(record, tests);
+		// the family at rank Family is looked up once for both tests, 
+		// with no genus, genus found makes no lookup 
+		assertEquals(2, lookups.size());
+		
+		record.put("dwc:genus", "Murex");
+		lookups = runner.plan(record, tests);
+		assertEquals(4, lookups.size());
+		
+		tests.add(DQRecordRunner.VALIDATION_KINGDOM_FOUND);
+		tests.add(DQRecordRunner.VALIDATION_TAXON_UNAMBIGUOUS);
+		tests.add(DQRecordRunner.AMENDMENT_SCIENTIFICNAMEID_FROM_TAXON);
+		record.put("dwc:scientificName", "Murex brevifrons Lamarck, 1822");
+		record.put("dwc:scientificNameAuthorship", "Lamarck, 1822");
+		lookups = runner.plan(record, tests);
+		// one search for the name shared by taxon unambiguous and the amendment
+		assertEquals(6, lookups.size());
+		runner.close();
+	}
+	
+	@Test
+	public void testLookupsPerRecord() throws Exception { 
+		// stands in for the service, answering every lookup with no matches
+		final Map<String,Integer> lookups = new HashMap<String,Integer>();
+		LookupCaches.setCache(new LookupCache() {
+			@Override
+			public synchronized String get(String key) {
+				Integer count = lookups.get(key);
+				lookups.put(key, count==null ? 1 : count + 1);
+				return "{\"offset\":0,\"limit\":100,\"endOfRecords\":true,\"results\":[]}";
+			}
+			@Override
+			public void put(String key, String value) { }
+			@Override
+			public void invalidate(String key) { }
+			@Override
+			public void clear() { }
+			@Override
+			public int size() { return 0; }
+			@Override
+			public void close() { }
+		});
+		DQRecordRunner runner = new DQRecordRunner(null, 1);
+		try { 
+			Map<String,String> record = new HashMap<String,String>();
+			record.put("dwc:kingdom", "Animalia");
+			record.put("dwc:family", "Testrunneridae");
+			record.put("dwc:genus", "Testrunnerus");
+			record.put("dwc:scientificName", "Testrunnerus plannedi");
+			
+			List<String> tests = new ArrayList<String>();
+			tests.add(DQRecordRunner.VALIDATION_FAMILY_FOUND);
+			tests.add(DQRecordRunner.VALIDATION_GENUS_FOUND);
+			tests.add(DQRecordRunner.VALIDATION_CLASSIFICATION_CONSISTENT);
+			tests.add(DQRecordRunner.VALIDATION_TAXON_UNAMBIGUOUS);
+			tests.add(DQRecordRunner.AMENDMENT_SCIENTIFICNAMEID_FROM_TAXON);
+			Map<String,DQResponse<?>> responses = runner.run(record, tests);
+			assertEquals(tests, new ArrayList<String>(responses.keySet()));
+			
+			// the tests find the responses to the planned lookups in memory, 
+			// each lookup goes past the in memory cache to the service only once
+			assertFalse(lookups.isEmpty());
+			Iterator<Map.Entry<String,Integer>> i = lookups.entrySet().iterator();
+			while (i.hasNext()) { 
+				Map.Entry<String,Integer> lookup = i.next();
+				assertEquals(lookup.getKey(), Integer.valueOf(1), lookup.getValue());
+			}
+		} finally { 
+			runner.close();
+			LookupCaches.setCache(null);
+		}
+	}
+	
+	@Test
+	public void testTupleKey() { 
+		List<String> tests = new ArrayList<String>();
+		tests.add(DQRecordRunner.VALIDATION_FAMILY_FOUND);
+		tests.add(DQRecordRunner.VALIDATION_KINGDOM_FOUND);
+		List<String> terms = DQDatasetRunner.unionOfTerms(tests);
+		assertEquals(2, terms.size());
+		
+		Map<String,String> record = new HashMap<String,String>();
+		record.put("dwc:kingdom", "Animalia");
+		record.put("dwc:family", "Muricidae");
+		record.put("dwc:occurrenceID", "1");
+		Map<String,String> other = new HashMap<String,String>(record);
+		other.put("dwc:occurrenceID", "2");
+		// rows differing only in terms the tests don't use are one tuple
+		assertEquals(DQDatasetRunner.tupleKey(record, terms), DQDatasetRunner.tupleKey(other, terms));
+		other.put("dwc:family", "Conidae");
+		assertNotEquals(DQDatasetRunner.tupleKey(record, terms), DQDatasetRunner.tupleKey(other, terms));
+		// but are the same for the test that only uses kingdom
+		List<String> kingdom = DQRecordRunner.getTerms(DQRecordRunner.VALIDATION_KINGDOM_FOUND);
+		assertEquals(DQDatasetRunner.tupleKey(record, kingdom), DQDatasetRunner.tupleKey(other, kingdom));
+		// an empty value is distinct from a value
+		other.remove("dwc:family");
+		assertNotEquals(DQDatasetRunner.tupleKey(record, terms), DQDatasetRunner.tupleKey(other, terms));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testPlanUnsupported() throws SourceAuthorityException { 
+		DQRecordRunner runner = new DQRecordRunner(null, 1);
+		List<String> tests = new ArrayList<String>();
+		tests.add("VALIDATION_NOT_A_TEST");
+		runner.plan(new HashMap<String,String>(), tests);
+	}
+
+}
@@ -0,0 +1,191 @@
+/**
+ * TestDwcArchiveReader.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for DwcArchiveReader, using small archives written to a temporary directory.
+ *
+ * @author mole
+ *
+ */
+public class TestDwcArchiveReader {
+
+	private static final String TAB_META = "<archive xmlns=\"http://rs.tdwg.org/dwc/text/\">\n"
+			+ "<core encoding=\"UTF-8\" fieldsTerminatedBy=\"\\t\" linesTerminatedBy=\"\\n\" fieldsEnclosedBy=\"\" ignoreHeaderLines=\"1\" rowType=\"http://rs.tdwg.org/dwc/terms/Occurrence\">\n"
+			+ "<files><location>occurrence.txt</location></files>\n"
+			+ "<id index=\"0\"/>\n"
+			+ "<field index=\"1\" term=\"http://rs.tdwg.org/dwc/terms/catalogNumber\"/>\n"
+			+ "<field index=\"2\" term=\"http://rs.tdwg.org/dwc/terms/kingdom\"/>\n"
+			+ "<field index=\"3\" term=\"http://rs.tdwg.org/dwc/terms/scientificName\"/>\n"
+			+ "<field index=\"4\" term=\"http://rs.tdwg.org/dwc/terms/scientificNameAuthorship\"/>\n"
+			+ "<field term=\"http://rs.tdwg.org/dwc/terms/basisOfRecord\" default=\"PreservedSpecimen\"/>\n"
+			+ "</core>\n"
+			+ "</archive>\n";
+
+	private static final String CSV_META = "<archive xmlns=\"http://rs.tdwg.org/dwc/text/\">\n"
+			+ "<core fieldsTerminatedBy=\",\" linesTerminatedBy=\"\\r\\n\" fieldsEnclosedBy='\"' ignoreHeaderLines=\"1\" rowType=\"http://rs.tdwg.org/dwc/terms/Occurrence\">\n"
+			+ "<files><location>data/occurrence.csv</location></files>\n"
+			+ "<id index=\"0\"/>\n"
+			+ "<field index=\"1\" term=\"http://rs.tdwg.org/dwc/terms/family\"/>\n"
+			+ "<field index=\"2\" term=\"http://rs.tdwg.org/dwc/terms/scientificName\"/>\n"
+			+ "<field index=\"3\" term=\"http://rs.tdwg.org/dwc/terms/occurrenceRemarks\"/>\n"
+			+ "</core>\n"
+			+ "</archive>\n";
+
+	private File directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("dwca", "");
+		directory.delete();
+		directory.mkdir();
+	}
+
+	@After
+	public void tearDown() {
+		delete(directory);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children!=null) { 
+			for (int i=0; i<children.length; i++) { 
+				delete(children[i]);
+			}
+		}
+		file.delete();
+	}
+
+	private static void write(File file, String content) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		out.write(content.getBytes(StandardCharsets.UTF_8));
+		out.close();
+	}
+
+	@Test
+	public void testUnpackedArchive() throws Exception {
+		write(new File(directory, DwcArchiveReader.META_FILE), TAB_META);
+		StringBuilder data = new StringBuilder("id\tcatalogNumber\tkingdom\tscientificName\tscientificNameAuthorship\n");
+		int rows = 5000;
+		for (int i=1; i<=rows; i++) { 
+			data.append(i).append("\tMCZ:").append(i).append("\tAnimalia\tMurex pecten").append(i).append("\tLightfoot, 1786\n");
+			if (i==10) { 
+				// blank line
+				data.append("\n");
+			}
+		}
+		write(new File(directory, "occurrence.txt"), data.toString());
+		assertTrue(DwcArchiveReader.isArchive(directory));
+
+		List<String> terms = Arrays.asList("dwc:scientificName", "dwc:kingdom", "id", "dwc:basisOfRecord", "dwc:genus");
+		DwcArchiveReader reader = new DwcArchiveReader(directory, terms);
+		try { 
+			assertEquals(terms, reader.getTerms());
+			assertTrue(reader.hasTerm("dwc:scientificName"));
+			assertTrue(reader.hasTerm("dwc:basisOfRecord"));
+			assertFalse(reader.hasTerm("dwc:genus"));
+			String[] values;
+			int count = 0;
+			while ((values = reader.next())!=null) { 
+				count++;
+				assertEquals(count, reader.getRowNumber());
+				assertEquals("Murex pecten" + count, values[0]);
+				assertEquals("Animalia", values[1]);
+				assertEquals(Integer.toString(count), values[2]);
+				assertEquals("PreservedSpecimen", values[3]);
+				assertNull(values[4]);
+			}
+			assertEquals(rows, count);
+		} finally { 
+			reader.close();
+		}
+
+		// meta.xml may be given in place of the directory
+		reader = new DwcArchiveReader(new File(directory, DwcArchiveReader.META_FILE), Arrays.asList("scientificNameAuthorship"));
+		try { 
+			Map<String,String> record = reader.nextRecord();
+			assertEquals(1, record.size());
+			assertEquals("Lightfoot, 1786", record.get("scientificNameAuthorship"));
+		} finally { 
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testZippedArchive() throws Exception {
+		File zip = new File(directory, "dwca.zip");
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip));
+		out.putNextEntry(new ZipEntry("export/" + DwcArchiveReader.META_FILE));
+		out.write(CSV_META.getBytes(StandardCharsets.UTF_8));
+		out.closeEntry();
+		out.putNextEntry(new ZipEntry("export/data/occurrence.csv"));
+		out.write(("id,family,scientificName,occurrenceRemarks\r\n"
+				+ "a1,Muricidae,Murex pecten,plain\r\n"
+				+ "a2,\"Muricidae\",\"Chicoreus ramosus (Linnaeus, 1758)\",\"said \"\"large\"\", see\r\nnotes\"\r\n"
+				+ "a3,,\"\",\r\n"
+				+ "a4,Conidae,Conus cedonulli,").getBytes(StandardCharsets.UTF_8));
+		out.closeEntry();
+		out.close();
+		assertTrue(DwcArchiveReader.isArchive(zip));
+
+		DwcArchiveReader reader = new DwcArchiveReader(zip, Arrays.asList("dwc:id", "dwc:scientificName", "dwc:family"));
+		try { 
+			assertArrayEquals(new String[] { "a1", "Murex pecten", "Muricidae" }, reader.next());
+			assertArrayEquals(new String[] { "a2", "Chicoreus ramosus (Linnaeus, 1758)", "Muricidae" }, reader.next());
+			assertArrayEquals(new String[] { "a3", "", "" }, reader.next());
+			// last line without a line terminator
+			assertArrayEquals(new String[] { "a4", "Conus cedonulli", "Conidae" }, reader.next());
+			assertNull(reader.next());
+			assertEquals(4, reader.getRowNumber());
+		} finally { 
+			reader.close();
+		}
+
+		reader = new DwcArchiveReader(zip, Arrays.asList("occurrenceRemarks"));
+		try { 
+			assertEquals("plain", reader.next()[0]);
+			assertEquals("said \"large\", see\r\nnotes", reader.next()[0]);
+		} finally { 
+			reader.close();
+		}
+	}
+
+	@Test(expected=IOException.class)
+	public void testMissingCore() throws Exception {
+		write(new File(directory, DwcArchiveReader.META_FILE), TAB_META);
+		new DwcArchiveReader(directory, Arrays.asList("dwc:scientificName"));
+	}
+
+}
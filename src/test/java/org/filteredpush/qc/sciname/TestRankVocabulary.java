@@ -0,0 +1,137 @@
+/**
+ * TestRankVocabulary.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests of the indexing of the rank vocabulary by RankVocabulary, using the bundled
+ * snapshot, does not require network access.
+ *
+ * @author mole
+ *
+ */
+public class TestRankVocabulary {
+
+	@Test
+	public void testSnapshot() {
+		RankVocabulary vocabulary = RankVocabulary.getInstance();
+		String[] ranks = { "kingdom", "infraclass", "parvorder", "supertribe", "genus", "infragenericName",
+				"species", "subspecies", "variety", "formaSpecialis", "cultivar", "strain", "unranked" };
+		for (int i=0; i<ranks.length; i++) { 
+			assertTrue(ranks[i], vocabulary.isRank(ranks[i]));
+		}
+		assertFalse(vocabulary.isRank("notarank"));
+	}
+
+	@Test
+	public void testExactAndFolded() {
+		RankVocabulary vocabulary = RankVocabulary.getInstance();
+		// exact matches are case sensitive
+		assertTrue(vocabulary.isRank("species"));
+		assertFalse(vocabulary.isRank("Species"));
+		assertFalse(vocabulary.isTerm("Species"));
+		// alternative terms are terms, but not ranks
+		assertTrue(vocabulary.isTerm("subsp."));
+		assertFalse(vocabulary.isRank("subsp."));
+		assertEquals("subspecies", vocabulary.getRankForTerm("subsp."));
+		assertEquals("infragenericName", vocabulary.getRankForTerm("infrageneric name"));
+		assertNull(vocabulary.getRankForTerm("SUBSP."));
+
+		// folded matches ignore case, whitespace, and a trailing period
+		assertEquals("species", vocabulary.lookup("Species"));
+		assertEquals("species", vocabulary.lookup(" SPECIES "));
+		assertEquals("subspecies", vocabulary.lookup("Subsp"));
+		assertEquals("infragenericName", vocabulary.lookup("Infrageneric Name"));
+		assertEquals("family", vocabulary.lookup("fam"));
+		assertNull(vocabulary.lookup("notarank"));
+		assertNull(vocabulary.lookup(""));
+		assertNull(vocabulary.lookup(null));
+	}
+
+	@Test
+	public void testFold() {
+		assertEquals("subsp", RankVocabulary.fold(" Sub sp. "));
+		assertEquals("f.sp", RankVocabulary.fold("f. sp."));
+		assertEquals("", RankVocabulary.fold(null));
+	}
+
+	@Test
+	public void testAliases() {
+		Map<String,String> values = new HashMap<String,String>();
+		values.put("species", "species");
+		values.put("variety", "variety");
+		RankVocabulary vocabulary = new RankVocabulary(values);
+		// aliases are indexed for the ranks in the vocabulary
+		assertEquals("species", vocabulary.lookup("sp."));
+		assertEquals("species", vocabulary.lookup("SP"));
+		assertEquals("variety", vocabulary.lookup("var."));
+		// but are not themselves terms
+		assertFalse(vocabulary.isTerm("sp."));
+		// and are not indexed for ranks not in the vocabulary
+		assertNull(vocabulary.lookup("f."));
+		assertNull(vocabulary.lookup("forma"));
+	}
+
+	@Test
+	public void testAmbiguousRemoved() {
+		Map<String,String> values = new HashMap<String,String>();
+		values.put("order", "order");
+		values.put("section", "section");
+		values.put("ord.", "order");
+		values.put("Ord", "section");
+		values.put("sect.", "section");
+		RankVocabulary vocabulary = new RankVocabulary(values);
+		// a folded form shared by two ranks matches neither
+		assertNull(vocabulary.lookup("ord"));
+		assertNull(vocabulary.lookup("ORD."));
+		// exact matches are unaffected
+		assertEquals("order", vocabulary.getRankForTerm("ord."));
+		assertEquals("section", vocabulary.getRankForTerm("Ord"));
+		// unambiguous folded forms still match
+		assertEquals("order", vocabulary.lookup("Order"));
+		assertEquals("section", vocabulary.lookup("Sect"));
+	}
+
+	@Test
+	public void testReplace() throws Exception {
+		RankVocabulary current = RankVocabulary.getInstance();
+		// a load that finds nothing retains the current instance
+		assertFalse(RankVocabulary.replace(new HashMap<String,String>(), "test"));
+		assertSame(current, RankVocabulary.getInstance());
+
+		Map<String,String> values = new HashMap<String,String>();
+		values.put("species", "species");
+		try { 
+			assertTrue(RankVocabulary.replace(values, "test"));
+			assertNotSame(current, RankVocabulary.getInstance());
+			assertFalse(RankVocabulary.getInstance().isRank("genus"));
+		} finally { 
+			RankAuthorityLoader loader = new RankAuthorityLoader();
+			loader.loadSnapshot();
+			RankVocabulary.replace(loader.getValues(), RankAuthorityLoader.SNAPSHOT_RESOURCE);
+		}
+		assertTrue(RankVocabulary.getInstance().isRank("genus"));
+	}
+
+}
@@ -0,0 +1,138 @@
+/**
+ * TestResultWriters.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for ResultWriters and AsyncResultWriter, writing csv to a temporary file.
+ *
+ * @author mole
+ *
+ */
+public class TestResultWriters {
+
+	private File outputFile;
+
+	@Before
+	public void setUp() throws IOException {
+		outputFile = File.createTempFile("results", ".csv");
+		outputFile.delete();
+	}
+
+	@After
+	public void tearDown() {
+		outputFile.delete();
+	}
+
+	@Test
+	public void testIsColumnar() {
+		assertTrue(ResultWriters.isColumnar(new File("output.arrow")));
+		assertTrue(ResultWriters.isColumnar(new File("/tmp/Output.FEATHER")));
+		assertFalse(ResultWriters.isColumnar(new File("output.csv")));
+		assertFalse(ResultWriters.isColumnar(new File("arrow")));
+	}
+
+	@Test
+	public void testWriteCsv() throws IOException {
+		List<String> columns = Arrays.asList("dbpk", "scientificName", "authorship");
+		int rows = 20000;
+		ResultWriter writer = ResultWriters.open(outputFile, columns);
+		try { 
+			for (int i=1; i<=rows; i++) { 
+				writer.write(new String[] { Integer.toString(i), "Murex pecten" + i, i % 2 == 0 ? null : "Lightfoot, 1786" });
+			}
+		} finally { 
+			writer.close();
+		}
+
+		BufferedReader reader = new BufferedReader(new FileReader(outputFile));
+		CSVParser records = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(reader);
+		try { 
+			assertEquals(columns, new ArrayList<String>(records.getHeaderMap().keySet()));
+			int count = 0;
+			Iterator<CSVRecord> i = records.iterator();
+			while (i.hasNext()) { 
+				CSVRecord record = i.next();
+				count++;
+				assertEquals(Integer.toString(count), record.get(0));
+				assertEquals("Murex pecten" + count, record.get(1));
+				assertEquals(count % 2 == 0 ? "" : "Lightfoot, 1786", record.get(2));
+			}
+			assertEquals(rows, count);
+		} finally { 
+			records.close();
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testFailureReported() throws IOException {
+		ResultWriter failing = new ResultWriter() {
+			private int written = 0;
+			@Override
+			public void write(String[] row) throws IOException {
+				written++;
+				if (written > 10) { 
+					throw new IOException("Disk full");
+				}
+			}
+			@Override
+			public void close() throws IOException {
+			}
+		};
+		ResultWriter writer = new AsyncResultWriter(failing, 4);
+		IOException reported = null;
+		try { 
+			for (int i=0; i<1000 && reported==null; i++) { 
+				try { 
+					writer.write(new String[] { Integer.toString(i) });
+				} catch (IOException e) {
+					reported = e;
+				}
+			}
+		} finally { 
+			try { 
+				writer.close();
+			} catch (IOException e) {
+				if (reported==null) { 
+					reported = e;
+				}
+			}
+		}
+		assertNotNull(reported);
+		assertEquals("Disk full", reported.getMessage());
+	}
+
+}
@@ -17,8 +17,11 @@ package org.filteredpush.qc.sciname;
 
 import static org.junit.Assert.*;
 
+import org.gbif.nameparser.api.UnparsableNameException;
 import org.junit.Test;
 
+import edu.harvard.mcz.nametools.NameAuthorshipParse;
+
 /**
  * @author mole
  *
@@ -55,6 +58,36 @@ public class TestSciNameUtils {
 		assertEquals(false,SciNameUtils.isEqualOrNonEmpty("", " "));
 	}
 
-	
+	/**
+	 * Test method for {@link org.filteredpush.qc.sciname.SciNameUtils#getNameWithoutAuthorship(java.lang.String)}.
+	 */
+	@Test
+	public void testGetNameWithoutAuthorship() throws UnparsableNameException {
+		// the strategy is process wide, clear any left by other tests
+		SciNameUtils.setAuthorshipParseStrategy(null);
+		if (System.getProperty(SciNameUtils.PROPERTY_AUTHORSHIP_PARSE_STRATEGY)==null) { 
+			assertEquals(EnumAuthorshipParseStrategy.LOCAL_FIRST, SciNameUtils.getAuthorshipParseStrategy());
+		}
+		
+		SciNameUtils.setAuthorshipParseStrategy(EnumAuthorshipParseStrategy.LOCAL_FIRST);
+		try { 
+			NameAuthorshipParse parse = SciNameUtils.getNameWithoutAuthorship("Murex brevifrons Lamarck, 1822");
+			assertEquals("Murex brevifrons", parse.getNameWithoutAuthorship());
+			assertEquals("Lamarck, 1822", parse.getAuthorship());
+			assertEquals(SciNameUtils.LOCAL_PARSE_SOURCE, parse.getParseSource());
+		} finally { 
+			SciNameUtils.setAuthorshipParseStrategy(null);
+		}
+		
+		SciNameUtils.setAuthorshipParseStrategy(EnumAuthorshipParseStrategy.LOCAL_ONLY);
+		try { 
+			NameAuthorshipParse parse = SciNameUtils.getNameWithoutAuthorship("Babelomurex dalli (Emerson & D'Attilio, 1963)");
+			assertEquals("Babelomurex dalli", parse.getNameWithoutAuthorship());
+			assertEquals("(Emerson & D'Attilio, 1963)", parse.getAuthorship());
+			assertEquals(SciNameUtils.LOCAL_PARSE_SOURCE, parse.getParseSource());
+		} finally { 
+			SciNameUtils.setAuthorshipParseStrategy(null);
+		}
+	}
 	
 }
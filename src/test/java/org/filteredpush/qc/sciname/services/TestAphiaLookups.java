@@ -0,0 +1,151 @@
+/**
+ * TestAphiaLookups.java
+ *
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the caching shared by the Aphia apis, with strings in place of the model classes,
+ * does not require network access.
+ *
+ * @author mole
+ *
+ */
+public class TestAphiaLookups {
+
+	/** Serializes strings, with a leading quote to tell an empty string from null. */
+	private static final AphiaLookups.Json JSON = new AphiaLookups.Json() {
+		@Override
+		public String serialize(Object value) {
+			return value==null ? "null" : "\"" + value;
+		}
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T> T deserialize(String json, Type type) {
+			return json.equals("null") ? null : (T) json.substring(1);
+		}
+	};
+
+	private File directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("aphialookups").toFile();
+		LookupCaches.setCache(new FileLookupCache(directory, 60000L, 1000));
+	}
+
+	@After
+	public void tearDown() {
+		LookupCaches.setCache(null);
+		File[] files = directory.listFiles();
+		if (files!=null) { 
+			for (int i=0; i<files.length; i++) { 
+				files[i].delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testLookup() throws Exception {
+		AphiaLookups lookups = new AphiaLookups("TestAphiaLookups");
+		final AtomicInteger calls = new AtomicInteger();
+		SingleFlight.Call<String,IOException> call = new SingleFlight.Call<String,IOException>() {
+			@Override
+			public String call() throws IOException {
+				calls.incrementAndGet();
+				return "Murex pecten";
+			}
+		};
+		assertEquals("Murex pecten", lookups.lookup("test", "byId", "byId", "1", JSON, String.class, call));
+		assertEquals("Murex pecten", lookups.lookup("test", "byId", "byId", "1", JSON, String.class, call));
+		assertEquals(1, calls.get());
+		// a different key is looked up
+		assertEquals("Murex pecten", lookups.lookup("test", "byId", "byId", "2", JSON, String.class, call));
+		assertEquals(2, calls.get());
+
+		// empty responses are cached
+		SingleFlight.Call<String,IOException> nothing = new SingleFlight.Call<String,IOException>() {
+			@Override
+			public String call() throws IOException {
+				calls.incrementAndGet();
+				return null;
+			}
+		};
+		assertNull(lookups.lookup("test", "byId", "byId", "3", JSON, String.class, nothing));
+		assertNull(lookups.lookup("test", "byId", "byId", "3", JSON, String.class, nothing));
+		assertEquals(3, calls.get());
+	}
+
+	@Test
+	public void testLookupEach() throws Exception {
+		AphiaLookups lookups = new AphiaLookups("TestAphiaLookups");
+		final List<List<String>> requests = new ArrayList<List<String>>();
+		AphiaLookups.Batch<String,IOException> batch = new AphiaLookups.Batch<String,IOException>() {
+			@Override
+			public List<String> lookup(List<String> names) throws IOException {
+				requests.add(new ArrayList<String>(names));
+				// the service answers for all but the last name
+				List<String> result = new ArrayList<String>();
+				for (int i=0; i<names.size()-1; i++) { 
+					result.add(names.get(i).toUpperCase());
+				}
+				return result;
+			}
+			@Override
+			public String empty() {
+				return "";
+			}
+		};
+		assertEquals(Arrays.asList("A", "B", ""), lookups.lookupEach("test", "byNames", "byNames", Arrays.asList("a", "b", "c"), JSON, String.class, batch));
+		// only the names not cached are sent, c was cached as empty
+		assertEquals(Arrays.asList("A", "D", "", ""), lookups.lookupEach("test", "byNames", "byNames", Arrays.asList("a", "d", "e", "c"), JSON, String.class, batch));
+		assertEquals(2, requests.size());
+		assertEquals(Arrays.asList("d", "e"), requests.get(1));
+
+		// with no empty value, names not answered are not cached, and nothing at all is null
+		AphiaLookups.Batch<String,IOException> none = new AphiaLookups.Batch<String,IOException>() {
+			@Override
+			public List<String> lookup(List<String> names) throws IOException {
+				requests.add(new ArrayList<String>(names));
+				return null;
+			}
+			@Override
+			public String empty() {
+				return null;
+			}
+		};
+		assertNull(lookups.lookupEach("test", "byMatch", "byMatch", Arrays.asList("f", "g"), JSON, String.class, none));
+		assertNull(lookups.lookupEach("test", "byMatch", "byMatch", Arrays.asList("f", "g"), JSON, String.class, none));
+		assertEquals(4, requests.size());
+	}
+
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.filteredpush.qc.sciname.services;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Tests of the local copy of an Aphia database, using a small extract in the form of 
+ * a WoRMS darwin core archive export, does not require network access.
+ * 
+ * @author mole
+ *
+ */
+public class TestAphiaSnapshot {
+
+	private File directory;
+	
+	private static final String LSID = LocalWoRMSTaxonomicDataApi.LSID_PREFIX;
+	
+	@Before
+	public void setUp() throws IOException { 
+		directory = Files.createTempDirectory("aphia").toFile();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(new File(directory, AphiaSnapshot.TAXON_FILE_NAME)), StandardCharsets.UTF_8);
+		writer.write("taxonID\tscientificNameID\tacceptedNameUsageID\tparentNameUsageID\tscientificName\tkingdom\tphylum\tclass\torder\tfamily\tgenus\ttaxonRank\tscientificNameAuthorship\ttaxonomicStatus\tmodified\n");
+		writer.write(LSID + "2\t" + LSID + "2\t" + LSID + "2\t\tAnimalia\tAnimalia\t\t\t\t\t\tKingdom\tLinnaeus, 1758\taccepted\t2004-12-21\n");
+		writer.write(LSID + "51\t" + LSID + "51\t" + LSID + "51\t" + LSID + "2\tMollusca\tAnimalia\tMollusca\t\t\t\t\tPhylum\t\taccepted\t2004-12-21\n");
+		writer.write(LSID + "148\t" + LSID + "148\t" + LSID + "148\t" + LSID + "51\tMuricidae\tAnimalia\tMollusca\tGastropoda\tNeogastropoda\tMuricidae\t\tFamily\tRafinesque, 1815\taccepted\t2008-03-06\n");
+		writer.write(LSID + "138205\t" + LSID + "138205\t" + LSID + "138205\t" + LSID + "148\tMurex\tAnimalia\tMollusca\tGastropoda\tNeogastropoda\tMuricidae\tMurex\tGenus\tLinnaeus, 1758\taccepted\t2008-03-06\n");
+		writer.write(LSID + "404683\t" + LSID + "404683\t" + LSID + "404683\t" + LSID + "138205\tMurex pecten\tAnimalia\tMollusca\tGastropoda\tNeogastropoda\tMuricidae\tMurex\tSpecies\tLightfoot, 1786\taccepted\t2010-01-01\n");
+		writer.write(LSID + "404685\t" + LSID + "404685\t" + LSID + "404683\t" + LSID + "138205\tMurex triremis\tAnimalia\tMollusca\tGastropoda\tNeogastropoda\tMuricidae\tMurex\tSpecies\tPerry, 1811\tunaccepted\t2010-01-01\n");
+		writer.close();
+		writer = new OutputStreamWriter(new FileOutputStream(new File(directory, AphiaSnapshot.SPECIES_PROFILE_FILE_NAME)), StandardCharsets.UTF_8);
+		writer.write("taxonID\tisMarine\tisFreshwater\tisTerrestrial\tisExtinct\tisBrackish\n");
+		writer.write(LSID + "404683\t1\t0\t0\t0\t0\n");
+		writer.write(LSID + "404685\t0\t1\t0\t\t0\n");
+		writer.close();
+	}
+	
+	@After
+	public void tearDown() { 
+		File[] files = directory.listFiles();
+		if (files!=null) { 
+			for (int i=0; i<files.length; i++) { 
+				files[i].delete();
+			}
+		}
+		directory.delete();
+	}
+	
+	private AphiaSnapshot load() throws IOException { 
+		return new AphiaSnapshot(directory, "AphiaID", LSID, LocalWoRMSTaxonomicDataApi.URL_PREFIX);
+	}
+	
+	@Test
+	public void testGetRecord() throws IOException { 
+		AphiaSnapshot snapshot = load();
+		assertEquals(6, snapshot.size());
+		JsonObject record = snapshot.getRecord(404685);
+		assertNotNull(record);
+		assertEquals(404685, record.get("AphiaID").getAsInt());
+		assertEquals("Murex triremis", record.get("scientificname").getAsString());
+		assertEquals("Perry, 1811", record.get("authority").getAsString());
+		assertEquals("unaccepted", record.get("status").getAsString());
+		assertEquals(404683, record.get("valid_AphiaID").getAsInt());
+		assertEquals("Murex pecten", record.get("valid_name").getAsString());
+		assertEquals(220, record.get("taxonRankID").getAsInt());
+		assertEquals(138205, record.get("parentNameUsageID").getAsInt());
+		assertEquals(LSID + "404685", record.get("lsid").getAsString());
+		assertFalse(record.get("isMarine").getAsBoolean());
+		assertTrue(record.get("isFreshwater").getAsBoolean());
+		assertNull(snapshot.getRecord(1));
+	}
+	
+	@Test
+	public void testFindByName() throws IOException { 
+		AphiaSnapshot snapshot = load();
+		assertEquals(1, snapshot.findByName("Murex pecten", false).size());
+		assertEquals(1, snapshot.findByName("murex PECTEN", false).size());
+		assertEquals(0, snapshot.findByName("Murex pectin", false).size());
+		assertEquals(1, snapshot.findByName("Murex triremis", false).size());
+		assertEquals(0, snapshot.findByName("Murex triremis", true).size());
+		assertEquals(1, snapshot.findByName("Murex pecten", true).size());
+		
+		JsonArray matches = snapshot.matchName("Murex pecten Lightfoot, 1786", false);
+		assertEquals(1, matches.size());
+		assertEquals(404683, matches.get(0).getAsJsonObject().get("AphiaID").getAsInt());
+		assertEquals(0, snapshot.matchName("Murex pectin Lightfoot, 1786", false).size());
+		assertEquals("Murex pecten", AphiaSnapshot.stripAuthorship("Murex pecten (Lightfoot, 1786)"));
+		assertEquals("Murex", AphiaSnapshot.stripAuthorship("Murex Linnaeus, 1758"));
+	}
+	
+	@Test
+	public void testSynonymsAndClassification() throws IOException { 
+		AphiaSnapshot snapshot = load();
+		JsonArray synonyms = snapshot.findSynonyms(404683);
+		assertEquals(1, synonyms.size());
+		assertEquals("Murex triremis", synonyms.get(0).getAsJsonObject().get("scientificname").getAsString());
+		assertEquals(0, snapshot.findSynonyms(404685).size());
+		
+		JsonObject classification = snapshot.getClassification(404683);
+		assertEquals("Animalia", classification.get("scientificname").getAsString());
+		assertEquals("Kingdom", classification.get("rank").getAsString());
+		JsonObject child = classification.get("child").getAsJsonObject();
+		assertEquals("Mollusca", child.get("scientificname").getAsString());
+		child = child.get("child").getAsJsonObject().get("child").getAsJsonObject();
+		assertEquals("Murex", child.get("scientificname").getAsString());
+		child = child.get("child").getAsJsonObject();
+		assertEquals(404683, child.get("AphiaID").getAsInt());
+		assertTrue(child.get("child").isJsonNull());
+		assertNull(snapshot.getClassification(1));
+	}
+
+}
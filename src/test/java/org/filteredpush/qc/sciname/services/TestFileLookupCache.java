@@ -0,0 +1,162 @@
+/**
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.filteredpush.qc.sciname.services;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the persistent lookup cache, does not require network access.
+ * 
+ * @author mole
+ *
+ */
+public class TestFileLookupCache {
+
+	private static final Log logger = LogFactory.getLog(TestFileLookupCache.class);
+	
+	private File directory;
+	
+	@Before
+	public void setUp() throws IOException { 
+		directory = Files.createTempDirectory("lookupcache").toFile();
+	}
+	
+	@After
+	public void tearDown() { 
+		File[] files = directory.listFiles();
+		if (files!=null) { 
+			for (int i=0; i<files.length; i++) { 
+				files[i].delete();
+			}
+		}
+		directory.delete();
+	}
+	
+	@Test
+	public void testKey() { 
+		assertEquals(LookupCache.key("WoRMS", "op", " Murex  pecten ", "Lightfoot,\t1786"), LookupCache.key("WoRMS", "op", "Murex pecten", "Lightfoot, 1786"));
+		assertNotEquals(LookupCache.key("WoRMS", "op", "Murex pecten", null), LookupCache.key("IRMNG", "op", "Murex pecten", null));
+		assertNotEquals(LookupCache.key("WoRMS", "op", "Murex pecten", null), LookupCache.key("WoRMS", "op", "Murex pecten", "Lightfoot, 1786"));
+		assertEquals("", LookupCache.normalize(null));
+		assertEquals("a b", LookupCache.normalize("\ta \n b "));
+	}
+	
+	@Test
+	public void testPersistence() throws IOException { 
+		FileLookupCache cache = new FileLookupCache(directory, 0, 100);
+		String key = LookupCache.key("WoRMS", "aphiaRecordsByName", "Murex pecten", null);
+		assertNull(cache.get(key));
+		cache.put(key, "[{\"scientificname\":\"Murex pecten\"}]");
+		cache.put(LookupCache.key("WoRMS", "aphiaRecordsByName", "Murex", null), "null");
+		cache.put(LookupCache.key("WoRMS", "aphiaRecordsByName", "Murex", null), "[]");
+		cache.put(LookupCache.key("WoRMS", "aphiaRecordsByName", "Cypraea", null), "[]");
+		cache.invalidate(LookupCache.key("WoRMS", "aphiaRecordsByName", "Cypraea", null));
+		assertEquals(2, cache.size());
+		cache.close();
+		
+		cache = new FileLookupCache(directory, 0, 100);
+		assertEquals(2, cache.size());
+		assertEquals("[{\"scientificname\":\"Murex pecten\"}]", cache.get(key));
+		assertEquals("[]", cache.get(LookupCache.key("WoRMS", "aphiaRecordsByName", "Murex", null)));
+		assertNull(cache.get(LookupCache.key("WoRMS", "aphiaRecordsByName", "Cypraea", null)));
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertNull(cache.get(key));
+		cache.close();
+	}
+	
+	@Test
+	public void testExpiry() throws IOException, InterruptedException { 
+		FileLookupCache cache = new FileLookupCache(directory, 50, 100);
+		cache.put("a", "1");
+		assertEquals("1", cache.get("a"));
+		Thread.sleep(100);
+		assertNull(cache.get("a"));
+		cache.close();
+	}
+	
+	@Test
+	public void testEviction() throws IOException { 
+		FileLookupCache cache = new FileLookupCache(directory, 0, 3);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("c", "3");
+		// use a, so that b is the least recently used
+		assertEquals("1", cache.get("a"));
+		cache.put("d", "4");
+		assertEquals(3, cache.size());
+		assertNull(cache.get("b"));
+		assertEquals("1", cache.get("a"));
+		cache.close();
+		cache = new FileLookupCache(directory, 0, 3);
+		assertNull(cache.get("b"));
+		assertEquals("4", cache.get("d"));
+		cache.close();
+	}
+	
+	@Test
+	public void testCompaction() throws IOException { 
+		FileLookupCache cache = new FileLookupCache(directory, 0, 10);
+		StringBuilder large = new StringBuilder();
+		for (int i=0; i<10000; i++) { 
+			large.append("0123456789");
+		}
+		for (int i=0; i<50; i++) { 
+			cache.put("key" + (i % 5), large.toString() + i);
+		}
+		File file = new File(directory, FileLookupCache.CACHE_FILE_NAME);
+		logger.debug(file.length());
+		assertTrue(file.length() < 20 * large.length());
+		assertEquals(large.toString() + "49", cache.get("key4"));
+		cache.close();
+		cache = new FileLookupCache(directory, 0, 10);
+		assertEquals(5, cache.size());
+		assertEquals(large.toString() + "45", cache.get("key0"));
+		cache.close();
+	}
+	
+	@Test
+	public void testTruncatedRecord() throws IOException { 
+		FileLookupCache cache = new FileLookupCache(directory, 0, 10);
+		cache.put("a", "first");
+		cache.put("b", "second");
+		cache.close();
+		File file = new File(directory, FileLookupCache.CACHE_FILE_NAME);
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(file.length() - 3);
+		raf.close();
+		cache = new FileLookupCache(directory, 0, 10);
+		assertEquals("first", cache.get("a"));
+		assertNull(cache.get("b"));
+		cache.put("b", "again");
+		cache.close();
+		cache = new FileLookupCache(directory, 0, 10);
+		assertEquals("again", cache.get("b"));
+		cache.close();
+	}
+	
+}
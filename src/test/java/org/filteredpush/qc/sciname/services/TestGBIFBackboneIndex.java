@@ -0,0 +1,143 @@
+/**
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.filteredpush.qc.sciname.services;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.json.simple.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the local copy of the GBIF backbone, using a small extract in the 
+ * form of the Taxon.tsv file of the backbone archive, does not require network access.
+ * 
+ * @author mole
+ *
+ */
+public class TestGBIFBackboneIndex {
+
+	private File directory;
+	
+	private static final String HEADER = "taxonID\tdatasetID\tparentNameUsageID\tacceptedNameUsageID\toriginalNameUsageID\tscientificName\tscientificNameAuthorship\tcanonicalName\tgenericName\tspecificEpithet\tinfraspecificEpithet\ttaxonRank\tnameAccordingTo\tnamePublishedIn\ttaxonomicStatus\tnomenclaturalStatus\ttaxonRemarks\tkingdom\tphylum\tclass\torder\tfamily\tgenus";
+	
+	@Before
+	public void setUp() throws IOException { 
+		directory = Files.createTempDirectory("backbone").toFile();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(new File(directory, GBIFBackboneIndex.TAXON_FILE_NAME)), StandardCharsets.UTF_8);
+		writer.write(HEADER + "\n");
+		writer.write("1\t\\N\t\\N\t\\N\t\\N\tAnimalia\t\\N\tAnimalia\tAnimalia\t\\N\t\\N\tkingdom\t\\N\t\\N\taccepted\t\\N\t\\N\tAnimalia\t\\N\t\\N\t\\N\t\\N\t\\N\n");
+		writer.write("9703\t\\N\t1\t\\N\t\\N\tFelidae\t\\N\tFelidae\tFelidae\t\\N\t\\N\tfamily\t\\N\t\\N\taccepted\t\\N\t\\N\tAnimalia\tChordata\tMammalia\tCarnivora\tFelidae\t\\N\n");
+		writer.write("2435098\t\\N\t9703\t\\N\t\\N\tPuma Jardine, 1834\tJardine, 1834\tPuma\tPuma\t\\N\t\\N\tgenus\t\\N\t\\N\taccepted\t\\N\t\\N\tAnimalia\tChordata\tMammalia\tCarnivora\tFelidae\tPuma\n");
+		writer.write("2435099\t\\N\t2435098\t\\N\t\\N\tPuma concolor (Linnaeus, 1771)\t(Linnaeus, 1771)\tPuma concolor\tPuma\tconcolor\t\\N\tspecies\t\\N\t\\N\taccepted\t\\N\t\\N\tAnimalia\tChordata\tMammalia\tCarnivora\tFelidae\tPuma\n");
+		writer.write("5219436\t\\N\t\\N\t2435099\t\\N\tFelis concolor Linnaeus, 1771\tLinnaeus, 1771\tFelis concolor\tFelis\tconcolor\t\\N\tspecies\t\\N\t\\N\thomotypic synonym\t\\N\t\\N\tAnimalia\tChordata\tMammalia\tCarnivora\tFelidae\tPuma\n");
+		writer.write("7000001\t\\N\t\\N\t\\N\t\\N\tPuma Sprague\tSprague\tPuma\tPuma\t\\N\t\\N\tgenus\t\\N\t\\N\tdoubtful\t\\N\t\\N\tPlantae\t\\N\t\\N\t\\N\t\\N\tPuma\n");
+		writer.close();
+	}
+	
+	@After
+	public void tearDown() { 
+		File[] files = directory.listFiles();
+		if (files!=null) { 
+			for (int i=0; i<files.length; i++) { 
+				files[i].delete();
+			}
+		}
+		directory.delete();
+	}
+	
+	@Test
+	public void testGetByKey() throws IOException { 
+		GBIFBackboneIndex index = new GBIFBackboneIndex(directory);
+		assertEquals(6, index.size());
+		JSONObject record = index.getByKey(2435099);
+		assertNotNull(record);
+		assertEquals("Puma concolor (Linnaeus, 1771)", record.get("scientificName"));
+		assertEquals("Puma concolor", record.get("canonicalName"));
+		assertEquals("SPECIES", record.get("rank"));
+		assertEquals("ACCEPTED", record.get("taxonomicStatus"));
+		assertEquals(Integer.valueOf(2435098), record.get("parentKey"));
+		assertEquals("Felidae", record.get("family"));
+		assertEquals(GBIFService.KEY_GBIFBACKBONE, record.get("datasetKey"));
+		assertNull(record.get("acceptedKey"));
+		assertNull(index.getByKey(42));
+	}
+	
+	@Test
+	public void testSynonym() throws IOException { 
+		GBIFBackboneIndex index = new GBIFBackboneIndex(new File(directory, GBIFBackboneIndex.TAXON_FILE_NAME));
+		JSONObject record = index.getByKey(5219436);
+		assertEquals("HOMOTYPIC_SYNONYM", record.get("taxonomicStatus"));
+		assertEquals(Boolean.TRUE, record.get("synonym"));
+		assertEquals(Integer.valueOf(2435099), record.get("acceptedKey"));
+		assertEquals("Puma concolor (Linnaeus, 1771)", record.get("accepted"));
+		
+		List<JSONObject> synonyms = index.findSynonyms(2435099, 10);
+		assertEquals(1, synonyms.size());
+		assertEquals("Felis concolor Linnaeus, 1771", synonyms.get(0).get("scientificName"));
+		assertEquals(0, index.findSynonyms(9703, 10).size());
+	}
+	
+	@Test
+	public void testFindByName() throws IOException { 
+		GBIFBackboneIndex index = new GBIFBackboneIndex(directory);
+		assertEquals(2, index.findByName("Puma", 10).size());
+		assertEquals(2, index.findByName("puma", 10).size());
+		assertEquals(1, index.findByName("Puma", 1).size());
+		assertEquals(1, index.findByName("Puma concolor", 10).size());
+		assertEquals(1, index.findByName("Puma concolor (Linnaeus, 1771)", 10).size());
+		assertEquals(0, index.findByName("Puma concolour", 10).size());
+		
+		List<JSONObject> genera = index.findByNameAtRank("Puma", "genus");
+		assertEquals(2, genera.size());
+		assertEquals(0, index.findByNameAtRank("Puma", "species").size());
+		assertEquals(1, index.findByNameAtRank("Felidae", "FAMILY").size());
+		
+		String response = GBIFBackboneIndex.toSearchResponse(index.findByName("Felidae", 10), 10);
+		assertTrue(response.contains("\"results\""));
+		assertTrue(response.contains("\"numDescendants\""));
+	}
+	
+	@Test
+	public void testFindByApproximateName() throws IOException { 
+		GBIFBackboneIndex index = new GBIFBackboneIndex(directory);
+		List<JSONObject> matches = index.findByApproximateName("Puma concolour", 2, 10);
+		assertEquals(1, matches.size());
+		assertEquals("Puma concolor", matches.get(0).get("canonicalName"));
+		// two records share the canonical name
+		assertEquals(2, index.findByApproximateName("Pumma", 1, 10).size());
+		assertEquals(0, index.findByApproximateName("Puma concolour", 0, 10).size());
+		matches = index.findByApproximateName("felis concolar", 2, 10);
+		assertEquals(1, matches.size());
+		assertEquals(Integer.valueOf(5219436), matches.get(0).get("key"));
+	}
+	
+	@Test(expected=IOException.class)
+	public void testMissingFile() throws IOException { 
+		new GBIFBackboneIndex(new File(directory, "missing.tsv"));
+	}
+
+}
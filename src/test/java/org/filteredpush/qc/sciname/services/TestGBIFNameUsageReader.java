@@ -0,0 +1,96 @@
+/**
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.filteredpush.qc.sciname.services;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.harvard.mcz.nametools.NameUsage;
+
+/**
+ * Tests of the streaming decoder for GBIF species api responses, does not require network access.
+ * 
+ * @author mole
+ *
+ */
+public class TestGBIFNameUsageReader {
+	
+	private static final String PUMA_GENUS = "{\"key\":2435098,\"nubKey\":2435098,\"datasetKey\":\"d7dddbf4-2cf0-4f39-9b2a-bb099caae36c\",\"parentKey\":9703,\"parent\":\"Felidae\","
+			+ "\"kingdom\":\"Animalia\",\"phylum\":\"Chordata\",\"order\":\"Carnivora\",\"family\":\"Felidae\",\"genus\":\"Puma\",\"scientificName\":\"Puma Jardine, 1834\","
+			+ "\"canonicalName\":\"Puma\",\"authorship\":\"Jardine, 1834\",\"taxonomicStatus\":\"ACCEPTED\",\"rank\":\"GENUS\",\"numDescendants\":12,\"synonym\":false,"
+			+ "\"class\":\"Mammalia\",\"higherClassificationMap\":{\"1\":\"Animalia\",\"44\":\"Chordata\"},\"nomenclaturalStatus\":[],\"issues\":[]}";
+	private static final String PUMA_PLANT = "{\"key\":7000001,\"datasetKey\":\"d7dddbf4-2cf0-4f39-9b2a-bb099caae36c\",\"kingdom\":\"Plantae\",\"scientificName\":\"Puma Sprague\","
+			+ "\"canonicalName\":\"Puma\",\"authorship\":\"Sprague\",\"taxonomicStatus\":\"DOUBTFUL\",\"acceptedKey\":null,\"rank\":\"GENUS\",\"numDescendants\":0,\"synonym\":false}";
+	private static final String PUMA_SPECIES = "{\"key\":2435099,\"datasetKey\":\"d7dddbf4-2cf0-4f39-9b2a-bb099caae36c\",\"kingdom\":\"Animalia\",\"scientificName\":\"Puma concolor (Linnaeus, 1771)\","
+			+ "\"canonicalName\":\"Puma concolor\",\"authorship\":\"(Linnaeus, 1771)\",\"taxonomicStatus\":\"ACCEPTED\",\"rank\":\"SPECIES\",\"numDescendants\":6,\"synonym\":false}";
+	private static final String PAGE = "{\"offset\":0,\"limit\":100,\"endOfRecords\":true,\"results\":[" + PUMA_SPECIES + "," + PUMA_GENUS + "," + PUMA_PLANT + "]}";
+
+	@Test
+	public void testReadAll() throws IOException {
+		List<NameUsage> usages = GBIFNameUsageReader.readAll(new StringReader(PAGE));
+		assertEquals(3, usages.size());
+		assertEquals(2435099, usages.get(0).getKey());
+		assertEquals("Puma concolor", usages.get(0).getCanonicalName());
+		assertEquals("Mammalia", usages.get(1).getClazz());
+		assertEquals("Jardine, 1834", usages.get(1).getAuthorship());
+		assertEquals(2435098, usages.get(1).getAcceptedKey());
+		assertEquals(0, usages.get(2).getAcceptedKey());
+		
+		// a bare array and a single record, as from species/{id}
+		assertEquals(2, GBIFNameUsageReader.readAll(new StringReader("[" + PUMA_GENUS + "," + PUMA_PLANT + "]")).size());
+		usages = GBIFNameUsageReader.readAll(new StringReader(PUMA_GENUS));
+		assertEquals(1, usages.size());
+		assertEquals("Felidae", usages.get(0).getFamily());
+	}
+	
+	@Test
+	public void testReadPage() throws IOException {
+		GBIFNameUsageReader.Page page = GBIFNameUsageReader.readPage(new StringReader(PAGE));
+		assertEquals(3, page.getUsages().size());
+		assertTrue(page.isEndOfRecords());
+		// more records found than returned
+		page = GBIFNameUsageReader.readPage(new StringReader("{\"offset\":0,\"limit\":1,\"endOfRecords\":false,\"results\":[" + PUMA_GENUS + "]}"));
+		assertEquals(1, page.getUsages().size());
+		assertFalse(page.isEndOfRecords());
+		// a bare array is all of the records
+		assertTrue(GBIFNameUsageReader.readPage(new StringReader("[" + PUMA_GENUS + "]")).isEndOfRecords());
+	}
+	
+	@Test
+	public void testReadAtRank() throws IOException {
+		List<NameUsage> usages = GBIFNameUsageReader.readAtRank(new StringReader(PAGE), "puma", "Genus");
+		assertEquals(2, usages.size());
+		assertEquals("Animalia", usages.get(0).getKingdom());
+		assertEquals("Plantae", usages.get(1).getKingdom());
+		assertEquals(0, GBIFNameUsageReader.readAtRank(new StringReader(PAGE), "Puma", "Family").size());
+	}
+	
+	@Test
+	public void testReadFirstNamed() throws IOException {
+		NameUsage usage = GBIFNameUsageReader.readFirstNamed(new StringReader(PAGE), "Puma");
+		assertEquals(2435098, usage.getKey());
+		assertNull(GBIFNameUsageReader.readFirstNamed(new StringReader(PAGE), "Felis"));
+		// stops reading at the match, the truncated remainder is never parsed
+		usage = GBIFNameUsageReader.readFirstNamed(new StringReader("{\"results\":[" + PUMA_SPECIES + ",{\"key\":"), "Puma concolor");
+		assertEquals(2435099, usage.getKey());
+	}
+
+}
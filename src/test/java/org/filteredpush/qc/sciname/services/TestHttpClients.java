@@ -0,0 +1,161 @@
+/**
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.filteredpush.qc.sciname.services;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests of the shared http clients against a local server, does not require network access.
+ * 
+ * @author mole
+ *
+ */
+public class TestHttpClients {
+	
+	private HttpServer server;
+	private String base;
+	private AtomicInteger busyRequests = new AtomicInteger();
+
+	@Before
+	public void setUp() throws IOException { 
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/echo", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				byte[] response;
+				if (exchange.getRequestMethod().equals("POST")) { 
+					InputStream in = exchange.getRequestBody();
+					ByteArrayOutputStream body = new ByteArrayOutputStream();
+					byte[] buffer = new byte[1024];
+					int read;
+					while ((read = in.read(buffer)) != -1) { 
+						body.write(buffer, 0, read);
+					}
+					response = body.toByteArray();
+				} else { 
+					response = exchange.getRequestURI().getQuery().getBytes(StandardCharsets.UTF_8);
+				}
+				exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+				exchange.sendResponseHeaders(200, response.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(response);
+				out.close();
+			}
+		});
+		server.createContext("/missing", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.sendResponseHeaders(404, -1);
+				exchange.close();
+			}
+		});
+		server.createContext("/busy", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				// overloaded on the first request
+				if (busyRequests.incrementAndGet()==1) { 
+					exchange.getResponseHeaders().add("Retry-After", "1");
+					exchange.sendResponseHeaders(429, -1);
+					exchange.close();
+					return;
+				}
+				byte[] response = "ready".getBytes(StandardCharsets.UTF_8);
+				exchange.sendResponseHeaders(200, response.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(response);
+				out.close();
+			}
+		});
+		server.start();
+		base = "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+	
+	@After
+	public void tearDown() { 
+		server.stop(0);
+	}
+
+	@Test
+	public void testGetClient() {
+		assertSame(HttpClients.getClient(base + "/echo"), HttpClients.getClient(base + "/missing"));
+		assertNotSame(HttpClients.getClient(base), HttpClients.getClient("https://www.marinespecies.org/rest"));
+	}
+	
+	@Test
+	public void testGet() throws IOException {
+		assertEquals("name=Puma", HttpClients.get(base + "/echo?name=Puma"));
+		assertEquals("[\"Puma concolor\"]", HttpClients.post(base + "/echo", "[\"Puma concolor\"]"));
+		try { 
+			HttpClients.get(base + "/missing");
+			fail("Expected an IOException on a 404");
+		} catch (IOException e) { 
+			assertTrue(e.getMessage().contains("404"));
+		}
+	}
+	
+	@Test
+	public void testRetryThrottled() throws IOException {
+		long start = System.currentTimeMillis();
+		assertEquals("ready", HttpClients.get(base + "/busy"));
+		assertEquals(2, busyRequests.get());
+		// waited for Retry-After
+		assertTrue(System.currentTimeMillis() - start >= 1000L);
+		assertEquals(ResilienceGuard.CircuitState.CLOSED, HttpClients.getGuard(base).getCircuitState());
+	}
+	
+	@Test
+	public void testRetryThrottledAsync() throws IOException {
+		long start = System.currentTimeMillis();
+		CompletableFuture<String> busy = HttpClients.getAsync(base + "/busy");
+		assertEquals("ready", HttpClients.await(busy));
+		assertEquals(2, busyRequests.get());
+		// the retry was scheduled after the Retry-After
+		assertTrue(System.currentTimeMillis() - start >= 1000L);
+	}
+	
+	@Test
+	public void testGetAsync() throws IOException {
+		CompletableFuture<String> first = HttpClients.getAsync(base + "/echo?name=Puma");
+		CompletableFuture<String> second = HttpClients.getAsync(base + "/echo?name=Felis");
+		CompletableFuture<String> missing = HttpClients.getAsync(base + "/missing");
+		assertEquals("name=Felis", HttpClients.await(second));
+		assertEquals("name=Puma", HttpClients.await(first));
+		try { 
+			HttpClients.await(missing);
+			fail("Expected an IOException on a 404");
+		} catch (IOException e) { 
+			assertTrue(e.getMessage().contains("404"));
+		}
+	}
+
+}
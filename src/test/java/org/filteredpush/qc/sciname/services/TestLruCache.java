@@ -0,0 +1,64 @@
+/**
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.filteredpush.qc.sciname.services;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * @author mole
+ *
+ */
+public class TestLruCache {
+
+	@Test
+	public void testGetPut() { 
+		LruCache<String,String> cache = new LruCache<String,String>(2, 0);
+		assertNull(cache.get("Animalia"));
+		cache.put("Animalia", "1");
+		cache.put("Plantae", "6");
+		assertEquals("1", cache.get("Animalia"));
+		cache.put("Fungi", "5");
+		// Plantae is least recently used
+		assertNull(cache.get("Plantae"));
+		assertEquals("1", cache.get("Animalia"));
+		assertEquals("5", cache.get("Fungi"));
+		assertEquals(2, cache.size());
+		assertEquals(3, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		assertEquals(1, cache.getEvictions());
+		assertEquals(0.6d, cache.getHitRatio(), 0.0001d);
+		cache.resetStatistics();
+		assertEquals(0, cache.getHits());
+		assertEquals(0d, cache.getHitRatio(), 0.0001d);
+		cache.put("Chromista", null);
+		assertNull(cache.get("Chromista"));
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+	
+	@Test
+	public void testExpiry() throws InterruptedException { 
+		LruCache<String,String> cache = new LruCache<String,String>(10, 50);
+		cache.put("Animalia", "1");
+		assertEquals("1", cache.get("Animalia"));
+		Thread.sleep(100);
+		assertNull(cache.get("Animalia"));
+		assertEquals(1, cache.getEvictions());
+	}
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+/**
+ * @author mole
+ *
+ */
+public class TestMetricsRegistry {
+
+	@Test
+	public void testOperationMetrics() {
+		OperationMetrics metrics = new OperationMetrics("WoRMSService", "aphiaRecordsByName");
+		assertEquals(0d, metrics.getMedianMillis(), 0.0001d);
+		assertEquals(0d, metrics.getCallsPerSecond(), 0.0001d);
+		for (int i=0; i<98; i++) { 
+			metrics.recordCall(3000000L, false);  // 3 ms
+		}
+		metrics.recordCall(100000000L, true);  // 100 ms
+		metrics.recordCall(200000000L, true);  // 200 ms
+		metrics.recordRetry();
+		metrics.recordBytesReceived(1024L);
+		metrics.recordCacheLookup(true);
+		metrics.recordCacheLookup(true);
+		metrics.recordCacheLookup(true);
+		metrics.recordCacheLookup(false);
+		assertEquals(100, metrics.getCount());
+		assertEquals(2, metrics.getFailures());
+		assertEquals(1, metrics.getRetries());
+		assertEquals(1024, metrics.getBytesReceived());
+		assertEquals(0.75d, metrics.getCacheHitRatio(), 0.0001d);
+		assertEquals(200d, metrics.getMaxMillis(), 0.0001d);
+		assertEquals((98 * 3 + 300) / 100d, metrics.getMeanMillis(), 0.0001d);
+		// percentiles are accurate to within a factor of two
+		assertTrue(metrics.getMedianMillis() >= 3d && metrics.getMedianMillis() <= 6d);
+		assertTrue(metrics.getPercentile95Millis() >= 3d && metrics.getPercentile95Millis() <= 6d);
+		assertTrue(metrics.getPercentile99Millis() >= 100d && metrics.getPercentile99Millis() <= 200d);
+		assertTrue(metrics.getPercentileMillis(1d) <= metrics.getMaxMillis());
+		assertTrue(metrics.getCallsPerSecond() > 0d);
+		assertTrue(metrics.toString().startsWith("WoRMSService aphiaRecordsByName calls=100 failures=2 retries=1"));
+		metrics.reset();
+		assertEquals(0, metrics.getCount());
+		assertEquals(0d, metrics.getMaxMillis(), 0.0001d);
+		assertEquals(0d, metrics.getPercentile99Millis(), 0.0001d);
+	}
+
+	@Test
+	public void testSummary() {
+		InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry(false);
+		assertEquals("", registry.summary());
+		registry.recordCall("WoRMSService", "aphiaRecordsByName", 1000000L, false);
+		registry.recordCall("GBIFService", "species/match", 1000000L, false);
+		registry.recordCacheLookup("GBIFService", "species/match", false);
+		LruCache<String,String> cache = new LruCache<String,String>(10, 0);
+		cache.get("Animalia");
+		registry.registerCache("test", cache);
+		assertEquals(2, registry.getOperations().size());
+		assertEquals("GBIFService", registry.getOperations().get(0).getComponent());
+		assertEquals(1, registry.getOperation("WoRMSService", "aphiaRecordsByName").getCount());
+		String[] lines = registry.summary().split("\n");
+		assertEquals(3, lines.length);
+		assertTrue(lines[0].startsWith("GBIFService species/match calls=1"));
+		assertTrue(lines[0].contains("cacheMisses=1"));
+		assertTrue(lines[1].startsWith("WoRMSService aphiaRecordsByName calls=1"));
+		assertTrue(lines[2].startsWith("cache test "));
+		registry.close();
+	}
+
+	@Test
+	public void testJmx() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName operation = new ObjectName(InMemoryMetricsRegistry.JMX_DOMAIN + ":type=Operation,component="
+				+ ObjectName.quote("TestMetricsRegistry") + ",operation=" + ObjectName.quote("lookup"));
+		ObjectName cacheName = new ObjectName(InMemoryMetricsRegistry.JMX_DOMAIN + ":type=Cache,name=" + ObjectName.quote("TestMetricsRegistry"));
+		InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry(true);
+		try { 
+			registry.recordCall("TestMetricsRegistry", "lookup", 1000000L, true);
+			registry.registerCache("TestMetricsRegistry", new LruCache<String,String>(10, 0));
+			assertEquals(Long.valueOf(1), server.getAttribute(operation, "Count"));
+			assertEquals(Long.valueOf(1), server.getAttribute(operation, "Failures"));
+			assertEquals(Long.valueOf(0), server.getAttribute(cacheName, "Hits"));
+		} finally { 
+			registry.close();
+		}
+		assertFalse(server.isRegistered(operation));
+		assertFalse(server.isRegistered(cacheName));
+	}
+
+	@Test
+	public void testDisabled() {
+		MetricsRegistry previous = MetricsRegistries.getRegistry();
+		try { 
+			MetricsRegistries.setRegistry(null);
+			MetricsRegistries.stop("TestMetricsRegistry", "lookup", MetricsRegistries.start(), false);
+			assertEquals("", MetricsRegistries.getRegistry().summary());
+			InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry(false);
+			MetricsRegistries.setRegistry(registry);
+			MetricsRegistries.stop("TestMetricsRegistry", "lookup", MetricsRegistries.start(), false);
+			assertEquals(1, registry.getOperation("TestMetricsRegistry", "lookup").getCount());
+		} finally { 
+			MetricsRegistries.setRegistry(previous);
+		}
+	}
+
+}
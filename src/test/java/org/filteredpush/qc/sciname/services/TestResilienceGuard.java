@@ -0,0 +1,186 @@
+/**
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import static org.junit.Assert.*;
+
+import org.filteredpush.qc.sciname.services.ResilienceGuard.CircuitOpenException;
+import org.filteredpush.qc.sciname.services.ResilienceGuard.CircuitState;
+import org.junit.Test;
+
+/**
+ * @author mole
+ *
+ */
+public class TestResilienceGuard {
+
+	@Test
+	public void testParseRetryAfter() {
+		assertEquals(0L, ResilienceGuard.parseRetryAfter(null, 0L));
+		assertEquals(0L, ResilienceGuard.parseRetryAfter(" ", 0L));
+		assertEquals(120000L, ResilienceGuard.parseRetryAfter("120", 0L));
+		assertEquals(0L, ResilienceGuard.parseRetryAfter("-5", 0L));
+		// Wed, 21 Oct 2015 07:28:00 GMT is 1445412480000
+		assertEquals(30000L, ResilienceGuard.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT", 1445412450000L));
+		assertEquals(0L, ResilienceGuard.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT", 1445412490000L));
+		assertEquals(0L, ResilienceGuard.parseRetryAfter("soon", 0L));
+	}
+
+	@Test
+	public void testBackoff() {
+		ResilienceGuard guard = new ResilienceGuard("test", 0, 1, 3, 100L, 1000L, 5, 1000L);
+		for (int i=0; i<20; i++) { 
+			long delay = guard.backoffMillis(0, 0L);
+			assertTrue(delay >= 50L && delay <= 100L);
+			delay = guard.backoffMillis(2, 0L);
+			assertTrue(delay >= 200L && delay <= 400L);
+		}
+		// capped at the maximum delay
+		ResilienceGuard patient = new ResilienceGuard("test", 0, 1, 10, 100L, 1000L, 5, 1000L);
+		assertTrue(patient.backoffMillis(9, 0L) <= 1000L);
+		// honors Retry-After
+		assertEquals(800L, guard.backoffMillis(0, 800L));
+		// no more retries, or too long to wait
+		assertEquals(-1L, guard.backoffMillis(3, 0L));
+		assertEquals(-1L, guard.backoffMillis(0, 5000L));
+	}
+
+	@Test
+	public void testCircuitBreaker() throws Exception {
+		ResilienceGuard guard = new ResilienceGuard("test", 0, 1, 3, 100L, 1000L, 3, 100L);
+		assertEquals(CircuitState.CLOSED, guard.getCircuitState());
+		guard.onFailure();
+		guard.onFailure();
+		guard.onSuccess();
+		guard.onFailure();
+		guard.onFailure();
+		guard.checkCircuit();
+		guard.onFailure();
+		assertEquals(CircuitState.OPEN, guard.getCircuitState());
+		try { 
+			guard.checkCircuit();
+			fail("Expected the circuit to be open");
+		} catch (CircuitOpenException e) {
+			// expected
+		}
+		Thread.sleep(150);
+		assertEquals(CircuitState.HALF_OPEN, guard.getCircuitState());
+		// one trial request is let through
+		guard.checkCircuit();
+		try { 
+			guard.checkCircuit();
+			fail("Expected only one trial request");
+		} catch (CircuitOpenException e) {
+			// expected
+		}
+		// a failed trial opens the circuit again
+		guard.onFailure();
+		assertEquals(CircuitState.OPEN, guard.getCircuitState());
+		Thread.sleep(150);
+		guard.checkCircuit();
+		guard.onSuccess();
+		assertEquals(CircuitState.CLOSED, guard.getCircuitState());
+		guard.checkCircuit();
+		guard.checkCircuit();
+	}
+
+	@Test
+	public void testReleaseTrial() throws Exception {
+		ResilienceGuard guard = new ResilienceGuard("test", 0, 1, 3, 100L, 1000L, 1, 100L);
+		assertFalse(guard.checkCircuit());
+		guard.onFailure();
+		assertEquals(CircuitState.OPEN, guard.getCircuitState());
+		Thread.sleep(150);
+		assertTrue(guard.checkCircuit());
+		// a trial that ends without an outcome, such as an interrupted wait, is released
+		guard.releaseTrial();
+		assertEquals(CircuitState.HALF_OPEN, guard.getCircuitState());
+		assertTrue(guard.checkCircuit());
+		try { 
+			guard.checkCircuit();
+			fail("Expected only one trial request");
+		} catch (CircuitOpenException e) {
+			// expected
+		}
+		guard.onSuccess();
+		assertEquals(CircuitState.CLOSED, guard.getCircuitState());
+		// releasing outside a trial changes nothing
+		guard.releaseTrial();
+		assertFalse(guard.checkCircuit());
+	}
+
+	@Test
+	public void testRateLimit() throws Exception {
+		ResilienceGuard guard = new ResilienceGuard("test", 20, 1, 3, 100L, 1000L, 5, 1000L);
+		long start = System.nanoTime();
+		for (int i=0; i<5; i++) { 
+			guard.acquire();
+		}
+		long elapsedMillis = (System.nanoTime() - start) / 1000000L;
+		// the first request is immediate, the rest at 50 ms intervals
+		assertTrue(elapsedMillis >= 190L);
+
+		// halved when throttled, and grows back while requests succeed
+		guard.onThrottled(0L);
+		assertEquals(10d, guard.getRate(), 0.0001d);
+		guard.onThrottled(0L);
+		assertEquals(5d, guard.getRate(), 0.0001d);
+		guard.onSuccess();
+		assertEquals(5.2d, guard.getRate(), 0.0001d);
+		for (int i=0; i<500; i++) { 
+			guard.onSuccess();
+		}
+		assertEquals(20d, guard.getRate(), 0.0001d);
+
+		// no limit
+		ResilienceGuard unlimited = new ResilienceGuard("test", 0, 1, 3, 100L, 1000L, 5, 1000L);
+		start = System.nanoTime();
+		for (int i=0; i<100; i++) { 
+			unlimited.acquire();
+		}
+		assertTrue((System.nanoTime() - start) / 1000000L < 100L);
+	}
+
+	@Test
+	public void testReserve() {
+		ResilienceGuard guard = new ResilienceGuard("test", 10, 1, 3, 100L, 1000L, 5, 1000L);
+		// the first attempt may be made at once, the next is reserved 100 ms later, without waiting
+		assertEquals(0L, guard.reserveMillis());
+		long wait = guard.reserveMillis();
+		assertTrue(wait > 50L && wait <= 101L);
+		assertTrue(guard.reserveMillis() > wait);
+		// Retry-After applies without a rate limit
+		ResilienceGuard unlimited = new ResilienceGuard("test", 0, 1, 3, 100L, 1000L, 5, 1000L);
+		assertEquals(0L, unlimited.reserveMillis());
+		unlimited.onThrottled(500L);
+		assertTrue(unlimited.reserveMillis() > 400L);
+	}
+
+	@Test
+	public void testRetryAfterPauses() throws Exception {
+		ResilienceGuard guard = new ResilienceGuard("test", 0, 1, 3, 100L, 1000L, 5, 1000L);
+		guard.onThrottled(200L);
+		long start = System.nanoTime();
+		guard.acquire();
+		assertTrue((System.nanoTime() - start) / 1000000L >= 190L);
+		// Retry-After longer than the maximum delay is not waited for
+		guard.onThrottled(5000L);
+		start = System.nanoTime();
+		guard.acquire();
+		assertTrue((System.nanoTime() - start) / 1000000L < 1000L);
+	}
+
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2026 President and Fellows of Harvard College
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.filteredpush.qc.sciname.services;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+/**
+ * @author mole
+ *
+ */
+public class TestSingleFlight {
+
+	/**
+	 * Start callers of the same key, releasing the lookup once all but the first are waiting on it.
+	 */
+	private List<Future<String>> startCallers(final SingleFlight<String> flight, final AtomicInteger lookups, final CountDownLatch release,
+			final boolean fail, int callers, ExecutorService executor) throws InterruptedException {
+		final CountDownLatch started = new CountDownLatch(1);
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		for (int i=0; i<callers; i++) { 
+			results.add(executor.submit(new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					return flight.execute("species", "Muricidae", new SingleFlight.Call<String,IOException>() {
+						@Override
+						public String call() throws IOException {
+							lookups.incrementAndGet();
+							started.countDown();
+							try { 
+								release.await();
+							} catch (InterruptedException e) {
+								throw new IOException(e);
+							}
+							if (fail) { 
+								throw new IOException("Service unavailable");
+							}
+							return "{\"family\":\"Muricidae\"}";
+						}
+					});
+				}
+			}));
+			if (i==0) { 
+				assertTrue(started.await(10, TimeUnit.SECONDS));
+			}
+		}
+		return results;
+	}
+
+	@Test
+	public void testExecuteCoalesces() throws Exception {
+		SingleFlight<String> flight = new SingleFlight<String>("TestSingleFlight");
+		AtomicInteger lookups = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try { 
+			List<Future<String>> results = startCallers(flight, lookups, release, false, 8, executor);
+			long deadline = System.currentTimeMillis() + 10000L;
+			while (flight.getCoalesced() < 7 && System.currentTimeMillis() < deadline) { 
+				Thread.sleep(5);
+			}
+			assertEquals(1, flight.getInFlight());
+			release.countDown();
+			for (int i=0; i<results.size(); i++) { 
+				assertEquals("{\"family\":\"Muricidae\"}", results.get(i).get());
+			}
+		} finally { 
+			executor.shutdownNow();
+		}
+		assertEquals(1, lookups.get());
+		assertEquals(1, flight.getCalls());
+		assertEquals(7, flight.getCoalesced());
+		assertEquals(0, flight.getInFlight());
+
+		// once complete, the next lookup is made again
+		assertEquals("Buccinidae", flight.execute("species", "Muricidae", new SingleFlight.Call<String,IOException>() {
+			@Override
+			public String call() throws IOException {
+				return "Buccinidae";
+			}
+		}));
+		assertEquals(2, flight.getCalls());
+	}
+
+	@Test
+	public void testExecuteSharesFailure() throws Exception {
+		SingleFlight<String> flight = new SingleFlight<String>("TestSingleFlight");
+		AtomicInteger lookups = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try { 
+			List<Future<String>> results = startCallers(flight, lookups, release, true, 4, executor);
+			long deadline = System.currentTimeMillis() + 10000L;
+			while (flight.getCoalesced() < 3 && System.currentTimeMillis() < deadline) { 
+				Thread.sleep(5);
+			}
+			release.countDown();
+			for (int i=0; i<results.size(); i++) { 
+				try { 
+					results.get(i).get();
+					fail("Expected failure to be shared");
+				} catch (ExecutionException e) {
+					assertTrue(e.getCause() instanceof IOException);
+					assertEquals("Service unavailable", e.getCause().getMessage());
+				}
+			}
+		} finally { 
+			executor.shutdownNow();
+		}
+		assertEquals(1, lookups.get());
+		assertEquals(0, flight.getInFlight());
+	}
+
+	@Test
+	public void testExecuteAsync() throws Exception {
+		SingleFlight<String> flight = new SingleFlight<String>("TestSingleFlight");
+		final CompletableFuture<String> response = new CompletableFuture<String>();
+		final AtomicInteger lookups = new AtomicInteger();
+		Supplier<CompletableFuture<String>> call = new Supplier<CompletableFuture<String>>() {
+			@Override
+			public CompletableFuture<String> get() {
+				lookups.incrementAndGet();
+				return response;
+			}
+		};
+		CompletableFuture<String> first = flight.executeAsync("species", "Conidae", call);
+		CompletableFuture<String> second = flight.executeAsync("species", "Conidae", call);
+		CompletableFuture<String> other = flight.executeAsync("genus", "Conidae", new Supplier<CompletableFuture<String>>() {
+			@Override
+			public CompletableFuture<String> get() {
+				return CompletableFuture.completedFuture("Conus");
+			}
+		});
+		assertFalse(first.isDone());
+		assertEquals("Conus", other.get());
+		response.complete("Conidae");
+		assertEquals("Conidae", first.get());
+		assertEquals("Conidae", second.get());
+		assertEquals(1, lookups.get());
+		assertEquals(1, flight.getCoalesced());
+		assertEquals(0, flight.getInFlight());
+	}
+
+}